@@ -0,0 +1,51 @@
+package com.example.vms;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Worker pool for QR rendering + pass emails. Bounded on both threads and
+     * queue: when it is full the outbox row simply stays PENDING and the relay
+     * picks it up later, so rejecting is safe.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor checkinExecutor(
+            @Value("${app.checkin.workers:4}") int workers,
+            @Value("${app.checkin.queue-capacity:500}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("checkin-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Renders background exports. Few threads (each holds a DB cursor) and a
+     * short queue: a rejected submit is reported to the caller.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor(
+            @Value("${app.export.workers:2}") int workers,
+            @Value("${app.export.queue-capacity:20}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.vms;
+
+import com.example.vms.model.CheckinOutbox;
+import com.example.vms.model.Visitor;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Field;
+
+/**
+ * JDBC batching for bulk writes (group check-ins, outbox rows).
+ * Visitor and outbox ids come from pooled sequences, so Hibernate can group
+ * the inserts; the MySQL driver then rewrites each batch into a multi-row INSERT.
+ */
+@Configuration
+public class JpaBatchConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(JpaBatchConfig.class);
+
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer(
+            @Value("${app.jpa.batch-size:50}") int batchSize
+    ) {
+        return props -> {
+            props.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+            props.putIfAbsent("hibernate.order_inserts", true);
+            props.putIfAbsent("hibernate.order_updates", true);
+        };
+    }
+
+    // without rewriteBatchedStatements Connector/J sends a JDBC batch as N separate
+    // statements; without useCursorFetch it buffers a whole result set even when a
+    // fetch size is set (the export and search-index streams rely on it)
+    @Bean
+    public static BeanPostProcessor rewriteBatchedStatements() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    setIfAbsent(hikari, "rewriteBatchedStatements", "true");
+                    setIfAbsent(hikari, "useCursorFetch", "true");
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static void setIfAbsent(HikariDataSource hikari, String property, String value) {
+        if (hikari.getDataSourceProperties().getProperty(property) == null) {
+            hikari.addDataSourceProperty(property, value);
+        }
+    }
+
+    /**
+     * Existing databases were filled through AUTO_INCREMENT ids; make sure the
+     * new sequence tables start above them so pooled ids never collide.
+     */
+    @Bean
+    public ApplicationRunner seedIdSequences(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            seed(jdbcTemplate, Visitor.class);
+            seed(jdbcTemplate, CheckinOutbox.class);
+        };
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, Class<?> entity) {
+        SequenceGenerator generator = sequenceGenerator(entity);
+        String sequenceTable = generator.sequenceName();
+        String table = entity.getAnnotation(Table.class).name();
+        try {
+            // a pooled block is (next_val - allocationSize, next_val], so the first one must start above MAX(id)
+            jdbcTemplate.update(
+                    "UPDATE " + sequenceTable + " SET next_val = GREATEST(next_val, " +
+                            "(SELECT COALESCE(MAX(id), 0) + ? FROM " + table + "))",
+                    generator.allocationSize() + 1
+            );
+        } catch (DataAccessException e) {
+            logger.warn("Could not seed {} from {}: {}", sequenceTable, table, e.getMessage());
+        }
+    }
+
+    private static SequenceGenerator sequenceGenerator(Class<?> entity) {
+        for (Field field : entity.getDeclaredFields()) {
+            SequenceGenerator generator = field.getAnnotation(SequenceGenerator.class);
+            if (generator != null) {
+                return generator;
+            }
+        }
+        throw new IllegalStateException(entity.getSimpleName() + " has no @SequenceGenerator");
+    }
+}
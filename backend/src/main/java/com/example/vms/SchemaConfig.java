@@ -0,0 +1,33 @@
+package com.example.vms;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The schema is owned by the Flyway scripts in {@code db/migration};
+ * Hibernate no longer creates or alters tables, it only checks that the
+ * entities still match what the migrations produced.
+ */
+@Configuration
+public class SchemaConfig {
+
+    // databases of the baseline release were created by ddl-auto and hold exactly
+    // the V1 tables: record them as V1 and apply only the later scripts
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchema() {
+        return configuration -> configuration
+                .baselineOnMigrate(true)
+                .baselineVersion("1");
+    }
+
+    // overrides any leftover spring.jpa.hibernate.ddl-auto=update
+    @Bean
+    public HibernatePropertiesCustomizer validateSchema(
+            @Value("${app.jpa.validate-schema:true}") boolean validate
+    ) {
+        return props -> props.put("hibernate.hbm2ddl.auto", validate ? "validate" : "none");
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.vms;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Extras for {@code spring.threads.virtual.enabled=true}, which on its own
+ * moves Tomcat requests, the default {@code @Async} executor and
+ * {@code @Scheduled} jobs onto virtual threads.
+ *
+ * <ul>
+ *   <li>The DataSource is gated by a fair semaphore sized to the pool
+ *   ({@code app.datasource.max-concurrent}, default: Hikari's
+ *   {@code maximumPoolSize}), so thousands of requests queue for a
+ *   connection in order instead of stampeding Hikari. Size the pool for the
+ *   database (roughly cores * 2 + spindles), not for the number of clients.</li>
+ *   <li>Virtual threads pinned to their carrier for longer than
+ *   {@code app.threads.pinned-threshold-ms} are logged with the frame that
+ *   pinned them, from the JDK's own {@code jdk.VirtualThreadPinned} event.</li>
+ * </ul>
+ *
+ * The {@code checkinExecutor} deliberately stays on a small platform pool:
+ * Jakarta Mail's transport synchronizes around socket I/O, which would pin
+ * carriers during SMTP, and its bound is the SMTP throttle anyway.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public static BeanPostProcessor connectionGate(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource ds) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                HikariDataSource hikari = bean instanceof HikariDataSource h ? h : null;
+                int permits = env.getProperty("app.datasource.max-concurrent", Integer.class,
+                        hikari != null ? hikari.getMaximumPoolSize() : 10);
+                long timeoutMs = env.getProperty("app.datasource.acquire-timeout-ms", Long.class,
+                        hikari != null ? hikari.getConnectionTimeout() : 30_000L);
+                logger.info("DataSource '{}' limited to {} concurrent connections", beanName, permits);
+                return new ConcurrencyLimitedDataSource(ds, permits, timeoutMs);
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public RecordingStream pinnedThreadMonitor(@Value("${app.threads.pinned-threshold-ms:20}") long thresholdMs) {
+        RecordingStream stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(thresholdMs))
+                .withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", VirtualThreadConfig::logPinned);
+        stream.startAsync();
+        return stream;
+    }
+
+    private static void logPinned(RecordedEvent event) {
+        String frames = event.getStackTrace() == null ? "?" : event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .limit(8)
+                .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                .collect(Collectors.joining(" <- "));
+        logger.warn("Virtual thread pinned for {} ms: {}", event.getDuration().toMillis(), frames);
+    }
+}
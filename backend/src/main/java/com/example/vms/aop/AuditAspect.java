@@ -4,15 +4,57 @@ import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Audits every service call. The call is sampled and summarized here, on the
+ * calling thread, and handed to {@link AuditLog} without blocking.
+ *
+ * Per method, keyed {@code Class.method} or {@code Class.*}:
+ * {@code app.audit.sample-rates} (e.g. {@code {'VisitorService.search':0.1}})
+ * and {@code app.audit.verbosity} (e.g. {@code {'VisitorExporter.*':'NONE'}}).
+ * Arguments and results of anything named like a password method are never recorded.
+ */
 @Aspect
 @Component
 public class AuditAspect {
-    private static final Logger logger = LoggerFactory.getLogger(AuditAspect.class);
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Value("${app.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.default-sample-rate:1.0}")
+    private double defaultSampleRate;
+
+    @Value("${app.audit.default-verbosity:SUMMARY}")
+    private AuditVerbosity defaultVerbosity;
+
+    @Value("#{${app.audit.sample-rates:{:}}}")
+    private Map<String, Number> sampleRates;
+
+    @Value("#{${app.audit.verbosity:{:}}}")
+    private Map<String, String> verbosity;
+
+    @Value("${app.audit.max-payload-chars:256}")
+    private int maxPayloadChars;
+
+    private final Map<Method, MethodPolicy> policies = new ConcurrentHashMap<>();
+
+    private record MethodPolicy(String name, double sampleRate, AuditVerbosity verbosity) {
+    }
 
 
     @Pointcut("execution(* com.example.vms.service..*(..))")
@@ -21,6 +63,39 @@ public class AuditAspect {
 
     @AfterReturning(pointcut = "serviceLayer()", returning = "retVal")
     public void logServiceAccess(JoinPoint jp, Object retVal) {
-        logger.info("[AUDIT] {} called with args={} returned={}", jp.getSignature(), jp.getArgs(), retVal);
+        if (!enabled) {
+            return;
+        }
+        MethodPolicy policy = policies.computeIfAbsent(((MethodSignature) jp.getSignature()).getMethod(), this::policyFor);
+        if (policy.sampleRate() < 1.0 && ThreadLocalRandom.current().nextDouble() >= policy.sampleRate()) {
+            return;
+        }
+        auditLog.record(new AuditEvent(
+                System.currentTimeMillis(),
+                principal(),
+                policy.name(),
+                AuditSummarizer.summarize(jp.getArgs(), policy.verbosity(), maxPayloadChars),
+                AuditSummarizer.summarize(retVal, policy.verbosity(), maxPayloadChars)
+        ));
+    }
+
+    private MethodPolicy policyFor(Method method) {
+        String type = method.getDeclaringClass().getSimpleName();
+        String name = type + "." + method.getName();
+        String wildcard = type + ".*";
+
+        Number rate = sampleRates.getOrDefault(name, sampleRates.get(wildcard));
+        String level = verbosity.getOrDefault(name, verbosity.get(wildcard));
+
+        AuditVerbosity resolved = level != null ? AuditVerbosity.valueOf(level.trim().toUpperCase(Locale.ROOT)) : defaultVerbosity;
+        if (method.getName().toLowerCase(Locale.ROOT).contains("password")) {
+            resolved = AuditVerbosity.NONE;
+        }
+        return new MethodPolicy(name, rate != null ? rate.doubleValue() : defaultSampleRate, resolved);
+    }
+
+    private static String principal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : null;
     }
 }
@@ -0,0 +1,14 @@
+package com.example.vms.aop;
+
+/**
+ * One audited service call, already reduced to short strings on the calling
+ * thread so nothing the request owns is kept alive by the queue.
+ */
+public record AuditEvent(
+        long occurredAtMillis,
+        String principal,
+        String method,
+        String args,
+        String result
+) {
+}
@@ -0,0 +1,151 @@
+package com.example.vms.aop;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Takes audit events off the request path: callers only drop an event into
+ * the {@link AuditRingBuffer}, and a single background writer flushes them in
+ * batches, either to the {@code AUDIT} logger (route it to a rolling file in
+ * the logging config) or to the {@code audit_events} table.
+ *
+ * When the writer falls behind and the buffer fills up, new events are dropped
+ * and counted rather than slowing requests down.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+    private static final Logger audit = LoggerFactory.getLogger("AUDIT");
+
+    private static final String INSERT = """
+            INSERT INTO audit_events (occurred_at, principal, method, args, result)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // "log" or "table"
+    @Value("${app.audit.sink:log}")
+    private String sink;
+
+    @Value("${app.audit.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private AuditRingBuffer buffer;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long reportedDrops;
+
+    public record Stats(
+            String sink,
+            int queued,
+            int capacity,
+            long written,
+            long dropped,
+            long failed
+    ) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!sink.equals("log") && !sink.equals("table")) {
+            throw new IllegalStateException("app.audit.sink must be 'log' or 'table', was '" + sink + "'");
+        }
+        buffer = new AuditRingBuffer(bufferSize);
+        running = true;
+        writer = Thread.ofPlatform().name("audit-writer").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    // never blocks; false when the buffer is full and the event was dropped
+    public boolean record(AuditEvent event) {
+        return buffer.offer(event);
+    }
+
+    public Stats stats() {
+        return new Stats(sink, buffer.size(), buffer.capacity(), written.get(), buffer.dropped(), failed.get());
+    }
+
+    // -------------------------------
+    // WRITER
+    // -------------------------------
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            flush(batch);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+        }
+        flush(batch); // whatever was queued at shutdown
+    }
+
+    // writes everything queued right now, a batch at a time
+    private void flush(List<AuditEvent> batch) {
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                write(batch);
+                written.addAndGet(batch.size());
+            } catch (RuntimeException e) {
+                failed.addAndGet(batch.size());
+                logger.warn("Could not write {} audit events: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+
+        long dropped = buffer.dropped();
+        if (dropped > reportedDrops) {
+            logger.warn("Audit buffer full: {} events dropped ({} in total)", dropped - reportedDrops, dropped);
+            reportedDrops = dropped;
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        if (sink.equals("table")) {
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, e) -> {
+                ps.setTimestamp(1, new Timestamp(e.occurredAtMillis()));
+                ps.setString(2, cut(e.principal(), 100));
+                ps.setString(3, cut(e.method(), 200));
+                ps.setString(4, cut(e.args(), 1000));
+                ps.setString(5, cut(e.result(), 1000));
+            });
+            return;
+        }
+        for (AuditEvent e : batch) {
+            audit.info("{} {} {} args={} returned={}", new Timestamp(e.occurredAtMillis()).toInstant(),
+                    e.principal(), e.method(), e.args(), e.result());
+        }
+    }
+
+    private static String cut(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.vms.aop;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer / single-consumer ring. Producers claim a slot with
+ * one CAS and never block: when the ring is full the event is counted as
+ * dropped instead. A slot is only reused after the consumer has cleared it.
+ */
+public final class AuditRingBuffer {
+
+    private final AtomicReferenceArray<AuditEvent> slots;
+    private final int mask;
+
+    // next slot to claim / next slot to read; tail - head = events queued or being published
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    // false (and counted) when full
+    public boolean offer(AuditEvent event) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() >= slots.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.lazySet((int) (t & mask), event);
+        return true;
+    }
+
+    /**
+     * Moves up to {@code max} events into {@code out}, oldest first. Stops
+     * early at a slot that has been claimed but not yet published. Only one
+     * thread may drain.
+     */
+    public int drainTo(List<AuditEvent> out, int max) {
+        long h = head.get();
+        int n = 0;
+        while (n < max) {
+            int slot = (int) (h & mask);
+            AuditEvent event = slots.get(slot);
+            if (event == null) {
+                break;
+            }
+            slots.lazySet(slot, null);
+            out.add(event);
+            h++;
+            n++;
+        }
+        head.lazySet(h);
+        return n;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.vms.aop;
+
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Renders arguments and return values for the audit trail without walking
+ * object graphs: pages, collections and streams become their size, and any
+ * text is cut at a fixed length.
+ */
+final class AuditSummarizer {
+
+    private AuditSummarizer() {
+    }
+
+    static String summarize(Object[] args, AuditVerbosity verbosity, int maxChars) {
+        if (verbosity == AuditVerbosity.NONE || args == null) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < args.length && out.length() < maxChars; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(summarize(args[i], verbosity, maxChars));
+        }
+        return cut(out.append(']'), maxChars);
+    }
+
+    static String summarize(Object value, AuditVerbosity verbosity, int maxChars) {
+        if (verbosity == AuditVerbosity.NONE) {
+            return null;
+        }
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof CharSequence
+                || value instanceof Number
+                || value instanceof Boolean
+                || value instanceof Enum<?>
+                || value instanceof Temporal) {
+            return cut(value.toString(), maxChars);
+        }
+        if (value instanceof Page<?> page) {
+            return "Page(" + page.getNumberOfElements() + " of " + page.getTotalElements() + ")";
+        }
+        if (value instanceof Slice<?> slice) {
+            return "Slice(" + slice.getNumberOfElements() + ")";
+        }
+        if (value instanceof Collection<?> collection) {
+            return value.getClass().getSimpleName() + "(" + collection.size() + ")";
+        }
+        if (value instanceof Map<?, ?> map) {
+            return value.getClass().getSimpleName() + "(" + map.size() + ")";
+        }
+        if (value instanceof Optional<?> optional) {
+            return optional.isPresent() ? "Optional[" + summarize(optional.get(), verbosity, maxChars) + "]" : "Optional.empty";
+        }
+        if (value instanceof byte[] bytes) {
+            return "byte[" + bytes.length + "]";
+        }
+        // streams, files and servlet objects: the type is all that is safe to render
+        if (value instanceof InputStream || value instanceof OutputStream || value instanceof Writer
+                || value instanceof Resource || value.getClass().getName().startsWith("jakarta.servlet")) {
+            return value.getClass().getSimpleName();
+        }
+        if (verbosity == AuditVerbosity.FULL) {
+            return cut(value.toString(), maxChars);
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private static String cut(CharSequence s, int maxChars) {
+        return s.length() <= maxChars ? s.toString() : s.subSequence(0, maxChars) + "…";
+    }
+}
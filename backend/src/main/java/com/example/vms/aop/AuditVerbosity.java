@@ -0,0 +1,13 @@
+package com.example.vms.aop;
+
+/**
+ * How much of a call's arguments and result the audit trail keeps.
+ */
+public enum AuditVerbosity {
+    // method and caller only
+    NONE,
+    // scalars and text (cut short); sizes of pages and collections; type names otherwise
+    SUMMARY,
+    // as SUMMARY, but other objects are rendered with toString (cut short)
+    FULL
+}
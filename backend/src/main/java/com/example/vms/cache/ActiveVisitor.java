@@ -0,0 +1,57 @@
+package com.example.vms.cache;
+
+import com.example.vms.model.DeliveryStatus;
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of an on-site visitor, detached from JPA so it can be
+ * shared between threads and served without a persistence context.
+ */
+public record ActiveVisitor(
+        long id,
+        String name,
+        String email,
+        String phone,
+        String purpose,
+        long staffId,
+        String staffUsername,
+        LocalDateTime entryTime,
+        VisitorStatus status,
+        String qrPath,
+        DeliveryStatus deliveryStatus
+) {
+
+    public static ActiveVisitor of(Visitor v) {
+        return of(v, v.getStaff().getUser() != null ? v.getStaff().getUser().getUsername() : null);
+    }
+
+    // host login supplied by the caller, so an uninitialized staff reference stays that way
+    public static ActiveVisitor of(Visitor v, String staffUsername) {
+        return new ActiveVisitor(
+                v.getId(),
+                v.getName(),
+                v.getEmail(),
+                v.getPhone(),
+                v.getPurpose(),
+                v.getStaff().getId(),
+                staffUsername,
+                v.getEntryTime(),
+                v.getStatus(),
+                v.getQrPath(),
+                v.getDeliveryStatus()
+        );
+    }
+
+    public ActiveVisitor withStatus(VisitorStatus newStatus) {
+        return new ActiveVisitor(id, name, email, phone, purpose, staffId, staffUsername,
+                entryTime, newStatus, qrPath, deliveryStatus);
+    }
+
+    public ActiveVisitor withDelivery(String newQrPath, DeliveryStatus newDeliveryStatus) {
+        return new ActiveVisitor(id, name, email, phone, purpose, staffId, staffUsername,
+                entryTime, status, newQrPath != null ? newQrPath : qrPath, newDeliveryStatus);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.vms.cache;
+
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.event.VisitorsOverdueEvent;
+import com.example.vms.model.DeliveryStatus;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process view of everyone currently on site (ACTIVE + OVERDUE).
+ *
+ * Kept up to date from the check-in / exit / overdue events after commit,
+ * warmed from the DB at startup and periodically reconciled against it, so
+ * gate scans and exits can look a visitor up by id without JPA. Other nodes'
+ * writes only become visible here at the next reconciliation, which is why
+ * listings are not served from it; anything not found falls back to the
+ * database, and exits re-check the row's status there.
+ */
+@Component
+public class ActiveVisitorRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveVisitorRegistry.class);
+
+    private static final List<VisitorStatus> ON_SITE = List.of(VisitorStatus.ACTIVE, VisitorStatus.OVERDUE);
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // visitor id -> slot
+    private final LongHashMap<Slot> byId = new LongHashMap<>(1024);
+
+    // ids removed since the last reconciliation started, with removal time
+    private final LongHashMap<Long> recentlyRemoved = new LongHashMap<>();
+
+    private volatile boolean ready;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong totalDrift = new AtomicLong();
+    private volatile long lastDrift;
+    private volatile LocalDateTime lastReconciledAt;
+
+    private record Slot(ActiveVisitor visitor, long touchedNanos) {
+    }
+
+    public record Stats(
+            int size,
+            boolean ready,
+            long hits,
+            long misses,
+            double hitRatio,
+            long reconciliations,
+            long lastDrift,
+            long totalDrift,
+            LocalDateTime lastReconciledAt
+    ) {
+    }
+
+    // -------------------------------
+    // READS
+    // -------------------------------
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Looks up an on-site visitor; {@code null} means "not on site here" and the
+     * caller should fall back to the database.
+     */
+    public ActiveVisitor get(long visitorId) {
+        lock.readLock().lock();
+        try {
+            Slot slot = byId.get(visitorId);
+            if (slot == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return slot.visitor();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        long h = hits.get();
+        long m = misses.get();
+        int size;
+        lock.readLock().lock();
+        try {
+            size = byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Stats(size, ready, h, m, h + m == 0 ? 0 : (double) h / (h + m),
+                reconciliations.get(), lastDrift, totalDrift.get(), lastReconciledAt);
+    }
+
+    // -------------------------------
+    // TRANSITIONS (after commit)
+    // -------------------------------
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCheckedIn(VisitorCheckedInEvent event) {
+        lock.writeLock().lock();
+        try {
+            long now = System.nanoTime();
+            for (ActiveVisitor v : event.visitors()) {
+                putLocked(v, now);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExited(VisitorExitedEvent event) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(event.visitorId(), System.nanoTime());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOverdue(VisitorsOverdueEvent event) {
+        lock.writeLock().lock();
+        try {
+            long now = System.nanoTime();
+            for (Long id : event.visitorIds()) {
+                Slot slot = byId.get(id);
+                if (slot != null) {
+                    putLocked(slot.visitor().withStatus(VisitorStatus.OVERDUE), now);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // called after the delivery commit, so a snapshot read before it must not roll it back
+    public void updateDelivery(long visitorId, String qrPath, DeliveryStatus deliveryStatus) {
+        lock.writeLock().lock();
+        try {
+            Slot slot = byId.get(visitorId);
+            if (slot != null) {
+                putLocked(slot.visitor().withDelivery(qrPath, deliveryStatus), System.nanoTime());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------------------
+    // WARM-UP + RECONCILIATION
+    // -------------------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long drift = reconcile();
+        logger.info("Active visitor registry warmed with {} visitors (drift {})", stats().size(), drift);
+    }
+
+    /**
+     * Re-reads the on-site set from the DB and repairs the registry. Entries
+     * touched after the snapshot was taken are left alone, since the DB read
+     * cannot know about them yet. Returns the number of corrected entries.
+     */
+    public long reconcile() {
+
+        long snapshotStart = System.nanoTime();
+
+        LongHashMap<ActiveVisitor> db = new LongHashMap<>(1024);
+        visitorRepository.findOnSite(ON_SITE)
+                .forEach(v -> db.put(v.getId(), ActiveVisitor.of(v)));
+
+        long drift = 0;
+
+        lock.writeLock().lock();
+        try {
+            // stale or changed entries
+            for (long id : byId.keys()) {
+                Slot slot = byId.get(id);
+                if (slot.touchedNanos() > snapshotStart) {
+                    continue;
+                }
+                ActiveVisitor fresh = db.get(id);
+                if (fresh == null) {
+                    removeLocked(id, slot.touchedNanos());
+                    drift++;
+                } else if (!fresh.equals(slot.visitor())) {
+                    putLocked(fresh, slot.touchedNanos());
+                    drift++;
+                }
+            }
+
+            // entries we never heard about (other nodes, lost events)
+            for (ActiveVisitor fresh : db.values()) {
+                Long removedAt = recentlyRemoved.get(fresh.id());
+                if (!byId.containsKey(fresh.id()) && (removedAt == null || removedAt < snapshotStart)) {
+                    putLocked(fresh, snapshotStart);
+                    drift++;
+                }
+            }
+
+            recentlyRemoved.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        reconciliations.incrementAndGet();
+        if (ready) {
+            totalDrift.addAndGet(drift);
+        }
+        lastDrift = drift;
+        lastReconciledAt = LocalDateTime.now();
+        ready = true;
+
+        if (drift > 0) {
+            logger.info("Active visitor registry reconciled, corrected {} entries", drift);
+        }
+        return drift;
+    }
+
+    // -------------------------------
+    // INTERNALS (write lock held)
+    // -------------------------------
+    private void putLocked(ActiveVisitor v, long touchedNanos) {
+        byId.put(v.id(), new Slot(v, touchedNanos));
+    }
+
+    private void removeLocked(long visitorId, long touchedNanos) {
+        byId.remove(visitorId);
+        recentlyRemoved.put(visitorId, touchedNanos);
+    }
+}
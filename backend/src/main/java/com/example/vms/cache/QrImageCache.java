@@ -0,0 +1,124 @@
+package com.example.vms.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Rendered QR PNGs keyed by their payload (the signed pass text), bounded by
+ * total image bytes rather than entry count and evicted least recently used.
+ *
+ * The image is a pure function of the payload, so an entry never goes stale;
+ * it only ages out. Rendering happens outside the lock: two threads missing
+ * on the same payload may both render it, and the second result is dropped.
+ */
+@Component
+public class QrImageCache {
+
+    // map entry, key and array headers, roughly, on top of the PNG itself
+    private static final int ENTRY_OVERHEAD = 160;
+
+    @Value("${app.qr.cache-max-bytes:33554432}")
+    private long maxBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // access order: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, QrImage> images = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * A rendered PNG and its strong ETag (a digest of the bytes).
+     */
+    public record QrImage(byte[] png, String etag) {
+    }
+
+    public record Stats(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {
+    }
+
+    public QrImage get(String payload, Function<String, byte[]> render) {
+        lock.lock();
+        try {
+            QrImage cached = images.get(payload);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        misses.incrementAndGet();
+        byte[] png = render.apply(payload);
+        QrImage image = new QrImage(png, etagOf(png));
+
+        long size = sizeOf(payload, png);
+        if (size > maxBytes) {
+            return image; // would evict everything else; serve it uncached
+        }
+
+        lock.lock();
+        try {
+            QrImage raced = images.get(payload);
+            if (raced != null) {
+                return raced;
+            }
+            images.put(payload, image);
+            bytes += size;
+            evict();
+            return image;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(images.size(), bytes, maxBytes, hits.get(), misses.get(), evictions.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -------------------------------
+    // HELPERS
+    // -------------------------------
+    private void evict() {
+        Iterator<Map.Entry<String, QrImage>> it = images.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, QrImage> eldest = it.next();
+            bytes -= sizeOf(eldest.getKey(), eldest.getValue().png());
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long sizeOf(String payload, byte[] png) {
+        return png.length + 2L * payload.length() + ENTRY_OVERHEAD;
+    }
+
+    private static String etagOf(byte[] png) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(png);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
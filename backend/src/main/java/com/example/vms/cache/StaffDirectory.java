@@ -0,0 +1,254 @@
+package com.example.vms.cache;
+
+import com.example.vms.event.StaffChangedEvent;
+import com.example.vms.repository.StaffRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process copy of every staff profile, so the security desk's host
+ * autocomplete and each check-in's host lookup don't touch the database.
+ *
+ * Readers get an immutable {@link Snapshot}; every staff change rebuilds it
+ * after commit and swaps the reference. Profiles changed on another node show
+ * up at the next periodic refresh. Until the first load, and for ids the
+ * snapshot doesn't know, callers fall back to the repository.
+ */
+@Component
+public class StaffDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaffDirectory.class);
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    private volatile Snapshot snapshot;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    // -------------------------------
+    // READS
+    // -------------------------------
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    // null when unknown (or not loaded yet)
+    public StaffEntry get(Long staffId) {
+        Snapshot current = snapshot;
+        return current == null || staffId == null ? null : current.byId.get(staffId);
+    }
+
+    /**
+     * Staff whose full name or staff code contains {@code query}, ignoring
+     * case, ordered by full name. A blank query lists everyone.
+     */
+    public Page<StaffEntry> search(String query, int page, int size) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Staff directory not loaded");
+        }
+        int[] matches = current.find(query);
+        PageRequest pageable = PageRequest.of(page, size);
+        int from = (int) Math.min(pageable.getOffset(), matches.length);
+        int to = Math.min(from + size, matches.length);
+        List<StaffEntry> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add(current.entries[matches[i]]);
+        }
+        return new PageImpl<>(content, pageable, matches.length);
+    }
+
+    // -------------------------------
+    // REFRESH
+    // -------------------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            refresh();
+            logger.info("Staff directory loaded with {} staff", snapshot.entries.length);
+        } catch (RuntimeException e) {
+            logger.error("Staff directory warm-up failed, staff lookups stay on the database", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStaffChanged(StaffChangedEvent event) {
+        refresh();
+    }
+
+    // serialized, so a slower, older reload can't overwrite a newer one
+    public void refresh() {
+        // a lock, not synchronized: a virtual thread blocked on the query must not pin its carrier
+        refreshLock.lock();
+        try {
+            List<StaffEntry> entries = staffRepository.findAllWithUser().stream()
+                    .map(StaffEntry::of)
+                    .toList();
+            snapshot = Snapshot.of(entries);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // -------------------------------
+    // SNAPSHOT
+    // -------------------------------
+
+    /**
+     * Entries sorted by full name, an id map, and a trie over every suffix of
+     * each case-folded full name and staff code: walking the trie along a
+     * query lands on the node listing every entry that contains it. Suffixes
+     * are cut at {@link #MAX_DEPTH}; longer queries verify the candidates of
+     * the deepest node. Never modified after {@link #of}.
+     */
+    static final class Snapshot {
+
+        static final int MAX_DEPTH = 12;
+
+        final StaffEntry[] entries;
+        final LongHashMap<StaffEntry> byId;
+        private final String[] names;
+        private final String[] codes;
+        private final Node root;
+        private final int[] all;
+
+        private Snapshot(StaffEntry[] entries, Node root) {
+            this.entries = entries;
+            this.root = root;
+            this.byId = new LongHashMap<>(entries.length);
+            this.names = new String[entries.length];
+            this.codes = new String[entries.length];
+            this.all = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                byId.put(entries[i].id(), entries[i]);
+                names[i] = fold(entries[i].fullName());
+                codes[i] = fold(entries[i].staffCode());
+                all[i] = i;
+            }
+        }
+
+        static Snapshot of(List<StaffEntry> staff) {
+            StaffEntry[] entries = staff.toArray(StaffEntry[]::new);
+            Arrays.sort(entries, Comparator
+                    .comparing((StaffEntry e) -> fold(e.fullName()))
+                    .thenComparingLong(StaffEntry::id));
+
+            // ordinals are added in ascending order, so every node's list stays sorted
+            Builder root = new Builder();
+            for (int ord = 0; ord < entries.length; ord++) {
+                root.addSuffixes(fold(entries[ord].fullName()), ord);
+                root.addSuffixes(fold(entries[ord].staffCode()), ord);
+            }
+            return new Snapshot(entries, root.freeze());
+        }
+
+        // ordinals (name order) of the entries whose name or code contains the query
+        int[] find(String query) {
+            String q = fold(query);
+            if (q.isEmpty()) {
+                return all;
+            }
+            Node node = root;
+            int depth = Math.min(q.length(), MAX_DEPTH);
+            for (int i = 0; i < depth && node != null; i++) {
+                node = node.child(q.charAt(i));
+            }
+            if (node == null) {
+                return new int[0];
+            }
+            if (q.length() <= MAX_DEPTH) {
+                return node.ords;
+            }
+            int[] out = new int[node.ords.length];
+            int n = 0;
+            for (int ord : node.ords) {
+                if (names[ord].contains(q) || codes[ord].contains(q)) {
+                    out[n++] = ord;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+
+        static String fold(String s) {
+            return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final class Node {
+
+        private final char[] labels;
+        private final Node[] children;
+        private final int[] ords;
+
+        private Node(char[] labels, Node[] children, int[] ords) {
+            this.labels = labels;
+            this.children = children;
+            this.ords = ords;
+        }
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+
+    private static final class Builder {
+
+        private final Map<Character, Builder> children = new HashMap<>();
+        private int[] ords = new int[2];
+        private int size;
+
+        void addSuffixes(String key, int ord) {
+            for (int start = 0; start < key.length(); start++) {
+                Builder node = this;
+                int end = Math.min(key.length(), start + Snapshot.MAX_DEPTH);
+                for (int i = start; i < end; i++) {
+                    node = node.children.computeIfAbsent(key.charAt(i), c -> new Builder());
+                    node.add(ord);
+                }
+            }
+        }
+
+        private void add(int ord) {
+            if (size > 0 && ords[size - 1] == ord) {
+                return; // same entry through another suffix or the other field
+            }
+            if (size == ords.length) {
+                ords = Arrays.copyOf(ords, size * 2);
+            }
+            ords[size++] = ord;
+        }
+
+        Node freeze() {
+            char[] labels = new char[children.size()];
+            int i = 0;
+            for (char c : children.keySet()) {
+                labels[i++] = c;
+            }
+            Arrays.sort(labels);
+            Node[] frozen = new Node[labels.length];
+            for (int j = 0; j < labels.length; j++) {
+                frozen[j] = children.get(labels[j]).freeze();
+            }
+            return new Node(labels, frozen, Arrays.copyOf(ords, size));
+        }
+    }
+}
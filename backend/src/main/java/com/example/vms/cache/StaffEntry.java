@@ -0,0 +1,35 @@
+package com.example.vms.cache;
+
+import com.example.vms.model.Staff;
+
+/**
+ * Immutable copy of a staff profile and its login, as held by the
+ * {@link StaffDirectory}.
+ */
+public record StaffEntry(
+        long id,
+        Long userId,
+        String username,
+        String fullName,
+        String staffCode,
+        String department,
+        String designation,
+        String phone,
+        Integer allowedStayMinutes
+) {
+
+    // the staff's user must already be loaded
+    public static StaffEntry of(Staff s) {
+        return new StaffEntry(
+                s.getId(),
+                s.getUser() != null ? s.getUser().getId() : null,
+                s.getUser() != null ? s.getUser().getUsername() : null,
+                s.getFullName(),
+                s.getStaffCode(),
+                s.getDepartment(),
+                s.getDesignation(),
+                s.getPhone(),
+                s.getAllowedStayMinutes()
+        );
+    }
+}
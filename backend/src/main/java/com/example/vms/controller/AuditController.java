@@ -0,0 +1,23 @@
+package com.example.vms.controller;
+
+import com.example.vms.aop.AuditLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/audit")
+public class AuditController {
+
+    @Autowired
+    private AuditLog auditLog;
+
+    // queue depth, events written, dropped (buffer full) and failed writes
+    @GetMapping("/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public AuditLog.Stats stats() {
+        return auditLog.stats();
+    }
+}
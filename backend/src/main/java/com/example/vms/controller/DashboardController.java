@@ -2,11 +2,15 @@ package com.example.vms.controller;
 
 import com.example.vms.dto.DashboardDTO;
 import com.example.vms.service.DashboardService;
+import com.example.vms.service.VisitorRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/dashboard")
 public class DashboardController {
@@ -14,6 +18,9 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private VisitorRollupService visitorRollupService;
+
     @GetMapping("/analytics")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<DashboardDTO> getDashboard(
@@ -21,5 +28,15 @@ public class DashboardController {
     ) {
         return ResponseEntity.ok(dashboardService.getDashboardData(range));
     }
-}
 
+    // rebuilds the analytics rollups for [from, to] (yyyy-MM-dd) from the visitors table
+    @PostMapping("/rollups/backfill")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Integer>> backfillRollups(
+            @RequestParam String from,
+            @RequestParam String to
+    ) {
+        int days = visitorRollupService.backfill(LocalDate.parse(from), LocalDate.parse(to));
+        return ResponseEntity.ok(Map.of("days", days));
+    }
+}
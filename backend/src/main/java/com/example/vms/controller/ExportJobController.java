@@ -0,0 +1,73 @@
+package com.example.vms.controller;
+
+import com.example.vms.dto.ExportJobDTO;
+import com.example.vms.export.ExportFormat;
+import com.example.vms.export.ExportJobService;
+import com.example.vms.export.SpoolFileSender;
+import com.example.vms.model.ExportJob;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/visitors/export/jobs")
+public class ExportJobController {
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private SpoolFileSender spoolFileSender;
+
+    // starts a background export and returns its job; poll it, then download the file
+    @PostMapping
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<ExportJobDTO> submit(
+            @RequestParam String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "latest") String sort
+    ) {
+        LocalDateTime fromDate = from != null ? LocalDateTime.parse(from + "T00:00:00") : null;
+        LocalDateTime toDate = to != null ? LocalDateTime.parse(to + "T23:59:59") : null;
+
+        ExportJob job = exportJobService.submit(ExportFormat.from(format), fromDate, toDate, sort);
+        return ResponseEntity.accepted().body(exportJobService.toDto(job));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ExportJobDTO status(@PathVariable String id) {
+        return exportJobService.toDto(exportJobService.get(id));
+    }
+
+    // supports Range / If-Range, so interrupted downloads can resume
+    @GetMapping("/{id}/file")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public void download(
+            @PathVariable String id,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+
+        ExportJob job = exportJobService.get(id);
+        if (job.getState() != ExportJob.State.DONE) {
+            throw new RuntimeException("Export is not ready yet");
+        }
+
+        spoolFileSender.send(
+                exportJobService.file(job),
+                job.getFormat().getContentType(),
+                job.getFilename(),
+                "\"" + job.getId() + "-" + job.getSize() + "\"",
+                request,
+                response
+        );
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.vms.controller;
+
+import com.example.vms.service.RetentionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/retention")
+public class RetentionController {
+
+    @Autowired
+    private RetentionService retentionService;
+
+    // hot window, archive watermark and throughput / lock time of the last runs
+    @GetMapping("/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public RetentionService.Stats stats() {
+        return retentionService.stats();
+    }
+
+    // runs now instead of waiting for the nightly job; blocks until the run ends
+    @PostMapping("/run")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public RetentionService.RunReport run() {
+        return retentionService.run()
+                .orElseThrow(() -> new RuntimeException("Retention is disabled or running on another node"));
+    }
+}
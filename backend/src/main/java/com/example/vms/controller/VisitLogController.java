@@ -0,0 +1,80 @@
+package com.example.vms.controller;
+
+import com.example.vms.dto.CursorPage;
+import com.example.vms.dto.VisitLogDTO;
+import com.example.vms.service.VisitLogPartitionService;
+import com.example.vms.service.VisitLogService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/visit-logs")
+public class VisitLogController {
+
+    @Autowired
+    private VisitLogService visitLogService;
+
+    @Autowired
+    private VisitLogPartitionService visitLogPartitionService;
+
+
+    // any mix of visitor, host, action and date window; newest first
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY')")
+    public CursorPage<VisitLogDTO> history(
+            @RequestParam(required = false) Long visitorId,
+            @RequestParam(required = false) String staff,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        LocalDateTime fromDate = from != null ? LocalDateTime.parse(from + "T00:00:00") : null;
+        LocalDateTime toDate = to != null ? LocalDateTime.parse(to + "T23:59:59") : null;
+
+        return visitLogService.history(visitorId, staff, action, fromDate, toDate, cursor, size);
+    }
+
+    // same filters as NDJSON, one row per line; a final {"nextCursor":...} line means there is more
+    @GetMapping(value = "/stream", produces = VisitLogService.NDJSON)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public void streamHistory(
+            @RequestParam(required = false) Long visitorId,
+            @RequestParam(required = false) String staff,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100000") int limit,
+            HttpServletResponse response
+    ) throws IOException {
+
+        LocalDateTime fromDate = from != null ? LocalDateTime.parse(from + "T00:00:00") : null;
+        LocalDateTime toDate = to != null ? LocalDateTime.parse(to + "T23:59:59") : null;
+
+        visitLogService.streamHistory(visitorId, staff, action, fromDate, toDate, cursor, limit, response);
+    }
+
+    @GetMapping("/partitions")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public List<VisitLogPartitionService.PartitionInfo> partitions() {
+        return visitLogPartitionService.list();
+    }
+
+    // month as yyyy-MM; the rows move to visit_logs_archive_yyyyMM
+    @PostMapping("/partitions/{month}/detach")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public Map<String, String> detach(@PathVariable String month) {
+        String archive = visitLogPartitionService.detach(YearMonth.parse(month));
+        return Map.of("archiveTable", archive);
+    }
+}
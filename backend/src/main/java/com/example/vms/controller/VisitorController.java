@@ -1,17 +1,26 @@
 package com.example.vms.controller;
 
+import com.example.vms.cache.ActiveVisitorRegistry;
+import com.example.vms.cache.QrImageCache;
+import com.example.vms.dto.CursorPage;
 import com.example.vms.dto.VisitorRequestDTO;
 import com.example.vms.dto.VisitorResponseDTO;
 import com.example.vms.model.VisitorStatus;
+import com.example.vms.search.VisitorSearchIndex;
 import com.example.vms.service.QrService;
 import com.example.vms.service.VisitorService;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import org.springframework.data.domain.Page;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -23,12 +32,23 @@ import java.util.Map;
 @RequestMapping("/visitors")
 public class VisitorController {
 
+    static final int MAX_GROUP_REQUEST = 1000;
+
     @Autowired
     private VisitorService visitorService;
 
     @Autowired
     private QrService qrService;
 
+    @Autowired
+    private ActiveVisitorRegistry activeVisitorRegistry;
+
+    @Autowired
+    private QrImageCache qrImageCache;
+
+    @Autowired
+    private VisitorSearchIndex visitorSearchIndex;
+
 
     @PostMapping
     @PreAuthorize("hasAuthority('ROLE_SECURITY')")
@@ -37,6 +57,16 @@ public class VisitorController {
         return visitorService.addVisitor(dto);
     }
 
+    // group / delegation check-in: one request, one transaction, batched inserts.
+    // Hard cap on the body; app.checkin.max-group-size may set a lower limit.
+    @PostMapping("/group")
+    @PreAuthorize("hasAuthority('ROLE_SECURITY')")
+    public List<VisitorResponseDTO> addVisitorGroup(
+            @RequestBody @Size(min = 1, max = MAX_GROUP_REQUEST) List<@Valid VisitorRequestDTO> dtos)
+    {
+        return visitorService.addVisitors(dtos);
+    }
+
     @GetMapping("/all")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY')")
     public List<VisitorResponseDTO> getAllVisitors(
@@ -46,6 +76,16 @@ public class VisitorController {
         return visitorService.getAllVisitors(page, size).getContent();
     }
 
+    // keyset variant: ?cursor= (empty for the first slice) switches to seek paging
+    @GetMapping(value = "/all", params = "cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY')")
+    public CursorPage<VisitorResponseDTO> getAllVisitorsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return visitorService.scrollAll(cursor, size);
+    }
+
 
     @PostMapping("/exit")
     @PreAuthorize("hasAuthority('ROLE_SECURITY')")
@@ -66,6 +106,15 @@ public class VisitorController {
         return visitorService.listActive(page, size).getContent();
     }
 
+    @GetMapping(value = "/active", params = "cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_STAFF','ROLE_ADMIN')")
+    public CursorPage<VisitorResponseDTO> activeByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return visitorService.scrollActive(cursor, size);
+    }
+
 
 
     @GetMapping("/overdue/{minutes}")
@@ -76,6 +125,23 @@ public class VisitorController {
     }
 
 
+    // the pass image; unchanged for the life of the visit, so clients revalidate with If-None-Match
+    @GetMapping("/{id}/qr")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY','ROLE_STAFF')")
+    public ResponseEntity<byte[]> getQr(@PathVariable Long id, Authentication authentication, WebRequest request)
+    {
+        // staff: only visitors they host (checked in the service)
+        QrImageCache.QrImage qr = visitorService.getQr(id, authentication);
+        if (request.checkNotModified(qr.etag())) {
+            return null; // 304, headers already set
+        }
+        return ResponseEntity.ok()
+                .eTag(qr.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(MediaType.IMAGE_PNG)
+                .body(qr.png());
+    }
+
     @GetMapping("/scan")
     public ResponseEntity<VisitorResponseDTO> scanVisitor(@RequestParam String data, Authentication authentication)
     {
@@ -92,6 +158,17 @@ public class VisitorController {
         return visitorService.search(keyword, page, size).getContent();
     }
 
+    // cursor mode orders by entry time (newest first) instead of name
+    @GetMapping(value = "/search", params = "cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SECURITY')")
+    public CursorPage<VisitorResponseDTO> searchVisitorsByCursor(
+            @RequestParam String keyword,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return visitorService.scrollSearch(keyword, cursor, size);
+    }
+
 
     @GetMapping("/filter/today")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY','ROLE_STAFF')")
@@ -102,6 +179,15 @@ public class VisitorController {
         return visitorService.filterToday(page, size).getContent();
     }
 
+    @GetMapping(value = "/filter/today", params = "cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY','ROLE_STAFF')")
+    public CursorPage<VisitorResponseDTO> filterTodayByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return visitorService.scrollToday(cursor, size);
+    }
+
 
     @GetMapping("/filter/date")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY','ROLE_STAFF')")
@@ -117,6 +203,20 @@ public class VisitorController {
         return visitorService.filterByDateRange(fromDate, toDate, page, size).getContent();
     }
 
+    @GetMapping(value = "/filter/date", params = "cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY','ROLE_STAFF')")
+    public CursorPage<VisitorResponseDTO> filterByDateRangeByCursor(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        LocalDateTime fromDate = LocalDateTime.parse(from + "T00:00:00");
+        LocalDateTime toDate = LocalDateTime.parse(to + "T23:59:59");
+
+        return visitorService.scrollByDateRange(fromDate, toDate, cursor, size);
+    }
+
 
     @GetMapping("/filter/status")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY')")
@@ -128,6 +228,16 @@ public class VisitorController {
         return visitorService.filterByStatus(value, page, size).getContent();
     }
 
+    @GetMapping(value = "/filter/status", params = "cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY')")
+    public CursorPage<VisitorResponseDTO> filterByStatusByCursor(
+            @RequestParam VisitorStatus value,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return visitorService.scrollByStatus(value, cursor, size);
+    }
+
 
     @GetMapping("/my-visitors")
     @PreAuthorize("hasAuthority('ROLE_STAFF')")
@@ -145,6 +255,17 @@ public class VisitorController {
         );
     }
 
+    @GetMapping(value = "/my-visitors", params = "cursor")
+    @PreAuthorize("hasAuthority('ROLE_STAFF')")
+    public CursorPage<VisitorResponseDTO> myVisitorsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) VisitorStatus status,
+            Authentication authentication
+    ) {
+        return visitorService.scrollByStaff(authentication.getName(), status, cursor, size);
+    }
+
 
 
 
@@ -159,13 +280,9 @@ public class VisitorController {
             HttpServletResponse response
     ) throws IOException {
 
-        LocalDateTime fromDate = null;
-        LocalDateTime toDate = null;
-
-        if (from != null && to != null) {
-            fromDate = LocalDateTime.parse(from + "T00:00:00");
-            toDate = LocalDateTime.parse(to + "T23:59:59");
-        }
+        // either bound may be left out; both missing exports everything
+        LocalDateTime fromDate = from != null ? LocalDateTime.parse(from + "T00:00:00") : null;
+        LocalDateTime toDate = to != null ? LocalDateTime.parse(to + "T23:59:59") : null;
 
         visitorService.exportVisitorsToExcel(fromDate, toDate, sort, response);
     }
@@ -177,18 +294,47 @@ public class VisitorController {
             @RequestParam(required = false) String from,
             @RequestParam(required = false) String to,
             @RequestParam(defaultValue = "latest") String sort,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
             HttpServletResponse response
     ) throws IOException {
 
-        LocalDateTime fromDate = null;
-        LocalDateTime toDate = null;
+        // either bound may be left out; both missing exports everything
+        LocalDateTime fromDate = from != null ? LocalDateTime.parse(from + "T00:00:00") : null;
+        LocalDateTime toDate = to != null ? LocalDateTime.parse(to + "T23:59:59") : null;
 
-        if (from != null && to != null) {
-            fromDate = LocalDateTime.parse(from + "T00:00:00");
-            toDate = LocalDateTime.parse(to + "T23:59:59");
-        }
+        visitorService.exportVisitorsToCSV(fromDate, toDate, sort, gzip, acceptsGzip(acceptEncoding), response);
+    }
 
-        visitorService.exportVisitorsToCSV(fromDate, toDate, sort, response);
+    // RFC 9110 Accept-Encoding: "gzip;q=0" refuses gzip; "*" covers it unless gzip is listed itself
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().toLowerCase();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        Double q = gzip != null ? gzip : wildcard;
+        return q != null && q > 0;
     }
 
     @GetMapping("/stats/today")
@@ -242,12 +388,73 @@ public class VisitorController {
         );
     }
 
+    // cursor mode always orders by entryTime,desc (the keyset order)
+    @GetMapping(value = "/advanced-search", params = "cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY')")
+    public CursorPage<VisitorResponseDTO> advancedSearchByCursor(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String staff,
+            @RequestParam(required = false) VisitorStatus status,
+
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+
+        LocalDateTime fromDate = null;
+        LocalDateTime toDate = null;
+
+        try {
+            if (from != null && !from.isEmpty()) {
+                fromDate = LocalDateTime.parse(from + "T00:00:00");
+            }
+            if (to != null && !to.isEmpty()) {
+                toDate = LocalDateTime.parse(to + "T23:59:59");
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid date format. Use yyyy-MM-dd");
+        }
+
+        return visitorService.scrollAdvancedSearch(
+                name, email, phone, staff, status, fromDate, toDate, cursor, size
+        );
+    }
+
     @GetMapping("/stats/today-hourly")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY')")
     public Map<Integer, Long> getTodayHourlyStats() {
         return visitorService.getTodayHourlyStats();
     }
 
+    @GetMapping("/registry/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ActiveVisitorRegistry.Stats registryStats() {
+        return activeVisitorRegistry.stats();
+    }
+
+    @GetMapping("/qr/cache/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public QrImageCache.Stats qrCacheStats() {
+        return qrImageCache.stats();
+    }
+
+    @GetMapping("/search/index/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public VisitorSearchIndex.Stats searchIndexStats() {
+        return visitorSearchIndex.stats();
+    }
+
+    // reloads the node-local search index from the database
+    @PostMapping("/search/index/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public VisitorSearchIndex.Stats rebuildSearchIndex() {
+        return visitorSearchIndex.rebuild();
+    }
+
     @GetMapping("/stats/hourly")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_SECURITY')")
     public Map<Integer, Long> getHourlyStatsByRange(
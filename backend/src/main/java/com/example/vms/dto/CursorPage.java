@@ -0,0 +1,20 @@
+package com.example.vms.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. There is no total count; pass
+ * {@code nextCursor} back as {@code ?cursor=} to get the following slice.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,28 @@
+package com.example.vms.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExportJobDTO {
+
+    private String id;
+    private String format;
+    private String state;
+
+    private long rowsWritten;
+    // -1 until the worker has counted the range
+    private long totalRows;
+    private long size;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime expiresAt;
+
+    private String error;
+    private String downloadUrl;
+}
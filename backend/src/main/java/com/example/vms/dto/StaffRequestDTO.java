@@ -13,5 +13,6 @@ public class StaffRequestDTO {
     private String department;
     private String designation;
     private String phone;
+    private Integer allowedStayMinutes;
 }
 
@@ -16,6 +16,7 @@ public class StaffResponseDTO {
     private String department;
     private String designation;
     private String phone;
+    private Integer allowedStayMinutes;
 }
 
 
@@ -0,0 +1,18 @@
+package com.example.vms.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VisitLogDTO {
+
+    private Long id;
+    private Long visitorId;
+    private String staffUsername;
+    private String action;
+    private LocalDateTime timestamp;
+}
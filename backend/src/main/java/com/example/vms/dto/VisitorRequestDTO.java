@@ -1,5 +1,8 @@
 package com.example.vms.dto;
 
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 @Getter
@@ -10,10 +13,15 @@ import lombok.*;
 public class VisitorRequestDTO {
 
     private String name;
+
+    @NotBlank(message = "Valid email is required")
+    @Email(message = "Valid email is required")
     private String email;
+
     private String phone;
     private String purpose;
 
+    @NotNull(message = "Staff is required")
     private Long staffId;  // instead of nested staff object
 }
 
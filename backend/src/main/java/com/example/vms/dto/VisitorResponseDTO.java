@@ -24,6 +24,7 @@ public class VisitorResponseDTO {
 
     private String status;
     private String qrPath;
+    private String deliveryStatus;
     private boolean canExit;
 }
 
@@ -0,0 +1,7 @@
+package com.example.vms.event;
+
+/**
+ * Published inside the transaction that creates, updates or deletes a staff profile.
+ */
+public record StaffChangedEvent(long staffId) {
+}
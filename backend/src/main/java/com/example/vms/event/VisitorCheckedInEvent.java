@@ -0,0 +1,11 @@
+package com.example.vms.event;
+
+import com.example.vms.cache.ActiveVisitor;
+
+import java.util.List;
+
+/**
+ * Published inside the check-in transaction (single or group check-in).
+ */
+public record VisitorCheckedInEvent(List<ActiveVisitor> visitors) {
+}
@@ -0,0 +1,12 @@
+package com.example.vms.event;
+
+import com.example.vms.model.VisitorStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the exit transaction once the visitor row is EXITED.
+ * {@code previousStatus} is ACTIVE or OVERDUE, whichever the row left.
+ */
+public record VisitorExitedEvent(long visitorId, LocalDateTime exitTime, VisitorStatus previousStatus) {
+}
@@ -0,0 +1,10 @@
+package com.example.vms.event;
+
+import java.util.List;
+
+/**
+ * Published when a chunk of EXITED visitors has been moved from
+ * {@code visitors} to {@code visitors_archive}.
+ */
+public record VisitorsArchivedEvent(List<Long> visitorIds) {
+}
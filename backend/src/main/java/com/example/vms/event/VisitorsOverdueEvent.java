@@ -0,0 +1,9 @@
+package com.example.vms.event;
+
+import java.util.List;
+
+/**
+ * Published after a batch of ACTIVE visitors has been switched to OVERDUE.
+ */
+public record VisitorsOverdueEvent(List<Long> visitorIds) {
+}
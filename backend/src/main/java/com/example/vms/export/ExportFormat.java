@@ -0,0 +1,31 @@
+package com.example.vms.export;
+
+public enum ExportFormat {
+
+    CSV("text/csv; charset=UTF-8", "csv"),
+    EXCEL("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat from(String value) {
+        return switch (value.toLowerCase()) {
+            case "csv" -> CSV;
+            case "excel", "xlsx" -> EXCEL;
+            default -> throw new RuntimeException("Invalid format! Allowed: csv, excel");
+        };
+    }
+}
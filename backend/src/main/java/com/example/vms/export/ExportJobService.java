@@ -0,0 +1,311 @@
+package com.example.vms.export;
+
+import com.example.vms.dto.ExportJobDTO;
+import com.example.vms.model.ExportJob;
+import com.example.vms.repository.ExportJobRepository;
+import com.example.vms.service.LeaseService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asynchronous exports: a job is rendered by the bounded
+ * {@code exportExecutor} into the spool directory and downloaded later,
+ * so large ranges no longer hold a request thread open.
+ *
+ * Jobs are rows in {@code export_jobs}, so a status poll or a download can
+ * land on any node. The node that accepted a job renders it and reports its
+ * progress; the spool directory ({@code app.export.spool-dir}) must be
+ * storage shared by every node. A job whose owner stops reporting for
+ * {@code app.export.stale-ms} is marked FAILED by whichever node sweeps next.
+ *
+ * Finished exports of closed, past ranges are reused for identical requests
+ * until they expire ({@code app.export.ttl-ms}); jobs still queued or running
+ * are always shared.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobService.class);
+
+    @Autowired
+    private VisitorExporter visitorExporter;
+
+    @Autowired
+    private ExportJobRepository exportJobRepository;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Autowired
+    @Qualifier("exportExecutor")
+    private ThreadPoolTaskExecutor exportExecutor;
+
+    @Value("${app.export.spool-dir:exports}")
+    private String spoolDir;
+
+    @Value("${app.export.ttl-ms:3600000}")
+    private long ttlMs;
+
+    // several sweep intervals, so one missed heartbeat does not fail a job
+    @Value("${app.export.stale-ms:1800000}")
+    private long staleMs;
+
+    // at most one progress write per job and interval
+    @Value("${app.export.progress-interval-ms:2000}")
+    private long progressIntervalMs;
+
+    // jobs this node has accepted and not finished; their heartbeat comes from here
+    private final Set<String> local = ConcurrentHashMap.newKeySet();
+
+    private Path spool;
+
+    @PostConstruct
+    void init() throws IOException {
+        spool = Paths.get(spoolDir).toAbsolutePath();
+        Files.createDirectories(spool);
+    }
+
+    // -------------------------------
+    // SUBMIT / STATUS
+    // -------------------------------
+
+    // synchronized: identical requests to this node share one job; across nodes they may not
+    public synchronized ExportJob submit(ExportFormat format, LocalDateTime from, LocalDateTime to, String sort) {
+
+        LocalDateTime now = LocalDateTime.now();
+        String normalizedSort = VisitorExporter.normalizeSort(sort);
+        String key = key(format, from, to, normalizedSort);
+
+        // data of a range that is over can't change, so its finished file can be reused
+        boolean closedRange = to != null && to.isBefore(now);
+
+        for (ExportJob current : exportJobRepository.findReusable(key)) {
+            if (reusable(current, closedRange, now)) {
+                return current;
+            }
+        }
+
+        ExportJob job = exportJobRepository.save(ExportJob.builder()
+                .id(UUID.randomUUID().toString())
+                .jobKey(key)
+                .format(format)
+                .from(from)
+                .to(to)
+                .sort(normalizedSort)
+                .owner(leaseService.getNodeId())
+                .state(ExportJob.State.QUEUED)
+                .totalRows(-1)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+
+        local.add(job.getId());
+        try {
+            exportExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            local.remove(job.getId());
+            exportJobRepository.delete(job);
+            throw new RuntimeException("Too many exports in progress, try again later");
+        }
+        return job;
+    }
+
+    public ExportJob get(String id) {
+        return exportJobRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Export job not found"));
+    }
+
+    // the finished file in the shared spool
+    public Path file(ExportJob job) {
+        Path file = spool.resolve(job.getFilename());
+        if (!Files.isReadable(file)) {
+            throw new RuntimeException("Export file is missing from the spool; app.export.spool-dir must be shared by every node");
+        }
+        return file;
+    }
+
+    public ExportJobDTO toDto(ExportJob job) {
+        return ExportJobDTO.builder()
+                .id(job.getId())
+                .format(job.getFormat().name())
+                .state(job.getState().name())
+                .rowsWritten(job.getRowsWritten())
+                .totalRows(job.getTotalRows())
+                .size(job.getSize())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .expiresAt(job.getExpiresAt())
+                .error(job.getError())
+                .downloadUrl(job.getState() == ExportJob.State.DONE
+                        ? "/visitors/export/jobs/" + job.getId() + "/file"
+                        : null)
+                .build();
+    }
+
+    // -------------------------------
+    // WORKER
+    // -------------------------------
+    private void run(ExportJob job) {
+
+        Path part = spool.resolve(job.getId() + ".part");
+        Path done = spool.resolve(job.getFilename());
+
+        try {
+            job.setState(ExportJob.State.RUNNING);
+            job.setTotalRows(visitorExporter.count(job.getFrom(), job.getTo()));
+            job.setUpdatedAt(LocalDateTime.now());
+            exportJobRepository.save(job);
+
+            long[] reportedAt = {System.nanoTime()};
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), 64 * 1024)) {
+                long written = visitorExporter.export(job.getFormat(), job.getFrom(), job.getTo(), job.getSort(),
+                        out, rows -> {
+                            long nowNanos = System.nanoTime();
+                            if (nowNanos - reportedAt[0] >= progressIntervalMs * 1_000_000) {
+                                reportedAt[0] = nowNanos;
+                                reportProgress(job, rows);
+                            }
+                        });
+                job.setRowsWritten(written);
+            }
+            Files.move(part, done, StandardCopyOption.ATOMIC_MOVE);
+
+            job.setSize(Files.size(done));
+            job.setState(ExportJob.State.DONE);
+            logger.info("Export {} finished: {} rows, {} bytes", job.getId(), job.getRowsWritten(), job.getSize());
+
+        } catch (Exception e) {
+            logger.warn("Export {} failed: {}", job.getId(), e.getMessage());
+            job.setError(e.getMessage());
+            job.setState(ExportJob.State.FAILED);
+            deleteQuietly(part);
+        } finally {
+            LocalDateTime now = LocalDateTime.now();
+            job.setFinishedAt(now);
+            job.setUpdatedAt(now);
+            job.setExpiresAt(now.plus(Duration.ofMillis(ttlMs)));
+            try {
+                exportJobRepository.save(job);
+            } finally {
+                local.remove(job.getId());
+            }
+        }
+    }
+
+    // a lost progress report only delays the bar; the export goes on
+    private void reportProgress(ExportJob job, long rows) {
+        try {
+            exportJobRepository.reportProgress(job.getId(), rows, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            logger.debug("Export {} progress not saved: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    // -------------------------------
+    // TTL SWEEP
+    // -------------------------------
+
+    /**
+     * Keeps this node's unfinished jobs alive, fails jobs whose node has
+     * stopped, and drops expired jobs with their files. Any node may run it.
+     * Returns the number of jobs removed.
+     */
+    public int sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (!local.isEmpty()) {
+            exportJobRepository.heartbeat(Set.copyOf(local), now);
+        }
+        int failed = exportJobRepository.failStale(now.minus(Duration.ofMillis(staleMs)), now,
+                now.plus(Duration.ofMillis(ttlMs)));
+        if (failed > 0) {
+            logger.warn("Marked {} export jobs failed, their node stopped reporting", failed);
+        }
+
+        int removed = 0;
+        for (ExportJob job : exportJobRepository.findByExpiresAtBefore(now)) {
+            deleteQuietly(spool.resolve(job.getFilename()));
+            exportJobRepository.delete(job);
+            removed++;
+        }
+
+        deleteOrphans();
+        return removed;
+    }
+
+    // files of jobs that are gone (a node died mid-write, rows removed by hand), once older than the TTL
+    private void deleteOrphans() {
+        Instant cutoff = Instant.now().minus(Duration.ofMillis(Math.max(ttlMs, staleMs)));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spool)) {
+            for (Path f : files) {
+                String id = jobId(f.getFileName().toString());
+                if (id != null
+                        && Files.getLastModifiedTime(f).toInstant().isBefore(cutoff)
+                        && !exportJobRepository.existsById(id)) {
+                    deleteQuietly(f);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list spool directory {}: {}", spool, e.getMessage());
+        }
+    }
+
+    // "<id>.part" or "visitors_export_<id>.<ext>"
+    private static String jobId(String filename) {
+        String name = filename.startsWith("visitors_export_") ? filename.substring("visitors_export_".length()) : filename;
+        int dot = name.indexOf('.');
+        return dot == 36 ? name.substring(0, dot) : null;
+    }
+
+    private static boolean reusable(ExportJob job, boolean closedRange, LocalDateTime now) {
+        return switch (job.getState()) {
+            case QUEUED, RUNNING -> true;
+            case DONE -> closedRange && job.getExpiresAt() != null && job.getExpiresAt().isAfter(now);
+            case FAILED -> false;
+        };
+    }
+
+    private static String key(ExportFormat format, LocalDateTime from, LocalDateTime to, String sort) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            String params = format + "|" + from + "|" + to + "|" + sort;
+            return HexFormat.of().formatHex(sha.digest(params.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete spool file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.vms.export;
+
+import com.example.vms.model.Visitor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes visitors as RFC 4180 CSV.
+ *
+ * Rows are appended to one reused {@link StringBuilder} and handed to the
+ * writer in chunks of about {@link #CHUNK} chars, so there is no per-row
+ * formatting garbage and no per-row write call.
+ */
+@Component
+public class VisitorCsvWriter {
+
+    static final String HEADER = "Visitor Name,Phone,Email,Staff Name,Entry Time,Exit Time,Status";
+
+    private static final int CHUNK = 16 * 1024;
+
+    /**
+     * Writes the header plus one line per visitor and returns the number of
+     * visitor lines. The writer is flushed but not closed.
+     */
+    public long write(Stream<Visitor> visitors, Writer out) throws IOException {
+
+        StringBuilder buf = new StringBuilder(CHUNK + 1024);
+        buf.append(HEADER).append("\r\n");
+
+        long rows = 0;
+        Iterator<Visitor> it = visitors.iterator();
+        while (it.hasNext()) {
+            Visitor v = it.next();
+
+            field(buf, v.getName()).append(',');
+            field(buf, v.getPhone()).append(',');
+            field(buf, v.getEmail()).append(',');
+            field(buf, v.getStaff() != null && v.getStaff().getUser() != null
+                    ? v.getStaff().getUser().getUsername()
+                    : "N/A").append(',');
+            if (v.getEntryTime() != null) {
+                buf.append(v.getEntryTime());
+            }
+            buf.append(',');
+            if (v.getExitTime() != null) {
+                buf.append(v.getExitTime());
+            }
+            buf.append(',');
+            buf.append(v.getStatus().name()).append("\r\n");
+            rows++;
+
+            if (buf.length() >= CHUNK) {
+                out.append(buf);
+                buf.setLength(0);
+            }
+        }
+
+        out.append(buf);
+        out.flush();
+        return rows;
+    }
+
+    // quotes only when needed: separator, quote or line break inside the value
+    static StringBuilder field(StringBuilder buf, String value) {
+        if (value == null) {
+            return buf;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            return buf.append(value);
+        }
+
+        buf.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                buf.append('"');
+            }
+            buf.append(c);
+        }
+        return buf.append('"');
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.vms.export;
+
+import com.example.vms.model.Visitor;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes visitors to an .xlsx file with constant heap use.
+ *
+ * SXSSF keeps only the last {@code window} rows in memory and flushes older
+ * ones to a gzip-compressed temp file, so memory does not grow with the
+ * number of rows as long as the input is streamed too.
+ */
+@Component
+public class VisitorExcelWriter {
+
+    private static final String[] HEADER = {
+            "Name", "Email", "Phone", "Entry Time", "Exit Time", "Status", "Staff Visited"
+    };
+
+    @Value("${app.export.excel-row-window:100}")
+    private int rowWindow;
+
+    /**
+     * Writes the header plus one row per visitor and returns the number of
+     * visitor rows written. The stream is consumed but not closed.
+     */
+    public long write(Stream<Visitor> visitors, OutputStream out) throws IOException {
+
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow)) {
+            workbook.setCompressTempFiles(true);
+
+            Sheet sheet = workbook.createSheet("Visitors");
+
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADER.length; i++) {
+                header.createCell(i).setCellValue(HEADER[i]);
+            }
+
+            int rowCount = 1;
+            Iterator<Visitor> it = visitors.iterator();
+            while (it.hasNext()) {
+                Visitor v = it.next();
+                Row row = sheet.createRow(rowCount++);
+                row.createCell(0).setCellValue(v.getName());
+                row.createCell(1).setCellValue(v.getEmail());
+                row.createCell(2).setCellValue(v.getPhone());
+                row.createCell(3).setCellValue(String.valueOf(v.getEntryTime()));
+                row.createCell(4).setCellValue(v.getExitTime() != null ? String.valueOf(v.getExitTime()) : "Still Inside");
+                row.createCell(5).setCellValue(v.getStatus().name());
+                row.createCell(6).setCellValue(
+                        v.getStaff() != null && v.getStaff().getUser() != null
+                                ? v.getStaff().getUser().getUsername()
+                                : "N/A"
+                );
+            }
+
+            workbook.write(out);
+            return rowCount - 1;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.vms.export;
+
+import com.example.vms.model.Visitor;
+import com.example.vms.repository.VisitorRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Streams visitors from a DB cursor into a CSV or Excel writer. Used by the
+ * synchronous export endpoints and by {@link ExportJobService}.
+ */
+@Component
+public class VisitorExporter {
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private VisitorCsvWriter visitorCsvWriter;
+
+    @Autowired
+    private VisitorExcelWriter visitorExcelWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.export.clear-every:1000}")
+    private int clearEvery;
+
+    /**
+     * Writes every visitor who entered in [from, to] (either bound may be
+     * null) to {@code out}. {@code progress} receives the running row count.
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, LocalDateTime from, LocalDateTime to, String sort,
+                       OutputStream out, LongConsumer progress) throws IOException {
+
+        try (Stream<Visitor> visitors = visitorRepository.streamForExport(from, to, sortFor(sort))) {
+            Stream<Visitor> rows = track(visitors, progress);
+            long written = switch (format) {
+                case CSV -> visitorCsvWriter.write(rows, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                case EXCEL -> visitorExcelWriter.write(rows, out);
+            };
+            progress.accept(written);
+            return written;
+        }
+    }
+
+    public long count(LocalDateTime from, LocalDateTime to) {
+        return visitorRepository.countForExport(from, to);
+    }
+
+    // "name" or anything else (= latest first)
+    public static String normalizeSort(String sort) {
+        return sort != null && sort.equalsIgnoreCase("name") ? "name" : "latest";
+    }
+
+    // ordering happens in the DB; id breaks ties so the order is stable
+    private Sort sortFor(String sort) {
+        if (normalizeSort(sort).equals("name")) {
+            return Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id"));
+        }
+        return Sort.by(Sort.Order.desc("entryTime"), Sort.Order.desc("id")); // latest first
+    }
+
+    // keeps the persistence context from accumulating every streamed entity
+    private Stream<Visitor> track(Stream<Visitor> rows, LongConsumer progress) {
+        long[] count = {0};
+        return rows.peek(row -> {
+            if (++count[0] % clearEvery == 0) {
+                entityManager.clear();
+                progress.accept(count[0]);
+            }
+        });
+    }
+}
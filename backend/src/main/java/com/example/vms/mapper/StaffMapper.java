@@ -1,5 +1,6 @@
 package com.example.vms.mapper;
 
+import com.example.vms.cache.StaffEntry;
 import com.example.vms.dto.StaffRequestDTO;
 import com.example.vms.dto.StaffResponseDTO;
 import com.example.vms.model.Staff;
@@ -13,8 +14,12 @@ public interface StaffMapper {
     @Mapping(source = "user.username", target = "username")
     StaffResponseDTO toResponse(Staff staff);
 
+    // directory snapshot -> DTO (no JPA involved)
+    StaffResponseDTO fromEntry(StaffEntry entry);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "user", source = "user")
+    @Mapping(target = "allowedStayMinutes", ignore = true) // admin-only setting
     Staff toEntity(StaffRequestDTO dto, User user);
 }
 
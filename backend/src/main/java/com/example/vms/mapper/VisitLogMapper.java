@@ -0,0 +1,15 @@
+package com.example.vms.mapper;
+
+import com.example.vms.dto.VisitLogDTO;
+import com.example.vms.model.VisitLog;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface VisitLogMapper {
+
+    VisitLogDTO toDto(VisitLog log);
+
+    List<VisitLogDTO> toDtoList(List<VisitLog> logs);
+}
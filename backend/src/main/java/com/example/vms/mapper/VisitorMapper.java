@@ -1,5 +1,6 @@
 package com.example.vms.mapper;
 
+import com.example.vms.cache.ActiveVisitor;
 import com.example.vms.dto.VisitorRequestDTO;
 import com.example.vms.dto.VisitorResponseDTO;
 import com.example.vms.model.Visitor;
@@ -18,6 +19,11 @@ public interface VisitorMapper
 
     List<VisitorResponseDTO> toResponseList(List<Visitor> visitors);
 
+    // registry snapshot -> DTO (no JPA involved)
+    @Mapping(target = "exitTime", ignore = true)
+    @Mapping(target = "canExit", ignore = true)
+    VisitorResponseDTO fromActive(ActiveVisitor visitor);
+
     Visitor toEntity(VisitorRequestDTO dto);
 }
 
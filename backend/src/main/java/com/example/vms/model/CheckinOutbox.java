@@ -0,0 +1,50 @@
+package com.example.vms.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pending "render QR + send pass email" job per checked-in visitor.
+ * Written in the same transaction as the visitor row and drained by
+ * {@link com.example.vms.service.CheckinOutboxService} after commit.
+ */
+@Entity
+@Table(name = "checkin_outbox", indexes = {
+        @Index(name = "idx_outbox_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_outbox_status_locked", columnList = "status, locked_at"),
+        @Index(name = "idx_outbox_visitor", columnList = "visitor_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckinOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "checkin_outbox_seq")
+    @SequenceGenerator(name = "checkin_outbox_seq", sequenceName = "checkin_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long visitorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    private int attempts;
+
+    // earliest time the relay may pick this row up (retry backoff)
+    private LocalDateTime nextAttemptAt;
+
+    // set when a worker claims the row, used to recover crashed workers
+    private LocalDateTime lockedAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,6 @@
+package com.example.vms.model;
+
+public enum DeliveryStatus
+{
+    PENDING, SENT, FAILED
+}
@@ -0,0 +1,82 @@
+package com.example.vms.model;
+
+import com.example.vms.export.ExportFormat;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One asynchronous export, run by {@link com.example.vms.export.ExportJobService}.
+ * Stored in the DB so every node can report its progress and serve its file;
+ * only the {@code owner} node writes it while the job runs.
+ */
+@Entity
+@Table(name = "export_jobs", indexes = {
+        @Index(name = "idx_export_jobs_key", columnList = "job_key, state"),
+        @Index(name = "idx_export_jobs_expires", columnList = "expires_at"),
+        @Index(name = "idx_export_jobs_state_updated", columnList = "state, updated_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExportJob {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    // hash of format + range + sort, used to reuse finished exports
+    @Column(nullable = false, length = 64)
+    private String jobKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ExportFormat format;
+
+    @Column(name = "from_time")
+    private LocalDateTime from;
+
+    @Column(name = "to_time")
+    private LocalDateTime to;
+
+    @Column(nullable = false, length = 16)
+    private String sort;
+
+    // node that renders the job
+    @Column(nullable = false, length = 100)
+    private String owner;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private State state;
+
+    // -1 until the worker has counted the range
+    private long totalRows;
+
+    private long rowsWritten;
+
+    private long size;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // last progress report or owner heartbeat
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    private LocalDateTime expiresAt;
+
+    @Column(length = 500)
+    private String error;
+
+    public String getFilename() {
+        return "visitors_export_" + id + "." + format.getExtension();
+    }
+}
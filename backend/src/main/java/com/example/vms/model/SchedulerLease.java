@@ -0,0 +1,36 @@
+package com.example.vms.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per cluster-wide scheduled job (or job shard). The node whose
+ * {@code owner} is set and whose {@code expiresAt} is in the future runs the
+ * job; {@code token} grows on every change of hands and fences stale owners.
+ * Managed by {@link com.example.vms.service.LeaseService}.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(length = 100)
+    private String owner;
+
+    private long token;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime acquiredAt;
+}
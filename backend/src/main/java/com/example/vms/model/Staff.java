@@ -17,7 +17,7 @@ public class Staff {
     private Long id;
 
     // 👇 Link this staff profile with user login
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     private User user;
 
@@ -31,5 +31,8 @@ public class Staff {
     private String designation;
 
     private String phone;
+
+    // how long this host's visitors may stay before turning OVERDUE (null = department/global default)
+    private Integer allowedStayMinutes;
 }
 
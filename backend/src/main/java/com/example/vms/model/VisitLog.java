@@ -6,7 +6,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "visit_logs")
+@Table(name = "visit_logs", indexes = {
+        @Index(name = "idx_visit_logs_visitor_time", columnList = "visitor_id, timestamp, action, staff_username"),
+        @Index(name = "idx_visit_logs_staff_time", columnList = "staff_username, timestamp, action, visitor_id"),
+        @Index(name = "idx_visit_logs_action_time", columnList = "action, timestamp, staff_username, visitor_id"),
+        @Index(name = "idx_visit_logs_time", columnList = "timestamp, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,6 +19,10 @@ import java.time.LocalDateTime;
 @Builder
 public class VisitLog {
 
+    public static final String ENTERED = "ENTERED";
+    public static final String EXITED = "EXITED";
+    public static final String OVERDUE = "OVERDUE_MARKED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -23,7 +32,7 @@ public class VisitLog {
     // ✅ which staff owns this visit
     private String staffUsername;
 
-    // ENTERED / EXITED
+    // ENTERED / EXITED / OVERDUE_MARKED
     private String action;
 
     private LocalDateTime timestamp;
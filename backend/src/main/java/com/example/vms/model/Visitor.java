@@ -5,16 +5,33 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "visitors")
+// indexes are created by the Flyway migrations (db/migration); listed here so the model documents them
+@Table(name = "visitors", indexes = {
+        @Index(name = "idx_visitors_status_entry", columnList = "status, entry_time, staff_id"),
+        @Index(name = "idx_visitors_staff_status", columnList = "staff_id, status"),
+        @Index(name = "idx_visitors_staff_entry", columnList = "staff_id, entry_time"),
+        @Index(name = "idx_visitors_entry_id", columnList = "entry_time, id"),
+        @Index(name = "idx_visitors_exit_time", columnList = "exit_time")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@NamedEntityGraph(
+        name = Visitor.WITH_HOST,
+        attributeNodes = @NamedAttributeNode(value = "staff", subgraph = "host"),
+        subgraphs = @NamedSubgraph(name = "host", attributeNodes = @NamedAttributeNode("user"))
+)
 public class Visitor {
 
+    // staff + staff.user in the same SELECT: everything VisitorResponseDTO needs
+    public static final String WITH_HOST = "Visitor.withHost";
+
+    // pooled sequence (not IDENTITY) so Hibernate can batch inserts for group check-ins
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "visitor_seq")
+    @SequenceGenerator(name = "visitor_seq", sequenceName = "visitors_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -26,7 +43,8 @@ public class Visitor {
     private String purpose;
 
     // ✅ FIXED: Visitor points to Staff, NOT User
-    @ManyToOne
+    // lazy: queries that map the host ask for it through the WITH_HOST graph
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "staff_id", nullable = false)
     private Staff staff;
 
@@ -37,4 +55,8 @@ public class Visitor {
     private VisitorStatus status;
 
     private String qrPath;
+
+    // QR/email pass delivery, filled in asynchronously by the check-in outbox
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus deliveryStatus;
 }
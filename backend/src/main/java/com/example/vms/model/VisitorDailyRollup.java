@@ -0,0 +1,27 @@
+package com.example.vms.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Same counters as {@link VisitorHourlyRollup}, per day of entry time.
+ */
+@Entity
+@Table(name = "visitor_daily_rollups")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VisitorDailyRollup {
+
+    @Id
+    private LocalDate bucketDate;
+
+    private long total;
+    private long active;
+    private long exited;
+    private long overdue;
+}
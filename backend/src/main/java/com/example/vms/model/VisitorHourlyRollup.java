@@ -0,0 +1,30 @@
+package com.example.vms.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Visitor counters per hour of entry time, kept current by
+ * {@link com.example.vms.service.VisitorRollupService}. {@code active},
+ * {@code exited} and {@code overdue} are the current statuses of the visitors
+ * who entered in that hour.
+ */
+@Entity
+@Table(name = "visitor_hourly_rollups")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VisitorHourlyRollup {
+
+    @Id
+    private LocalDateTime bucketStart;
+
+    private long total;
+    private long active;
+    private long exited;
+    private long overdue;
+}
@@ -0,0 +1,72 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.CheckinOutbox;
+import com.example.vms.model.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CheckinOutboxRepository extends JpaRepository<CheckinOutbox, Long> {
+
+    // rows that are due for (re)delivery, or whose worker died mid-flight
+    @Query("""
+        SELECT o.id FROM CheckinOutbox o
+        WHERE (o.status = com.example.vms.model.OutboxStatus.PENDING AND o.nextAttemptAt <= :now)
+           OR (o.status = com.example.vms.model.OutboxStatus.PROCESSING AND o.lockedAt < :staleBefore)
+        ORDER BY o.id
+    """)
+    List<Long> findDueIds(
+            @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore,
+            Pageable pageable
+    );
+
+    // atomic claim: only one worker (or node) wins the row
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE CheckinOutbox o
+        SET o.status = com.example.vms.model.OutboxStatus.PROCESSING,
+            o.attempts = o.attempts + 1,
+            o.lockedAt = :now
+        WHERE o.id = :id
+          AND (o.status = com.example.vms.model.OutboxStatus.PENDING
+               OR (o.status = com.example.vms.model.OutboxStatus.PROCESSING AND o.lockedAt < :staleBefore))
+    """)
+    int claim(
+            @Param("id") Long id,
+            @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore
+    );
+
+    @Modifying
+    @Query("""
+        UPDATE CheckinOutbox o
+        SET o.status = :status,
+            o.nextAttemptAt = :nextAttemptAt,
+            o.lastError = :error,
+            o.lockedAt = null
+        WHERE o.id = :id
+    """)
+    int complete(
+            @Param("id") Long id,
+            @Param("status") OutboxStatus status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("error") String error
+    );
+
+    // retention: the delivery jobs of archived visitors go with them
+    @Modifying
+    @Query("""
+        DELETE FROM CheckinOutbox o
+        WHERE o.visitorId IN :visitorIds
+    """)
+    int deleteByVisitorIds(@Param("visitorIds") Collection<Long> visitorIds);
+}
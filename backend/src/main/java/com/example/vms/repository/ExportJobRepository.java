@@ -0,0 +1,75 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ExportJobRepository extends JpaRepository<ExportJob, String> {
+
+    // candidates for reuse by an identical request, newest first
+    @Query("""
+        SELECT j FROM ExportJob j
+        WHERE j.jobKey = :key
+          AND j.state <> com.example.vms.model.ExportJob.State.FAILED
+        ORDER BY j.createdAt DESC
+    """)
+    List<ExportJob> findReusable(@Param("key") String key);
+
+    // called from inside the export's read-only transaction, so it commits on its own
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("""
+        UPDATE ExportJob j
+        SET j.rowsWritten = :rows,
+            j.updatedAt = :now
+        WHERE j.id = :id
+    """)
+    int reportProgress(
+            @Param("id") String id,
+            @Param("rows") long rows,
+            @Param("now") LocalDateTime now
+    );
+
+    // the owner's sign of life for jobs still waiting in its queue or running
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE ExportJob j
+        SET j.updatedAt = :now
+        WHERE j.id IN :ids
+          AND j.state IN (com.example.vms.model.ExportJob.State.QUEUED, com.example.vms.model.ExportJob.State.RUNNING)
+    """)
+    int heartbeat(
+            @Param("ids") Collection<String> ids,
+            @Param("now") LocalDateTime now
+    );
+
+    // jobs whose owner stopped (crash, redeploy) before finishing them
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE ExportJob j
+        SET j.state = com.example.vms.model.ExportJob.State.FAILED,
+            j.error = 'Export node stopped before the job finished',
+            j.finishedAt = :now,
+            j.expiresAt = :expiresAt,
+            j.updatedAt = :now
+        WHERE j.state IN (com.example.vms.model.ExportJob.State.QUEUED, com.example.vms.model.ExportJob.State.RUNNING)
+          AND j.updatedAt < :staleBefore
+    """)
+    int failStale(
+            @Param("staleBefore") LocalDateTime staleBefore,
+            @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    List<ExportJob> findByExpiresAtBefore(LocalDateTime now);
+}
@@ -0,0 +1,95 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // extend a lease this node still holds; the token is left unchanged
+    @Modifying
+    @Query("""
+        UPDATE SchedulerLease l
+        SET l.expiresAt = :expiresAt
+        WHERE l.name = :name
+          AND l.owner = :owner
+          AND l.expiresAt >= :now
+    """)
+    int renew(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    // take over an expired lease; only one node's UPDATE can match
+    @Modifying
+    @Query("""
+        UPDATE SchedulerLease l
+        SET l.owner = :owner,
+            l.token = l.token + 1,
+            l.expiresAt = :expiresAt,
+            l.acquiredAt = :now
+        WHERE l.name = :name
+          AND l.expiresAt < :now
+    """)
+    int takeOver(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    // fencing check: matches only while the caller is still the current holder
+    @Modifying
+    @Query("""
+        UPDATE SchedulerLease l
+        SET l.expiresAt = :expiresAt
+        WHERE l.name = :name
+          AND l.owner = :owner
+          AND l.token = :token
+          AND l.expiresAt >= :now
+    """)
+    int fence(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("token") long token,
+            @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    // give the lease up; nobody may take it before :until
+    @Modifying
+    @Query("""
+        UPDATE SchedulerLease l
+        SET l.owner = null,
+            l.expiresAt = :until
+        WHERE l.name = :name
+          AND l.owner = :owner
+          AND l.token = :token
+    """)
+    int release(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("token") long token,
+            @Param("until") LocalDateTime until
+    );
+
+    // plain INSERT (not merge), so a concurrent insert fails instead of overwriting
+    @Modifying
+    @Query(value = """
+        INSERT INTO scheduler_leases (name, token, expires_at)
+        VALUES (:name, 0, :expiresAt)
+    """, nativeQuery = true)
+    int insert(
+            @Param("name") String name,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    @Query("SELECT l.token FROM SchedulerLease l WHERE l.name = :name")
+    long findToken(@Param("name") String name);
+}
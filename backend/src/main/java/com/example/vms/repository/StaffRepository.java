@@ -3,12 +3,28 @@ package com.example.vms.repository;
 import com.example.vms.model.Staff;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface StaffRepository extends JpaRepository<Staff, Long> {
 
+    // StaffResponseDTO carries the login's id and username, so lookups that are mapped fetch it too
+
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<Staff> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Optional<Staff> findById(Long id);
+
+    @EntityGraph(attributePaths = "user")
     Optional<Staff> findByStaffCode(String code);
 
     Optional<Staff> findByUser_Id(Long userId);
@@ -16,7 +32,20 @@ public interface StaffRepository extends JpaRepository<Staff, Long> {
     boolean existsByStaffCode(String code);
 
     // search by name or staffCode (paginated)
+    @EntityGraph(attributePaths = "user")
     Page<Staff> findByFullNameIgnoreCaseContainingOrStaffCodeIgnoreCaseContaining(String fullName, String staffCode, Pageable pageable);
+
+    // resolve all hosts of a group check-in (with their login) in one round-trip
+    @Query("SELECT s FROM Staff s JOIN FETCH s.user WHERE s.id IN :ids")
+    List<Staff> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // every profile with its login, for the staff directory
+    @Query("SELECT s FROM Staff s JOIN FETCH s.user")
+    List<Staff> findAllWithUser();
+
+    // id, department, allowedStayMinutes — just what the overdue policy needs
+    @Query("SELECT s.id, s.department, s.allowedStayMinutes FROM Staff s")
+    List<Object[]> findStayPolicyRows();
 }
 
 
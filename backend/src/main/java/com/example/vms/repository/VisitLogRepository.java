@@ -1,14 +1,30 @@
 package com.example.vms.repository;
 
 import com.example.vms.model.VisitLog;
-import com.example.vms.model.VisitorStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDate;
-
-public interface VisitLogRepository extends JpaRepository<VisitLog, Long> {
+import java.time.LocalDateTime;
+import java.util.Collection;
 
+public interface VisitLogRepository extends JpaRepository<VisitLog, Long>, JpaSpecificationExecutor<VisitLog> {
 
+    // one INSERT ... SELECT per chunk instead of one save() per visitor
+    @Modifying
+    @Query(value = """
+    INSERT INTO visit_logs (visitor_id, staff_username, action, timestamp)
+    SELECT v.id, u.username, :action, :timestamp
+    FROM visitors v
+    JOIN staff s ON s.id = v.staff_id
+    JOIN users u ON u.id = s.user_id
+    WHERE v.id IN (:visitorIds)
+""", nativeQuery = true)
+    int insertForVisitors(
+            @Param("visitorIds") Collection<Long> visitorIds,
+            @Param("action") String action,
+            @Param("timestamp") LocalDateTime timestamp
+    );
 }
-
@@ -0,0 +1,65 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.VisitLog;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for the visit-log history. Each one is an equality or range on a
+ * leading index column, so every combination is served by one of the
+ * visit_logs indexes; a time window also prunes partitions.
+ */
+public final class VisitLogSpecs {
+
+    private VisitLogSpecs() {
+    }
+
+    public static Specification<VisitLog> history(
+            Long visitorId,
+            String staffUsername,
+            String action,
+            LocalDateTime from,
+            LocalDateTime to
+    ) {
+        return equalTo("visitorId", visitorId)
+                .and(equalTo("staffUsername", trimmed(staffUsername)))
+                .and(equalTo("action", trimmed(action)))
+                .and(between(from, to));
+    }
+
+    // null value: no restriction
+    public static Specification<VisitLog> equalTo(String field, Object value) {
+        return (root, query, cb) -> value == null ? null : cb.equal(root.get(field), value);
+    }
+
+    public static Specification<VisitLog> between(LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> {
+            if (from != null && to != null) {
+                return cb.between(root.get("timestamp"), from, to);
+            }
+            if (from != null) {
+                return cb.greaterThanOrEqualTo(root.get("timestamp"), from);
+            }
+            return to == null ? null : cb.lessThanOrEqualTo(root.get("timestamp"), to);
+        };
+    }
+
+    /**
+     * Keyset seek for (timestamp DESC, id DESC), same shape as
+     * {@link VisitorSpecs#before}.
+     */
+    public static Specification<VisitLog> before(LocalDateTime timestamp, long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("timestamp"), timestamp),
+                cb.and(
+                        cb.equal(root.get("timestamp"), timestamp),
+                        cb.lessThan(root.get("id"), id)
+                )
+        );
+    }
+
+    private static String trimmed(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.VisitorDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface VisitorDailyRollupRepository extends JpaRepository<VisitorDailyRollup, LocalDate> {
+
+    /* ---------------- INCREMENTAL ---------------- */
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO visitor_daily_rollups (bucket_date, total, active, exited, overdue)
+        SELECT * FROM (
+            SELECT DATE(v.entry_time) AS b,
+                   COUNT(*) * :dTotal AS t,
+                   COUNT(*) * :dActive AS a,
+                   COUNT(*) * :dExited AS e,
+                   COUNT(*) * :dOverdue AS o
+            FROM visitors v
+            WHERE v.id IN (:ids)
+              AND v.entry_time IS NOT NULL
+            GROUP BY b
+        ) d
+        ON DUPLICATE KEY UPDATE
+            total = total + VALUES(total),
+            active = active + VALUES(active),
+            exited = exited + VALUES(exited),
+            overdue = overdue + VALUES(overdue)
+    """, nativeQuery = true)
+    int addForVisitors(
+            @Param("ids") Collection<Long> ids,
+            @Param("dTotal") int dTotal,
+            @Param("dActive") int dActive,
+            @Param("dExited") int dExited,
+            @Param("dOverdue") int dOverdue
+    );
+
+    /* ---------------- BACKFILL ---------------- */
+
+    @Modifying
+    @Query("""
+        DELETE FROM VisitorDailyRollup d
+        WHERE d.bucketDate >= :from AND d.bucketDate < :to
+    """)
+    int deleteRange(
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    // days are summed from the (already rebuilt) hourly buckets
+    @Modifying
+    @Query(value = """
+        INSERT INTO visitor_daily_rollups (bucket_date, total, active, exited, overdue)
+        SELECT DATE(h.bucket_start) AS b,
+               SUM(h.total), SUM(h.active), SUM(h.exited), SUM(h.overdue)
+        FROM visitor_hourly_rollups h
+        WHERE h.bucket_start >= :from AND h.bucket_start < :to
+        GROUP BY b
+    """, nativeQuery = true)
+    int rebuildFromHourly(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /* ---------------- READ ---------------- */
+
+    @Query("""
+        SELECT d FROM VisitorDailyRollup d
+        WHERE d.bucketDate >= :from AND d.bucketDate < :to
+        ORDER BY d.bucketDate
+    """)
+    List<VisitorDailyRollup> findRange(
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+}
@@ -0,0 +1,23 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.Visitor;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Export query built from {@link VisitorSpecs#enteredBetween}: only the
+ * bounds actually given become predicates, so an open range and a closed
+ * one each get their own plan.
+ */
+public interface VisitorExportQueries {
+
+    /**
+     * Visitors who entered in [from, to] (either bound may be null), with their
+     * host, as a forward-only stream. Must be consumed inside a transaction.
+     */
+    Stream<Visitor> streamForExport(LocalDateTime from, LocalDateTime to, Sort sort);
+
+    long countForExport(LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,54 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.Visitor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+class VisitorExportQueriesImpl implements VisitorExportQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Visitor> streamForExport(LocalDateTime from, LocalDateTime to, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Visitor> query = cb.createQuery(Visitor.class);
+        Root<Visitor> v = query.from(Visitor.class);
+        // staff and user come in the same row so nothing is lazily loaded mid-stream
+        v.fetch("staff", JoinType.LEFT).fetch("user", JoinType.LEFT);
+        Predicate range = VisitorSpecs.enteredBetween(from, to).toPredicate(v, query, cb);
+        if (range != null) {
+            query.where(range);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, v, cb));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, VisitorRepository.STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHEABLE, false)
+                .getResultStream();
+    }
+
+    @Override
+    public long countForExport(LocalDateTime from, LocalDateTime to) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Visitor> v = query.from(Visitor.class);
+        Predicate range = VisitorSpecs.enteredBetween(from, to).toPredicate(v, query, cb);
+        if (range != null) {
+            query.where(range);
+        }
+        return entityManager.createQuery(query.select(cb.count(v))).getSingleResult();
+    }
+}
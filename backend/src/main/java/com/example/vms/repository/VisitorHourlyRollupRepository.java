@@ -0,0 +1,101 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.VisitorHourlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface VisitorHourlyRollupRepository extends JpaRepository<VisitorHourlyRollup, LocalDateTime> {
+
+    /* ---------------- INCREMENTAL ---------------- */
+
+    // adds the given per-visitor deltas to the hour bucket of each visitor's entry time;
+    // VALUES(col) rather than the derived-table alias so H2's MySQL mode runs it too
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO visitor_hourly_rollups (bucket_start, total, active, exited, overdue)
+        SELECT * FROM (
+            SELECT TIMESTAMPADD(HOUR, HOUR(v.entry_time), DATE(v.entry_time)) AS b,
+                   COUNT(*) * :dTotal AS t,
+                   COUNT(*) * :dActive AS a,
+                   COUNT(*) * :dExited AS e,
+                   COUNT(*) * :dOverdue AS o
+            FROM visitors v
+            WHERE v.id IN (:ids)
+              AND v.entry_time IS NOT NULL
+            GROUP BY b
+        ) d
+        ON DUPLICATE KEY UPDATE
+            total = total + VALUES(total),
+            active = active + VALUES(active),
+            exited = exited + VALUES(exited),
+            overdue = overdue + VALUES(overdue)
+    """, nativeQuery = true)
+    int addForVisitors(
+            @Param("ids") Collection<Long> ids,
+            @Param("dTotal") int dTotal,
+            @Param("dActive") int dActive,
+            @Param("dExited") int dExited,
+            @Param("dOverdue") int dOverdue
+    );
+
+    /* ---------------- BACKFILL ---------------- */
+
+    @Modifying
+    @Query("""
+        DELETE FROM VisitorHourlyRollup h
+        WHERE h.bucketStart >= :from AND h.bucketStart < :to
+    """)
+    int deleteRange(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO visitor_hourly_rollups (bucket_start, total, active, exited, overdue)
+        SELECT TIMESTAMPADD(HOUR, HOUR(v.entry_time), DATE(v.entry_time)) AS b,
+               COUNT(*),
+               SUM(v.status = 'ACTIVE'),
+               SUM(v.status = 'EXITED'),
+               SUM(v.status = 'OVERDUE')
+        FROM visitors v
+        WHERE v.entry_time >= :from AND v.entry_time < :to
+        GROUP BY b
+    """, nativeQuery = true)
+    int rebuildRange(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /* ---------------- READ ---------------- */
+
+    @Query("""
+        SELECT h FROM VisitorHourlyRollup h
+        WHERE h.bucketStart >= :from AND h.bucketStart < :to
+        ORDER BY h.bucketStart
+    """)
+    List<VisitorHourlyRollup> findRange(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @Query("""
+        SELECT FUNCTION('HOUR', h.bucketStart), SUM(h.total)
+        FROM VisitorHourlyRollup h
+        WHERE h.bucketStart >= :from AND h.bucketStart < :to
+        GROUP BY FUNCTION('HOUR', h.bucketStart)
+        ORDER BY FUNCTION('HOUR', h.bucketStart)
+    """)
+    List<Object[]> sumByHourOfDay(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+}
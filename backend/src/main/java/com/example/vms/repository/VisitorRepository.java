@@ -1,22 +1,46 @@
 package com.example.vms.repository;
 
+import com.example.vms.model.DeliveryStatus;
 import com.example.vms.model.Visitor;
 import com.example.vms.model.VisitorStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface VisitorRepository extends JpaRepository<Visitor, Long> {
+public interface VisitorRepository extends JpaRepository<Visitor, Long>, JpaSpecificationExecutor<Visitor>,
+        VisitorExportQueries {
 
     /* ---------------- BASIC ---------------- */
 
+    // every listing below is mapped to VisitorResponseDTO, which reads staff.user.username;
+    // the WITH_HOST graph joins both in the page query instead of two selects per row
+
+    @Override
+    @EntityGraph(Visitor.WITH_HOST)
+    Page<Visitor> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(Visitor.WITH_HOST)
+    Optional<Visitor> findById(Long id);
+
+    @EntityGraph(Visitor.WITH_HOST)
     Page<Visitor> findByStatus(VisitorStatus status, Pageable pageable);
 
+    @EntityGraph(Visitor.WITH_HOST)
     @Query("""
         SELECT v FROM Visitor v
         WHERE v.status = 'ACTIVE'
@@ -24,6 +48,7 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
     """)
     List<Visitor> findActiveVisitorsBefore(@Param("cutoff") LocalDateTime cutoff);
 
+    @EntityGraph(Visitor.WITH_HOST)
     @Query("""
     SELECT v FROM Visitor v
     WHERE LOWER(v.staff.user.username) = LOWER(:username)
@@ -37,6 +62,7 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
 
     /* ---------------- SEARCH ---------------- */
 
+    @EntityGraph(Visitor.WITH_HOST)
     @Query("""
         SELECT v FROM Visitor v
         WHERE LOWER(v.name) LIKE LOWER(CONCAT('%', :keyword, '%'))
@@ -48,6 +74,7 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
     /* ---------------- TODAY FILTER (FIXED) ---------------- */
     /* ⚠️ Service MUST pass startOfDay & endOfDay */
 
+    @EntityGraph(Visitor.WITH_HOST)
     @Query("""
         SELECT v FROM Visitor v
         WHERE v.entryTime BETWEEN :start AND :end
@@ -60,6 +87,7 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
 
     /* ---------------- DATE RANGE ---------------- */
 
+    @EntityGraph(Visitor.WITH_HOST)
     @Query("""
         SELECT v FROM Visitor v
         WHERE v.entryTime BETWEEN :from AND :to
@@ -70,6 +98,7 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
             Pageable pageable
     );
 
+    @EntityGraph(Visitor.WITH_HOST)
     @Query("""
         SELECT v FROM Visitor v
         WHERE v.entryTime BETWEEN :from AND :to
@@ -80,6 +109,15 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
             @Param("to") LocalDateTime to
     );
 
+    /* ---------------- EXPORT ---------------- */
+
+    // streamForExport / countForExport: see VisitorExportQueries
+
+    // rows per round trip for the streamed reads. A positive size works on H2 and,
+    // with useCursorFetch=true (JpaBatchConfig), makes Connector/J read through a
+    // server-side cursor instead of buffering the whole result
+    int STREAM_FETCH_SIZE = 1000;
+
     /* ---------------- COUNTS ---------------- */
 
     @Query("""
@@ -104,6 +142,25 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
             @Param("to") LocalDateTime to
     );
 
+    // one pass over the window instead of one COUNT per status
+    @Query("""
+        SELECT new com.example.vms.repository.VisitorSummary(
+            COUNT(v),
+            COALESCE(SUM(CASE WHEN v.status = com.example.vms.model.VisitorStatus.ACTIVE THEN 1 ELSE 0 END), 0),
+            COALESCE(SUM(CASE WHEN v.status = com.example.vms.model.VisitorStatus.EXITED THEN 1 ELSE 0 END), 0),
+            COALESCE(SUM(CASE WHEN v.status = com.example.vms.model.VisitorStatus.OVERDUE THEN 1 ELSE 0 END), 0)
+        )
+        FROM Visitor v
+        WHERE v.entryTime >= :from AND v.entryTime < :to
+    """)
+    VisitorSummary summarize(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @Query("SELECT MIN(v.entryTime) FROM Visitor v")
+    LocalDateTime findFirstEntryTime();
+
     /* ---------------- DAILY TREND (FIXED) ---------------- */
 
     @Query("""
@@ -132,32 +189,6 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
             @Param("to") LocalDateTime to
     );
 
-    /* ---------------- ADVANCED SEARCH ---------------- */
-
-    @Query("""
-    SELECT v FROM Visitor v
-    JOIN v.staff s
-    JOIN s.user u
-    WHERE (:name IS NULL OR LOWER(v.name) LIKE LOWER(CONCAT('%', :name, '%')))
-      AND (:email IS NULL OR LOWER(v.email) LIKE LOWER(CONCAT('%', :email, '%')))
-      AND (:phone IS NULL OR LOWER(v.phone) LIKE LOWER(CONCAT('%', :phone, '%')))
-      AND (:staff IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', :staff, '%')))
-      AND (:status IS NULL OR v.status = :status)
-      AND (:fromDate IS NULL OR v.entryTime >= :fromDate)
-      AND (:toDate IS NULL OR v.entryTime <= :toDate)
-""")
-    Page<Visitor> advancedSearch(
-            @Param("name") String name,
-            @Param("email") String email,
-            @Param("phone") String phone,
-            @Param("staff") String staff,
-            @Param("status") VisitorStatus status,
-            @Param("fromDate") LocalDateTime from,
-            @Param("toDate") LocalDateTime to,
-            Pageable pageable
-    );
-
-
     /* ---------------- HOURLY STATS ---------------- */
 
     @Query("""
@@ -186,6 +217,7 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
 
 
 
+    @EntityGraph(Visitor.WITH_HOST)
     @Query("""
     SELECT v FROM Visitor v
     JOIN v.staff s
@@ -231,6 +263,229 @@ public interface VisitorRepository extends JpaRepository<Visitor, Long> {
             @Param("username") String username
     );
 
+    /* ---------------- SEARCH INDEX ---------------- */
+
+    // full load for the in-memory search index, streamed like the export
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+    SELECT new com.example.vms.repository.VisitorSearchRow(
+        v.id, v.name, v.email, v.phone, s.id, u.username, v.entryTime, v.status)
+    FROM Visitor v
+    JOIN v.staff s
+    JOIN s.user u
+""")
+    Stream<VisitorSearchRow> streamSearchRows();
+
+    // check-ins since the last index sync (other nodes', or events this node missed)
+    @Query("""
+    SELECT new com.example.vms.repository.VisitorSearchRow(
+        v.id, v.name, v.email, v.phone, s.id, u.username, v.entryTime, v.status)
+    FROM Visitor v
+    JOIN v.staff s
+    JOIN s.user u
+    WHERE v.entryTime >= :since
+""")
+    List<VisitorSearchRow> findSearchRowsEnteredSince(@Param("since") LocalDateTime since);
+
+    // exits since the last index sync
+    @Query("""
+    SELECT new com.example.vms.repository.VisitorSearchRow(
+        v.id, v.name, v.email, v.phone, s.id, u.username, v.entryTime, v.status)
+    FROM Visitor v
+    JOIN v.staff s
+    JOIN s.user u
+    WHERE v.exitTime >= :since
+""")
+    List<VisitorSearchRow> findSearchRowsExitedSince(@Param("since") LocalDateTime since);
+
+    // OVERDUE marks since the last index sync, found through the sweep's visit logs
+    @Query("""
+    SELECT new com.example.vms.repository.VisitorSearchRow(
+        v.id, v.name, v.email, v.phone, s.id, u.username, v.entryTime, v.status)
+    FROM Visitor v
+    JOIN v.staff s
+    JOIN s.user u
+    WHERE v.id IN (
+        SELECT l.visitorId FROM VisitLog l
+        WHERE l.action = com.example.vms.model.VisitLog.OVERDUE
+          AND l.timestamp >= :since
+    )
+""")
+    List<VisitorSearchRow> findSearchRowsMarkedOverdueSince(@Param("since") LocalDateTime since);
+
+    @EntityGraph(Visitor.WITH_HOST)
+    List<Visitor> findByIdIn(Collection<Long> ids);
+
+    /* ---------------- ON-SITE REGISTRY ---------------- */
+
+    @Query("""
+    SELECT v FROM Visitor v
+    JOIN FETCH v.staff s
+    JOIN FETCH s.user
+    WHERE v.status IN :statuses
+""")
+    List<Visitor> findOnSite(@Param("statuses") Collection<VisitorStatus> statuses);
+
+    // conditional exit: no SELECT, and a concurrent exit/overdue simply yields 0
+    @Modifying
+    @Query("""
+    UPDATE Visitor v
+    SET v.status = com.example.vms.model.VisitorStatus.EXITED,
+        v.exitTime = :exitTime
+    WHERE v.id = :id
+      AND v.status = :from
+""")
+    int markExited(
+            @Param("id") Long id,
+            @Param("from") VisitorStatus from,
+            @Param("exitTime") LocalDateTime exitTime
+    );
+
+    /* ---------------- BULK OVERDUE ---------------- */
+
+    // locks one chunk of candidates; SKIP LOCKED lets a concurrent sweep take the next chunk.
+    // One query per staff filter, so no variant carries a catch-all predicate.
+    @Query(value = """
+    SELECT v.id FROM visitors v
+    WHERE v.status = 'ACTIVE'
+      AND v.entry_time < :cutoff
+      AND MOD(v.staff_id, :shards) = :shard
+    ORDER BY v.id
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+""", nativeQuery = true)
+    List<Long> lockOverdueCandidates(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("shard") int shard,
+            @Param("shards") int shards,
+            @Param("limit") int limit
+    );
+
+    // hosts on the default stay: everyone except the staff with their own limit
+    @Query(value = """
+    SELECT v.id FROM visitors v
+    WHERE v.status = 'ACTIVE'
+      AND v.entry_time < :cutoff
+      AND v.staff_id NOT IN (:excluded)
+      AND MOD(v.staff_id, :shards) = :shard
+    ORDER BY v.id
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+""", nativeQuery = true)
+    List<Long> lockOverdueCandidatesExcept(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("excluded") Collection<Long> excluded,
+            @Param("shard") int shard,
+            @Param("shards") int shards,
+            @Param("limit") int limit
+    );
+
+    // one group of hosts sharing a non-default stay
+    @Query(value = """
+    SELECT v.id FROM visitors v
+    WHERE v.status = 'ACTIVE'
+      AND v.entry_time < :cutoff
+      AND v.staff_id IN (:included)
+      AND MOD(v.staff_id, :shards) = :shard
+    ORDER BY v.id
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+""", nativeQuery = true)
+    List<Long> lockOverdueCandidatesOf(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("included") Collection<Long> included,
+            @Param("shard") int shard,
+            @Param("shards") int shards,
+            @Param("limit") int limit
+    );
+
+    // same lock, but for ids whose deadline fired in the timing wheel
+    @Query(value = """
+    SELECT v.id FROM visitors v
+    WHERE v.id IN (:ids)
+      AND v.status = 'ACTIVE'
+    FOR UPDATE SKIP LOCKED
+""", nativeQuery = true)
+    List<Long> lockActiveByIds(@Param("ids") Collection<Long> ids);
+
+    // id, staff id, entry time of everyone still ACTIVE (timing wheel rebuild)
+    @Query("""
+    SELECT v.id, v.staff.id, v.entryTime FROM Visitor v
+    WHERE v.status = com.example.vms.model.VisitorStatus.ACTIVE
+""")
+    List<Object[]> findActiveDeadlineRows();
+
+    @Modifying
+    @Query("""
+    UPDATE Visitor v
+    SET v.status = com.example.vms.model.VisitorStatus.OVERDUE
+    WHERE v.id IN :ids
+      AND v.status = com.example.vms.model.VisitorStatus.ACTIVE
+""")
+    int markOverdue(@Param("ids") Collection<Long> ids);
+
+    /* ---------------- QR / EMAIL DELIVERY ---------------- */
+
+    @Modifying
+    @Query("""
+    UPDATE Visitor v
+    SET v.qrPath = COALESCE(:qrPath, v.qrPath),
+        v.deliveryStatus = :status
+    WHERE v.id = :id
+""")
+    int updateDelivery(
+            @Param("id") Long id,
+            @Param("qrPath") String qrPath,
+            @Param("status") DeliveryStatus status
+    );
+
+    /* ---------------- RETENTION ---------------- */
+
+    // oldest EXITED visitors first, one chunk at a time (idx_visitors_status_entry)
+    @Query(value = """
+    SELECT v.id FROM visitors v
+    WHERE v.status = 'EXITED'
+      AND v.entry_time < :cutoff
+    ORDER BY v.entry_time, v.id
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+""", nativeQuery = true)
+    List<Long> lockArchivable(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("limit") int limit
+    );
+
+    @Modifying
+    @Query(value = """
+    INSERT INTO visitors_archive (id, staff_id, staff_username, name, email, phone, purpose,
+                                  entry_time, exit_time, status, delivery_status, archived_at)
+    SELECT v.id, v.staff_id, u.username, v.name, v.email, v.phone, v.purpose,
+           v.entry_time, v.exit_time, v.status, v.delivery_status, :archivedAt
+    FROM visitors v
+    LEFT JOIN staff s ON s.id = v.staff_id
+    LEFT JOIN users u ON u.id = s.user_id
+    WHERE v.id IN (:ids)
+""", nativeQuery = true)
+    int copyToArchive(
+            @Param("ids") Collection<Long> ids,
+            @Param("archivedAt") LocalDateTime archivedAt
+    );
+
+    @Modifying
+    @Query("DELETE FROM Visitor v WHERE v.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // newest visit already archived; rollups up to its day can no longer be rebuilt from visitors
+    @Query(value = "SELECT MAX(entry_time) FROM visitors_archive", nativeQuery = true)
+    LocalDateTime findLastArchivedEntryTime();
+
+    @Query("SELECT v.id FROM Visitor v WHERE v.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
 
 
 
@@ -0,0 +1,21 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.VisitorStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns the in-memory search index keeps per visitor, read without
+ * materialising entities.
+ */
+public record VisitorSearchRow(
+        Long id,
+        String name,
+        String email,
+        String phone,
+        Long staffId,
+        String staffUsername,
+        LocalDateTime entryTime,
+        VisitorStatus status
+) {
+}
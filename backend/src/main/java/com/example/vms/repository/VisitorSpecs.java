@@ -0,0 +1,190 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filters for the visitor listings, composable with the keyset predicate
+ * {@link #before(LocalDateTime, long)}.
+ */
+public final class VisitorSpecs {
+
+    private VisitorSpecs() {
+    }
+
+    public static Specification<Visitor> any() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<Visitor> hasStatus(VisitorStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    // either bound may be null
+    public static Specification<Visitor> enteredBetween(LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> {
+            if (from == null && to == null) {
+                return null;
+            }
+            if (from == null) {
+                return cb.lessThanOrEqualTo(root.get("entryTime"), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get("entryTime"), from);
+            }
+            return cb.between(root.get("entryTime"), from, to);
+        };
+    }
+
+    // same match as searchAll: name, email or phone contains the keyword
+    public static Specification<Visitor> matchesKeyword(String keyword) {
+        return (root, query, cb) -> {
+            String like = "%" + keyword.toLowerCase() + "%";
+            return cb.or(
+                    cb.like(cb.lower(root.get("name")), like),
+                    cb.like(cb.lower(root.get("email")), like),
+                    cb.like(cb.lower(root.get("phone")), like)
+            );
+        };
+    }
+
+    public static Specification<Visitor> fieldContains(String field, String value) {
+        return (root, query, cb) -> value == null || value.isBlank()
+                ? null
+                : cb.like(cb.lower(root.get(field)), "%" + value.toLowerCase() + "%");
+    }
+
+    public static Specification<Visitor> staffUsernameContains(String username) {
+        return (root, query, cb) -> {
+            if (username == null || username.isBlank()) {
+                return null;
+            }
+            return cb.like(cb.lower(hostUser(root, query).get("username")), "%" + username.toLowerCase() + "%");
+        };
+    }
+
+    public static Specification<Visitor> staffUsernameIs(String username) {
+        return (root, query, cb) ->
+                cb.equal(cb.lower(hostUser(root, query).get("username")), username.toLowerCase());
+    }
+
+    /**
+     * Loads staff and staff.user with the visitors (what VisitorResponseDTO
+     * reads). Use this instead of a fetch graph: host filters and sorts then
+     * share the one join. Count queries are left alone.
+     */
+    public static Specification<Visitor> withHost() {
+        return (root, query, cb) -> {
+            if (!isCount(query)) {
+                hostUser(root, query);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Applies {@code sort} inside the query so {@code staff.user.*} properties
+     * sort through the host join; pass an unsorted page request alongside it.
+     */
+    public static Specification<Visitor> orderedBy(Sort sort) {
+        return (root, query, cb) -> {
+            if (isCount(query)) {
+                return null;
+            }
+            List<Order> orders = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                Expression<?> path = order.getProperty().startsWith(HOST_USER)
+                        ? hostUser(root, query).get(order.getProperty().substring(HOST_USER.length()))
+                        : root.get(order.getProperty());
+                orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+            }
+            query.orderBy(orders);
+            return null;
+        };
+    }
+
+    private static final String HOST_USER = "staff.user.";
+
+    // one staff/user join per query: fetched for row queries, a plain join for counts
+    @SuppressWarnings("unchecked")
+    private static Join<?, ?> hostUser(Root<Visitor> root, CriteriaQuery<?> query) {
+        for (Fetch<Visitor, ?> staff : root.getFetches()) {
+            if (staff.getAttribute().getName().equals("staff")) {
+                for (Fetch<?, ?> user : staff.getFetches()) {
+                    if (user.getAttribute().getName().equals("user")) {
+                        return (Join<?, ?>) user;
+                    }
+                }
+            }
+        }
+        for (Join<Visitor, ?> staff : root.getJoins()) {
+            if (staff.getAttribute().getName().equals("staff")) {
+                for (Join<?, ?> user : staff.getJoins()) {
+                    if (user.getAttribute().getName().equals("user")) {
+                        return user;
+                    }
+                }
+            }
+        }
+        if (isCount(query)) {
+            return root.join("staff").join("user");
+        }
+        // Hibernate's fetches are joins too, so the same path can be filtered and sorted on
+        return (Join<?, ?>) root.fetch("staff", JoinType.LEFT).fetch("user", JoinType.LEFT);
+    }
+
+    private static boolean isCount(CriteriaQuery<?> query) {
+        return query.getResultType() == Long.class || query.getResultType() == long.class;
+    }
+
+    /**
+     * The advanced search filter. Only the criteria actually supplied become
+     * predicates, so each combination gets its own plan. Combine with
+     * {@link #withHost()} and {@link #orderedBy(Sort)} to load and sort the
+     * host through the join the staff filter uses.
+     */
+    public static Specification<Visitor> advancedSearch(
+            String name,
+            String email,
+            String phone,
+            String staff,
+            VisitorStatus status,
+            LocalDateTime from,
+            LocalDateTime to
+    ) {
+        return fieldContains("name", name)
+                .and(fieldContains("email", email))
+                .and(fieldContains("phone", phone))
+                .and(staffUsernameContains(staff))
+                .and(hasStatus(status))
+                .and(enteredBetween(from, to));
+    }
+
+    /**
+     * Keyset seek for (entryTime DESC, id DESC): rows strictly after the given
+     * position, written as {@code t < :t OR (t = :t AND id < :id)} so MySQL
+     * can range-scan an (entry_time, id) index.
+     */
+    public static Specification<Visitor> before(LocalDateTime entryTime, long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("entryTime"), entryTime),
+                cb.and(
+                        cb.equal(root.get("entryTime"), entryTime),
+                        cb.lessThan(root.get("id"), id)
+                )
+        );
+    }
+}
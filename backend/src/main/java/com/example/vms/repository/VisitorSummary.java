@@ -0,0 +1,14 @@
+package com.example.vms.repository;
+
+/**
+ * Status counts of the visitors who entered in a time window, computed in a
+ * single pass by {@link VisitorRepository#summarize}. {@code overdue} is the
+ * OVERDUE status, which the timing wheel sets at each host's own deadline.
+ */
+public record VisitorSummary(
+        long total,
+        long active,
+        long exited,
+        long overdue
+) {
+}
@@ -0,0 +1,29 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.export.ExportJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class ExportSpoolSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportSpoolSweeper.class);
+
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+
+    // every node runs it: it also reports this node's unfinished jobs as alive
+    @Scheduled(fixedDelayString = "${app.export.sweep-interval-ms:300000}")
+    public void sweep() {
+        int removed = exportJobService.sweepExpired();
+        if (removed > 0) {
+            logger.info("Removed {} expired export jobs", removed);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.service.CheckinOutboxService;
+import com.example.vms.service.LeaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class OutboxRelayScheduler {
+
+
+    @Autowired
+    private CheckinOutboxService checkinOutboxService;
+
+    @Autowired
+    private LeaseService leaseService;
+
+
+    // picks up retries, rejected hand-offs and rows abandoned by a crashed worker.
+    // One relaying node is enough; the leader keeps its lease by renewing it here.
+    @Scheduled(fixedDelayString = "${app.checkin.relay-interval-ms:5000}")
+    public void relay() {
+        if (leaseService.tryAcquire("outbox-relay").isPresent()) {
+            checkinOutboxService.relayDue();
+        }
+    }
+}
@@ -1,41 +1,68 @@
 package com.example.vms.scheduler;
 
-import com.example.vms.model.VisitLog;
-import com.example.vms.model.Visitor;
-import com.example.vms.model.VisitorStatus;
-import com.example.vms.repository.VisitLogRepository;
-import com.example.vms.repository.VisitorRepository;
+import com.example.vms.service.LeaseService;
+import com.example.vms.service.OverdueService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-
-import java.time.LocalDateTime;
-import java.util.List;
+import java.time.Duration;
+import java.util.Optional;
 
 
 @Component
 public class OverdueScheduler {
 
+    private static final Logger logger = LoggerFactory.getLogger(OverdueScheduler.class);
+
+    private static final String LEASE_PREFIX = "overdue-sweep-";
 
-    @Autowired
-    private VisitorRepository visitorRepository;
 
+    @Autowired
+    private OverdueService overdueService;
 
     @Autowired
-    private VisitLogRepository visitLogRepository;
+    private LeaseService leaseService;
+
+    // > 1 splits the sweep by staff id so several nodes can share it
+    @Value("${app.overdue.shards:1}")
+    private int shards;
+
+    @Value("${app.overdue.sweep-interval-ms:1800000}")
+    private long sweepIntervalMs;
 
 
-    // runs every 30 minutes
-    @Scheduled(fixedRate = 30 * 60 * 1000)
+    // safety net behind OverdueTimingWheel; every 30 minutes by default.
+    // Each shard is leased, so across the cluster every shard is swept once per round.
+    @Scheduled(fixedRateString = "${app.overdue.sweep-interval-ms:1800000}")
     public void markOverdue() {
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(3); // example: 3 hours stay allowed
-        List<Visitor> overdue = visitorRepository.findActiveVisitorsBefore(cutoff);
-        for (Visitor v : overdue) {
-            v.setStatus(VisitorStatus.OVERDUE);
-            visitorRepository.save(v);
-            VisitLog log = VisitLog.builder().visitorId(v.getId()).action("OVERDUE_MARKED").timestamp(LocalDateTime.now()).build();
-            visitLogRepository.save(log);
+
+        // start at a different shard on each node so they don't all queue on shard 0
+        int start = Math.floorMod(leaseService.getNodeId().hashCode(), shards);
+        int marked = 0;
+
+        for (int i = 0; i < shards; i++) {
+            int shard = (start + i) % shards;
+            Optional<LeaseService.Lease> lease = leaseService.tryAcquire(LEASE_PREFIX + shard);
+            if (lease.isEmpty()) {
+                continue;
+            }
+
+            try {
+                marked += overdueService.markOverdue(shard, shards, () -> leaseService.fence(lease.get()));
+                // keep the shard closed for the rest of this round
+                leaseService.release(lease.get(), Duration.ofMillis(sweepIntervalMs / 2));
+            } catch (RuntimeException e) {
+                logger.warn("Overdue sweep of shard {} aborted: {}", shard, e.getMessage());
+                leaseService.release(lease.get(), Duration.ZERO);
+            }
+        }
+
+        if (marked > 0) {
+            logger.info("Marked {} visitors as OVERDUE", marked);
         }
     }
 }
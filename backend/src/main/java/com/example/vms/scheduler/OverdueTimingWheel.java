@@ -0,0 +1,285 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.cache.ActiveVisitor;
+import com.example.vms.event.StaffChangedEvent;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.event.VisitorsOverdueEvent;
+import com.example.vms.repository.VisitorRepository;
+import com.example.vms.service.OverdueService;
+import com.example.vms.service.StayPolicy;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fires each visitor's ACTIVE -> OVERDUE transition at its exact deadline
+ * (entry time + allowed stay) instead of waiting for the next sweep.
+ *
+ * Deadlines are registered on check-in, cancelled on exit, and rebuilt from
+ * the DB at startup and whenever staff stay limits change; check-ins and
+ * exits that land while a rebuild reads the DB are journalled and replayed
+ * onto the rebuilt wheel, so none are lost in the swap. Due visitors are
+ * collected per one-second tick and marked in one batch through
+ * {@link OverdueService#markOverdue(java.util.Collection)}. The periodic
+ * {@link OverdueScheduler} sweep stays on as a safety net.
+ */
+@Component
+public class OverdueTimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueTimingWheel.class);
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private OverdueService overdueService;
+
+    @Autowired
+    private StayPolicy stayPolicy;
+
+    @Value("${app.overdue.wheel.enabled:true}")
+    private boolean enabled;
+
+    private static final long CANCELLED = -1;
+
+    // a schedule (deadline) or cancel (CANCELLED) seen while a rebuild was reading the DB
+    private record Change(long id, long deadline) {
+    }
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // one rebuild at a time; never held together with a DB read under lock
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private TimingWheel wheel = new TimingWheel(nowSecond());
+
+    // deadlines that were already due when registered, fired on the next tick
+    private List<Long> dueNow = new ArrayList<>();
+
+    // non-null while a rebuild is in progress
+    private List<Change> journal;
+
+    // coalesces bursts of staff edits into one rebuild
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private ScheduledExecutorService ticker;
+
+    // -------------------------------
+    // LIFECYCLE
+    // -------------------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "overdue-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Reloads every ACTIVE visitor's deadline from the DB. Schedules and
+     * cancels that arrive during the read are replayed onto the new wheel,
+     * and anything already waiting in {@code dueNow} is kept.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            lock.lock();
+            try {
+                journal = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            int pending;
+            int alreadyDue;
+            try {
+                List<Object[]> rows = visitorRepository.findActiveDeadlineRows();
+
+                TimingWheel fresh = new TimingWheel(nowSecond());
+                List<Long> due = new ArrayList<>();
+                for (Object[] row : rows) {
+                    long id = (Long) row[0];
+                    if (fresh.schedule(id, deadline((Long) row[1], (LocalDateTime) row[2]))) {
+                        due.add(id);
+                    }
+                }
+
+                lock.lock();
+                try {
+                    for (Change change : journal) {
+                        if (change.deadline() == CANCELLED) {
+                            fresh.cancel(change.id());
+                            due.remove(Long.valueOf(change.id()));
+                        } else if (fresh.schedule(change.id(), change.deadline())) {
+                            due.add(change.id());
+                        }
+                    }
+                    wheel = fresh;
+                    dueNow.addAll(due);
+                    pending = fresh.size();
+                    alreadyDue = due.size();
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                lock.lock();
+                try {
+                    journal = null;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            logger.info("Overdue timing wheel rebuilt: {} pending, {} already due", pending, alreadyDue);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public int pending() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -------------------------------
+    // EVENTS
+    // -------------------------------
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCheckedIn(VisitorCheckedInEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (ActiveVisitor v : event.visitors()) {
+                long deadline = deadline(v.staffId(), v.entryTime());
+                if (wheel.schedule(v.id(), deadline)) {
+                    dueNow.add(v.id());
+                }
+                if (journal != null) {
+                    journal.add(new Change(v.id(), deadline));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExited(VisitorExitedEvent event) {
+        cancel(List.of(event.visitorId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOverdue(VisitorsOverdueEvent event) {
+        cancel(event.visitorIds());
+    }
+
+    // stay limits may have changed: recompute every pending deadline, off the caller's thread
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStaffChanged(StaffChangedEvent event) {
+        if (!enabled || ticker == null) {
+            stayPolicy.refresh();
+            return;
+        }
+        if (rebuildQueued.compareAndSet(false, true)) {
+            ticker.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    stayPolicy.refresh();
+                    rebuild();
+                } catch (RuntimeException e) {
+                    // deadlines stay as they were; the periodic sweep applies the new limits
+                    logger.warn("Overdue timing wheel rebuild failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    // -------------------------------
+    // TICK
+    // -------------------------------
+    void tick() {
+        List<Long> fired;
+        lock.lock();
+        try {
+            fired = wheel.advanceTo(nowSecond());
+            if (!dueNow.isEmpty()) {
+                fired.addAll(dueNow);
+                dueNow = new ArrayList<>();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (fired.isEmpty()) {
+            return;
+        }
+        try {
+            int marked = overdueService.markOverdue(fired);
+            logger.debug("Timing wheel fired {} deadlines, {} marked OVERDUE", fired.size(), marked);
+        } catch (RuntimeException e) {
+            // the periodic sweep picks these up if the DB was unavailable
+            logger.warn("Failed to mark {} overdue visitors: {}", fired.size(), e.getMessage());
+        }
+    }
+
+    private void cancel(List<Long> ids) {
+        lock.lock();
+        try {
+            for (Long id : ids) {
+                wheel.cancel(id);
+                if (journal != null) {
+                    journal.add(new Change(id, CANCELLED));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long deadline(long staffId, LocalDateTime entryTime) {
+        return entryTime.atZone(ZoneId.systemDefault()).toEpochSecond()
+                + stayPolicy.minutesForStaff(staffId) * 60L;
+    }
+
+    private long nowSecond() {
+        return clock.instant().getEpochSecond();
+    }
+}
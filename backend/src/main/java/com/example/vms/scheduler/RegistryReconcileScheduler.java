@@ -0,0 +1,23 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.cache.ActiveVisitorRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class RegistryReconcileScheduler {
+
+
+    @Autowired
+    private ActiveVisitorRegistry activeVisitorRegistry;
+
+
+    // repairs drift from lost events and picks up other nodes' check-ins/exits
+    @Scheduled(fixedDelayString = "${app.registry.reconcile-interval-ms:60000}",
+            initialDelayString = "${app.registry.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        activeVisitorRegistry.reconcile();
+    }
+}
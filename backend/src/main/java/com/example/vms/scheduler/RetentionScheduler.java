@@ -0,0 +1,40 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.service.QrService;
+import com.example.vms.service.RetentionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class RetentionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionScheduler.class);
+
+
+    @Autowired
+    private RetentionService retentionService;
+
+
+    // leased: one node archives, the others skip this round
+    @Scheduled(cron = "${app.retention.cron:0 0 4 * * *}")
+    public void archive() {
+        retentionService.run();
+    }
+
+    // QR folders may be node-local, so every node sweeps its own
+    @Scheduled(cron = "${app.retention.qr-sweep-cron:0 30 4 * * *}")
+    public void sweepQrOrphans() {
+        try {
+            QrService.Deleted deleted = retentionService.sweepQrOrphans();
+            if (deleted.files() > 0) {
+                logger.info("Removed {} orphaned QR images ({} bytes)", deleted.files(), deleted.bytes());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("QR orphan sweep skipped: {}", e.getMessage());
+        }
+    }
+}
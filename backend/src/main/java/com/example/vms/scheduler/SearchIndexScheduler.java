@@ -0,0 +1,42 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.search.VisitorSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class SearchIndexScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexScheduler.class);
+
+
+    @Autowired
+    private VisitorSearchIndex visitorSearchIndex;
+
+
+    // the index is node-local: every node pulls in the others' check-ins, exits and overdue marks
+    @Scheduled(fixedDelayString = "${app.search.index.sync-interval-ms:60000}",
+            initialDelayString = "${app.search.index.sync-interval-ms:60000}")
+    public void sync() {
+        visitorSearchIndex.syncRecent();
+    }
+
+    // compacts removed entries and drops visitors archived on other nodes
+    @Scheduled(cron = "${app.search.index.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        if (!visitorSearchIndex.isReady()) {
+            return;
+        }
+        try {
+            VisitorSearchIndex.Stats stats = visitorSearchIndex.rebuild();
+            logger.info("Search index rebuilt with {} visitors in {} ms",
+                    stats.documents(), stats.lastRebuildMillis());
+        } catch (RuntimeException e) {
+            logger.warn("Nightly search index rebuild skipped: {}", e.getMessage());
+        }
+    }
+}
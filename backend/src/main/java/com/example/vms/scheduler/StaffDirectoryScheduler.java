@@ -0,0 +1,23 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.cache.StaffDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class StaffDirectoryScheduler {
+
+
+    @Autowired
+    private StaffDirectory staffDirectory;
+
+
+    // picks up staff created, edited or deleted on other nodes
+    @Scheduled(fixedDelayString = "${app.staff.directory.refresh-interval-ms:300000}",
+            initialDelayString = "${app.staff.directory.refresh-interval-ms:300000}")
+    public void refresh() {
+        staffDirectory.refresh();
+    }
+}
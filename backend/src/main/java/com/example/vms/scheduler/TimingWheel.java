@@ -0,0 +1,165 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.cache.LongHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel with one-second ticks, keyed by a {@code long} id.
+ *
+ * Four levels of 64 slots cover 64 s, ~68 min, ~3 days and ~194 days; longer
+ * deadlines park in the top level and are re-filed when it comes around.
+ * Schedule and cancel are O(1); a tick only touches the current slot (plus a
+ * cascade every 64 ticks), so idle cost does not grow with the number of
+ * pending deadlines. Not thread-safe; the owner serialises access.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private static final class Timer {
+        long id;
+        long deadline;
+        Timer prev;
+        Timer next;
+    }
+
+    // each slot is a circular doubly-linked list with a sentinel head
+    private final Timer[][] wheels = new Timer[LEVELS][SLOTS];
+    private final LongHashMap<Timer> timers = new LongHashMap<>(1024);
+
+    // last second that has been fully processed
+    private long current;
+
+    public TimingWheel(long startSecond) {
+        this.current = startSecond;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer head = new Timer();
+                head.prev = head;
+                head.next = head;
+                wheels[level][slot] = head;
+            }
+        }
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    public long currentSecond() {
+        return current;
+    }
+
+    /**
+     * Schedules (or re-schedules) {@code id} to fire at {@code deadline}
+     * (epoch seconds). Returns {@code true} if the deadline is already due;
+     * in that case nothing is stored and the caller should fire it directly.
+     */
+    public boolean schedule(long id, long deadline) {
+        cancel(id);
+        if (deadline <= current) {
+            return true;
+        }
+        Timer timer = new Timer();
+        timer.id = id;
+        timer.deadline = deadline;
+        timers.put(id, timer);
+        file(timer);
+        return false;
+    }
+
+    public boolean cancel(long id) {
+        Timer timer = timers.remove(id);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    /**
+     * Advances the wheel up to and including {@code nowSecond} and returns the
+     * ids whose deadlines passed, in firing order.
+     */
+    public List<Long> advanceTo(long nowSecond) {
+        List<Long> expired = new ArrayList<>();
+        while (current < nowSecond) {
+            long tick = ++current;
+
+            // cascade higher levels first so their timers land in the right lower slot
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((tick >>> (SLOT_BITS * level)) & MASK));
+                }
+            }
+
+            Timer head = wheels[0][(int) (tick & MASK)];
+            Timer timer = head.next;
+            while (timer != head) {
+                Timer next = timer.next;
+                if (timer.deadline <= tick) {
+                    unlink(timer);
+                    timers.remove(timer.id);
+                    expired.add(timer.id);
+                }
+                timer = next;
+            }
+        }
+        return expired;
+    }
+
+    // -------------------------------
+    // INTERNALS
+    // -------------------------------
+    private void cascade(int level, int slot) {
+        Timer head = wheels[level][slot];
+        Timer timer = head.next;
+        head.next = head;
+        head.prev = head;
+        while (timer != head) {
+            Timer next = timer.next;
+            file(timer);
+            timer = next;
+        }
+    }
+
+    private void file(Timer timer) {
+        long delta = timer.deadline - current;
+        int level;
+        long slotTime;
+        if (delta < SLOTS) {
+            level = 0;
+            slotTime = timer.deadline;
+        } else if (delta < 1L << (2 * SLOT_BITS)) {
+            level = 1;
+            slotTime = timer.deadline >>> SLOT_BITS;
+        } else if (delta < 1L << (3 * SLOT_BITS)) {
+            level = 2;
+            slotTime = timer.deadline >>> (2 * SLOT_BITS);
+        } else if (delta < 1L << (4 * SLOT_BITS)) {
+            level = 3;
+            slotTime = timer.deadline >>> (3 * SLOT_BITS);
+        } else {
+            // beyond the top level: park in the last slot before wrap-around, re-filed on cascade
+            level = 3;
+            slotTime = (current >>> (3 * SLOT_BITS)) + MASK;
+        }
+        Timer head = wheels[level][(int) (slotTime & MASK)];
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+    }
+
+    private static void unlink(Timer timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.service.VisitLogPartitionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class VisitLogPartitionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitLogPartitionScheduler.class);
+
+
+    @Autowired
+    private VisitLogPartitionService visitLogPartitionService;
+
+
+    // next months get their partition while p_future is still empty; every
+    // node runs this, and one that loses the race to another just logs and skips
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.visit-log.partition-cron:0 15 2 * * *}")
+    public void ensureAhead() {
+        try {
+            visitLogPartitionService.ensureAhead();
+        } catch (RuntimeException e) {
+            logger.warn("visit_logs partition maintenance skipped: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.vms.search;
+
+import java.util.List;
+
+/**
+ * One page of matching visitor ids, in result order, and the total match count.
+ */
+public record SearchHits(List<Long> ids, long total) {
+}
@@ -0,0 +1,30 @@
+package com.example.vms.search;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Orders the in-memory search index can produce without touching the DB.
+ */
+public enum SearchOrder {
+    RELEVANCE,
+    NEWEST,
+    OLDEST,
+    NAME_ASC,
+    NAME_DESC;
+
+    /**
+     * Maps a single-property sort on "entryTime" or "name" to an index
+     * order; {@code null} when the index cannot produce it.
+     */
+    public static SearchOrder from(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(null);
+        if (order == null || sort.stream().count() > 1) {
+            return null;
+        }
+        return switch (order.getProperty()) {
+            case "entryTime" -> order.isAscending() ? OLDEST : NEWEST;
+            case "name" -> order.isAscending() ? NAME_ASC : NAME_DESC;
+            default -> null;
+        };
+    }
+}
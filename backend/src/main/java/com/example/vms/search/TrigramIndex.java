@@ -0,0 +1,909 @@
+package com.example.vms.search;
+
+import com.example.vms.cache.LongHashMap;
+import com.example.vms.model.VisitorStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Trigram (3-character n-gram) inverted index over visitor name, email and
+ * phone digits, answering the same "contains" questions as
+ * {@code LOWER(col) LIKE '%kw%'}.
+ *
+ * Documents get dense int ordinals in insertion order. Postings are those
+ * ordinals, delta + varint encoded, so they stay sorted and can be
+ * intersected by merging. A trigram hit is always confirmed against the
+ * stored text, which lives in one UTF-8 arena
+ * ({@code name \0 email \0 digits \0} per document). Queries shorter than
+ * three characters have no trigram and scan the arena instead.
+ *
+ * Text never changes after check-in; the status only moves forward
+ * (ACTIVE, then OVERDUE, then EXITED), so applying the same update twice or
+ * out of order converges. Not thread-safe; {@link VisitorSearchIndex} guards it.
+ */
+final class TrigramIndex {
+
+    static final int NAME = 0;
+    static final int EMAIL = 1;
+    static final int PHONE = 2;
+
+    private static final byte SEP = 0;
+
+    // score parts: where the match sits in the field, then which field
+    private static final int EXACT = 4;
+    private static final int PREFIX = 3;
+    private static final int WORD_START = 2;
+    private static final int INFIX = 1;
+
+    private int size;
+    private int live;
+
+    private long[] ids;
+    private long[] entryMicros;
+    private long[] staffIds;
+    private byte[] statuses;
+    private int[] textStart;   // arena offset of each document's name
+
+    private byte[] arena;
+    private int arenaSize;
+
+    private final BitSet removed = new BitSet();
+    private final IdMap ordinals;
+    private final LongHashMap<Postings> postings;
+    private final LongHashMap<String> staffUsernames = new LongHashMap<>(256);
+    private long postingBytes;
+
+    TrigramIndex(int expectedDocs) {
+        int capacity = Math.max(16, expectedDocs);
+        ids = new long[capacity];
+        entryMicros = new long[capacity];
+        staffIds = new long[capacity];
+        statuses = new byte[capacity];
+        textStart = new int[capacity];
+        arena = new byte[capacity * 48];
+        ordinals = new IdMap(capacity);
+        postings = new LongHashMap<>(Math.min(capacity * 4, 1 << 20));
+    }
+
+    // -------------------------------
+    // WRITES
+    // -------------------------------
+
+    /**
+     * Adds a visitor, or only advances the status when the id is already
+     * indexed (the text of a visitor never changes).
+     */
+    void upsert(long id, String name, String email, String phone,
+                long staffId, String staffUsername, LocalDateTime entryTime, VisitorStatus status) {
+
+        if (staffUsername != null) {
+            staffUsernames.put(staffId, staffUsername.toLowerCase(Locale.ROOT));
+        }
+
+        int existing = ordinals.get(id);
+        if (existing >= 0) {
+            advance(existing, status);
+            return;
+        }
+
+        int ord = size;
+        ensureDocCapacity(ord + 1);
+        ids[ord] = id;
+        entryMicros[ord] = micros(entryTime);
+        staffIds[ord] = staffId;
+        statuses[ord] = rank(status);
+
+        String n = normalize(name);
+        String e = normalize(email);
+        String p = digits(phone);
+
+        textStart[ord] = arenaSize;
+        append(n);
+        appendByte(SEP);
+        append(e);
+        appendByte(SEP);
+        append(p);
+        appendByte(SEP);
+
+        indexGrams(NAME, n, ord);
+        indexGrams(EMAIL, e, ord);
+        indexGrams(PHONE, p, ord);
+
+        ordinals.put(id, ord);
+        size++;
+        live++;
+    }
+
+    void advanceStatus(long id, VisitorStatus status) {
+        int ord = ordinals.get(id);
+        if (ord >= 0) {
+            advance(ord, status);
+        }
+    }
+
+    // the postings keep the ordinal; the removed bit hides it until the next rebuild
+    void remove(long id) {
+        int ord = ordinals.remove(id);
+        if (ord >= 0 && !removed.get(ord)) {
+            removed.set(ord);
+            live--;
+        }
+    }
+
+    // -------------------------------
+    // READS
+    // -------------------------------
+
+    int size() {
+        return live;
+    }
+
+    long grams() {
+        return postings.size();
+    }
+
+    long memoryBytes() {
+        long docs = (long) ids.length * (8 + 8 + 8 + 1 + 4);
+        return docs + arena.length + postingBytes + (long) postings.size() * 48 + ordinals.memoryBytes();
+    }
+
+    /**
+     * Runs a query and returns the best {@code offset + limit} matches in the
+     * requested order, plus the total number of matches.
+     */
+    Result find(VisitorSearchQuery query, SearchOrder order, int offset, int limit) {
+        Matches matches = match(query);
+        IntBinaryOperator comparator = comparator(order, matches);
+        int[] best = top(matches, Math.max(0, offset) + Math.max(0, limit), comparator);
+        int from = Math.min(Math.max(0, offset), best.length);
+        long[] page = new long[best.length - from];
+        for (int i = from; i < best.length; i++) {
+            page[i - from] = ids[matches.ords[best[i]]];
+        }
+        return new Result(page, matches.count);
+    }
+
+    /**
+     * Newest first, strictly after the (entryTime, id) cursor when one is given.
+     */
+    long[] scroll(VisitorSearchQuery query, LocalDateTime beforeEntry, long beforeId, int limit) {
+        Matches matches = match(query);
+        if (beforeEntry != null) {
+            long cursor = micros(beforeEntry);
+            matches.retain(ord -> entryMicros[ord] < cursor
+                    || (entryMicros[ord] == cursor && ids[ord] < beforeId));
+        }
+        int[] best = top(matches, limit, comparator(SearchOrder.NEWEST, matches));
+        long[] slice = new long[best.length];
+        for (int i = 0; i < best.length; i++) {
+            slice[i] = ids[matches.ords[best[i]]];
+        }
+        return slice;
+    }
+
+    record Result(long[] ids, long total) {
+    }
+
+    // -------------------------------
+    // MATCHING
+    // -------------------------------
+    private Matches match(VisitorSearchQuery q) {
+
+        long[] staff = q.staff() == null || q.staff().isBlank() ? null : staffMatching(q.staff());
+        long from = q.from() == null ? Long.MIN_VALUE : micros(q.from());
+        long to = q.to() == null ? Long.MAX_VALUE : micros(q.to());
+        byte status = q.status() == null ? -1 : rank(q.status());
+
+        Matches result;
+        if (q.keyword() != null) {
+            // any field may match; the best field decides the score
+            String text = normalize(q.keyword());
+            String phone = phoneQuery(q.keyword());
+            result = Matches.union(
+                    matchField(NAME, text),
+                    matchField(EMAIL, text),
+                    phone == null ? new Matches(0) : matchField(PHONE, phone)
+            );
+        } else {
+            // every given field must match; the most selective one drives
+            String name = blankToNull(normalize(q.name()));
+            String email = blankToNull(normalize(q.email()));
+            String phone = q.phone() == null || q.phone().isBlank() ? null : phoneQuery(q.phone());
+            if (q.phone() != null && !q.phone().isBlank() && phone == null) {
+                return new Matches(0);
+            }
+
+            int driver = mostSelective(name, email, phone);
+            result = switch (driver) {
+                case NAME -> matchField(NAME, name);
+                case EMAIL -> matchField(EMAIL, email);
+                case PHONE -> matchField(PHONE, phone);
+                default -> allLive();
+            };
+            byte[] nb = bytes(name), eb = bytes(email), pb = bytes(phone);
+            result.retain(ord -> (nb == null || fieldContains(ord, NAME, nb) >= 0)
+                    && (eb == null || fieldContains(ord, EMAIL, eb) >= 0)
+                    && (pb == null || fieldContains(ord, PHONE, pb) >= 0));
+        }
+
+        result.retain(ord -> (status < 0 || statuses[ord] == status)
+                && entryMicros[ord] >= from && entryMicros[ord] <= to
+                && (staff == null || Arrays.binarySearch(staff, staffIds[ord]) >= 0));
+        return result;
+    }
+
+    private Matches matchField(int field, String text) {
+        byte[] needle = text.getBytes(StandardCharsets.UTF_8);
+        if (text.length() >= 3) {
+            Matches out = intersect(field, text);
+            out.score(ord -> score(ord, field, needle));
+            return out;
+        }
+        // no trigram to look up: scan every document's field
+        Matches out = new Matches(1024);
+        for (int ord = 0; ord < size; ord++) {
+            if (!removed.get(ord)) {
+                int score = score(ord, field, needle);
+                if (score >= 0) {
+                    out.add(ord, score);
+                }
+            }
+        }
+        return out;
+    }
+
+    // -1 when the field does not contain the needle
+    private int score(int ord, int field, byte[] needle) {
+        int start = fieldStart(ord, field);
+        int end = fieldEnd(start);
+        int at = indexOf(start, end, needle);
+        if (at < 0) {
+            return -1;
+        }
+        int where;
+        if (at == start && end - start == needle.length) {
+            where = EXACT;
+        } else if (at == start) {
+            where = PREFIX;
+        } else if (isWordBreak(arena[at - 1])) {
+            where = WORD_START;
+        } else {
+            where = INFIX;
+        }
+        // name beats phone beats email at the same position
+        int fieldBonus = field == NAME ? 2 : field == PHONE ? 1 : 0;
+        return where * 3 + fieldBonus;
+    }
+
+    // leapfrog over the sorted posting lists of every trigram in the text
+    private Matches intersect(int field, String text) {
+        long[] keys = distinctGrams(field, text);
+        Postings[] lists = new Postings[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = postings.get(keys[i]);
+            if (lists[i] == null) {
+                return new Matches(0);
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.count, b.count));
+
+        Matches out = new Matches(lists[0].count);
+        Postings.Cursor[] cursors = new Postings.Cursor[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            cursors[i] = lists[i].cursor();
+        }
+
+        int candidate = cursors[0].next();
+        outer:
+        while (candidate >= 0) {
+            for (int i = 1; i < cursors.length; i++) {
+                int other = cursors[i].advanceTo(candidate);
+                if (other < 0) {
+                    break outer;
+                }
+                if (other != candidate) {
+                    candidate = cursors[0].advanceTo(other);
+                    continue outer;
+                }
+            }
+            if (!removed.get(candidate)) {
+                out.add(candidate, 0);
+            }
+            candidate = cursors[0].next();
+        }
+        return out;
+    }
+
+    private int mostSelective(String name, String email, String phone) {
+        int best = -1;
+        long bestCount = Long.MAX_VALUE;
+        String[] texts = {name, email, phone};
+        for (int field = NAME; field <= PHONE; field++) {
+            String text = texts[field];
+            if (text == null) {
+                continue;
+            }
+            long count = text.length() < 3 ? size : shortestPostings(field, text);
+            if (best < 0 || count < bestCount) {
+                best = field;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    private long shortestPostings(int field, String text) {
+        long min = Long.MAX_VALUE;
+        for (long key : distinctGrams(field, text)) {
+            Postings list = postings.get(key);
+            min = Math.min(min, list == null ? 0 : list.count);
+        }
+        return min;
+    }
+
+    private Matches allLive() {
+        Matches out = new Matches(live);
+        for (int ord = 0; ord < size; ord++) {
+            if (!removed.get(ord)) {
+                out.add(ord, 0);
+            }
+        }
+        return out;
+    }
+
+    private long[] staffMatching(String staff) {
+        String needle = staff.toLowerCase(Locale.ROOT);
+        long[] keys = staffUsernames.keys();
+        long[] hits = new long[keys.length];
+        int n = 0;
+        for (long staffId : keys) {
+            if (staffUsernames.get(staffId).contains(needle)) {
+                hits[n++] = staffId;
+            }
+        }
+        long[] result = Arrays.copyOf(hits, n);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // -------------------------------
+    // ORDERING
+    // -------------------------------
+    private IntBinaryOperator comparator(SearchOrder order, Matches m) {
+        return switch (order) {
+            // equally good matches: the most recent visitor is the likelier one at the desk
+            case RELEVANCE -> (a, b) -> {
+                int c = Integer.compare(m.scores[b], m.scores[a]);
+                if (c == 0) {
+                    c = Long.compare(entryMicros[m.ords[b]], entryMicros[m.ords[a]]);
+                }
+                return c != 0 ? c : Long.compare(ids[m.ords[b]], ids[m.ords[a]]);
+            };
+            case NEWEST -> (a, b) -> {
+                int c = Long.compare(entryMicros[m.ords[b]], entryMicros[m.ords[a]]);
+                return c != 0 ? c : Long.compare(ids[m.ords[b]], ids[m.ords[a]]);
+            };
+            case OLDEST -> (a, b) -> {
+                int c = Long.compare(entryMicros[m.ords[a]], entryMicros[m.ords[b]]);
+                return c != 0 ? c : Long.compare(ids[m.ords[a]], ids[m.ords[b]]);
+            };
+            case NAME_ASC -> (a, b) -> {
+                int c = compareField(m.ords[a], m.ords[b], NAME);
+                return c != 0 ? c : Long.compare(ids[m.ords[a]], ids[m.ords[b]]);
+            };
+            case NAME_DESC -> (a, b) -> {
+                int c = compareField(m.ords[b], m.ords[a], NAME);
+                return c != 0 ? c : Long.compare(ids[m.ords[b]], ids[m.ords[a]]);
+            };
+        };
+    }
+
+    /**
+     * Indexes (into the match arrays) of the best {@code k} matches, best first.
+     * A bounded heap keeps this O(n log k) however many documents matched.
+     */
+    private static int[] top(Matches m, int k, IntBinaryOperator better) {
+        int n = Math.min(k, m.count);
+        if (n <= 0) {
+            return new int[0];
+        }
+        // heap[0] is the worst of the kept entries
+        int[] heap = new int[n];
+        int kept = 0;
+        for (int i = 0; i < m.count; i++) {
+            if (kept < n) {
+                heap[kept] = i;
+                siftUp(heap, kept++, better);
+            } else if (better.applyAsInt(i, heap[0]) < 0) {
+                heap[0] = i;
+                siftDown(heap, kept, better);
+            }
+        }
+        int[] sorted = new int[kept];
+        for (int i = kept - 1; i >= 0; i--) {
+            sorted[i] = heap[0];
+            heap[0] = heap[--kept];
+            siftDown(heap, kept, better);
+        }
+        return sorted;
+    }
+
+    private static void siftUp(int[] heap, int i, IntBinaryOperator better) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (better.applyAsInt(heap[parent], heap[i]) >= 0) {
+                return;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, IntBinaryOperator better) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better.applyAsInt(heap[right], heap[left]) > 0) {
+                worst = right;
+            }
+            if (better.applyAsInt(heap[i], heap[worst]) >= 0) {
+                return;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    // -------------------------------
+    // TEXT
+    // -------------------------------
+    private int fieldStart(int ord, int field) {
+        int at = textStart[ord];
+        for (int f = 0; f < field; f++) {
+            while (arena[at] != SEP) {
+                at++;
+            }
+            at++;
+        }
+        return at;
+    }
+
+    // every field, the last one included, is terminated by a separator
+    private int fieldEnd(int start) {
+        int at = start;
+        while (arena[at] != SEP) {
+            at++;
+        }
+        return at;
+    }
+
+    private int fieldContains(int ord, int field, byte[] needle) {
+        int start = fieldStart(ord, field);
+        return indexOf(start, fieldEnd(start), needle);
+    }
+
+    // arena position of the first occurrence within [start, end), or -1
+    private int indexOf(int start, int end, byte[] needle) {
+        if (needle.length == 0) {
+            return start;
+        }
+        byte first = needle[0];
+        int last = end - needle.length;
+        outer:
+        for (int at = start; at <= last; at++) {
+            if (arena[at] != first) {
+                continue;
+            }
+            for (int j = 1; j < needle.length; j++) {
+                if (arena[at + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return at;
+        }
+        return -1;
+    }
+
+    private int compareField(int a, int b, int field) {
+        int i = fieldStart(a, field), iEnd = fieldEnd(i);
+        int j = fieldStart(b, field), jEnd = fieldEnd(j);
+        while (i < iEnd && j < jEnd) {
+            int c = Integer.compare(arena[i++] & 0xff, arena[j++] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(iEnd - i, jEnd - j);
+    }
+
+    private static boolean isWordBreak(byte b) {
+        return b == ' ' || b == '.' || b == '@' || b == '-' || b == '_' || b == '+';
+    }
+
+    static String normalize(String s) {
+        if (s == null) {
+            return "";
+        }
+        String lower = s.trim().toLowerCase(Locale.ROOT);
+        return lower.indexOf('\0') < 0 ? lower : lower.replace("\0", "");
+    }
+
+    static String digits(String s) {
+        if (s == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    // "+1 (555) 010-99" searches the phone digits; anything with letters cannot match a phone
+    static String phoneQuery(String s) {
+        String d = digits(s);
+        if (d.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!(c >= '0' && c <= '9') && " +-().".indexOf(c) < 0) {
+                return null;
+            }
+        }
+        return d;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void indexGrams(int field, String text, int ord) {
+        for (long key : distinctGrams(field, text)) {
+            Postings list = postings.computeIfAbsent(key, k -> new Postings());
+            postingBytes += list.append(ord);
+        }
+    }
+
+    private static long[] distinctGrams(int field, String text) {
+        int n = text.length() - 2;
+        if (n <= 0) {
+            return new long[0];
+        }
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) field << 48)
+                    | ((long) text.charAt(i) << 32)
+                    | ((long) text.charAt(i + 1) << 16)
+                    | text.charAt(i + 2);
+        }
+        Arrays.sort(keys);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    private void append(String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        ensureArena(b.length);
+        System.arraycopy(b, 0, arena, arenaSize, b.length);
+        arenaSize += b.length;
+    }
+
+    private void appendByte(byte b) {
+        ensureArena(1);
+        arena[arenaSize++] = b;
+    }
+
+    private void ensureArena(int more) {
+        if (arenaSize + more > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + more));
+        }
+    }
+
+    private void ensureDocCapacity(int docs) {
+        if (docs <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(ids.length * 2, docs);
+        ids = Arrays.copyOf(ids, capacity);
+        entryMicros = Arrays.copyOf(entryMicros, capacity);
+        staffIds = Arrays.copyOf(staffIds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        textStart = Arrays.copyOf(textStart, capacity);
+    }
+
+    private void advance(int ord, VisitorStatus status) {
+        byte r = rank(status);
+        if (r > statuses[ord]) {
+            statuses[ord] = r;
+        }
+    }
+
+    // lifecycle order, so "newer" always wins whatever order updates arrive in
+    static byte rank(VisitorStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        return switch (status) {
+            case ACTIVE -> 1;
+            case OVERDUE -> 2;
+            case EXITED -> 3;
+        };
+    }
+
+    static long micros(LocalDateTime t) {
+        if (t == null) {
+            return Long.MIN_VALUE;
+        }
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + t.getNano() / 1_000;
+    }
+
+    // -------------------------------
+    // HELPERS
+    // -------------------------------
+
+    /** Matched ordinals (ascending) with a score each. */
+    private static final class Matches {
+        int[] ords;
+        int[] scores;
+        int count;
+
+        Matches(int capacity) {
+            ords = new int[Math.max(4, capacity)];
+            scores = new int[ords.length];
+        }
+
+        void add(int ord, int score) {
+            if (count == ords.length) {
+                ords = Arrays.copyOf(ords, count * 2);
+                scores = Arrays.copyOf(scores, count * 2);
+            }
+            ords[count] = ord;
+            scores[count++] = score;
+        }
+
+        void retain(IntPredicate keep) {
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (keep.test(ords[i])) {
+                    ords[n] = ords[i];
+                    scores[n++] = scores[i];
+                }
+            }
+            count = n;
+        }
+
+        // replaces each score; a negative score drops the match
+        void score(IntUnaryOperator scorer) {
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                int s = scorer.applyAsInt(ords[i]);
+                if (s >= 0) {
+                    ords[n] = ords[i];
+                    scores[n++] = s;
+                }
+            }
+            count = n;
+        }
+
+        // merge of sorted ordinal lists, keeping the highest score per ordinal
+        static Matches union(Matches... parts) {
+            int total = 0;
+            for (Matches p : parts) {
+                total += p.count;
+            }
+            Matches out = new Matches(total);
+            int[] at = new int[parts.length];
+            while (true) {
+                int min = Integer.MAX_VALUE;
+                for (int i = 0; i < parts.length; i++) {
+                    if (at[i] < parts[i].count) {
+                        min = Math.min(min, parts[i].ords[at[i]]);
+                    }
+                }
+                if (min == Integer.MAX_VALUE) {
+                    return out;
+                }
+                int best = -1;
+                for (int i = 0; i < parts.length; i++) {
+                    if (at[i] < parts[i].count && parts[i].ords[at[i]] == min) {
+                        best = Math.max(best, parts[i].scores[at[i]]);
+                        at[i]++;
+                    }
+                }
+                out.add(min, best);
+            }
+        }
+    }
+
+    /** Sorted ordinals as varint deltas. */
+    private static final class Postings {
+        private byte[] data = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        // returns the bytes added, for the memory estimate
+        int append(int ord) {
+            if (ord == last) {
+                return 0;
+            }
+            int before = data.length;
+            int delta = ord - last;
+            last = ord;
+            count++;
+            while (true) {
+                if (length == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                if ((delta & ~0x7f) == 0) {
+                    data[length++] = (byte) delta;
+                    break;
+                }
+                data[length++] = (byte) ((delta & 0x7f) | 0x80);
+                delta >>>= 7;
+            }
+            return data.length - before;
+        }
+
+        Cursor cursor() {
+            return new Cursor();
+        }
+
+        final class Cursor {
+            private int pos;
+            private int current = -1;
+
+            // next ordinal, or -1 at the end
+            int next() {
+                if (pos >= length) {
+                    return current = -1;
+                }
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                return current += delta;
+            }
+
+            // first ordinal >= target, or -1
+            int advanceTo(int target) {
+                int value = current;
+                while (value < target) {
+                    value = next();
+                    if (value < 0) {
+                        return -1;
+                    }
+                }
+                return value;
+            }
+        }
+    }
+
+    /** Open-addressing long -> int map (visitor id -> ordinal); -1 means absent. */
+    private static final class IdMap {
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        IdMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (values[slot] >= 0) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        // backward-shift delete keeps probe chains intact
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (values[slot] >= 0) {
+                if (keys[slot] == key) {
+                    int value = values[slot];
+                    int gap = slot;
+                    int next = (gap + 1) & mask;
+                    while (values[next] >= 0) {
+                        int home = mix(keys[next]) & mask;
+                        if (((next - home) & mask) >= ((next - gap) & mask)) {
+                            keys[gap] = keys[next];
+                            values[gap] = values[next];
+                            gap = next;
+                        }
+                        next = (next + 1) & mask;
+                    }
+                    values[gap] = -1;
+                    size--;
+                    return value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        long memoryBytes() {
+            return (long) keys.length * 12;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(values, -1);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.vms.search;
+
+import com.example.vms.cache.ActiveVisitor;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.event.VisitorsArchivedEvent;
+import com.example.vms.event.VisitorsOverdueEvent;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorRepository;
+import com.example.vms.repository.VisitorSearchRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Node-local full-text index over every visitor, so keyword and advanced
+ * searches no longer run {@code LIKE '%kw%'} scans. Only the final page of
+ * ids is read from the database.
+ *
+ * Built from the DB in the background at startup. After that it is kept up to
+ * date from the check-in, exit and overdue events after commit, and a periodic
+ * sync pulls in check-ins, exits and OVERDUE marks made on other nodes. Callers
+ * fall back to the database until {@link #isReady()}.
+ */
+@Component
+public class VisitorSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitorSearchIndex.class);
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.search.index.enabled:true}")
+    private boolean enabled;
+
+    // check-ins commit a little after their entry time; re-read that much on every sync
+    @Value("${app.search.index.sync-overlap-ms:120000}")
+    private long syncOverlapMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TrigramIndex index = new TrigramIndex(16);
+
+    // updates that arrive while a rebuild reads the DB, replayed onto the new index before the swap
+    private List<Consumer<TrigramIndex>> journal;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile LocalDateTime lastSyncAt;
+    private volatile LocalDateTime lastRebuiltAt;
+    private volatile long lastRebuildMillis;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+
+    public record Stats(
+            boolean ready,
+            int documents,
+            long trigrams,
+            long approxBytes,
+            long queries,
+            double avgQueryMicros,
+            LocalDateTime lastRebuiltAt,
+            long lastRebuildMillis,
+            LocalDateTime lastSyncAt
+    ) {
+    }
+
+    // -------------------------------
+    // READS
+    // -------------------------------
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public SearchHits search(VisitorSearchQuery query, SearchOrder order, int offset, int limit) {
+        long start = System.nanoTime();
+        TrigramIndex.Result result;
+        lock.readLock().lock();
+        try {
+            result = index.find(query, order, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        record(start);
+        return new SearchHits(boxed(result.ids()), result.total());
+    }
+
+    // newest first, strictly after the (entryTime, id) cursor; no total
+    public List<Long> scroll(VisitorSearchQuery query, LocalDateTime beforeEntry, long beforeId, int limit) {
+        long start = System.nanoTime();
+        long[] ids;
+        lock.readLock().lock();
+        try {
+            ids = index.scroll(query, beforeEntry, beforeId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        record(start);
+        return boxed(ids);
+    }
+
+    public Stats stats() {
+        int documents;
+        long trigrams;
+        long bytes;
+        lock.readLock().lock();
+        try {
+            documents = index.size();
+            trigrams = index.grams();
+            bytes = index.memoryBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+        long n = queries.get();
+        return new Stats(isReady(), documents, trigrams, bytes, n,
+                n == 0 ? 0 : queryNanos.get() / 1_000.0 / n,
+                lastRebuiltAt, lastRebuildMillis, lastSyncAt);
+    }
+
+    // -------------------------------
+    // UPDATES (after commit)
+    // -------------------------------
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCheckedIn(VisitorCheckedInEvent event) {
+        apply(idx -> {
+            for (ActiveVisitor v : event.visitors()) {
+                idx.upsert(v.id(), v.name(), v.email(), v.phone(), v.staffId(), v.staffUsername(),
+                        v.entryTime(), v.status());
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExited(VisitorExitedEvent event) {
+        apply(idx -> idx.advanceStatus(event.visitorId(), VisitorStatus.EXITED));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOverdue(VisitorsOverdueEvent event) {
+        apply(idx -> event.visitorIds().forEach(id -> idx.advanceStatus(id, VisitorStatus.OVERDUE)));
+    }
+
+    // other nodes drop archived visitors at their nightly rebuild
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArchived(VisitorsArchivedEvent event) {
+        apply(idx -> event.visitorIds().forEach(idx::remove));
+    }
+
+    // -------------------------------
+    // BUILD + SYNC
+    // -------------------------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        // a large table takes seconds to load; searches use the DB until then
+        Thread.ofPlatform().name("search-index-warmup").daemon().start(() -> {
+            try {
+                Stats stats = rebuild();
+                logger.info("Search index built with {} visitors in {} ms",
+                        stats.documents(), stats.lastRebuildMillis());
+            } catch (RuntimeException e) {
+                logger.error("Search index warm-up failed, searches stay on the database", e);
+            }
+        });
+    }
+
+    /**
+     * Reloads every visitor from the DB into a fresh index and swaps it in.
+     * Updates that arrive meanwhile are applied to both indexes, so none are lost.
+     */
+    public Stats rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new RuntimeException("Search index rebuild already running");
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime startedAt = LocalDateTime.now();
+
+            TrigramIndex fresh;
+            lock.writeLock().lock();
+            try {
+                journal = new ArrayList<>();
+                fresh = new TrigramIndex(Math.max(1024, index.size() + index.size() / 8));
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            tx.executeWithoutResult(status -> {
+                try (Stream<VisitorSearchRow> rows = visitorRepository.streamSearchRows()) {
+                    rows.forEach(row -> add(fresh, row));
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                journal.forEach(op -> op.accept(fresh));
+                index = fresh;
+            } finally {
+                journal = null;
+                lock.writeLock().unlock();
+            }
+
+            lastSyncAt = startedAt;
+            lastRebuiltAt = LocalDateTime.now();
+            lastRebuildMillis = (System.nanoTime() - started) / 1_000_000;
+            ready = true;
+            return stats();
+
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Pulls in check-ins, exits and OVERDUE marks committed since the last
+     * sync, including those made on other nodes. Returns the number of rows read.
+     */
+    public int syncRecent() {
+        if (!isReady() || rebuilding.get()) {
+            return 0;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = lastSyncAt.minus(Duration.ofMillis(syncOverlapMs));
+
+        List<VisitorSearchRow> rows = new ArrayList<>(visitorRepository.findSearchRowsEnteredSince(since));
+        rows.addAll(visitorRepository.findSearchRowsExitedSince(since));
+        rows.addAll(visitorRepository.findSearchRowsMarkedOverdueSince(since));
+
+        apply(idx -> rows.forEach(row -> add(idx, row)));
+        lastSyncAt = startedAt;
+        return rows.size();
+    }
+
+    // -------------------------------
+    // INTERNALS
+    // -------------------------------
+    private void apply(Consumer<TrigramIndex> op) {
+        lock.writeLock().lock();
+        try {
+            op.accept(index);
+            if (journal != null) {
+                journal.add(op);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(TrigramIndex idx, VisitorSearchRow row) {
+        idx.upsert(row.id(), row.name(), row.email(), row.phone(), row.staffId(), row.staffUsername(),
+                row.entryTime(), row.status());
+    }
+
+    private void record(long startNanos) {
+        queries.incrementAndGet();
+        queryNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    private static List<Long> boxed(long[] ids) {
+        List<Long> out = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            out.add(id);
+        }
+        return out;
+    }
+}
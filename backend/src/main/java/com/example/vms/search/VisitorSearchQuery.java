@@ -0,0 +1,40 @@
+package com.example.vms.search;
+
+import com.example.vms.model.VisitorStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Either a single keyword matched against name, email or phone (like
+ * {@code searchAll}), or per-field filters that must all match (like
+ * {@code advancedSearch}). Null filters are ignored.
+ */
+public record VisitorSearchQuery(
+        String keyword,
+        String name,
+        String email,
+        String phone,
+        String staff,
+        VisitorStatus status,
+        LocalDateTime from,
+        LocalDateTime to
+) {
+
+    public static VisitorSearchQuery keyword(String keyword) {
+        return new VisitorSearchQuery(keyword == null ? "" : keyword, null, null, null, null, null, null, null);
+    }
+
+    public static VisitorSearchQuery fields(String name, String email, String phone, String staff,
+                                            VisitorStatus status, LocalDateTime from, LocalDateTime to) {
+        return new VisitorSearchQuery(null, name, email, phone, staff, status, from, to);
+    }
+
+    // the index only pays off when there is text to look up; pure status/date filters stay in the DB
+    public boolean hasText() {
+        return keyword != null || !isBlank(name) || !isBlank(email) || !isBlank(phone);
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+}
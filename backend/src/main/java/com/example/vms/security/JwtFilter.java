@@ -35,21 +35,15 @@ public class JwtFilter extends OncePerRequestFilter {
 
             final String token = header.substring(7);
 
-            if (jwtUtil.validateJwt(token)) {
+            JwtUtil.VerifiedToken verified = jwtUtil.verify(token);
 
-                String username = jwtUtil.getUsernameFromJwt(token);
-                var claims = jwtUtil.getAllClaims(token);
-
-                // ✔ FIXED: authorities is now ALWAYS a List
-                List<String> roles = claims.get("authorities", List.class);
+            if (verified != null) {
 
                 List<SimpleGrantedAuthority> authorities =
-                        roles.stream().map(SimpleGrantedAuthority::new).toList();
-
-                System.out.println("🔐 Final Authorities = " + authorities);
+                        verified.authorities().stream().map(SimpleGrantedAuthority::new).toList();
 
                 UsernamePasswordAuthenticationToken auth =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
+                        new UsernamePasswordAuthenticationToken(verified.username(), null, authorities);
 
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
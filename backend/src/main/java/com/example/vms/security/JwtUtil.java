@@ -2,12 +2,19 @@ package com.example.vms.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
@@ -18,8 +25,32 @@ public class JwtUtil {
     @Value("${app.jwt.expiration-ms}")
     private long jwtExpirationMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // verified tokens remembered until they expire; 0 disables the cache
+    @Value("${app.jwt.cache-size:10000}")
+    private int cacheSize;
+
+    private Key signingKey;
+
+    // immutable and thread-safe once built
+    private JwtParser parser;
+
+    // SHA-256 of the token -> what it proved; the raw bearer token is never kept
+    private final Map<ByteBuffer, VerifiedToken> verified = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(JwtUtil::newDigest);
+
+    /**
+     * The caller identity a valid token carries.
+     */
+    public record VerifiedToken(String username, List<String> authorities, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     // ✔ FIXED: store authorities as REAL LIST, NOT STRING
@@ -29,34 +60,80 @@ public class JwtUtil {
                 .claim("authorities", List.of(role))   // real array!
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public Claims getAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    public String getUsernameFromJwt(String token) {
-        return getAllClaims(token).getSubject();
-    }
+    /**
+     * Checks the signature and expiry and extracts the identity in one parse;
+     * {@code null} when the token is not valid. A token seen before is served
+     * from the cache until its own expiry, without parsing or HMAC.
+     */
+    public VerifiedToken verify(String token) {
+        ByteBuffer key = cacheSize > 0 ? hash(token) : null;
+        long now = System.currentTimeMillis();
 
-    public boolean validateJwt(String token) {
+        if (key != null) {
+            VerifiedToken cached = verified.get(key);
+            if (cached != null) {
+                if (now < cached.expiresAtMillis()) {
+                    return cached;
+                }
+                verified.remove(key);
+                return null;
+            }
+        }
+
+        Claims claims;
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            claims = getAllClaims(token);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
+
+        @SuppressWarnings("unchecked")
+        List<String> authorities = claims.get("authorities", List.class);
+        Date expiration = claims.getExpiration();
+        VerifiedToken result = new VerifiedToken(
+                claims.getSubject(),
+                authorities != null ? List.copyOf(authorities) : List.of(),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE
+        );
+
+        // tokens without an expiry are not remembered
+        if (key != null && expiration != null) {
+            remember(key, result, now);
+        }
+        return result;
     }
-}
 
+    // -------------------------------
+    // HELPERS
+    // -------------------------------
+    private void remember(ByteBuffer key, VerifiedToken token, long now) {
+        if (verified.size() >= cacheSize) {
+            verified.values().removeIf(t -> t.expiresAtMillis() <= now);
+            if (verified.size() >= cacheSize) {
+                // every entry still live: start over rather than track recency on each hit
+                verified.clear();
+            }
+        }
+        verified.put(key, token);
+    }
 
+    private ByteBuffer hash(String token) {
+        return ByteBuffer.wrap(digests.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
 
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.vms.security;
+
+import com.example.vms.model.Visitor;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.LongPredicate;
+
+/**
+ * Compact, signed visitor pass encoded in the QR code.
+ *
+ * <pre>
+ *   VMS1.&lt;base64url( version | varint visitorId | varint staffId | u32 validFrom | u32 validUntil | mac[16] )&gt;
+ * </pre>
+ *
+ * The MAC is HMAC-SHA256 over everything before it, truncated to 128 bits.
+ * Verification is pure CPU, so forged or expired passes are rejected before
+ * the scan path touches the database. The window is derived from the entry
+ * time, so the token for a given visitor is always the same string.
+ */
+@Component
+public class QrTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrTokenService.class);
+
+    public static final String PREFIX = "VMS1.";
+    public static final String LEGACY_PREFIX = "VMS_VISITOR:";
+
+    private static final byte VERSION = 1;
+    private static final int MAC_LENGTH = 16;
+    private static final long CLOCK_SKEW_SECONDS = 300;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${app.qr.secret:}")
+    private String qrSecret;
+
+    @Value("${app.jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${app.qr.validity-hours:24}")
+    private long validityHours;
+
+    // passes printed before signed codes carry unsigned VMS_VISITOR:<id> codes; they keep
+    // working so visitors already on site can leave. Switch off once they have all exited
+    @Value("${app.qr.accept-legacy:true}")
+    private boolean acceptLegacy;
+
+    // an unsigned code can be forged by guessing an id, so only ids up to the cutover
+    // (the last visitor checked in before the upgrade) are accepted; 0 = no limit
+    @Value("${app.qr.legacy-max-visitor-id:0}")
+    private long legacyMaxVisitorId;
+
+    private SecretKeySpec key;
+
+    // Mac instances are not thread-safe; one per thread avoids a provider lookup per scan
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public record QrToken(long visitorId, long staffId, long validFrom, long validUntil) {
+    }
+
+    @PostConstruct
+    public void init() throws GeneralSecurityException {
+        byte[] material;
+        if (qrSecret != null && !qrSecret.isBlank()) {
+            material = qrSecret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            // derive a separate key so a QR key leak never signs JWTs (and vice versa)
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            material = mac.doFinal("vms-qr-token".getBytes(StandardCharsets.UTF_8));
+        }
+        key = new SecretKeySpec(material, "HmacSHA256");
+
+        if (acceptLegacy && legacyMaxVisitorId <= 0) {
+            logger.warn("Unsigned legacy QR codes are accepted for any visitor id; "
+                    + "set app.qr.legacy-max-visitor-id to the last id checked in before the upgrade");
+        }
+    }
+
+    // -------------------------------
+    // ISSUE
+    // -------------------------------
+    public String issue(Visitor visitor) {
+        return issue(visitor.getId(), visitor.getStaff().getId(), visitor.getEntryTime());
+    }
+
+    public String issue(long visitorId, long staffId, LocalDateTime entryTime) {
+        long validFrom = toEpoch(entryTime);
+        long validUntil = validFrom + validityHours * 3600;
+        return issue(visitorId, staffId, validFrom, validUntil);
+    }
+
+    public String issue(long visitorId, long staffId, long validFrom, long validUntil) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        out.write(VERSION);
+        writeVarLong(out, visitorId);
+        writeVarLong(out, staffId);
+        writeUInt32(out, validFrom);
+        writeUInt32(out, validUntil);
+
+        byte[] payload = out.toByteArray();
+        byte[] mac = sign(payload, payload.length);
+
+        byte[] token = Arrays.copyOf(payload, payload.length + MAC_LENGTH);
+        System.arraycopy(mac, 0, token, payload.length, MAC_LENGTH);
+
+        return PREFIX + ENCODER.encodeToString(token);
+    }
+
+    // -------------------------------
+    // VERIFY
+    // -------------------------------
+
+    /**
+     * Resolves the scanned QR text to a visitor id. Signed tokens are checked
+     * for signature and validity window; legacy {@code VMS_VISITOR:<id>} codes
+     * are accepted while {@code app.qr.accept-legacy} is on (the default), up to
+     * {@code app.qr.legacy-max-visitor-id}.
+     */
+    public long resolveVisitorId(String data) {
+        return resolveVisitorId(data, id -> false);
+    }
+
+    /**
+     * Same, but a correctly signed pass whose window has run out is still
+     * accepted when {@code stillOnSite} says the visitor has not left yet:
+     * an OVERDUE visitor must be scannable at the exit however long they
+     * stayed. {@code stillOnSite} is only asked after the signature checks out.
+     */
+    public long resolveVisitorId(String data, LongPredicate stillOnSite) {
+        if (data == null) {
+            throw new RuntimeException("Invalid QR format");
+        }
+        if (data.startsWith(PREFIX)) {
+            QrToken token = decode(data);
+            long now = Instant.now().getEpochSecond();
+            if (now + CLOCK_SKEW_SECONDS < token.validFrom()) {
+                throw new RuntimeException("QR pass not yet valid");
+            }
+            if (now > token.validUntil() && !stillOnSite.test(token.visitorId())) {
+                throw new RuntimeException("QR pass expired");
+            }
+            return token.visitorId();
+        }
+        if (acceptLegacy && data.startsWith(LEGACY_PREFIX)) {
+            long visitorId;
+            try {
+                visitorId = Long.parseLong(data.substring(LEGACY_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid QR data");
+            }
+            if (legacyMaxVisitorId > 0 && visitorId > legacyMaxVisitorId) {
+                throw new RuntimeException("Invalid QR format");
+            }
+            return visitorId;
+        }
+        throw new RuntimeException("Invalid QR format");
+    }
+
+    // signature and validity window
+    public QrToken verify(String data) {
+        QrToken token = decode(data);
+        long now = Instant.now().getEpochSecond();
+        if (now + CLOCK_SKEW_SECONDS < token.validFrom() || now > token.validUntil()) {
+            throw new RuntimeException("QR pass expired");
+        }
+        return token;
+    }
+
+    // signature and layout only; the caller decides about the window
+    private QrToken decode(String data) {
+
+        byte[] token;
+        try {
+            token = DECODER.decode(data.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid QR data");
+        }
+
+        int payloadLength = token.length - MAC_LENGTH;
+        if (payloadLength < 1 + 1 + 1 + 4 + 4 || token[0] != VERSION) {
+            throw new RuntimeException("Invalid QR data");
+        }
+
+        byte[] expected = sign(token, payloadLength);
+        byte[] actual = Arrays.copyOfRange(token, payloadLength, token.length);
+        if (!MessageDigest.isEqual(Arrays.copyOf(expected, MAC_LENGTH), actual)) {
+            throw new RuntimeException("Invalid QR signature");
+        }
+
+        int[] pos = {1};
+        long visitorId = readVarLong(token, pos, payloadLength);
+        long staffId = readVarLong(token, pos, payloadLength);
+        if (pos[0] + 8 != payloadLength) {
+            throw new RuntimeException("Invalid QR data");
+        }
+        long validFrom = readUInt32(token, pos[0]);
+        long validUntil = readUInt32(token, pos[0] + 4);
+
+        return new QrToken(visitorId, staffId, validFrom, validUntil);
+    }
+
+    // -------------------------------
+    // HELPERS
+    // -------------------------------
+    private byte[] sign(byte[] data, int length) {
+        Mac mac = macs.get();
+        mac.update(data, 0, length);
+        return mac.doFinal();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static long toEpoch(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] buf, int[] pos, int limit) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= limit) {
+                throw new RuntimeException("Invalid QR data");
+            }
+            byte b = buf[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new RuntimeException("Invalid QR data");
+    }
+
+    private static void writeUInt32(ByteArrayOutputStream out, long value) {
+        out.write((int) (value >>> 24));
+        out.write((int) (value >>> 16));
+        out.write((int) (value >>> 8));
+        out.write((int) value);
+    }
+
+    private static long readUInt32(byte[] buf, int pos) {
+        return ((long) (buf[pos] & 0xFF) << 24)
+                | ((buf[pos + 1] & 0xFF) << 16)
+                | ((buf[pos + 2] & 0xFF) << 8)
+                | (buf[pos + 3] & 0xFF);
+    }
+}
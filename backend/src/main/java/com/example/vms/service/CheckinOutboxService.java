@@ -0,0 +1,200 @@
+package com.example.vms.service;
+
+import com.example.vms.cache.ActiveVisitorRegistry;
+import com.example.vms.model.CheckinOutbox;
+import com.example.vms.model.DeliveryStatus;
+import com.example.vms.model.OutboxStatus;
+import com.example.vms.model.Visitor;
+import com.example.vms.repository.CheckinOutboxRepository;
+import com.example.vms.repository.VisitorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox for the check-in side effects (QR render + pass email).
+ *
+ * The visitor row and its outbox row commit together; after commit the job is
+ * handed to the bounded {@code checkinExecutor}. Anything that does not make
+ * it (pool full, node crash, SMTP failure) is retried by
+ * {@link com.example.vms.scheduler.OutboxRelayScheduler}.
+ */
+@Service
+public class CheckinOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckinOutboxService.class);
+
+    @Autowired
+    private CheckinOutboxRepository outboxRepository;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private QrService qrService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    @Qualifier("checkinExecutor")
+    private ThreadPoolTaskExecutor checkinExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ActiveVisitorRegistry activeVisitorRegistry;
+
+    @Value("${app.checkin.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.checkin.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    // how long the relay leaves a fresh row alone before assuming the direct hand-off was lost
+    @Value("${app.checkin.relay-grace-ms:10000}")
+    private long relayGraceMs;
+
+    // a PROCESSING row older than this is considered abandoned by a dead worker
+    @Value("${app.checkin.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Value("${app.checkin.relay-batch-size:100}")
+    private int relayBatchSize;
+
+    // -------------------------------
+    // ENQUEUE (inside the check-in transaction)
+    // -------------------------------
+    public void enqueue(List<Visitor> visitors) {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        List<CheckinOutbox> rows = visitors.stream()
+                .map(v -> CheckinOutbox.builder()
+                        .visitorId(v.getId())
+                        .status(OutboxStatus.PENDING)
+                        .attempts(0)
+                        .createdAt(now)
+                        .nextAttemptAt(now.plus(Duration.ofMillis(relayGraceMs)))
+                        .build())
+                .toList();
+
+        List<Long> ids = outboxRepository.saveAll(rows).stream()
+                .map(CheckinOutbox::getId)
+                .toList();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(ids);
+                }
+            });
+        } else {
+            dispatch(ids);
+        }
+    }
+
+    // -------------------------------
+    // DISPATCH TO WORKER POOL
+    // -------------------------------
+    public int dispatch(List<Long> outboxIds) {
+        int submitted = 0;
+        for (Long id : outboxIds) {
+            try {
+                checkinExecutor.execute(() -> process(id));
+                submitted++;
+            } catch (TaskRejectedException e) {
+                // pool saturated; the row stays due and the relay retries it
+                logger.debug("Check-in pool full, deferring {} outbox rows", outboxIds.size() - submitted);
+                break;
+            }
+        }
+        return submitted;
+    }
+
+    public int relayDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = outboxRepository.findDueIds(
+                now,
+                now.minus(Duration.ofMillis(staleAfterMs)),
+                PageRequest.of(0, relayBatchSize)
+        );
+        return due.isEmpty() ? 0 : dispatch(due);
+    }
+
+    // -------------------------------
+    // WORKER: render QR + send email
+    // -------------------------------
+    public void process(Long outboxId) {
+
+        LocalDateTime now = LocalDateTime.now();
+        if (outboxRepository.claim(outboxId, now, now.minus(Duration.ofMillis(staleAfterMs))) == 0) {
+            return; // already done or owned by another worker
+        }
+
+        CheckinOutbox row = outboxRepository.findById(outboxId).orElse(null);
+        if (row == null) {
+            return;
+        }
+
+        Visitor visitor = visitorRepository.findById(row.getVisitorId()).orElse(null);
+        if (visitor == null) {
+            finish(row, null, OutboxStatus.FAILED, DeliveryStatus.FAILED, "Visitor not found");
+            return;
+        }
+
+        String qrPath = null;
+        try {
+            // no transaction (and no DB connection) is held during render and SMTP
+            byte[] png = qrService.render(visitor).png();
+            qrPath = QrService.qrUrl(visitor.getId());
+            emailService.sendVisitorQr(visitor.getEmail(), visitor.getName(), png);
+
+            finish(row, qrPath, OutboxStatus.DONE, DeliveryStatus.SENT, null);
+
+        } catch (RuntimeException e) {
+            logger.warn("Check-in delivery for visitor {} failed (attempt {}/{}): {}",
+                    visitor.getId(), row.getAttempts(), maxAttempts, e.getMessage());
+
+            if (row.getAttempts() >= maxAttempts) {
+                finish(row, qrPath, OutboxStatus.FAILED, DeliveryStatus.FAILED, e.getMessage());
+            } else {
+                finish(row, qrPath, OutboxStatus.PENDING, DeliveryStatus.PENDING, e.getMessage());
+            }
+        }
+    }
+
+    private void finish(CheckinOutbox row, String qrPath, OutboxStatus status,
+                        DeliveryStatus delivery, String error) {
+
+        // exponential backoff: base, 2x, 4x, ...
+        LocalDateTime nextAttempt = status == OutboxStatus.PENDING
+                ? LocalDateTime.now().plus(Duration.ofMillis(retryBackoffMs << Math.min(row.getAttempts() - 1, 10)))
+                : null;
+
+        String trimmedError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            outboxRepository.complete(row.getId(), status, nextAttempt, trimmedError);
+            visitorRepository.updateDelivery(row.getVisitorId(), qrPath, delivery);
+        });
+
+        activeVisitorRegistry.updateDelivery(row.getVisitorId(), qrPath, delivery);
+    }
+}
@@ -1,8 +1,6 @@
 package com.example.vms.service;
 
 import com.example.vms.dto.DashboardDTO;
-import com.example.vms.model.VisitorStatus;
-import com.example.vms.repository.VisitorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,8 +12,9 @@ import java.util.stream.Collectors;
 @Service
 public class DashboardService {
 
+    // reads pre-aggregated rollups instead of scanning visitors for the whole range
     @Autowired
-    private VisitorRepository visitorRepository;
+    private VisitorRollupService visitorRollupService;
 
     public DashboardDTO getDashboardData(String range) {
 
@@ -31,29 +30,31 @@ public class DashboardService {
             default -> throw new RuntimeException("Invalid range! Allowed: today, week, month, 6months, year");
         }
 
-        // Summary
-        long total = visitorRepository.countByDateRange(from, now);
-        long active = visitorRepository.countByStatusAndDateRange(VisitorStatus.ACTIVE, from, now);
-        long exited = visitorRepository.countByStatusAndDateRange(VisitorStatus.EXITED, from, now);
+        VisitorRollupService.Window window = visitorRollupService.readSince(from);
 
-        long overstayed = visitorRepository.findActiveVisitorsBefore(now.minusHours(3)).size();
+        // Summary
+        long total = window.total();
+        long active = window.active();
+        long exited = window.exited();
+        long overstayed = window.overdue();
 
         // Daily Trend
         List<DashboardDTO.DailyTrend> dailyTrend =
-                visitorRepository.groupByDate(from, now).stream()
-                        .map(obj -> new DashboardDTO.DailyTrend(obj[0].toString(), (Long) obj[1]))
+                window.perDay().entrySet().stream()
+                        .map(e -> new DashboardDTO.DailyTrend(e.getKey().toString(), e.getValue()))
                         .collect(Collectors.toList());
 
         // Status Distribution
         List<DashboardDTO.StatusDistribution> statusDistribution = List.of(
                 new DashboardDTO.StatusDistribution("ACTIVE", active),
-                new DashboardDTO.StatusDistribution("EXITED", exited)
+                new DashboardDTO.StatusDistribution("EXITED", exited),
+                new DashboardDTO.StatusDistribution("OVERDUE", overstayed)
         );
 
         // Peak Hours
         List<DashboardDTO.PeakHours> peakHours =
-                visitorRepository.groupByPeakHours(from, now).stream()
-                        .map(obj -> new DashboardDTO.PeakHours((Integer) obj[0], (Long) obj[1]))
+                window.perHour().entrySet().stream()
+                        .map(e -> new DashboardDTO.PeakHours(e.getKey(), e.getValue()))
                         .collect(Collectors.toList());
 
         return DashboardDTO.builder()
@@ -3,20 +3,18 @@ package com.example.vms.service;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-
 @Service
 public class EmailService {
 
     @Autowired
     private JavaMailSender mailSender;
 
-    public void sendVisitorQr(String toEmail, String visitorName, String qrPath) {
+    public void sendVisitorQr(String toEmail, String visitorName, byte[] qrPng) {
 
         try {
             MimeMessage message = mailSender.createMimeMessage();
@@ -36,8 +34,8 @@ public class EmailService {
 
             helper.setText(html, true);
 
-            FileSystemResource file = new FileSystemResource(new File(qrPath));
-            helper.addAttachment("Visitor_QR.png", file);
+            // rendered in memory; nothing is read back from disk
+            helper.addAttachment("Visitor_QR.png", new ByteArrayResource(qrPng), "image/png");
 
             mailSender.send(message);
 
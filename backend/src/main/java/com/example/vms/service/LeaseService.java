@@ -0,0 +1,161 @@
+package com.example.vms.service;
+
+import com.example.vms.repository.SchedulerLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DB-backed leader election for scheduled jobs, so that only one backend
+ * node runs each job (or job shard) at a time.
+ *
+ * A lease is a row in {@code scheduler_leases}. It is taken with a conditional
+ * UPDATE (only an expired lease can change hands) and kept by renewing it
+ * before {@code ttl} runs out, so a dead node is replaced after at most one
+ * TTL. Every change of hands bumps the fencing token; writes made under a
+ * lease call {@link #fence(Lease)} in their own transaction, which fails once
+ * another node has taken over.
+ */
+@Service
+public class LeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaseService.class);
+
+    private static final LocalDateTime NEVER_HELD = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public record Lease(String name, String owner, long token) {
+    }
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.cluster.node-id:}")
+    private String nodeId;
+
+    @Value("${app.lease.ttl-ms:30000}")
+    private long ttlMs;
+
+    private final Set<String> knownRows = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Lease> held = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "node";
+            }
+            nodeId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        logger.info("Scheduler lease owner id: {}", nodeId);
+    }
+
+    /**
+     * Renews the lease if this node holds it, otherwise takes it over if it
+     * has expired. Empty when another node holds it.
+     */
+    public Optional<Lease> tryAcquire(String name) {
+
+        ensureRow(name);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(Duration.ofMillis(ttlMs));
+
+        Lease lease = new TransactionTemplate(transactionManager).execute(status -> {
+            if (leaseRepository.renew(name, nodeId, now, expiresAt) == 0
+                    && leaseRepository.takeOver(name, nodeId, now, expiresAt) == 0) {
+                return null;
+            }
+            // the UPDATE above holds the row lock, so this is our token
+            return new Lease(name, nodeId, leaseRepository.findToken(name));
+        });
+
+        if (lease == null) {
+            held.remove(name);
+            return Optional.empty();
+        }
+        Lease previous = held.put(name, lease);
+        if (previous == null || previous.token() != lease.token()) {
+            logger.info("Acquired lease {} (token {})", name, lease.token());
+        }
+        return Optional.of(lease);
+    }
+
+    /**
+     * Verifies, inside the caller's transaction, that the lease is still ours
+     * and extends it. The row stays locked until that transaction ends, so a
+     * takeover cannot slip in between the check and the caller's writes.
+     */
+    public void fence(Lease lease) {
+        LocalDateTime now = LocalDateTime.now();
+        int ok = leaseRepository.fence(lease.name(), lease.owner(), lease.token(), now,
+                now.plus(Duration.ofMillis(ttlMs)));
+        if (ok == 0) {
+            held.remove(lease.name());
+            throw new RuntimeException("Lease lost: " + lease.name() + " (token " + lease.token() + ")");
+        }
+    }
+
+    /**
+     * Gives the lease up. With a non-zero {@code hold} nobody (this node
+     * included) can take it again until the hold has passed.
+     */
+    public void release(Lease lease, Duration hold) {
+        held.remove(lease.name());
+        LocalDateTime until = LocalDateTime.now().plus(hold);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                leaseRepository.release(lease.name(), lease.owner(), lease.token(), until));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // hand everything back on shutdown so other nodes need not wait for the TTL
+    @PreDestroy
+    void releaseAll() {
+        for (Lease lease : held.values()) {
+            try {
+                release(lease, Duration.ZERO);
+            } catch (RuntimeException e) {
+                logger.warn("Could not release lease {}: {}", lease.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void ensureRow(String name) {
+        if (knownRows.contains(name)) {
+            return;
+        }
+        if (!leaseRepository.existsById(name)) {
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                        leaseRepository.insert(name, NEVER_HELD));
+            } catch (DataIntegrityViolationException e) {
+                // another node inserted it first
+            }
+        }
+        knownRows.add(name);
+    }
+}
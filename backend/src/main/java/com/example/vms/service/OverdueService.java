@@ -0,0 +1,139 @@
+package com.example.vms.service;
+
+import com.example.vms.event.VisitorsOverdueEvent;
+import com.example.vms.model.VisitLog;
+import com.example.vms.repository.VisitLogRepository;
+import com.example.vms.repository.VisitorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Set-based ACTIVE -> OVERDUE transition.
+ *
+ * Each chunk is its own short transaction: lock up to {@code chunk-size}
+ * candidate ids, flip them with one UPDATE and write their visit logs with
+ * one INSERT ... SELECT. Staff are grouped by allowed stay (see
+ * {@link StayPolicy}), so the number of statements depends on the number of
+ * distinct stay limits, not on the number of visitors.
+ */
+@Service
+public class OverdueService {
+
+    public static final String OVERDUE_ACTION = VisitLog.OVERDUE;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private VisitLogRepository visitLogRepository;
+
+    @Autowired
+    private StayPolicy stayPolicy;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.overdue.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Marks every visitor whose allowed stay has run out. Returns the number
+     * of visitors switched to OVERDUE.
+     */
+    public int markOverdue() {
+        return markOverdue(0, 1, () -> { });
+    }
+
+    /**
+     * Same as {@link #markOverdue()}, restricted to hosts with
+     * {@code staffId % shards == shard}. {@code fence} runs at the start of
+     * every chunk transaction and aborts the chunk by throwing (see
+     * {@link LeaseService#fence}).
+     */
+    public int markOverdue(int shard, int shards, Runnable fence) {
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, List<Long>> overrides = stayPolicy.nonDefaultStaffByStay();
+
+        List<Long> allOverridden = new ArrayList<>();
+        overrides.values().forEach(allOverridden::addAll);
+
+        // everyone on the default stay
+        LocalDateTime defaultCutoff = now.minusMinutes(stayPolicy.getDefaultStayMinutes());
+        int total = sweep(allOverridden.isEmpty()
+                ? () -> visitorRepository.lockOverdueCandidates(defaultCutoff, shard, shards, chunkSize)
+                : () -> visitorRepository.lockOverdueCandidatesExcept(defaultCutoff, allOverridden, shard, shards, chunkSize),
+                fence, now);
+
+        // hosts/departments with their own limit
+        for (Map.Entry<Integer, List<Long>> group : overrides.entrySet()) {
+            LocalDateTime cutoff = now.minusMinutes(group.getKey());
+            List<Long> staffIds = group.getValue();
+            total += sweep(() -> visitorRepository.lockOverdueCandidatesOf(cutoff, staffIds, shard, shards, chunkSize),
+                    fence, now);
+        }
+
+        return total;
+    }
+
+    /**
+     * Marks the given visitors (whose deadlines have fired) as OVERDUE, skipping
+     * anyone who has already exited. Returns the number actually switched.
+     */
+    public int markOverdue(Collection<Long> visitorIds) {
+
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> all = new ArrayList<>(visitorIds);
+        int total = 0;
+
+        for (int from = 0; from < all.size(); from += chunkSize) {
+            List<Long> chunk = all.subList(from, Math.min(from + chunkSize, all.size()));
+            total += tx.execute(status -> {
+                List<Long> ids = visitorRepository.lockActiveByIds(chunk);
+                return ids.isEmpty() ? 0 : apply(ids, now);
+            });
+        }
+        return total;
+    }
+
+    // lockChunk locks up to chunkSize candidates inside the chunk's transaction
+    private int sweep(Supplier<List<Long>> lockChunk, Runnable fence, LocalDateTime now) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int total = 0;
+        while (true) {
+            Integer marked = tx.execute(status -> {
+                fence.run();
+                List<Long> ids = lockChunk.get();
+                return ids.isEmpty() ? 0 : apply(ids, now);
+            });
+            total += marked;
+            if (marked < chunkSize) {
+                return total;
+            }
+        }
+    }
+
+    // ids are locked by the caller's transaction
+    private int apply(List<Long> ids, LocalDateTime now) {
+        int updated = visitorRepository.markOverdue(ids);
+        visitLogRepository.insertForVisitors(ids, OVERDUE_ACTION, now);
+
+        eventPublisher.publishEvent(new VisitorsOverdueEvent(ids));
+        return updated;
+    }
+}
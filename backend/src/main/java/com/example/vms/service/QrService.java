@@ -1,50 +1,168 @@
 package com.example.vms.service;
 
+import com.example.vms.cache.QrImageCache;
+import com.example.vms.cache.QrImageCache.QrImage;
 import com.example.vms.model.Visitor;
+import com.example.vms.security.QrTokenService;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
-import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
+/**
+ * Renders visitor passes as QR PNGs on demand, from the signed pass text.
+ *
+ * The pass text (and so the image) is a pure function of the visitor's id,
+ * host and entry time, so nothing is written to disk: images are rendered
+ * into {@link QrImageCache} and served or attached from memory.
+ * {@code app.qr.folder} only holds {@code visitor-<id>.png} files written by
+ * earlier versions; retention deletes them.
+ */
 @Service
 public class QrService {
 
-    @Value("${app.qr.folder}")
-    private String qrFolder;
+    private static final String FILE_PREFIX = "visitor-";
+    private static final String FILE_SUFFIX = ".png";
 
-    @PostConstruct
-    public void init() throws Exception {
-        Path p = Paths.get(qrFolder);
-        if (!Files.exists(p)) {
-            Files.createDirectories(p);
-        }
+    private static final int SIZE = 300;
+
+    public record Deleted(long files, long bytes) {
     }
 
-    public String generateQrForVisitor(Visitor visitor) {
-        try {
-            QRCodeWriter writer = new QRCodeWriter();
+    @Value("${app.qr.folder:}")
+    private String qrFolder;
 
-            // SECURE QR FORMAT
-            String qrText = "VMS_VISITOR:" + visitor.getId();
+    @Autowired
+    private QrTokenService qrTokenService;
 
-            BitMatrix matrix = writer.encode(qrText, BarcodeFormat.QR_CODE, 300, 300);
+    @Autowired
+    private QrImageCache qrImageCache;
 
-            String filename = "visitor-" + visitor.getId() + ".png";
-            Path file = Paths.get(qrFolder, filename);
+    // what Visitor.qrPath now holds: where the pass can be fetched
+    public static String qrUrl(long visitorId) {
+        return "/visitors/" + visitorId + "/qr";
+    }
 
-            MatrixToImageWriter.writeToPath(matrix, "PNG", file);
+    public QrImage render(Visitor visitor) {
+        return render(visitor.getId(), visitor.getStaff().getId(), visitor.getEntryTime());
+    }
 
-            return file.toString();
+    // SIGNED QR FORMAT (verified offline at the gate)
+    public QrImage render(long visitorId, long staffId, LocalDateTime entryTime) {
+        return qrImageCache.get(qrTokenService.issue(visitorId, staffId, entryTime), QrService::renderPng);
+    }
+
+    private static byte[] renderPng(String qrText) {
+        try {
+            BitMatrix matrix = new QRCodeWriter().encode(qrText, BarcodeFormat.QR_CODE, SIZE, SIZE);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+            MatrixToImageWriter.writeToStream(matrix, "PNG", out);
+            return out.toByteArray();
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate QR: " + e.getMessage());
         }
     }
+
+    // -------------------------------
+    // RETENTION
+    // -------------------------------
+
+    /**
+     * Deletes the QR image of an archived visitor. Returns the bytes freed,
+     * 0 when there was no file.
+     */
+    public long deleteQr(long visitorId) {
+        if (qrFolder == null || qrFolder.isBlank()) {
+            return 0;
+        }
+        Path file = Paths.get(qrFolder, FILE_PREFIX + visitorId + FILE_SUFFIX);
+        try {
+            long size = Files.size(file);
+            Files.delete(file);
+            return size;
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete QR " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes QR images whose visitor no longer exists, e.g. left behind when
+     * a node died between archiving a chunk and deleting its files. Files
+     * are checked {@code batchSize} ids at a time; {@code existing} returns
+     * which of the given ids still have a visitor row. Files younger than
+     * {@code minAge} are left alone.
+     */
+    public Deleted deleteOrphans(int batchSize, Function<List<Long>, Collection<Long>> existing, Duration minAge) {
+        if (qrFolder == null || qrFolder.isBlank() || !Files.isDirectory(Paths.get(qrFolder))) {
+            return new Deleted(0, 0);
+        }
+        Instant youngest = Instant.now().minus(minAge);
+        long[] deleted = new long[2];
+        List<Long> batch = new ArrayList<>(batchSize);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(qrFolder), FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                Long id = visitorIdOf(file);
+                if (id == null || Files.getLastModifiedTime(file).toInstant().isAfter(youngest)) {
+                    continue;
+                }
+                batch.add(id);
+                if (batch.size() == batchSize) {
+                    deleteMissing(batch, existing, deleted);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scan QR folder: " + e.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            deleteMissing(batch, existing, deleted);
+        }
+        return new Deleted(deleted[0], deleted[1]);
+    }
+
+    private void deleteMissing(List<Long> ids, Function<List<Long>, Collection<Long>> existing, long[] deleted) {
+        Set<Long> present = new HashSet<>(existing.apply(ids));
+        for (Long id : ids) {
+            if (!present.contains(id)) {
+                long bytes = deleteQr(id);
+                if (bytes > 0) {
+                    deleted[0]++;
+                    deleted[1] += bytes;
+                }
+            }
+        }
+    }
+
+    private static Long visitorIdOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
 }
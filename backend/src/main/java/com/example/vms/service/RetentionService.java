@@ -0,0 +1,305 @@
+package com.example.vms.service;
+
+import com.example.vms.event.VisitorsArchivedEvent;
+import com.example.vms.repository.CheckinOutboxRepository;
+import com.example.vms.repository.VisitorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps {@code visitors} down to a hot window of {@code app.retention.hot-days}.
+ *
+ * EXITED visitors who entered before the window are moved, oldest first and
+ * {@code chunk-size} at a time, into {@code visitors_archive}. Each chunk is
+ * one short transaction: lock the rows (SKIP LOCKED), copy them with one
+ * INSERT ... SELECT, delete their outbox rows and then the visitors. Their QR
+ * images, if an earlier version wrote any to disk, are deleted after the
+ * commit. Nothing else changes:
+ * <ul>
+ *   <li>The hourly/daily rollups are keyed by entry time and already hold
+ *   these visitors. {@link VisitorRollupService#backfill} no longer rebuilds
+ *   days that have archived visitors.</li>
+ *   <li>visit_logs keeps its rows; old months leave through
+ *   {@link VisitLogPartitionService#detach}.</li>
+ * </ul>
+ *
+ * A run holds the {@value #LEASE} lease, so one node archives at a time.
+ * It stops after {@code max-run-ms} and picks up where it left off next time.
+ */
+@Service
+public class RetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionService.class);
+
+    public static final String LEASE = "visitor-retention";
+
+    private static final int KEEP_REPORTS = 10;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private CheckinOutboxRepository outboxRepository;
+
+    @Autowired
+    private QrService qrService;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.retention.enabled:true}")
+    private boolean enabled;
+
+    // visitors who entered within this many days stay in the hot table
+    @Value("${app.retention.hot-days:365}")
+    private int hotDays;
+
+    @Value("${app.retention.chunk-size:500}")
+    private int chunkSize;
+
+    // breathing room for check-ins between chunks
+    @Value("${app.retention.pause-ms:100}")
+    private long pauseMs;
+
+    @Value("${app.retention.max-run-ms:900000}")
+    private long maxRunMs;
+
+    // a QR image this new may belong to a check-in still being delivered
+    @Value("${app.retention.qr-orphan-min-age-ms:86400000}")
+    private long qrOrphanMinAgeMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // newest last
+    private final Deque<RunReport> reports = new ArrayDeque<>();
+
+    private long totalArchived;
+
+    /**
+     * One archival run. {@code lockMillis} is the time each chunk transaction
+     * held its row locks, from the locking SELECT to the commit.
+     */
+    public record RunReport(
+            LocalDateTime startedAt,
+            LocalDateTime cutoff,
+            long archived,
+            int chunks,
+            long millis,
+            double rowsPerSecond,
+            double avgLockMillis,
+            double maxLockMillis,
+            long qrFilesDeleted,
+            long qrBytesFreed,
+            boolean finished,
+            String error
+    ) {
+    }
+
+    public record Stats(
+            boolean enabled,
+            int hotDays,
+            boolean running,
+            long totalArchived,
+            LocalDateTime lastArchivedEntryTime,
+            List<RunReport> recentRuns
+    ) {
+    }
+
+    // -------------------------------
+    // ARCHIVAL
+    // -------------------------------
+
+    /**
+     * Archives everything past the hot window, or as much as fits in
+     * {@code max-run-ms}. Empty when archival is disabled or a run is
+     * already going on this or another node.
+     */
+    public Optional<RunReport> run() {
+        // a second local run would renew, then release, the lease the first one is using
+        if (!enabled || running.get()) {
+            return Optional.empty();
+        }
+        Optional<LeaseService.Lease> lease = leaseService.tryAcquire(LEASE);
+        if (lease.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(archive(LocalDateTime.now().minusDays(hotDays), () -> leaseService.fence(lease.get())));
+        } finally {
+            leaseService.release(lease.get(), Duration.ZERO);
+        }
+    }
+
+    /**
+     * Moves EXITED visitors who entered before {@code cutoff}. {@code fence}
+     * runs at the start of every chunk transaction and aborts it by throwing.
+     */
+    public RunReport archive(LocalDateTime cutoff, Runnable fence) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Retention run already in progress");
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        long deadline = started + Duration.ofMillis(maxRunMs).toNanos();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long archived = 0;
+        int chunks = 0;
+        long lockNanos = 0;
+        long maxLockNanos = 0;
+        long qrFiles = 0;
+        long qrBytes = 0;
+        boolean finished = false;
+        String error = null;
+
+        try {
+            while (System.nanoTime() < deadline) {
+                long chunkStart = System.nanoTime();
+                List<Long> ids = tx.execute(status -> moveChunk(cutoff, fence));
+                long held = System.nanoTime() - chunkStart;
+
+                if (ids == null || ids.isEmpty()) {
+                    finished = true;
+                    break;
+                }
+                chunks++;
+                archived += ids.size();
+                lockNanos += held;
+                maxLockNanos = Math.max(maxLockNanos, held);
+
+                // committed: the images can go; a failure here leaves orphans for sweepQrOrphans()
+                for (Long id : ids) {
+                    try {
+                        long bytes = qrService.deleteQr(id);
+                        if (bytes > 0) {
+                            qrFiles++;
+                            qrBytes += bytes;
+                        }
+                    } catch (RuntimeException e) {
+                        logger.warn(e.getMessage());
+                    }
+                }
+
+                if (ids.size() < chunkSize) {
+                    finished = true;
+                    break;
+                }
+                pause();
+            }
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            logger.warn("Retention run stopped after {} visitors: {}", archived, e.getMessage());
+        } finally {
+            running.set(false);
+        }
+
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        RunReport report = new RunReport(
+                startedAt,
+                cutoff,
+                archived,
+                chunks,
+                millis,
+                millis == 0 ? archived : archived * 1000.0 / millis,
+                chunks == 0 ? 0 : lockNanos / 1_000_000.0 / chunks,
+                maxLockNanos / 1_000_000.0,
+                qrFiles,
+                qrBytes,
+                finished,
+                error
+        );
+        record(report);
+        if (archived > 0 || error != null) {
+            logger.info("Archived {} visitors entered before {} in {} ms ({} chunks, max lock {} ms, {} QR files)",
+                    archived, cutoff, millis, chunks, String.format("%.1f", report.maxLockMillis()), qrFiles);
+        }
+        return report;
+    }
+
+    // one transaction: lock, copy, delete; the counts must agree or the chunk rolls back
+    private List<Long> moveChunk(LocalDateTime cutoff, Runnable fence) {
+        fence.run();
+        List<Long> ids = visitorRepository.lockArchivable(cutoff, chunkSize);
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        int copied = visitorRepository.copyToArchive(ids, LocalDateTime.now());
+        if (copied != ids.size()) {
+            throw new RuntimeException("Archived " + copied + " of " + ids.size() + " visitors, chunk rolled back");
+        }
+        outboxRepository.deleteByVisitorIds(ids);
+        int deleted = visitorRepository.deleteByIds(ids);
+        if (deleted != ids.size()) {
+            throw new RuntimeException("Deleted " + deleted + " of " + ids.size() + " visitors, chunk rolled back");
+        }
+        eventPublisher.publishEvent(new VisitorsArchivedEvent(List.copyOf(ids)));
+        return ids;
+    }
+
+    // -------------------------------
+    // QR IMAGES
+    // -------------------------------
+
+    /**
+     * Deletes QR images that no longer have a visitor row. QR folders may be
+     * node-local, so every node runs this on its own.
+     */
+    public QrService.Deleted sweepQrOrphans() {
+        return qrService.deleteOrphans(1_000, visitorRepository::findExistingIds, Duration.ofMillis(qrOrphanMinAgeMs));
+    }
+
+    // -------------------------------
+    // STATS
+    // -------------------------------
+    public synchronized Stats stats() {
+        return new Stats(
+                enabled,
+                hotDays,
+                running.get(),
+                totalArchived,
+                visitorRepository.findLastArchivedEntryTime(),
+                new ArrayList<>(reports)
+        );
+    }
+
+    private synchronized void record(RunReport report) {
+        totalArchived += report.archived();
+        reports.addLast(report);
+        if (reports.size() > KEEP_REPORTS) {
+            reports.removeFirst();
+        }
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Retention run interrupted");
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.vms.service;
 
+import com.example.vms.cache.StaffDirectory;
 import com.example.vms.dto.*;
+import com.example.vms.event.StaffChangedEvent;
 import com.example.vms.mapper.StaffMapper;
 import com.example.vms.model.Staff;
 import com.example.vms.model.User;
@@ -10,6 +12,7 @@ import com.example.vms.repository.StaffRepository;
 import com.example.vms.repository.UserRepository;
 import com.example.vms.repository.VisitorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -41,6 +44,12 @@ public class StaffService {
     @Autowired
     private VisitorRepository visitorRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private StaffDirectory staffDirectory;
+
 
 
     /**
@@ -71,6 +80,7 @@ public class StaffService {
 
         Staff entity = staffMapper.toEntity(dto, user);
         Staff saved = staffRepository.save(entity);
+        eventPublisher.publishEvent(new StaffChangedEvent(saved.getId()));
         return staffMapper.toResponse(saved);
     }
 
@@ -103,6 +113,9 @@ public class StaffService {
      * returns a page so frontend can show suggestions while typing.
      */
     public Page<StaffResponseDTO> search(String query, int page, int size) {
+        if (staffDirectory.isReady()) {
+            return staffDirectory.search(query, page, size).map(staffMapper::fromEntry);
+        }
         Pageable pageable = PageRequest.of(page, size);
         Page<Staff> results = staffRepository.findByFullNameIgnoreCaseContainingOrStaffCodeIgnoreCaseContaining(query, query, pageable);
         return results.map(staffMapper::toResponse);
@@ -123,6 +136,7 @@ public class StaffService {
 
         // staffCode should not be updated — it is unique identity
         Staff saved = staffRepository.save(staff);
+        eventPublisher.publishEvent(new StaffChangedEvent(saved.getId()));
         return staffMapper.toResponse(saved);
     }
 
@@ -151,6 +165,7 @@ public class StaffService {
                 .orElseThrow(() -> new RuntimeException("Staff profile not found"));
 
         staffRepository.delete(staff);
+        eventPublisher.publishEvent(new StaffChangedEvent(staff.getId()));
     }
 
     @Transactional
@@ -162,6 +177,7 @@ public class StaffService {
 
         staffRepository.delete(staff);
         userRepository.deleteById(userId);   // deleting user login also
+        eventPublisher.publishEvent(new StaffChangedEvent(id));
     }
 
     @Transactional
@@ -173,8 +189,11 @@ public class StaffService {
         staff.setDepartment(dto.getDepartment());
         staff.setDesignation(dto.getDesignation());
         staff.setPhone(dto.getPhone());
+        staff.setAllowedStayMinutes(dto.getAllowedStayMinutes());
 
-        return staffMapper.toResponse(staffRepository.save(staff));
+        Staff saved = staffRepository.save(staff);
+        eventPublisher.publishEvent(new StaffChangedEvent(saved.getId()));
+        return staffMapper.toResponse(saved);
     }
 
     @Transactional
@@ -222,7 +241,6 @@ public class StaffService {
 
 
     public List<ActiveVisitorDTO> getNotExitedVisitors(String username) {
-
         return visitorRepository.findActiveVisitorsByStaff(username)
                 .stream()
                 .map(v -> new ActiveVisitorDTO(
@@ -0,0 +1,103 @@
+package com.example.vms.service;
+
+import com.example.vms.repository.StaffRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * How long a visitor may stay before being marked OVERDUE.
+ *
+ * Resolution order: the host's own {@code allowedStayMinutes}, then the
+ * department default from {@code app.overdue.department-stay-minutes}
+ * (e.g. {@code {'Labs':480,'Reception':60}}), then
+ * {@code app.overdue.default-stay-minutes}.
+ */
+@Component
+public class StayPolicy {
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Value("${app.overdue.default-stay-minutes:180}")
+    private int defaultStayMinutes;
+
+    @Value("#{${app.overdue.department-stay-minutes:{:}}}")
+    private Map<String, Integer> departmentStayMinutes;
+
+    // department names are matched case-insensitively
+    private Map<String, Integer> byDepartment = Map.of();
+
+    // staff id -> minutes, only for staff that differ from the default
+    private volatile Map<Long, Integer> nonDefaultByStaff;
+
+    @PostConstruct
+    public void init() {
+        if (departmentStayMinutes != null) {
+            byDepartment = departmentStayMinutes.entrySet().stream()
+                    .collect(Collectors.toMap(e -> e.getKey().trim().toLowerCase(Locale.ROOT),
+                            Map.Entry::getValue, (a, b) -> b));
+        }
+    }
+
+    public int getDefaultStayMinutes() {
+        return defaultStayMinutes;
+    }
+
+    public int resolve(String department, Integer staffOverride) {
+        if (staffOverride != null && staffOverride > 0) {
+            return staffOverride;
+        }
+        if (department != null) {
+            Integer minutes = byDepartment.get(department.trim().toLowerCase(Locale.ROOT));
+            if (minutes != null) {
+                return minutes;
+            }
+        }
+        return defaultStayMinutes;
+    }
+
+    /**
+     * Allowed stay for one host, from the cached snapshot (no DB access once loaded).
+     */
+    public int minutesForStaff(long staffId) {
+        Map<Long, Integer> snapshot = nonDefaultByStaff;
+        if (snapshot == null) {
+            snapshot = refresh();
+        }
+        return snapshot.getOrDefault(staffId, defaultStayMinutes);
+    }
+
+    /**
+     * Staff whose allowed stay differs from the global default, grouped by
+     * minutes. Everyone not listed uses {@link #getDefaultStayMinutes()}.
+     */
+    public Map<Integer, List<Long>> nonDefaultStaffByStay() {
+        Map<Integer, List<Long>> result = new TreeMap<>();
+        refresh().forEach((staffId, minutes) ->
+                result.computeIfAbsent(minutes, m -> new ArrayList<>()).add(staffId));
+        return result;
+    }
+
+    // re-reads per-staff overrides; called on every sweep and whenever staff change
+    public Map<Long, Integer> refresh() {
+        Map<Long, Integer> snapshot = new HashMap<>();
+        for (Object[] row : staffRepository.findStayPolicyRows()) {
+            int minutes = resolve((String) row[1], (Integer) row[2]);
+            if (minutes != defaultStayMinutes) {
+                snapshot.put((Long) row[0], minutes);
+            }
+        }
+        nonDefaultByStaff = snapshot;
+        return snapshot;
+    }
+}
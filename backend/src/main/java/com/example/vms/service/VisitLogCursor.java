@@ -0,0 +1,37 @@
+package com.example.vms.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in the visit history, ordered by (timestamp DESC, id DESC): the
+ * last log row the client has seen. Opaque base64url, like
+ * {@link VisitorCursor}.
+ */
+public record VisitLogCursor(LocalDateTime timestamp, long id) {
+
+    public String encode() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Null or blank means "newest first".
+     */
+    public static VisitLogCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = raw.lastIndexOf('|');
+            return new VisitLogCursor(
+                    LocalDateTime.parse(raw.substring(0, bar)),
+                    Long.parseLong(raw.substring(bar + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.vms.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the monthly RANGE partitions of {@code visit_logs} on MySQL
+ * (created by the V6 migration): one {@code pYYYYMM} partition per month
+ * plus an empty {@code p_future} catch-all.
+ *
+ * <ul>
+ *   <li>{@link #ensureAhead()} splits the next months out of {@code p_future}
+ *   before any row lands there, so that split never moves data.</li>
+ *   <li>{@link #detach(YearMonth)} swaps a closed month out into its own
+ *   {@code visit_logs_archive_YYYYMM} table and drops the partition: a
+ *   metadata change, not a table-wide DELETE.</li>
+ * </ul>
+ *
+ * On databases without partitioning (H2 in tests) the table is a plain
+ * table, {@link #isPartitioned()} is false and both operations are no-ops.
+ */
+@Service
+public class VisitLogPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitLogPartitionService.class);
+
+    public static final String FUTURE = "p_future";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // empty month partitions kept ready beyond the current one
+    @Value("${app.visit-log.partitions-ahead:3}")
+    private int monthsAhead;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public record PartitionInfo(String name, String lessThan, long approxRows, long bytes) {
+    }
+
+    // -------------------------------
+    // NAMING (shared with the V6 migration)
+    // -------------------------------
+    public static String partitionName(YearMonth month) {
+        return "p" + month.format(MONTH);
+    }
+
+    // rows of the month: timestamp < first day of the next month
+    public static String partitionClause(YearMonth month) {
+        return "PARTITION " + partitionName(month)
+                + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + " 00:00:00')";
+    }
+
+    public static String futureClause() {
+        return "PARTITION " + FUTURE + " VALUES LESS THAN (MAXVALUE)";
+    }
+
+    // -------------------------------
+    // READS
+    // -------------------------------
+    public boolean isPartitioned() {
+        return !list().isEmpty();
+    }
+
+    /**
+     * Partitions in order, with InnoDB's estimated row count and size.
+     * Empty when the table is not partitioned.
+     */
+    public List<PartitionInfo> list() {
+        try {
+            return jdbcTemplate.query("""
+                            SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS,
+                                   DATA_LENGTH + INDEX_LENGTH AS BYTES
+                            FROM information_schema.PARTITIONS
+                            WHERE TABLE_SCHEMA = DATABASE()
+                              AND TABLE_NAME = 'visit_logs'
+                              AND PARTITION_NAME IS NOT NULL
+                            ORDER BY PARTITION_ORDINAL_POSITION
+                            """,
+                    (rs, i) -> new PartitionInfo(
+                            rs.getString(1),
+                            rs.getString(2),
+                            rs.getLong(3),
+                            rs.getLong(4)
+                    ));
+        } catch (RuntimeException e) {
+            // no information_schema.PARTITIONS (H2): not partitioned
+            return List.of();
+        }
+    }
+
+    // -------------------------------
+    // MAINTENANCE
+    // -------------------------------
+
+    /**
+     * Makes sure every month up to {@code partitions-ahead} months from now
+     * has its own partition. Returns the names of the partitions added.
+     */
+    public List<String> ensureAhead() {
+        lock.lock();
+        try {
+            List<PartitionInfo> partitions = list();
+            if (partitions.isEmpty()) {
+                return List.of();
+            }
+
+            YearMonth last = null;
+            for (PartitionInfo p : partitions) {
+                YearMonth month = monthOf(p.name());
+                if (month != null && (last == null || month.isAfter(last))) {
+                    last = month;
+                }
+            }
+
+            YearMonth until = YearMonth.now().plusMonths(monthsAhead);
+            YearMonth next = last == null ? YearMonth.now() : last.plusMonths(1);
+
+            List<String> added = new ArrayList<>();
+            List<String> clauses = new ArrayList<>();
+            for (YearMonth m = next; !m.isAfter(until); m = m.plusMonths(1)) {
+                added.add(partitionName(m));
+                clauses.add(partitionClause(m));
+            }
+            if (added.isEmpty()) {
+                return added;
+            }
+            clauses.add(futureClause());
+
+            jdbcTemplate.execute("ALTER TABLE visit_logs REORGANIZE PARTITION " + FUTURE
+                    + " INTO (" + String.join(", ", clauses) + ")");
+            logger.info("Added visit_logs partitions {}", added);
+            return added;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves a closed month out of {@code visit_logs} into
+     * {@code visit_logs_archive_YYYYMM} (same columns and indexes, not
+     * partitioned) and drops its partition. The rows stay queryable in the
+     * archive table until it is dumped or dropped. Returns the archive table
+     * name.
+     */
+    public String detach(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new RuntimeException("Only months before the current one can be detached");
+        }
+
+        lock.lock();
+        try {
+            String partition = partitionName(month);
+            boolean exists = list().stream().anyMatch(p -> p.name().equals(partition));
+            if (!exists) {
+                throw new RuntimeException("visit_logs has no partition " + partition);
+            }
+
+            String archive = "visit_logs_archive_" + month.format(MONTH);
+            Integer taken = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM information_schema.TABLES
+                    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+                    """, Integer.class, archive);
+            if (taken != null && taken > 0) {
+                throw new RuntimeException("Archive table " + archive + " already exists");
+            }
+
+            jdbcTemplate.execute("CREATE TABLE " + archive + " LIKE visit_logs");
+            jdbcTemplate.execute("ALTER TABLE " + archive + " REMOVE PARTITIONING");
+            // swaps the partition's tablespace with the empty table: no rows are copied
+            jdbcTemplate.execute("ALTER TABLE visit_logs EXCHANGE PARTITION " + partition
+                    + " WITH TABLE " + archive);
+            jdbcTemplate.execute("ALTER TABLE visit_logs DROP PARTITION " + partition);
+
+            logger.info("Detached visit_logs partition {} into {}", partition, archive);
+            return archive;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -------------------------------
+    // HELPERS
+    // -------------------------------
+    private static YearMonth monthOf(String partition) {
+        if (partition == null || !partition.matches("p\\d{6}")) {
+            return null;
+        }
+        return YearMonth.parse(partition.substring(1), MONTH);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.vms.service;
+
+import com.example.vms.dto.CursorPage;
+import com.example.vms.dto.VisitLogDTO;
+import com.example.vms.mapper.VisitLogMapper;
+import com.example.vms.model.VisitLog;
+import com.example.vms.repository.VisitLogRepository;
+import com.example.vms.repository.VisitLogSpecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read side of {@code visit_logs}: who entered, exited or went overdue, per
+ * visitor, per host, per action and per time window, newest first.
+ *
+ * Every listing is keyset-paginated on (timestamp DESC, id DESC), so deep
+ * pages cost the same as the first one, and a time window only touches the
+ * monthly partitions it overlaps (see {@link VisitLogPartitionService}).
+ */
+@Service
+public class VisitLogService {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final Set<String> ACTIONS = Set.of(VisitLog.ENTERED, VisitLog.EXITED, VisitLog.OVERDUE);
+
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+
+    private static final int MAX_SLICE = 200;
+
+    @Autowired
+    private VisitLogRepository visitLogRepository;
+
+    @Autowired
+    private VisitLogMapper visitLogMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // rows read per query while streaming; the persistence context is cleared after each
+    @Value("${app.visit-log.stream-chunk:1000}")
+    private int streamChunk;
+
+    // upper bound on rows in one streamed response; the trailer carries the cursor to resume
+    @Value("${app.visit-log.stream-max:1000000}")
+    private int streamMax;
+
+    // -------------------------------
+    // JSON SLICES
+    // -------------------------------
+    public CursorPage<VisitLogDTO> history(Long visitorId, String staffUsername, String action,
+                                           LocalDateTime from, LocalDateTime to,
+                                           String cursor, int size) {
+
+        Specification<VisitLog> filter = filter(visitorId, staffUsername, action, from, to);
+        int limit = Math.max(1, Math.min(size, MAX_SLICE));
+
+        // one extra row tells whether another slice follows
+        List<VisitLog> rows = slice(filter, VisitLogCursor.decode(cursor), limit + 1);
+
+        boolean hasNext = rows.size() > limit;
+        List<VisitLog> content = hasNext ? rows.subList(0, limit) : rows;
+
+        return new CursorPage<>(
+                visitLogMapper.toDtoList(content),
+                hasNext ? cursorOf(content.get(content.size() - 1)).encode() : null,
+                hasNext
+        );
+    }
+
+    // -------------------------------
+    // NDJSON STREAM
+    // -------------------------------
+
+    /**
+     * Streams the matching history as NDJSON, one log row per line, reading
+     * it in keyset chunks so heap use does not depend on the window size.
+     * When {@code limit} rows were written and more remain, the last line is
+     * {@code {"nextCursor":"..."}}; pass it back as {@code ?cursor=} to resume.
+     */
+    public void streamHistory(Long visitorId, String staffUsername, String action,
+                              LocalDateTime from, LocalDateTime to,
+                              String cursor, int limit,
+                              HttpServletResponse response) throws IOException {
+
+        Specification<VisitLog> filter = filter(visitorId, staffUsername, action, from, to);
+        VisitLogCursor after = VisitLogCursor.decode(cursor);
+        int remaining = Math.max(1, Math.min(limit, streamMax));
+
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+
+        while (remaining > 0) {
+            int chunk = Math.min(streamChunk, remaining);
+            List<VisitLog> rows = slice(filter, after, chunk + 1);
+
+            int n = Math.min(chunk, rows.size());
+            for (int i = 0; i < n; i++) {
+                writeLine(out, visitLogMapper.toDto(rows.get(i)));
+            }
+            if (n > 0) {
+                after = cursorOf(rows.get(n - 1));
+            }
+            boolean more = rows.size() > chunk;
+
+            // the rows are on the wire; don't let them pile up in an open-in-view session
+            entityManager.clear();
+            out.flush();
+
+            if (!more) {
+                return;
+            }
+            remaining -= n;
+        }
+
+        writeLine(out, Map.of("nextCursor", after.encode()));
+        out.flush();
+    }
+
+    // -------------------------------
+    // HELPERS
+    // -------------------------------
+    private Specification<VisitLog> filter(Long visitorId, String staffUsername, String action,
+                                           LocalDateTime from, LocalDateTime to) {
+        if (action != null && !action.isBlank() && !ACTIONS.contains(action.trim())) {
+            throw new RuntimeException("Unknown action: " + action);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new RuntimeException("'from' must not be after 'to'");
+        }
+        return VisitLogSpecs.history(visitorId, staffUsername, action, from, to);
+    }
+
+    private List<VisitLog> slice(Specification<VisitLog> filter, VisitLogCursor after, int limit) {
+        Specification<VisitLog> spec = after == null
+                ? filter
+                : filter.and(VisitLogSpecs.before(after.timestamp(), after.id()));
+        return visitLogRepository.findBy(spec, q -> q.sortBy(KEYSET_ORDER).limit(limit).all());
+    }
+
+    private static VisitLogCursor cursorOf(VisitLog log) {
+        return new VisitLogCursor(log.getTimestamp(), log.getId());
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+}
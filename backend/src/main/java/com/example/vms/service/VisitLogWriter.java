@@ -0,0 +1,255 @@
+package com.example.vms.service;
+
+import com.example.vms.model.VisitLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes ENTERED / EXITED rows to {@code visit_logs} with JDBC batch inserts
+ * (one multi-row INSERT with {@code rewriteBatchedStatements}) instead of one
+ * {@code save()} per row.
+ *
+ * <ul>
+ *   <li>Durable (default, {@code app.visit-log.durable=true}): rows recorded
+ *   inside a transaction are collected and inserted as one batch just before
+ *   it commits, on the same connection, so they commit or roll back with the
+ *   visitor change.</li>
+ *   <li>Buffered ({@code app.visit-log.durable=false}): rows are queued after
+ *   the transaction commits and flushed by a background writer every
+ *   {@code flush-interval-ms} or {@code batch-size} rows, whichever comes
+ *   first. Requests no longer wait for the insert, but a crash loses what
+ *   was still queued, and a full queue drops rows.</li>
+ * </ul>
+ *
+ * OVERDUE rows are written set-based by {@link OverdueService} in its own
+ * marking transaction and do not go through here.
+ */
+@Component
+public class VisitLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitLogWriter.class);
+
+    private static final String INSERT = """
+            INSERT INTO visit_logs (visitor_id, staff_username, action, timestamp)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.visit-log.durable:true}")
+    private boolean durable;
+
+    @Value("${app.visit-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.visit-log.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${app.visit-log.max-pending:100000}")
+    private int maxPending;
+
+    // buffered mode only
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition full = lock.newCondition();
+    private List<VisitLog> pending = new ArrayList<>();
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!durable) {
+            running = true;
+            writer = Thread.ofPlatform().name("visit-log-writer").daemon().start(this::run);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            signal();
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public void record(long visitorId, String staffUsername, String action, LocalDateTime at) {
+        recordAll(List.of(VisitLog.builder()
+                .visitorId(visitorId)
+                .staffUsername(staffUsername)
+                .action(action)
+                .timestamp(at)
+                .build()));
+    }
+
+    public void recordAll(List<VisitLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (durable) {
+                insert(logs);
+            } else {
+                enqueue(logs);
+            }
+            return;
+        }
+        if (durable) {
+            joinTransaction().addAll(logs);
+        } else {
+            // never queue rows of a transaction that might still roll back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(logs);
+                }
+            });
+        }
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // -------------------------------
+    // DURABLE: one batch per transaction
+    // -------------------------------
+    @SuppressWarnings("unchecked")
+    private List<VisitLog> joinTransaction() {
+        List<VisitLog> batch = (List<VisitLog>) TransactionSynchronizationManager.getResource(this);
+        if (batch != null) {
+            return batch;
+        }
+        List<VisitLog> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // a REQUIRES_NEW inner transaction starts its own batch
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(VisitLogWriter.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(VisitLogWriter.this, created);
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                insert(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(VisitLogWriter.this);
+            }
+        });
+        return created;
+    }
+
+    // -------------------------------
+    // BUFFERED: background flush
+    // -------------------------------
+    private void enqueue(List<VisitLog> logs) {
+        lock.lock();
+        try {
+            if (pending.size() + logs.size() > maxPending) {
+                dropped.addAndGet(logs.size());
+                return;
+            }
+            pending.addAll(logs);
+            if (pending.size() >= batchSize) {
+                full.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            List<VisitLog> batch = take();
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+        flush(take()); // whatever was queued at shutdown
+    }
+
+    // waits up to the flush interval for a full batch, then takes everything queued
+    private List<VisitLog> take() {
+        lock.lock();
+        try {
+            if (running && pending.size() < batchSize) {
+                full.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+            }
+            List<VisitLog> batch = pending;
+            pending = new ArrayList<>();
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return List.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush(List<VisitLog> batch) {
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            List<VisitLog> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+            try {
+                insert(chunk);
+            } catch (RuntimeException e) {
+                dropped.addAndGet(chunk.size());
+                logger.warn("Could not write {} visit logs: {}", chunk.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            full.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void insert(List<VisitLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, logs, batchSize, (ps, log) -> {
+            ps.setObject(1, log.getVisitorId());
+            ps.setString(2, log.getStaffUsername());
+            ps.setString(3, log.getAction());
+            ps.setTimestamp(4, log.getTimestamp() != null ? Timestamp.valueOf(log.getTimestamp()) : null);
+        });
+        written.addAndGet(logs.size());
+    }
+}
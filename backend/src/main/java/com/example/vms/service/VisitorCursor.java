@@ -0,0 +1,45 @@
+package com.example.vms.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by (entryTime DESC, id DESC): the last row
+ * the client has seen. Sent to clients as an opaque base64url string.
+ *
+ * The id tie-breaker makes the order total, so rows inserted while a client
+ * is paging can never shift already-seen rows into the next slice.
+ */
+public record VisitorCursor(LocalDateTime entryTime, long id) {
+
+    public String encode() {
+        String raw = entryTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Null or blank means "first slice".
+     */
+    public static VisitorCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = raw.lastIndexOf('|');
+            return new VisitorCursor(
+                    LocalDateTime.parse(raw.substring(0, bar)),
+                    Long.parseLong(raw.substring(bar + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    // true if (entryTime, id) comes after this cursor in DESC order
+    public boolean isBefore(LocalDateTime otherTime, long otherId) {
+        int c = otherTime.compareTo(entryTime);
+        return c < 0 || (c == 0 && otherId < id);
+    }
+}
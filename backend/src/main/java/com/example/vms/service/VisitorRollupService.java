@@ -0,0 +1,251 @@
+package com.example.vms.service;
+
+import com.example.vms.cache.ActiveVisitor;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.event.VisitorsOverdueEvent;
+import com.example.vms.model.VisitorDailyRollup;
+import com.example.vms.model.VisitorHourlyRollup;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorDailyRollupRepository;
+import com.example.vms.repository.VisitorHourlyRollupRepository;
+import com.example.vms.repository.VisitorRepository;
+import com.example.vms.repository.VisitorSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Hourly and daily visitor counters for the admin dashboard.
+ *
+ * Rows are keyed by the visitors' entry time and updated in the same
+ * transaction as the status change that caused them (BEFORE_COMMIT
+ * listeners), so they never drift from {@code visitors} on their own. The
+ * dashboard reads whole days from the daily table, the edge days hour by hour
+ * (including the live current hour) and only the leading partial hour from
+ * {@code visitors}. {@link #backfill} rebuilds history from scratch.
+ */
+@Service
+public class VisitorRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitorRollupService.class);
+
+    private static final String BACKFILL_LEASE = "rollup-backfill";
+
+    public record Window(
+            long total,
+            long active,
+            long exited,
+            long overdue,
+            SortedMap<LocalDate, Long> perDay,
+            SortedMap<Integer, Long> perHour
+    ) {
+    }
+
+    @Autowired
+    private VisitorHourlyRollupRepository hourlyRepository;
+
+    @Autowired
+    private VisitorDailyRollupRepository dailyRepository;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // -------------------------------
+    // INCREMENTAL UPDATES
+    // -------------------------------
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCheckedIn(VisitorCheckedInEvent event) {
+        add(event.visitors().stream().map(ActiveVisitor::id).toList(), 1, 1, 0, 0);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onExited(VisitorExitedEvent event) {
+        if (event.previousStatus() == VisitorStatus.OVERDUE) {
+            add(List.of(event.visitorId()), 0, 0, 1, -1);
+        } else {
+            add(List.of(event.visitorId()), 0, -1, 1, 0);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onOverdue(VisitorsOverdueEvent event) {
+        add(event.visitorIds(), 0, -1, 0, 1);
+    }
+
+    private void add(List<Long> ids, int total, int active, int exited, int overdue) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        hourlyRepository.addForVisitors(ids, total, active, exited, overdue);
+        dailyRepository.addForVisitors(ids, total, active, exited, overdue);
+    }
+
+    // -------------------------------
+    // READ
+    // -------------------------------
+
+    /**
+     * Counters for visitors who entered between {@code from} and now.
+     */
+    public Window readSince(LocalDateTime from) {
+
+        LocalDateTime now = LocalDateTime.now();
+        // the bucket holding "now" is live, so reading it whole is exact
+        LocalDateTime end = now.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime firstHour = ceil(from, ChronoUnit.HOURS);
+
+        Accumulator acc = new Accumulator();
+
+        // 1. leading partial hour: raw rows, at most one hour of them
+        if (from.isBefore(firstHour)) {
+            acc.addRaw(from, visitorRepository.summarize(from, firstHour));
+        }
+        if (!firstHour.isBefore(end)) {
+            return acc.window();
+        }
+
+        // 2. whole days from the daily table, the partial days around them hour by hour
+        LocalDateTime firstDay = ceil(firstHour, ChronoUnit.DAYS);
+        LocalDateTime lastDay = now.truncatedTo(ChronoUnit.DAYS);
+
+        if (firstDay.isAfter(lastDay)) {
+            hourlyRepository.findRange(firstHour, end).forEach(acc::addHour);
+        } else {
+            hourlyRepository.findRange(firstHour, firstDay).forEach(acc::addHour);
+            dailyRepository.findRange(firstDay.toLocalDate(), lastDay.toLocalDate()).forEach(acc::addDay);
+            hourlyRepository.findRange(lastDay, end).forEach(acc::addHour);
+        }
+
+        // 3. hour-of-day profile over the whole range
+        for (Object[] row : hourlyRepository.sumByHourOfDay(firstHour, end)) {
+            acc.perHour.merge((Integer) row[0], (Long) row[1], Long::sum);
+        }
+        return acc.window();
+    }
+
+    // -------------------------------
+    // BACKFILL
+    // -------------------------------
+
+    /**
+     * Recomputes the rollups of every day in [from, to] from {@code visitors},
+     * one transaction per day. Returns the number of days rebuilt.
+     *
+     * Days up to the newest archived visit are skipped: part of their
+     * visitors now live in {@code visitors_archive} (see
+     * {@link RetentionService}), and their counters are already final.
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        return backfill(from, to, () -> { });
+    }
+
+    // first start against an existing database: build history once, on one node
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (hourlyRepository.count() > 0) {
+            return;
+        }
+        LocalDateTime first = visitorRepository.findFirstEntryTime();
+        if (first == null) {
+            return;
+        }
+        Optional<LeaseService.Lease> lease = leaseService.tryAcquire(BACKFILL_LEASE);
+        if (lease.isEmpty()) {
+            return;
+        }
+        try {
+            int days = backfill(first.toLocalDate(), LocalDate.now(), () -> leaseService.fence(lease.get()));
+            logger.info("Visitor rollups backfilled for {} days", days);
+        } finally {
+            leaseService.release(lease.get(), Duration.ZERO);
+        }
+    }
+
+    private int backfill(LocalDate from, LocalDate to, Runnable fence) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("'from' must not be after 'to'");
+        }
+        LocalDateTime archived = visitorRepository.findLastArchivedEntryTime();
+        if (archived != null && !from.isAfter(archived.toLocalDate())) {
+            from = archived.toLocalDate().plusDays(1);
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int days = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDateTime start = day.atStartOfDay();
+            LocalDateTime next = start.plusDays(1);
+            LocalDate d = day;
+            tx.executeWithoutResult(status -> {
+                fence.run();
+                hourlyRepository.deleteRange(start, next);
+                hourlyRepository.rebuildRange(start, next);
+                dailyRepository.deleteRange(d, d.plusDays(1));
+                dailyRepository.rebuildFromHourly(start, next);
+            });
+            days++;
+        }
+        return days;
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+
+    private static class Accumulator {
+        long total, active, exited, overdue;
+        final SortedMap<LocalDate, Long> perDay = new TreeMap<>();
+        final SortedMap<Integer, Long> perHour = new TreeMap<>();
+
+        void addRaw(LocalDateTime at, VisitorSummary s) {
+            add(s.total(), s.active(), s.exited(), s.overdue());
+            perDay.merge(at.toLocalDate(), s.total(), Long::sum);
+            perHour.merge(at.getHour(), s.total(), Long::sum);
+        }
+
+        void addHour(VisitorHourlyRollup h) {
+            add(h.getTotal(), h.getActive(), h.getExited(), h.getOverdue());
+            perDay.merge(h.getBucketStart().toLocalDate(), h.getTotal(), Long::sum);
+        }
+
+        void addDay(VisitorDailyRollup d) {
+            add(d.getTotal(), d.getActive(), d.getExited(), d.getOverdue());
+            perDay.merge(d.getBucketDate(), d.getTotal(), Long::sum);
+        }
+
+        private void add(long t, long a, long e, long o) {
+            total += t;
+            active += a;
+            exited += e;
+            overdue += o;
+        }
+
+        Window window() {
+            perDay.values().removeIf(c -> c == 0);
+            return new Window(total, active, exited, overdue, perDay, perHour);
+        }
+    }
+}
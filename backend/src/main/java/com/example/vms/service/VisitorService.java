@@ -1,31 +1,56 @@
 package com.example.vms.service;
 
+import com.example.vms.cache.ActiveVisitor;
+import com.example.vms.cache.ActiveVisitorRegistry;
+import com.example.vms.cache.QrImageCache;
+import com.example.vms.cache.StaffDirectory;
+import com.example.vms.cache.StaffEntry;
+import com.example.vms.dto.CursorPage;
 import com.example.vms.dto.VisitorRequestDTO;
 import com.example.vms.dto.VisitorResponseDTO;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.export.ExportFormat;
+import com.example.vms.export.VisitorExporter;
 import com.example.vms.mapper.VisitorMapper;
 import com.example.vms.model.*;
 import com.example.vms.repository.StaffRepository;
-import com.example.vms.repository.VisitLogRepository;
 import com.example.vms.repository.VisitorRepository;
+import com.example.vms.repository.VisitorSpecs;
+import com.example.vms.repository.VisitorSummary;
 import com.example.vms.repository.UserRepository;
+import com.example.vms.search.SearchHits;
+import com.example.vms.search.SearchOrder;
+import com.example.vms.search.VisitorSearchIndex;
+import com.example.vms.search.VisitorSearchQuery;
+import com.example.vms.security.QrTokenService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import jakarta.servlet.http.HttpServletResponse;
 
 @Service
@@ -35,16 +60,25 @@ public class VisitorService {
     private VisitorRepository visitorRepository;
 
     @Autowired
-    private VisitLogRepository visitLogRepository;
+    private VisitLogWriter visitLogWriter;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CheckinOutboxService checkinOutboxService;
+
+    @Autowired
+    private QrTokenService qrTokenService;
+
     @Autowired
     private QrService qrService;
 
     @Autowired
-    private EmailService emailService;
+    private ActiveVisitorRegistry activeVisitorRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     private VisitorMapper visitorMapper;
@@ -52,6 +86,18 @@ public class VisitorService {
     @Autowired
     private StaffRepository staffRepository;
 
+    @Autowired
+    private StaffDirectory staffDirectory;
+
+    @Autowired
+    private VisitorExporter visitorExporter;
+
+    @Autowired
+    private VisitorSearchIndex visitorSearchIndex;
+
+    @Value("${app.checkin.max-group-size:1000}")
+    private int maxGroupSize;
+
     // -------------------------------
     // CREATE / ADD VISITOR
     // -------------------------------
@@ -64,29 +110,104 @@ public class VisitorService {
 
         Visitor visitor = visitorMapper.toEntity(dto);
 
-        // Load staff
-        Staff staff = staffRepository.findById(dto.getStaffId())
-                .orElseThrow(() -> new RuntimeException("Staff not found"));
-        visitor.setStaff(staff);
+        // Resolve the host: from the directory a proxy is enough for the foreign key
+        String staffUsername;
+        StaffEntry host = staffDirectory.get(dto.getStaffId());
+        if (host != null) {
+            visitor.setStaff(staffRepository.getReferenceById(host.id()));
+            staffUsername = host.username();
+        } else {
+            Staff staff = staffRepository.findById(dto.getStaffId())
+                    .orElseThrow(() -> new RuntimeException("Staff not found"));
+            visitor.setStaff(staff);
+            staffUsername = staff.getUser().getUsername();
+        }
 
         visitor.setEntryTime(LocalDateTime.now());
         visitor.setStatus(VisitorStatus.ACTIVE);
+        visitor.setDeliveryStatus(DeliveryStatus.PENDING);
 
         Visitor saved = visitorRepository.save(visitor);
 
-        // Generate QR
-        String qrPath = qrService.generateQrForVisitor(saved);
-        saved.setQrPath(qrPath);
-        visitorRepository.save(saved);
+        // QR + email are rendered/sent by the outbox workers after commit
+        checkinOutboxService.enqueue(List.of(saved));
 
-        // Email QR
-        emailService.sendVisitorQr(
-                saved.getEmail(),
-                saved.getName(),
-                saved.getQrPath()
-        );
+        visitLogWriter.record(saved.getId(), staffUsername, VisitLog.ENTERED, saved.getEntryTime());
+
+        ActiveVisitor checkedIn = ActiveVisitor.of(saved, staffUsername);
+        eventPublisher.publishEvent(new VisitorCheckedInEvent(List.of(checkedIn)));
+
+        return visitorMapper.fromActive(checkedIn);
+    }
+
+    // -------------------------------
+    // GROUP CHECK-IN (delegations)
+    // -------------------------------
+    @Transactional
+    public List<VisitorResponseDTO> addVisitors(List<VisitorRequestDTO> dtos) {
+
+        if (dtos == null || dtos.isEmpty()) {
+            throw new RuntimeException("At least one visitor is required");
+        }
+        if (dtos.size() > maxGroupSize) {
+            throw new RuntimeException("A group check-in is limited to " + maxGroupSize + " visitors");
+        }
+
+        for (int i = 0; i < dtos.size(); i++) {
+            VisitorRequestDTO dto = dtos.get(i);
+            if (dto.getEmail() == null || !dto.getEmail().contains("@")) {
+                throw new RuntimeException("Valid email is required (visitor #" + (i + 1) + ")");
+            }
+            if (dto.getStaffId() == null) {
+                throw new RuntimeException("Staff is required (visitor #" + (i + 1) + ")");
+            }
+        }
+
+        // Load every host in one query
+        Set<Long> staffIds = dtos.stream()
+                .map(VisitorRequestDTO::getStaffId)
+                .collect(Collectors.toSet());
+
+        Map<Long, Staff> staffById = staffRepository.findAllWithUserByIdIn(staffIds).stream()
+                .collect(Collectors.toMap(Staff::getId, Function.identity()));
+
+        for (Long staffId : staffIds) {
+            if (!staffById.containsKey(staffId)) {
+                throw new RuntimeException("Staff not found: " + staffId);
+            }
+        }
+
+        LocalDateTime entryTime = LocalDateTime.now();
+
+        List<Visitor> visitors = new ArrayList<>(dtos.size());
+        for (VisitorRequestDTO dto : dtos) {
+            Visitor visitor = visitorMapper.toEntity(dto);
+            visitor.setStaff(staffById.get(dto.getStaffId()));
+            visitor.setEntryTime(entryTime);
+            visitor.setStatus(VisitorStatus.ACTIVE);
+            visitor.setDeliveryStatus(DeliveryStatus.PENDING);
+            visitors.add(visitor);
+        }
+
+        // pooled ids + hibernate.jdbc.batch_size => batched multi-row inserts
+        List<Visitor> saved = visitorRepository.saveAll(visitors);
+
+        checkinOutboxService.enqueue(saved);
 
-        return visitorMapper.toResponse(saved);
+        List<ActiveVisitor> checkedIn = saved.stream().map(ActiveVisitor::of).toList();
+
+        visitLogWriter.recordAll(checkedIn.stream()
+                .map(v -> VisitLog.builder()
+                        .visitorId(v.id())
+                        .staffUsername(v.staffUsername())
+                        .action(VisitLog.ENTERED)
+                        .timestamp(v.entryTime())
+                        .build())
+                .toList());
+
+        eventPublisher.publishEvent(new VisitorCheckedInEvent(checkedIn));
+
+        return visitorMapper.toResponseList(saved);
     }
 
     public Page<VisitorResponseDTO> getAllVisitors(int page, int size) {
@@ -102,26 +223,54 @@ public class VisitorService {
     @Transactional
     public VisitorResponseDTO exitVisitor(Long visitorId) {
 
-        Visitor visitor = visitorRepository.findById(visitorId)
-                .orElseThrow(() -> new RuntimeException("Visitor not found"));
+        LocalDateTime exitTime = LocalDateTime.now();
+        VisitorResponseDTO response;
+        String staffUsername;
+        VisitorStatus previousStatus;
+
+        ActiveVisitor onSite = activeVisitorRegistry.get(visitorId);
+
+        if (onSite != null) {
+            // hot path: registry snapshot + conditional UPDATEs, no SELECT. The row may have
+            // turned OVERDUE on another node, so the status that matched is the one it left
+            if (onSite.status() == VisitorStatus.EXITED) {
+                throw new RuntimeException("Visitor already exited");
+            }
+            if (visitorRepository.markExited(visitorId, VisitorStatus.ACTIVE, exitTime) == 1) {
+                previousStatus = VisitorStatus.ACTIVE;
+            } else if (visitorRepository.markExited(visitorId, VisitorStatus.OVERDUE, exitTime) == 1) {
+                previousStatus = VisitorStatus.OVERDUE;
+            } else {
+                throw new RuntimeException("Visitor already exited");
+            }
+            response = visitorMapper.fromActive(onSite);
+            response.setExitTime(exitTime);
+            response.setStatus(VisitorStatus.EXITED.name());
+            staffUsername = onSite.staffUsername();
 
-        if (!visitor.getStatus().equals(VisitorStatus.ACTIVE)) {
-            throw new RuntimeException("Visitor already exited");
+        } else {
+            Visitor visitor = visitorRepository.findById(visitorId)
+                    .orElseThrow(() -> new RuntimeException("Visitor not found"));
+
+            // overdue visitors leave too; the sweep only flags them
+            previousStatus = visitor.getStatus();
+            if (previousStatus != VisitorStatus.ACTIVE && previousStatus != VisitorStatus.OVERDUE) {
+                throw new RuntimeException("Visitor already exited");
+            }
+
+            visitor.setExitTime(exitTime);
+            visitor.setStatus(VisitorStatus.EXITED);
+            visitorRepository.save(visitor);
+
+            response = visitorMapper.toResponse(visitor);
+            staffUsername = response.getStaffUsername();
         }
 
-        visitor.setExitTime(LocalDateTime.now());
-        visitor.setStatus(VisitorStatus.EXITED);
-        visitorRepository.save(visitor);
+        visitLogWriter.record(visitorId, staffUsername, VisitLog.EXITED, exitTime);
 
-        visitLogRepository.save(
-                VisitLog.builder()
-                        .visitorId(visitorId)
-                        .action("EXITED")
-                        .timestamp(LocalDateTime.now())
-                        .build()
-        );
+        eventPublisher.publishEvent(new VisitorExitedEvent(visitorId, exitTime, previousStatus));
 
-        return visitorMapper.toResponse(visitor);
+        return response;
     }
 
 
@@ -130,22 +279,21 @@ public class VisitorService {
     // --------------------------------------
     public VisitorResponseDTO scanVisitor(String data, Authentication auth) {
 
-        if (!data.startsWith("VMS_VISITOR:")) {
-            throw new RuntimeException("Invalid QR format");
-        }
+        // signature + validity window are checked in memory, before any DB access;
+        // only an expired but genuine pass costs a look-up (still on site -> can exit)
+        long visitorId = qrTokenService.resolveVisitorId(data, this::isOnSite);
 
-        Long visitorId;
-        try {
-            visitorId = Long.parseLong(data.split(":")[1]);
-        } catch (Exception e) {
-            throw new RuntimeException("Invalid QR data");
-        }
-
-        Visitor visitor = visitorRepository.findById(visitorId)
-                .orElseThrow(() -> new RuntimeException("Visitor not found"));
+        // on-site visitors are served from memory; exited ones from the DB
+        ActiveVisitor onSite = activeVisitorRegistry.get(visitorId);
 
-        // Convert to DTO
-        VisitorResponseDTO dto = visitorMapper.toResponse(visitor);
+        VisitorResponseDTO dto;
+        if (onSite != null) {
+            dto = visitorMapper.fromActive(onSite);
+        } else {
+            Visitor visitor = visitorRepository.findById(visitorId)
+                    .orElseThrow(() -> new RuntimeException("Visitor not found"));
+            dto = visitorMapper.toResponse(visitor);
+        }
 
         // Check logged-in role
         boolean isSecurity = auth.getAuthorities().stream()
@@ -158,12 +306,52 @@ public class VisitorService {
     }
 
 
+    /**
+     * The pass image for a visitor. The QR is the gate credential, so staff
+     * only get passes for visitors they host; security and admin get any.
+     * On-site visitors are served from the registry without a DB read.
+     */
+    public QrImageCache.QrImage getQr(Long visitorId, Authentication auth) {
+        boolean anyVisitor = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_SECURITY") || a.getAuthority().equals("ROLE_ADMIN"));
+
+        ActiveVisitor onSite = activeVisitorRegistry.get(visitorId);
+        if (onSite != null) {
+            checkHost(anyVisitor, onSite.staffUsername(), auth);
+            return qrService.render(onSite.id(), onSite.staffId(), onSite.entryTime());
+        }
+        Visitor visitor = visitorRepository.findById(visitorId)
+                .orElseThrow(() -> new RuntimeException("Visitor not found"));
+        checkHost(anyVisitor, visitor.getStaff().getUser().getUsername(), auth);
+        return qrService.render(visitor);
+    }
+
+    // same message as a missing visitor, so ids of other hosts' visitors can't be probed
+    private static void checkHost(boolean anyVisitor, String hostUsername, Authentication auth) {
+        if (!anyVisitor && !auth.getName().equals(hostUsername)) {
+            throw new RuntimeException("Visitor not found");
+        }
+    }
+
+    // an expired pass still lets a visitor who never left be scanned out
+    private boolean isOnSite(long visitorId) {
+        if (activeVisitorRegistry.get(visitorId) != null) {
+            return true;
+        }
+        return visitorRepository.findById(visitorId)
+                .map(v -> v.getStatus() == VisitorStatus.ACTIVE || v.getStatus() == VisitorStatus.OVERDUE)
+                .orElse(false);
+    }
+
+
     // --------------------------------------
     // OTHER EXISTING METHODS
     // --------------------------------------
 
     public Page<VisitorResponseDTO> listActive(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("entryTime").descending());
+
+        // from the DB, not the registry: another node's check-ins and exits must show up at once
         Page<Visitor> visitors = visitorRepository.findByStatus(VisitorStatus.ACTIVE, pageable);
         return visitors.map(visitorMapper::toResponse);
     }
@@ -178,6 +366,14 @@ public class VisitorService {
 
     public Page<VisitorResponseDTO> search(String keyword, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("name").ascending());
+
+        if (visitorSearchIndex.isReady()) {
+            // ranked: exact and prefix matches first, then by name
+            SearchHits hits = visitorSearchIndex.search(
+                    VisitorSearchQuery.keyword(keyword), SearchOrder.RELEVANCE, (int) pageable.getOffset(), size);
+            return new PageImpl<>(hydrate(hits.ids()), pageable, hits.total());
+        }
+
         Page<Visitor> visitors = visitorRepository.searchAll(keyword, pageable);
         return visitors.map(visitorMapper::toResponse);
     }
@@ -249,123 +445,196 @@ public Page<VisitorResponseDTO> filterToday(int page, int size) {
 
 
 
-    public void exportVisitorsToExcel(LocalDateTime fromDate, LocalDateTime toDate,
-                                      String sort, HttpServletResponse response) throws IOException {
+    // --------------------------------------
+    // KEYSET (CURSOR) LISTINGS — no OFFSET, no COUNT
+    // --------------------------------------
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Order.desc("entryTime"), Sort.Order.desc("id"));
 
-        List<Visitor> visitors = visitorRepository.findByDateRange(fromDate, toDate);
+    private static final int MAX_SLICE = 200;
 
-        // 🔥 Apply sorting manually (same as CSV)
-        visitors.sort((v1, v2) -> {
-            if (sort.equalsIgnoreCase("name")) {
-                return v1.getName().compareToIgnoreCase(v2.getName());
-            } else {
-                return v2.getEntryTime().compareTo(v1.getEntryTime()); // latest first
-            }
-        });
-
-        // 🔥 Generate Excel sheet
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Visitors");
-
-        Row header = sheet.createRow(0);
-
-        header.createCell(0).setCellValue("Name");
-        header.createCell(1).setCellValue("Email");
-        header.createCell(2).setCellValue("Phone");
-        header.createCell(3).setCellValue("Entry Time");
-        header.createCell(4).setCellValue("Exit Time");
-        header.createCell(5).setCellValue("Status");
-        header.createCell(6).setCellValue("Staff Visited");
-
-        int rowCount = 1;
-        for (Visitor v : visitors) {
-            Row row = sheet.createRow(rowCount++);
-            row.createCell(0).setCellValue(v.getName());
-            row.createCell(1).setCellValue(v.getEmail());
-            row.createCell(2).setCellValue(v.getPhone());
-            row.createCell(3).setCellValue(String.valueOf(v.getEntryTime()));
-            row.createCell(4).setCellValue(v.getExitTime() != null ? String.valueOf(v.getExitTime()) : "Still Inside");
-            row.createCell(5).setCellValue(v.getStatus().name());
-            row.createCell(6).setCellValue(
-                    v.getStaff() != null && v.getStaff().getUser() != null
-                            ? v.getStaff().getUser().getUsername()
-                            : "N/A"
-            );
+    public CursorPage<VisitorResponseDTO> scrollAll(String cursor, int size) {
+        return scroll(VisitorSpecs.any(), cursor, size);
+    }
 
+    public CursorPage<VisitorResponseDTO> scrollActive(String cursor, int size) {
+        return scroll(VisitorSpecs.hasStatus(VisitorStatus.ACTIVE), cursor, size);
+    }
+
+    public CursorPage<VisitorResponseDTO> scrollSearch(String keyword, String cursor, int size) {
+        if (visitorSearchIndex.isReady()) {
+            return scrollIndex(VisitorSearchQuery.keyword(keyword), cursor, size);
         }
+        return scroll(VisitorSpecs.matchesKeyword(keyword), cursor, size);
+    }
 
-        String filename = "visitors_export.xlsx";
+    public CursorPage<VisitorResponseDTO> scrollToday(String cursor, int size) {
+        LocalDateTime start = LocalDateTime.now().toLocalDate().atStartOfDay();
+        return scroll(VisitorSpecs.enteredBetween(start, null), cursor, size);
+    }
 
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        response.setHeader("Content-Disposition", "attachment; filename=" + filename);
+    public CursorPage<VisitorResponseDTO> scrollByDateRange(LocalDateTime from, LocalDateTime to,
+                                                            String cursor, int size) {
+        return scroll(VisitorSpecs.enteredBetween(from, to), cursor, size);
+    }
+
+    public CursorPage<VisitorResponseDTO> scrollByStatus(VisitorStatus status, String cursor, int size) {
+        return scroll(VisitorSpecs.hasStatus(status), cursor, size);
+    }
+
+    // today's visitors of one host, like filterByStaff
+    public CursorPage<VisitorResponseDTO> scrollByStaff(String username, VisitorStatus status,
+                                                        String cursor, int size) {
+        LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
+        return scroll(
+                VisitorSpecs.staffUsernameIs(username)
+                        .and(VisitorSpecs.enteredBetween(startOfDay, null))
+                        .and(VisitorSpecs.hasStatus(status)),
+                cursor,
+                size
+        );
+    }
 
-        workbook.write(response.getOutputStream());
-        workbook.close();
+    public CursorPage<VisitorResponseDTO> scrollAdvancedSearch(
+            String name,
+            String email,
+            String phone,
+            String staff,
+            VisitorStatus status,
+            LocalDateTime fromDate,
+            LocalDateTime toDate,
+            String cursor,
+            int size
+    ) {
+        VisitorSearchQuery query = VisitorSearchQuery.fields(name, email, phone, staff, status, fromDate, toDate);
+        if (visitorSearchIndex.isReady() && query.hasText()) {
+            return scrollIndex(query, cursor, size);
+        }
+        return scroll(
+                VisitorSpecs.advancedSearch(name, email, phone, staff, status, fromDate, toDate),
+                cursor,
+                size
+        );
     }
 
+    // fetches one extra row to learn whether another slice follows
+    private CursorPage<VisitorResponseDTO> scroll(Specification<Visitor> filter, String cursor, int size) {
 
-    public void exportVisitorsToCSV(LocalDateTime fromDate, LocalDateTime toDate,
-                                    String sort, HttpServletResponse response) throws IOException {
+        VisitorCursor after = VisitorCursor.decode(cursor);
+        Specification<Visitor> spec = after == null
+                ? filter
+                : filter.and(VisitorSpecs.before(after.entryTime(), after.id()));
 
-        Sort sorting;
-        if (sort.equalsIgnoreCase("name")) {
-            sorting = Sort.by("name").ascending();
-        } else {
-            sorting = Sort.by("entryTime").descending();
+        int limit = sliceSize(size);
+        // host and login joined, as in the paged queries, through the join a host filter uses
+        List<Visitor> rows = visitorRepository.findBy(spec.and(VisitorSpecs.withHost()), q -> q.sortBy(KEYSET_ORDER)
+                .limit(limit + 1)
+                .all());
+
+        boolean hasNext = rows.size() > limit;
+        List<Visitor> content = hasNext ? rows.subList(0, limit) : rows;
+        Visitor last = content.isEmpty() ? null : content.get(content.size() - 1);
+
+        return new CursorPage<>(
+                visitorMapper.toResponseList(content),
+                hasNext ? new VisitorCursor(last.getEntryTime(), last.getId()).encode() : null,
+                hasNext
+        );
+    }
+
+    // same slices as scroll(), with the ids coming from the search index
+    private CursorPage<VisitorResponseDTO> scrollIndex(VisitorSearchQuery query, String cursor, int size) {
+
+        VisitorCursor after = VisitorCursor.decode(cursor);
+        int limit = sliceSize(size);
+        List<Long> ids = visitorSearchIndex.scroll(
+                query, after == null ? null : after.entryTime(), after == null ? 0 : after.id(), limit + 1);
+
+        boolean hasNext = ids.size() > limit;
+        List<VisitorResponseDTO> content = hydrate(hasNext ? ids.subList(0, limit) : ids);
+        VisitorResponseDTO last = content.isEmpty() ? null : content.get(content.size() - 1);
+
+        return new CursorPage<>(
+                content,
+                hasNext && last != null ? new VisitorCursor(last.getEntryTime(), last.getId()).encode() : null,
+                hasNext && last != null
+        );
+    }
+
+    // the index decides order and paging; the DB only loads the rows of this page
+    private List<VisitorResponseDTO> hydrate(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        Map<Long, Visitor> byId = visitorRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Visitor::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(visitorMapper::toResponse)
+                .toList();
+    }
+
+    private static int sliceSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SLICE));
+    }
 
-        // Fetch visitors by date range
-        List<Visitor> visitors = visitorRepository.findByDateRange(fromDate, toDate);
 
-        // Apply sorting manually
-        visitors.sort((v1, v2) -> {
-            if (sort.equalsIgnoreCase("name")) {
-                return v1.getName().compareToIgnoreCase(v2.getName());
-            } else {
-                return v2.getEntryTime().compareTo(v1.getEntryTime()); // latest first
-            }
-        });
+    // streams rows from the DB straight into SXSSF, so heap use does not depend on the range size
+    public void exportVisitorsToExcel(LocalDateTime fromDate, LocalDateTime toDate,
+                                      String sort, HttpServletResponse response) throws IOException {
+
+        String filename = "visitors_export.xlsx";
+
+        response.setContentType(ExportFormat.EXCEL.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=" + filename);
+
+        visitorExporter.export(ExportFormat.EXCEL, fromDate, toDate, sort, response.getOutputStream(), n -> { });
+    }
+
+    /**
+     * Streams the CSV export. {@code gzipFile} sends a .csv.gz download;
+     * otherwise {@code acceptsGzip} compresses on the fly with Content-Encoding.
+     */
+    public void exportVisitorsToCSV(LocalDateTime fromDate, LocalDateTime toDate, String sort,
+                                    boolean gzipFile, boolean acceptsGzip,
+                                    HttpServletResponse response) throws IOException {
 
         // CSV Response Headers
-        response.setContentType("text/csv");
-        response.setHeader("Content-Disposition", "attachment; filename=visitors_report.csv");
-
-        // CSV Writing
-        String header = "Visitor Name,Phone,Email,Staff Name,Entry Time,Exit Time,Status\n";
-        response.getWriter().write(header);
-
-        for (Visitor v : visitors) {
-            response.getWriter().write(
-                    String.format(
-                            "%s,%s,%s,%s,%s,%s,%s\n",
-                            v.getName(),
-                            v.getPhone(),
-                            v.getEmail(),
-                            (v.getStaff() != null && v.getStaff().getUser() != null
-                                    ? v.getStaff().getUser().getUsername()
-                                    : "N/A"),
-                            v.getEntryTime(),
-                            v.getExitTime() != null ? v.getExitTime() : "",
-                            v.getStatus().name()
-                    )
-            );
+        response.setHeader("Vary", "Accept-Encoding");
+        if (gzipFile) {
+            response.setContentType("application/gzip");
+            response.setHeader("Content-Disposition", "attachment; filename=visitors_report.csv.gz");
+        } else {
+            response.setContentType(ExportFormat.CSV.getContentType());
+            response.setHeader("Content-Disposition", "attachment; filename=visitors_report.csv");
+            if (acceptsGzip) {
+                response.setHeader("Content-Encoding", "gzip");
+            }
         }
 
-        response.getWriter().flush();
+        OutputStream out = response.getOutputStream();
+        GZIPOutputStream gzip = null;
+        if (gzipFile || acceptsGzip) {
+            gzip = new GZIPOutputStream(out, 8192);
+            out = gzip;
+        }
+
+        visitorExporter.export(ExportFormat.CSV, fromDate, toDate, sort, out, n -> { });
+        if (gzip != null) {
+            gzip.finish();
+        }
     }
 
     public Map<String, Long> getTodayStats() {
         LocalDateTime start = LocalDateTime.now().toLocalDate().atStartOfDay();
-        LocalDateTime end = LocalDateTime.now();
 
-        long total = visitorRepository.countByDateRange(start, end);
-        long active = visitorRepository.countByStatusAndDateRange(VisitorStatus.ACTIVE, start, end);
-        long exited = visitorRepository.countByStatusAndDateRange(VisitorStatus.EXITED, start, end);
+        VisitorSummary summary = visitorRepository.summarize(start, start.plusDays(1));
 
         return Map.of(
-                "totalVisitorsToday", total,
-                "activeVisitors", active,
-                "exitedVisitors", exited
+                "totalVisitorsToday", summary.total(),
+                "activeVisitors", summary.active(),
+                "exitedVisitors", summary.exited(),
+                "overdueVisitors", summary.overdue()
         );
     }
 
@@ -382,26 +651,57 @@ public Page<VisitorResponseDTO> filterToday(int page, int size) {
             String sort
     ) {
 
+        Sort sorting = advancedSort(sort);
+
+        Pageable pageable = PageRequest.of(page, size, sorting);
+
+        VisitorSearchQuery query = VisitorSearchQuery.fields(name, email, phone, staff, status, fromDate, toDate);
+        SearchOrder order = SearchOrder.from(sorting);
+        if (visitorSearchIndex.isReady() && query.hasText() && order != null) {
+            SearchHits hits = visitorSearchIndex.search(query, order, (int) pageable.getOffset(), size);
+            return new PageImpl<>(hydrate(hits.ids()), pageable, hits.total());
+        }
+
+        // id breaks ties so rows don't shift between pages
+        Sort.Direction direction = sorting.iterator().next().getDirection();
+        Sort ordered = sorting.and(Sort.by(direction, "id"));
+
+        // host loaded, filtered and sorted through one join; the sort lives in the spec
+        Page<Visitor> rows = visitorRepository.findBy(
+                VisitorSpecs.advancedSearch(name, email, phone, staff, status, fromDate, toDate)
+                        .and(VisitorSpecs.withHost())
+                        .and(VisitorSpecs.orderedBy(ordered)),
+                q -> q.page(PageRequest.of(page, size))
+        );
+        return new PageImpl<>(visitorMapper.toResponseList(rows.getContent()), pageable, rows.getTotalElements());
+    }
+
+    // API sort name -> entity path; nothing else reaches Sort.by
+    private static final Map<String, String> ADVANCED_SORT_FIELDS = Map.of(
+            "entryTime", "entryTime",
+            "exitTime", "exitTime",
+            "name", "name",
+            "email", "email",
+            "status", "status",
+            "staff", "staff.user.username",
+            "staffUsername", "staff.user.username"
+    );
+
+    // "field" or "field,asc|desc"; descending unless asc is given
+    private static Sort advancedSort(String sort) {
+
         String[] sortParts = sort.split(",");
+        String path = ADVANCED_SORT_FIELDS.get(sortParts[0].trim());
+        if (path == null) {
+            throw new RuntimeException("Cannot sort by " + sortParts[0].trim());
+        }
+
         Sort.Direction direction =
-                sortParts.length > 1 && sortParts[1].equalsIgnoreCase("asc")
+                sortParts.length > 1 && sortParts[1].trim().equalsIgnoreCase("asc")
                         ? Sort.Direction.ASC
                         : Sort.Direction.DESC;
 
-        Sort sorting = Sort.by(direction, sortParts[0]);
-
-        Pageable pageable = PageRequest.of(page, size, sorting);
-
-        return visitorRepository.advancedSearch(
-                name,
-                email,
-                phone,
-                staff,
-                status,
-                fromDate,
-                toDate,
-                pageable
-        ).map(visitorMapper::toResponse);
+        return Sort.by(direction, path);
     }
 
     public Map<Integer, Long> getTodayHourlyStats() {
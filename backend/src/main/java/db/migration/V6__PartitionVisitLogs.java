@@ -0,0 +1,76 @@
+package db.migration;
+
+import com.example.vms.service.VisitLogPartitionService;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Repartitions {@code visit_logs} by month of {@code timestamp} on MySQL /
+ * MariaDB, so history queries over a time window prune to the months they
+ * touch and old months can be detached (see VisitLogPartitionService).
+ *
+ * The partition key must be part of every unique key, so the primary key
+ * becomes (id, timestamp) and timestamp becomes NOT NULL. This rebuilds the
+ * table once. Other databases (H2 in tests) keep the plain table.
+ */
+public class V6__PartitionVisitLogs extends BaseJavaMigration {
+
+    private static final int MONTHS_AHEAD = 3;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        if (!product.contains("mysql") && !product.contains("mariadb")) {
+            return;
+        }
+
+        try (Statement st = connection.createStatement()) {
+
+            // rows from before timestamps were always set: take the visit's own times
+            st.executeUpdate("""
+                    UPDATE visit_logs l
+                    JOIN visitors v ON v.id = l.visitor_id
+                    SET l.timestamp = COALESCE(CASE WHEN l.action = 'EXITED' THEN v.exit_time END, v.entry_time)
+                    WHERE l.timestamp IS NULL
+                    """);
+            st.executeUpdate("UPDATE visit_logs SET timestamp = '1970-01-01 00:00:00' WHERE timestamp IS NULL");
+
+            YearMonth first = YearMonth.now();
+            try (ResultSet rs = st.executeQuery("SELECT MIN(timestamp) FROM visit_logs")) {
+                if (rs.next()) {
+                    Timestamp min = rs.getTimestamp(1);
+                    if (min != null && min.toLocalDateTime().getYear() > 1970) {
+                        first = YearMonth.from(min.toLocalDateTime());
+                    }
+                }
+            }
+
+            List<String> partitions = new ArrayList<>();
+            YearMonth until = YearMonth.now().plusMonths(MONTHS_AHEAD);
+            for (YearMonth m = first; !m.isAfter(until); m = m.plusMonths(1)) {
+                partitions.add(VisitLogPartitionService.partitionClause(m));
+            }
+            partitions.add(VisitLogPartitionService.futureClause());
+
+            // the first month's partition also takes everything older
+            st.execute("""
+                    ALTER TABLE visit_logs
+                        MODIFY timestamp DATETIME(6) NOT NULL,
+                        DROP PRIMARY KEY,
+                        ADD PRIMARY KEY (id, timestamp)
+                    """);
+            st.execute("ALTER TABLE visit_logs PARTITION BY RANGE COLUMNS(timestamp) ("
+                    + String.join(", ", partitions) + ")");
+        }
+    }
+}
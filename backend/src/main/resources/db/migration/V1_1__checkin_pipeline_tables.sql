@@ -0,0 +1,80 @@
+-- Tables and columns added on top of the baseline release. Runs on new
+-- databases and on baselined ones alike, before the index scripts (V2+).
+
+-- check-in outbox: QR rendering and pass e-mail run after the visitor commits
+ALTER TABLE visitors ADD COLUMN delivery_status ENUM ('FAILED', 'PENDING', 'SENT');
+
+CREATE TABLE checkin_outbox (
+    id              BIGINT       NOT NULL,
+    visitor_id      BIGINT       NOT NULL,
+    status          ENUM ('DONE', 'FAILED', 'PENDING', 'PROCESSING') NOT NULL,
+    attempts        INTEGER      NOT NULL,
+    next_attempt_at DATETIME(6),
+    locked_at       DATETIME(6),
+    last_error      VARCHAR(500),
+    created_at      DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE checkin_outbox_seq (
+    next_val BIGINT
+);
+INSERT INTO checkin_outbox_seq VALUES (1);
+
+-- visitor ids come from a pooled sequence so group check-ins batch their
+-- inserts; JpaBatchConfig lifts next_val above the AUTO_INCREMENT ids at startup
+ALTER TABLE visitors MODIFY id BIGINT NOT NULL;
+
+CREATE TABLE visitors_seq (
+    next_val BIGINT
+);
+INSERT INTO visitors_seq VALUES (1);
+
+-- per-host stay limit for the overdue sweep (null = department/global default)
+ALTER TABLE staff ADD COLUMN allowed_stay_minutes INTEGER;
+
+-- one node per scheduled job
+CREATE TABLE scheduler_leases (
+    name        VARCHAR(100) NOT NULL,
+    owner       VARCHAR(100),
+    token       BIGINT       NOT NULL,
+    expires_at  DATETIME(6)  NOT NULL,
+    acquired_at DATETIME(6),
+    PRIMARY KEY (name)
+);
+
+-- admin analytics counters, kept current by VisitorRollupService
+CREATE TABLE visitor_hourly_rollups (
+    bucket_start DATETIME(6) NOT NULL,
+    total        BIGINT      NOT NULL,
+    active       BIGINT      NOT NULL,
+    exited       BIGINT      NOT NULL,
+    overdue      BIGINT      NOT NULL,
+    PRIMARY KEY (bucket_start)
+);
+
+CREATE TABLE visitor_daily_rollups (
+    bucket_date DATE   NOT NULL,
+    total       BIGINT NOT NULL,
+    active      BIGINT NOT NULL,
+    exited      BIGINT NOT NULL,
+    overdue     BIGINT NOT NULL,
+    PRIMARY KEY (bucket_date)
+);
+
+-- counters for the visits recorded before the rollups existed
+INSERT INTO visitor_hourly_rollups (bucket_start, total, active, exited, overdue)
+SELECT TIMESTAMPADD(HOUR, HOUR(v.entry_time), DATE(v.entry_time)) AS b,
+       COUNT(*),
+       SUM(v.status = 'ACTIVE'),
+       SUM(v.status = 'EXITED'),
+       SUM(v.status = 'OVERDUE')
+FROM visitors v
+WHERE v.entry_time IS NOT NULL
+GROUP BY b;
+
+INSERT INTO visitor_daily_rollups (bucket_date, total, active, exited, overdue)
+SELECT DATE(h.bucket_start) AS b,
+       SUM(h.total), SUM(h.active), SUM(h.exited), SUM(h.overdue)
+FROM visitor_hourly_rollups h
+GROUP BY b;
@@ -0,0 +1,52 @@
+-- Schema of the baseline release, as Hibernate ddl-auto created it.
+-- Existing databases are baselined at this version and skip this script;
+-- everything added since lives in the later versions.
+
+CREATE TABLE users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role     ENUM ('ROLE_ADMIN', 'ROLE_SECURITY', 'ROLE_STAFF'),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE staff (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT       NOT NULL,
+    staff_code  VARCHAR(255) NOT NULL,
+    full_name   VARCHAR(255),
+    department  VARCHAR(255),
+    designation VARCHAR(255),
+    phone       VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_staff_user UNIQUE (user_id),
+    CONSTRAINT uk_staff_code UNIQUE (staff_code),
+    CONSTRAINT fk_staff_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE visitors (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    staff_id   BIGINT       NOT NULL,
+    name       VARCHAR(255),
+    email      VARCHAR(255) NOT NULL,
+    phone      VARCHAR(255),
+    purpose    VARCHAR(255),
+    qr_path    VARCHAR(255),
+    entry_time DATETIME(6),
+    exit_time  DATETIME(6),
+    status     ENUM ('ACTIVE', 'EXITED', 'OVERDUE'),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_visitors_staff FOREIGN KEY (staff_id) REFERENCES staff (id)
+);
+
+CREATE TABLE visit_logs (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    visitor_id     BIGINT,
+    staff_username VARCHAR(255),
+    action         VARCHAR(255),
+    timestamp      DATETIME(6),
+    PRIMARY KEY (id)
+);
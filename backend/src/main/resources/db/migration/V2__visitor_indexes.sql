@@ -0,0 +1,23 @@
+-- Composite indexes for the hot visitor queries. InnoDB appends the primary
+-- key to every secondary index, so queries that only need id (and the
+-- columns listed) are answered from the index alone.
+
+-- overdue sweep, timing-wheel rebuild, status listings:
+-- status = ? AND entry_time < ?, reading id and staff_id
+CREATE INDEX idx_visitors_status_entry ON visitors (status, entry_time, staff_id);
+
+-- per-staff counters: staff_id = ? AND status = ?
+CREATE INDEX idx_visitors_staff_status ON visitors (staff_id, status);
+
+-- per-staff day views: staff_id = ? AND entry_time BETWEEN ? AND ?
+CREATE INDEX idx_visitors_staff_entry ON visitors (staff_id, entry_time);
+
+-- date ranges, dashboard windows and (entry_time, id) keyset pages
+CREATE INDEX idx_visitors_entry_id ON visitors (entry_time, id);
+
+-- history of one visitor, newest first
+CREATE INDEX idx_visit_logs_visitor_time ON visit_logs (visitor_id, timestamp);
+
+-- outbox relay: due PENDING rows and stale PROCESSING claims
+CREATE INDEX idx_outbox_status_next ON checkin_outbox (status, next_attempt_at);
+CREATE INDEX idx_outbox_status_locked ON checkin_outbox (status, locked_at);
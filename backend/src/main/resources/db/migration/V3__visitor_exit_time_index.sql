@@ -0,0 +1,2 @@
+-- search index sync: visitors who exited since the last sync
+CREATE INDEX idx_visitors_exit_time ON visitors (exit_time);
@@ -0,0 +1,13 @@
+-- service-call audit trail, written in batches when app.audit.sink=table
+CREATE TABLE audit_events (
+    id          BIGINT        NOT NULL AUTO_INCREMENT,
+    occurred_at DATETIME(3)   NOT NULL,
+    principal   VARCHAR(100),
+    method      VARCHAR(200)  NOT NULL,
+    args        VARCHAR(1000),
+    result      VARCHAR(1000),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_audit_events_occurred ON audit_events (occurred_at);
+CREATE INDEX idx_audit_events_principal ON audit_events (principal, occurred_at);
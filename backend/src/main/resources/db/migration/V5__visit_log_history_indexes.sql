@@ -0,0 +1,9 @@
+-- visit history by visitor, host, action or time window, newest first.
+-- Each index leads with its filter column, then timestamp for the range and
+-- order, then the remaining columns, so a history page is read from the
+-- index alone (InnoDB appends the primary key).
+DROP INDEX idx_visit_logs_visitor_time ON visit_logs;
+CREATE INDEX idx_visit_logs_visitor_time ON visit_logs (visitor_id, timestamp, action, staff_username);
+CREATE INDEX idx_visit_logs_staff_time ON visit_logs (staff_username, timestamp, action, visitor_id);
+CREATE INDEX idx_visit_logs_action_time ON visit_logs (action, timestamp, staff_username, visitor_id);
+CREATE INDEX idx_visit_logs_time ON visit_logs (timestamp, id);
@@ -0,0 +1,26 @@
+-- Cold storage for visitors moved out of the hot table by the retention job
+-- (RetentionService). Same columns minus qr_path (the image is deleted),
+-- plus the host's username so rows stay readable if the staff row goes,
+-- and when the row was archived. No foreign keys: staff may be removed later.
+-- Compressed pages: the table is append-only and rarely read.
+CREATE TABLE visitors_archive (
+    id              BIGINT       NOT NULL,
+    staff_id        BIGINT       NOT NULL,
+    staff_username  VARCHAR(255),
+    name            VARCHAR(255),
+    email           VARCHAR(255) NOT NULL,
+    phone           VARCHAR(255),
+    purpose         VARCHAR(255),
+    entry_time      DATETIME(6),
+    exit_time       DATETIME(6),
+    status          VARCHAR(16),
+    delivery_status VARCHAR(16),
+    archived_at     DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ROW_FORMAT = COMPRESSED;
+
+-- look-ups by visit date, and the archive watermark (MAX(entry_time))
+CREATE INDEX idx_visitors_archive_entry ON visitors_archive (entry_time, id);
+
+-- the retention job deletes the outbox rows of the visitors it archives
+CREATE INDEX idx_outbox_visitor ON checkin_outbox (visitor_id);
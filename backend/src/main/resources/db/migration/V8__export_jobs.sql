@@ -0,0 +1,32 @@
+-- Asynchronous export jobs (ExportJobService). Kept in the DB so that any
+-- node behind the load balancer can answer a status poll or serve the
+-- download; the files themselves live in the shared app.export.spool-dir.
+-- owner is the node rendering the job, updated_at its last sign of life.
+CREATE TABLE export_jobs (
+    id           VARCHAR(36)  NOT NULL,
+    job_key      VARCHAR(64)  NOT NULL,
+    format       ENUM ('CSV', 'EXCEL') NOT NULL,
+    from_time    DATETIME(6),
+    to_time      DATETIME(6),
+    sort         VARCHAR(16)  NOT NULL,
+    owner        VARCHAR(100) NOT NULL,
+    state        ENUM ('DONE', 'FAILED', 'QUEUED', 'RUNNING') NOT NULL,
+    total_rows   BIGINT       NOT NULL,
+    rows_written BIGINT       NOT NULL,
+    size         BIGINT       NOT NULL,
+    created_at   DATETIME(6)  NOT NULL,
+    updated_at   DATETIME(6)  NOT NULL,
+    finished_at  DATETIME(6),
+    expires_at   DATETIME(6),
+    error        VARCHAR(500),
+    PRIMARY KEY (id)
+);
+
+-- reuse of identical requests
+CREATE INDEX idx_export_jobs_key ON export_jobs (job_key, state);
+
+-- TTL sweep
+CREATE INDEX idx_export_jobs_expires ON export_jobs (expires_at);
+
+-- jobs whose node stopped mid-flight
+CREATE INDEX idx_export_jobs_state_updated ON export_jobs (state, updated_at);
@@ -0,0 +1,66 @@
+package com.example.vms;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitedDataSourceTests {
+
+    private final ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:gate;DB_CLOSE_DELAY=-1"), 2, 100);
+
+    @Test
+    void callersBeyondTheLimitWaitAndThenTimeOut() throws Exception {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        // closing twice hands back one permit, not two
+        first.close();
+        first.close();
+        Connection third = dataSource.getConnection();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        second.close();
+        third.close();
+    }
+
+    @Test
+    void neverMoreConnectionsInUseThanPermitsUnderVirtualThreads() throws Exception {
+        ConcurrencyLimitedDataSource gate = new ConcurrencyLimitedDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:gate;DB_CLOSE_DELAY=-1"), 4, 10_000);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                calls.add(executor.submit(() -> {
+                    try (Connection c = gate.getConnection()) {
+                        peak.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        c.createStatement().execute("SELECT 1");
+                        inUse.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        }
+
+        assertThat(peak.get()).isBetween(1, 4);
+        assertThat(gate.getWaiting()).isZero();
+    }
+}
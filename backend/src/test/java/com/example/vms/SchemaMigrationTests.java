@@ -0,0 +1,124 @@
+package com.example.vms;
+
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.StaffRepository;
+import com.example.vms.repository.VisitorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database created by the baseline release (ddl-auto, no Flyway
+ * history, rows already in it) and checks the application can run on it.
+ */
+@DataJpaTest
+@Import(SchemaConfig.class)
+class SchemaMigrationTests {
+
+    private static final String URL =
+            "jdbc:h2:mem:released;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,TIMESTAMP;DB_CLOSE_DELAY=-1";
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 5, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    // runs before the context starts, so Flyway finds a populated schema without history
+    @DynamicPropertySource
+    static void releasedDatabase(DynamicPropertyRegistry registry) throws Exception {
+        try (SingleConnectionDataSource dataSource = new SingleConnectionDataSource(URL, "sa", "", true);
+             Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline.sql"));
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.update("INSERT INTO users (username, email, password, role) VALUES ('host1', 'h@x.io', 'x', 'ROLE_STAFF')");
+            jdbc.update("INSERT INTO staff (user_id, staff_code) VALUES (1, 'S1')");
+            insertVisitor(jdbc, DAY.plusHours(9).plusMinutes(10), "EXITED");
+            insertVisitor(jdbc, DAY.plusHours(9).plusMinutes(40), "EXITED");
+            insertVisitor(jdbc, DAY.plusHours(11).plusMinutes(5), "OVERDUE");
+            insertVisitor(jdbc, DAY.plusHours(11).plusMinutes(30), "ACTIVE");
+            jdbc.update("INSERT INTO visit_logs (visitor_id, staff_username, action, timestamp) VALUES (1, 'host1', 'ENTERED', ?)", DAY);
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Test
+    void baselinesTheReleasedSchemaAndAppliesEveryLaterScript() {
+        List<Map<String, Object>> history = jdbcTemplate.queryForList(
+                "SELECT version, type, success FROM flyway_schema_history WHERE version IS NOT NULL ORDER BY installed_rank");
+
+        assertThat(history.get(0)).containsEntry("version", "1").containsEntry("type", "BASELINE");
+        assertThat(history).allSatisfy(row -> assertThat(row.get("success")).isEqualTo(true));
+        assertThat(history).extracting(row -> row.get("version")).contains("1.1", "2", "5", "7");
+    }
+
+    @Test
+    void keepsTheReleasedRowsAndAddsTheNewColumnsEmpty() {
+        assertThat(visitorRepository.count()).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visitors WHERE delivery_status IS NULL", Long.class))
+                .isEqualTo(4);
+        assertThat(staffRepository.findById(1L)).get()
+                .satisfies(staff -> assertThat(staff.getAllowedStayMinutes()).isNull());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visit_logs", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void backfillsTheRollupsFromTheReleasedVisits() {
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT CONCAT(HOUR(bucket_start), ' ', total, ' ', active, ' ', exited, ' ', overdue) FROM visitor_hourly_rollups ORDER BY bucket_start",
+                String.class))
+                .containsExactly("9 2 0 2 0", "11 2 1 0 1");
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT CONCAT(bucket_date, ' ', total, ' ', active, ' ', exited, ' ', overdue) FROM visitor_daily_rollups",
+                String.class))
+                .containsExactly("2024-03-05 4 1 2 1");
+    }
+
+    // committed: Hibernate reads the sequence in its own transaction, after the seed
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void newVisitorsGetSequenceIdsAboveTheReleasedOnes() throws Exception {
+        new JpaBatchConfig().seedIdSequences(jdbcTemplate).run(null);
+
+        Visitor visitor = visitorRepository.saveAndFlush(Visitor.builder()
+                .name("new")
+                .email("new@x.io")
+                .staff(staffRepository.getReferenceById(1L))
+                .entryTime(LocalDateTime.now())
+                .status(VisitorStatus.ACTIVE)
+                .build());
+
+        assertThat(visitor.getId()).isGreaterThan(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM checkin_outbox", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM scheduler_leases", Long.class)).isZero();
+
+        visitorRepository.deleteById(visitor.getId());
+    }
+
+    private static void insertVisitor(JdbcTemplate jdbc, LocalDateTime entry, String status) {
+        jdbc.update("INSERT INTO visitors (staff_id, name, email, entry_time, status) VALUES (1, 'v', 'v@x.io', ?, ?)",
+                entry, status);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.vms.aop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditRingBufferTests {
+
+    @Test
+    void aFullBufferDropsAndCountsInsteadOfBlocking() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.offer(event(i));
+        }
+
+        List<AuditEvent> out = new ArrayList<>();
+        buffer.drainTo(out, 100);
+
+        assertThat(out).extracting(AuditEvent::method).containsExactly("m0", "m1", "m2", "m3");
+        assertThat(buffer.dropped()).isEqualTo(2);
+        assertThat(buffer.offer(event(6))).isTrue();
+    }
+
+    @Test
+    void concurrentProducersLoseNothingTheyWereToldWasAccepted() throws Exception {
+        AuditRingBuffer buffer = new AuditRingBuffer(256);
+        int producers = 8;
+        int perProducer = 20_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        long[] accepted = new long[producers];
+
+        List<AuditEvent> drained = new ArrayList<>();
+        AtomicBoolean finished = new AtomicBoolean();
+        Thread consumer = Thread.ofPlatform().start(() -> {
+            while (!finished.get() || buffer.size() > 0) {
+                if (buffer.drainTo(drained, 64) == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+
+        try (var executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        if (buffer.offer(new AuditEvent(i, null, producer + ":" + i, null, null))) {
+                            accepted[producer]++;
+                        }
+                    }
+                    done.countDown();
+                });
+            }
+            done.await();
+        }
+        finished.set(true);
+        consumer.join();
+
+        long total = 0;
+        for (long n : accepted) {
+            total += n;
+        }
+        Set<String> unique = new HashSet<>();
+        drained.forEach(e -> unique.add(e.method()));
+
+        assertThat(drained).hasSize((int) total);
+        assertThat(unique).hasSize((int) total);
+        assertThat(total + buffer.dropped()).isEqualTo((long) producers * perProducer);
+    }
+
+    private static AuditEvent event(int i) {
+        return new AuditEvent(i, "user", "m" + i, null, null);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.vms.aop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditSummarizerTests {
+
+    private record Dto(String name) {
+    }
+
+    @Test
+    void pagesAndCollectionsAreReducedToTheirSize() {
+        var page = new PageImpl<>(List.of(new Dto("a"), new Dto("b")), PageRequest.of(0, 2), 40);
+
+        assertThat(AuditSummarizer.summarize(page, AuditVerbosity.FULL, 256)).isEqualTo("Page(2 of 40)");
+        assertThat(AuditSummarizer.summarize(List.of(1, 2, 3), AuditVerbosity.SUMMARY, 256)).endsWith("(3)");
+        assertThat(AuditSummarizer.summarize(new ByteArrayOutputStream(), AuditVerbosity.FULL, 256))
+                .isEqualTo("ByteArrayOutputStream");
+    }
+
+    @Test
+    void objectsAreRenderedOnlyAtFullVerbosityAndAlwaysCutShort() {
+        Dto dto = new Dto("x".repeat(500));
+
+        assertThat(AuditSummarizer.summarize(dto, AuditVerbosity.SUMMARY, 64)).isEqualTo("Dto");
+        assertThat(AuditSummarizer.summarize(dto, AuditVerbosity.FULL, 64)).hasSize(65);
+        assertThat(AuditSummarizer.summarize(new Object[]{"guard1", 3, dto}, AuditVerbosity.SUMMARY, 64))
+                .isEqualTo("[guard1, 3, Dto]");
+        assertThat(AuditSummarizer.summarize(new Object[]{"secret"}, AuditVerbosity.NONE, 64)).isNull();
+    }
+}
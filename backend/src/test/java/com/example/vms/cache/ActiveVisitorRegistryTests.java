@@ -0,0 +1,144 @@
+package com.example.vms.cache;
+
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.model.DeliveryStatus;
+import com.example.vms.model.Staff;
+import com.example.vms.model.User;
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActiveVisitorRegistryTests {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private final VisitorRepository visitorRepository = mock(VisitorRepository.class);
+
+    private ActiveVisitorRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ActiveVisitorRegistry();
+        ReflectionTestUtils.setField(registry, "visitorRepository", visitorRepository);
+    }
+
+    @Test
+    void warmsUpFromTheDatabase() {
+        dbHolds(visitor(1, 10, 0), visitor(2, 10, 5));
+        assertThat(registry.isReady()).isFalse();
+
+        assertThat(registry.reconcile()).isEqualTo(2);
+
+        assertThat(registry.isReady()).isTrue();
+        assertThat(registry.get(1).name()).isEqualTo("Visitor 1");
+        assertThat(registry.get(3)).isNull();
+        assertThat(registry.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void reconcileRepairsMissedExitsCheckInsAndStatusChanges() {
+        dbHolds(visitor(1, 10, 0), visitor(2, 10, 5), visitor(3, 11, 10));
+        registry.reconcile();
+
+        // another node: 1 exited, 2 went overdue, 4 checked in
+        Visitor overdue = visitor(2, 10, 5);
+        overdue.setStatus(VisitorStatus.OVERDUE);
+        dbHolds(overdue, visitor(3, 11, 10), visitor(4, 11, 15));
+
+        assertThat(registry.reconcile()).isEqualTo(3);
+        assertThat(registry.get(1)).isNull();
+        assertThat(registry.get(2).status()).isEqualTo(VisitorStatus.OVERDUE);
+        assertThat(registry.get(4)).isNotNull();
+        assertThat(registry.reconcile()).isZero();
+    }
+
+    @Test
+    void reconcileKeepsACheckInThatCommitsDuringTheRead() {
+        dbHolds(visitor(1, 10, 0));
+        registry.reconcile();
+
+        // the snapshot was read before visitor 2 committed
+        when(visitorRepository.findOnSite(anyCollection())).thenAnswer(inv -> {
+            registry.onCheckedIn(new VisitorCheckedInEvent(List.of(ActiveVisitor.of(visitor(2, 10, 5)))));
+            return new ArrayList<>(List.of(visitor(1, 10, 0)));
+        });
+        registry.reconcile();
+
+        assertThat(registry.get(2)).isNotNull();
+    }
+
+    @Test
+    void reconcileDoesNotResurrectAnExitThatCommitsDuringTheRead() {
+        dbHolds(visitor(1, 10, 0), visitor(2, 10, 5));
+        registry.reconcile();
+
+        // the snapshot still shows visitor 1 on site, but the exit is already applied
+        when(visitorRepository.findOnSite(anyCollection())).thenAnswer(inv -> {
+            registry.onExited(new VisitorExitedEvent(1L, T.plusHours(1), VisitorStatus.ACTIVE));
+            return new ArrayList<>(List.of(visitor(1, 10, 0), visitor(2, 10, 5)));
+        });
+        registry.reconcile();
+        assertThat(registry.get(1)).isNull();
+
+        // the next reconcile trusts the DB again
+        dbHolds(visitor(1, 10, 0), visitor(2, 10, 5));
+        registry.reconcile();
+        assertThat(registry.get(1)).isNotNull();
+    }
+
+    @Test
+    void reconcileDoesNotRollBackADeliveryUpdateMadeDuringTheRead() {
+        dbHolds(visitor(1, 10, 0));
+        registry.reconcile();
+
+        when(visitorRepository.findOnSite(anyCollection())).thenAnswer(inv -> {
+            registry.updateDelivery(1L, "/visitors/1/qr", DeliveryStatus.SENT);
+            return new ArrayList<>(List.of(visitor(1, 10, 0)));
+        });
+        registry.reconcile();
+
+        assertThat(registry.get(1).deliveryStatus()).isEqualTo(DeliveryStatus.SENT);
+        assertThat(registry.get(1).qrPath()).isEqualTo("/visitors/1/qr");
+    }
+
+    @Test
+    void updateDeliveryKeepsTheQrPathWhenNoneIsGivenAndIgnoresUnknownVisitors() {
+        registry.onCheckedIn(new VisitorCheckedInEvent(List.of(ActiveVisitor.of(visitor(1, 10, 0)))));
+
+        registry.updateDelivery(1L, "/visitors/1/qr", DeliveryStatus.SENT);
+        registry.updateDelivery(1L, null, DeliveryStatus.FAILED);
+        registry.updateDelivery(99L, "/visitors/99/qr", DeliveryStatus.SENT);
+
+        assertThat(registry.get(1).qrPath()).isEqualTo("/visitors/1/qr");
+        assertThat(registry.get(1).deliveryStatus()).isEqualTo(DeliveryStatus.FAILED);
+        assertThat(registry.get(99)).isNull();
+    }
+
+    private void dbHolds(Visitor... visitors) {
+        when(visitorRepository.findOnSite(anyCollection())).thenReturn(new ArrayList<>(List.of(visitors)));
+    }
+
+    private static Visitor visitor(long id, long staffId, int entryMinute) {
+        User user = User.builder().id(staffId).username("host" + staffId).build();
+        return Visitor.builder()
+                .id(id).name("Visitor " + id).purpose("Meeting")
+                .staff(Staff.builder().id(staffId).user(user).build())
+                .entryTime(T.plusMinutes(entryMinute))
+                .status(VisitorStatus.ACTIVE)
+                .deliveryStatus(DeliveryStatus.PENDING)
+                .build();
+    }
+}
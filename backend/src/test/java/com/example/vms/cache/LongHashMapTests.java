@@ -0,0 +1,140 @@
+package com.example.vms.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongHashMapTests {
+
+    @Test
+    void storesZeroNegativeAndExtremeKeys() {
+        LongHashMap<String> map = new LongHashMap<>();
+        long[] keys = {0L, -1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE, -300_000_000_000L};
+        for (long key : keys) {
+            assertThat(map.put(key, "v" + key)).isNull();
+        }
+
+        for (long key : keys) {
+            assertThat(map.get(key)).isEqualTo("v" + key);
+            assertThat(map.containsKey(key)).isTrue();
+        }
+        assertThat(map.size()).isEqualTo(keys.length);
+        assertThat(map.get(2L)).isNull();
+        assertThat(map.containsKey(2L)).isFalse();
+
+        assertThat(map.remove(0L)).isEqualTo("v0");
+        assertThat(map.get(0L)).isNull();
+        assertThat(map.get(-1L)).isEqualTo("v-1");
+    }
+
+    @Test
+    void putReplacesAndReturnsThePreviousValue() {
+        LongHashMap<String> map = new LongHashMap<>();
+        map.put(5L, "a");
+
+        assertThat(map.put(5L, "b")).isEqualTo("a");
+        assertThat(map.get(5L)).isEqualTo("b");
+        assertThat(map.size()).isEqualTo(1);
+        assertThatThrownBy(() -> map.put(6L, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void removeKeepsLaterEntriesOfTheSameProbeChainReachable() {
+        // 16 slots, no resize below 9 entries: a chain homed at slot 14 wraps to 15, 0, 1,
+        // and a key homed at slot 0 is pushed behind it
+        LongHashMap<Long> map = new LongHashMap<>(8);
+        long[] chain = keysHomedAt(16, 14, 4);
+        long displaced = keysHomedAt(16, 0, 1)[0];
+        long[] all = {chain[0], chain[1], chain[2], chain[3], displaced};
+        for (long key : all) {
+            map.put(key, key);
+        }
+
+        // removing from the head, middle and tail must not orphan anything behind the gap
+        for (int victim : new int[]{0, 1, 2, 3, 4}) {
+            assertThat(map.remove(all[victim])).isEqualTo(all[victim]);
+            for (int i = 0; i < all.length; i++) {
+                assertThat(map.get(all[i])).as("key %d after removing %d", i, victim)
+                        .isEqualTo(i == victim ? null : all[i]);
+            }
+            assertThat(map.remove(all[victim])).isNull();
+            map.put(all[victim], all[victim]);
+        }
+        assertThat(map.size()).isEqualTo(all.length);
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        LongHashMap<Long> map = new LongHashMap<>(4);
+        for (long key = -5_000; key < 5_000; key++) {
+            map.put(key * 64, key);
+        }
+
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = -5_000; key < 5_000; key++) {
+            assertThat(map.get(key * 64)).isEqualTo(key);
+        }
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertThat(keys[0]).isEqualTo(-5_000 * 64);
+        assertThat(keys).hasSize(10_000).doesNotHaveDuplicates();
+        assertThat(map.values()).hasSize(10_000);
+    }
+
+    @Test
+    void behavesLikeAHashMapUnderRandomChurn() {
+        Random random = new Random(3);
+        LongHashMap<Long> map = new LongHashMap<>(8);
+        Map<Long, Long> reference = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // a small key space forces long collision chains, removes and re-inserts
+            long key = random.nextInt(600) - 300;
+            switch (random.nextInt(3)) {
+                case 0, 1 -> assertThat(map.put(key, (long) i)).isEqualTo(reference.put(key, (long) i));
+                default -> assertThat(map.remove(key)).isEqualTo(reference.remove(key));
+            }
+            if (i % 1_000 == 0) {
+                assertThat(map.size()).isEqualTo(reference.size());
+                for (long probe = -300; probe < 300; probe++) {
+                    assertThat(map.get(probe)).isEqualTo(reference.get(probe));
+                }
+            }
+        }
+    }
+
+    @Test
+    void clearEmptiesAndStaysUsable() {
+        LongHashMap<String> map = new LongHashMap<>();
+        map.put(1L, "a");
+        map.put(2L, "b");
+
+        map.clear();
+
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(1L)).isNull();
+        assertThat(map.keys()).isEmpty();
+        assertThat(map.computeIfAbsent(1L, k -> "c")).isEqualTo("c");
+        assertThat(map.computeIfAbsent(1L, k -> "d")).isEqualTo("c");
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    // keys whose mixed hash has the given home slot in a table of the given capacity
+    private static long[] keysHomedAt(int capacity, int home, int count) {
+        long[] result = new long[count];
+        int found = 0;
+        for (long key = 1; found < count; key++) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            if (((int) (h ^ (h >>> 32)) & (capacity - 1)) == home) {
+                result[found++] = key;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.vms.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QrImageCacheTests {
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private QrImageCache cache;
+
+    // 1000-byte images plus overhead: three fit, the fourth evicts
+    @BeforeEach
+    void setUp() {
+        cache = new QrImageCache();
+        ReflectionTestUtils.setField(cache, "maxBytes", 3_700L);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOnceOverTheByteBudget() {
+        cache.get("a", this::render);
+        cache.get("b", this::render);
+        cache.get("c", this::render);
+        cache.get("a", this::render); // a is now the most recent
+        cache.get("d", this::render); // evicts b
+
+        assertThat(renders).hasValue(4);
+        cache.get("a", this::render);
+        cache.get("c", this::render);
+        assertThat(renders).hasValue(4);
+        cache.get("b", this::render);
+        assertThat(renders).hasValue(5);
+
+        QrImageCache.Stats stats = cache.stats();
+        assertThat(stats.entries()).isEqualTo(3);
+        assertThat(stats.bytes()).isLessThanOrEqualTo(3_700L);
+        assertThat(stats.evictions()).isEqualTo(2);
+    }
+
+    @Test
+    void etagIsStrongAndFollowsTheBytes() {
+        QrImageCache.QrImage a = cache.get("a", this::render);
+        QrImageCache.QrImage b = cache.get("b", this::render);
+
+        assertThat(a.etag()).startsWith("\"").endsWith("\"").doesNotStartWith("W/");
+        assertThat(a.etag()).isNotEqualTo(b.etag());
+
+        QrImageCache other = new QrImageCache();
+        ReflectionTestUtils.setField(other, "maxBytes", 3_700L);
+        assertThat(other.get("a", this::render).etag()).isEqualTo(a.etag());
+    }
+
+    private byte[] render(String payload) {
+        renders.incrementAndGet();
+        byte[] png = new byte[1_000];
+        png[0] = (byte) payload.charAt(0);
+        return png;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.vms.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StaffDirectoryTests {
+
+    private static final String[] FIRST = {"Anna", "Jörg", "Neha", "Rohan", "Mira", "Karl", "Lina", "Søren"};
+    private static final String[] LAST = {"Andersen", "Kowalski", "Nakamura-Lee", "O'Brien", "Rossi", "Tanaka"};
+
+    private final Random random = new Random(7);
+
+    @Test
+    void findsEveryEntryWhoseNameOrCodeContainsTheQuery() {
+        List<StaffEntry> staff = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String name = FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)];
+            staff.add(entry(i + 1, name, "EMP-" + (1000 + i)));
+        }
+        staff.add(entry(999, null, "NONAME-1"));
+        StaffDirectory.Snapshot snapshot = StaffDirectory.Snapshot.of(staff);
+
+        List<String> queries = new ArrayList<>(List.of("", "a", "AN", "emp-10", "o'b", "søren", "x", "nakamura-lee",
+                "Neha Nakamura-Lee", "emp-1399", "noname"));
+        for (int i = 0; i < 200; i++) {
+            String name = staff.get(random.nextInt(staff.size())).fullName();
+            if (name != null) {
+                int start = random.nextInt(name.length());
+                queries.add(name.substring(start, Math.min(name.length(), start + 1 + random.nextInt(16))));
+            }
+        }
+
+        for (String query : queries) {
+            String q = query.trim().toLowerCase(Locale.ROOT);
+            List<Long> expected = staff.stream()
+                    .filter(e -> fold(e.fullName()).contains(q) || fold(e.staffCode()).contains(q))
+                    .sorted(Comparator.comparing((StaffEntry e) -> fold(e.fullName())).thenComparingLong(StaffEntry::id))
+                    .map(StaffEntry::id)
+                    .toList();
+
+            List<Long> found = new ArrayList<>();
+            for (int ord : snapshot.find(query)) {
+                found.add(snapshot.entries[ord].id());
+            }
+
+            assertThat(found).as("'%s'", query).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void looksUpEntriesById() {
+        StaffDirectory.Snapshot snapshot = StaffDirectory.Snapshot.of(
+                List.of(entry(5, "Lina Rossi", "EMP-5"), entry(9, "Karl Tanaka", "EMP-9")));
+
+        assertThat(snapshot.byId.get(9).username()).isEqualTo("user9");
+        assertThat(snapshot.byId.get(6)).isNull();
+    }
+
+    private static StaffEntry entry(long id, String fullName, String staffCode) {
+        return new StaffEntry(id, id, "user" + id, fullName, staffCode, "Ops", "Host", null, null);
+    }
+
+    private static String fold(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+}
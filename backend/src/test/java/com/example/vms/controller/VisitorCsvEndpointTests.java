@@ -0,0 +1,68 @@
+package com.example.vms.controller;
+
+import com.example.vms.service.VisitorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /visitors/export/csv: on-the-fly gzip follows the Accept-Encoding
+ * codings and their q-values, not a substring match.
+ */
+class VisitorCsvEndpointTests {
+
+    private final VisitorService visitorService = mock(VisitorService.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        VisitorController controller = new VisitorController();
+        ReflectionTestUtils.setField(controller, "visitorService", visitorService);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "gzip                        | true",
+            "GZIP, deflate, br           | true",
+            "deflate, gzip;q=0.5         | true",
+            "x-gzip                      | true",
+            "*                           | true",
+            "br;q=1.0, *;q=0.1           | true",
+            "gzip;q=0                    | false",
+            "gzip ; q=0.000, deflate     | false",
+            "*, gzip;q=0                 | false",
+            "gzip;q=0, gzip;q=0.8        | true",
+            "*;q=0                       | false",
+            "deflate, br                 | false",
+            "gzipx                       | false",
+            "identity                    | false",
+            "gzip;q=bogus                | false"
+    })
+    void honoursTheCodingsAndTheirQValues(String acceptEncoding, boolean expected) throws Exception {
+        assertThat(VisitorController.acceptsGzip(acceptEncoding)).as(acceptEncoding).isEqualTo(expected);
+
+        mvc.perform(get("/visitors/export/csv").header("Accept-Encoding", acceptEncoding))
+                .andExpect(status().isOk());
+        verify(visitorService).exportVisitorsToCSV(isNull(), isNull(), eq("latest"), eq(false), eq(expected), any());
+    }
+
+    @Test
+    void noHeaderMeansNoCompression() throws Exception {
+        assertThat(VisitorController.acceptsGzip(null)).isFalse();
+        assertThat(VisitorController.acceptsGzip("")).isFalse();
+
+        mvc.perform(get("/visitors/export/csv")).andExpect(status().isOk());
+        verify(visitorService).exportVisitorsToCSV(isNull(), isNull(), eq("latest"), eq(false), eq(false), any());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.vms.controller;
+
+import com.example.vms.dto.VisitorResponseDTO;
+import com.example.vms.exception.GlobalExceptionHandler;
+import com.example.vms.service.VisitorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * POST /visitors/group body validation: invalid or oversized batches are
+ * rejected before they reach {@link VisitorService#addVisitors}.
+ */
+class VisitorGroupEndpointTests {
+
+    private final VisitorService visitorService = mock(VisitorService.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        VisitorController controller = new VisitorController();
+        ReflectionTestUtils.setField(controller, "visitorService", visitorService);
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        when(visitorService.addVisitors(anyList())).thenAnswer(inv -> {
+            List<?> dtos = inv.getArgument(0);
+            return Collections.nCopies(dtos.size(), new VisitorResponseDTO());
+        });
+    }
+
+    @Test
+    void acceptsAValidGroup() throws Exception {
+        group(visitors(3))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+        verify(visitorService).addVisitors(anyList());
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedGroups() throws Exception {
+        group(List.of()).andExpect(status().isBadRequest());
+        group(visitors(VisitorController.MAX_GROUP_REQUEST + 1)).andExpect(status().isBadRequest());
+        group(visitors(VisitorController.MAX_GROUP_REQUEST)).andExpect(status().isOk());
+
+        verify(visitorService, times(1)).addVisitors(anyList());
+    }
+
+    @Test
+    void rejectsAGroupWithAnInvalidMember() throws Exception {
+        List<String> missingEmail = visitors(3);
+        missingEmail.set(1, "{\"name\":\"x\",\"staffId\":1}");
+        List<String> badEmail = visitors(3);
+        badEmail.set(2, "{\"name\":\"x\",\"email\":\"not-an-email\",\"staffId\":1}");
+        List<String> missingStaff = visitors(3);
+        missingStaff.set(0, "{\"name\":\"x\",\"email\":\"x@example.com\"}");
+
+        group(missingEmail).andExpect(status().isBadRequest());
+        group(badEmail).andExpect(status().isBadRequest());
+        group(missingStaff).andExpect(status().isBadRequest());
+
+        verifyNoInteractions(visitorService);
+    }
+
+    private ResultActions group(List<String> visitors) throws Exception {
+        return mvc.perform(post("/visitors/group")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + String.join(",", visitors) + "]"));
+    }
+
+    private static List<String> visitors(int count) {
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add("{\"name\":\"v" + i + "\",\"email\":\"v" + i + "@example.com\",\"staffId\":" + (1 + i % 3) + "}");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.vms.controller;
+
+import com.example.vms.cache.ActiveVisitor;
+import com.example.vms.cache.ActiveVisitorRegistry;
+import com.example.vms.cache.QrImageCache;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.exception.GlobalExceptionHandler;
+import com.example.vms.model.Staff;
+import com.example.vms.model.User;
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorRepository;
+import com.example.vms.security.QrTokenService;
+import com.example.vms.service.QrService;
+import com.example.vms.service.VisitorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /visitors/{id}/qr through MockMvc: who may fetch a pass, and the
+ * ETag / If-None-Match round trip. Method security (@PreAuthorize) is not
+ * active in a standalone setup; the host check lives in the service.
+ */
+class VisitorQrEndpointTests {
+
+    private final VisitorRepository visitorRepository = mock(VisitorRepository.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        QrTokenService qrTokenService = new QrTokenService();
+        ReflectionTestUtils.setField(qrTokenService, "qrSecret", "test-secret");
+        ReflectionTestUtils.setField(qrTokenService, "validityHours", 24L);
+        qrTokenService.init();
+
+        QrImageCache qrImageCache = new QrImageCache();
+        ReflectionTestUtils.setField(qrImageCache, "maxBytes", 1_000_000L);
+
+        QrService qrService = new QrService();
+        ReflectionTestUtils.setField(qrService, "qrTokenService", qrTokenService);
+        ReflectionTestUtils.setField(qrService, "qrImageCache", qrImageCache);
+
+        // visitor 7 is on site with host alice; visitor 8 has left and is read from the DB (host bob)
+        ActiveVisitorRegistry registry = new ActiveVisitorRegistry();
+        registry.onCheckedIn(new VisitorCheckedInEvent(List.of(new ActiveVisitor(
+                7, "Asha", "a@x.io", null, null, 1, "alice", LocalDateTime.now(), VisitorStatus.ACTIVE, null, null))));
+        Visitor exited = Visitor.builder()
+                .id(8L).email("b@x.io").entryTime(LocalDateTime.now().minusHours(2)).status(VisitorStatus.EXITED)
+                .staff(Staff.builder().id(2L).user(User.builder().username("bob").build()).build())
+                .build();
+        when(visitorRepository.findById(8L)).thenReturn(Optional.of(exited));
+
+        VisitorService visitorService = new VisitorService();
+        ReflectionTestUtils.setField(visitorService, "activeVisitorRegistry", registry);
+        ReflectionTestUtils.setField(visitorService, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(visitorService, "qrService", qrService);
+
+        VisitorController controller = new VisitorController();
+        ReflectionTestUtils.setField(controller, "visitorService", visitorService);
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void servesPngWithStrongEtagAndAnswers304WhenItMatches() throws Exception {
+        MvcResult first = mvc.perform(get("/visitors/7/qr").principal(user("guard", "ROLE_SECURITY")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").doesNotStartWith("W/");
+        assertThat(first.getResponse().getContentAsByteArray()).startsWith(0x89, 'P', 'N', 'G');
+
+        mvc.perform(get("/visitors/7/qr").principal(user("guard", "ROLE_SECURITY"))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+
+        mvc.perform(get("/visitors/7/qr").principal(user("guard", "ROLE_SECURITY"))
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void staffOnlyGetPassesOfTheirOwnVisitors() throws Exception {
+        mvc.perform(get("/visitors/7/qr").principal(user("alice", "ROLE_STAFF")))
+                .andExpect(status().isOk());
+        mvc.perform(get("/visitors/8/qr").principal(user("bob", "ROLE_STAFF")))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/visitors/7/qr").principal(user("bob", "ROLE_STAFF")))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Visitor not found"));
+        mvc.perform(get("/visitors/8/qr").principal(user("alice", "ROLE_STAFF")))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(get("/visitors/8/qr").principal(user("root", "ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    private static Authentication user(String name, String role) {
+        return new UsernamePasswordAuthenticationToken(name, null, List.of(new SimpleGrantedAuthority(role)));
+    }
+}
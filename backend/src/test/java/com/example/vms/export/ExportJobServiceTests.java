@@ -0,0 +1,190 @@
+package com.example.vms.export;
+
+import com.example.vms.model.ExportJob;
+import com.example.vms.repository.ExportJobRepository;
+import com.example.vms.service.LeaseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes behind a load balancer: a job submitted to one is polled,
+ * downloaded, reused and swept through the other, sharing only the
+ * database and the spool directory.
+ */
+@DataJpaTest
+@Import({VisitorExporter.class, VisitorCsvWriter.class, VisitorExcelWriter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportJobServiceTests {
+
+    private static final int VISITORS = 5;
+
+    @TempDir
+    Path sharedSpool;
+
+    @Autowired
+    private VisitorExporter visitorExporter;
+
+    @Autowired
+    private ExportJobRepository exportJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime day = LocalDateTime.of(2025, 3, 5, 0, 0);
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+
+    private ExportJobService nodeA;
+    private ExportJobService nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clear();
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (1, 'host1', 'h@x.io', 'x', 'ROLE_STAFF')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (1, 1, 'S1')");
+        for (long i = 1; i <= VISITORS; i++) {
+            jdbcTemplate.update("INSERT INTO visitors (id, staff_id, name, email, entry_time, status) VALUES (?, 1, ?, ?, ?, 'EXITED')",
+                    i, "v" + i, "v" + i + "@x.io", Timestamp.valueOf(day.plusHours(8 + i)));
+        }
+
+        nodeA = node("node-a");
+        nodeB = node("node-b");
+    }
+
+    @Test
+    void anotherNodeReportsAndServesTheJob() throws Exception {
+        ExportJob submitted = nodeA.submit(ExportFormat.CSV, day, day.plusDays(1), "latest");
+
+        ExportJob done = awaitFinished(nodeB, submitted.getId());
+
+        assertThat(done.getState()).isEqualTo(ExportJob.State.DONE);
+        assertThat(done.getOwner()).isEqualTo("node-a");
+        assertThat(done.getTotalRows()).isEqualTo(VISITORS);
+        assertThat(done.getRowsWritten()).isEqualTo(VISITORS);
+        assertThat(nodeB.toDto(done).getDownloadUrl()).isEqualTo("/visitors/export/jobs/" + done.getId() + "/file");
+
+        Path file = nodeB.file(done);
+        assertThat(Files.size(file)).isEqualTo(done.getSize());
+        assertThat(Files.readAllLines(file)).hasSize(VISITORS + 1).first().isEqualTo(VisitorCsvWriter.HEADER);
+
+        // the same closed range asked of the other node reuses the finished file
+        assertThat(nodeB.submit(ExportFormat.CSV, day, day.plusDays(1), "latest").getId()).isEqualTo(done.getId());
+        assertThat(exportJobRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void anyNodeSweepsExpiredJobsAndTheirFiles() throws Exception {
+        ExportJob done = awaitFinished(nodeA, nodeA.submit(ExportFormat.CSV, day, day.plusDays(1), "name").getId());
+        Path file = nodeA.file(done);
+        jdbcTemplate.update("UPDATE export_jobs SET expires_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), done.getId());
+
+        assertThat(nodeB.sweepExpired()).isEqualTo(1);
+
+        assertThat(file).doesNotExist();
+        assertThatThrownBy(() -> nodeA.get(done.getId())).hasMessage("Export job not found");
+    }
+
+    @Test
+    void jobsOfAStoppedNodeFailWhileLiveOnesAreKept() {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(2);
+        insertJob("gone-job-0000-0000-0000-000000000000", "node-gone", longAgo);
+        insertJob("live-job-0000-0000-0000-000000000000", "node-a", longAgo);
+        localJobs(nodeA).add("live-job-0000-0000-0000-000000000000");
+
+        nodeA.sweepExpired();
+        nodeB.sweepExpired();
+
+        ExportJob gone = nodeB.get("gone-job-0000-0000-0000-000000000000");
+        assertThat(gone.getState()).isEqualTo(ExportJob.State.FAILED);
+        assertThat(gone.getError()).isEqualTo("Export node stopped before the job finished");
+        assertThat(gone.getExpiresAt()).isAfter(LocalDateTime.now());
+        assertThat(nodeB.get("live-job-0000-0000-0000-000000000000").getState()).isEqualTo(ExportJob.State.RUNNING);
+    }
+
+    @Test
+    void aFileMissingFromTheSpoolIsReportedNotServed() throws Exception {
+        ExportJob done = awaitFinished(nodeA, nodeA.submit(ExportFormat.CSV, day, day.plusDays(1), "latest").getId());
+        Files.delete(nodeA.file(done));
+
+        assertThatThrownBy(() -> nodeB.file(done)).hasMessageContaining("app.export.spool-dir must be shared");
+    }
+
+    // the rows here are committed; other tests in the shared context expect empty tables
+    @AfterEach
+    void clear() {
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+        executors.clear();
+        for (String table : List.of("export_jobs", "visitors", "staff", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    private ExportJobService node(String nodeId) throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.initialize();
+        executors.add(executor);
+
+        LeaseService leaseService = mock(LeaseService.class);
+        when(leaseService.getNodeId()).thenReturn(nodeId);
+
+        ExportJobService service = new ExportJobService();
+        ReflectionTestUtils.setField(service, "visitorExporter", visitorExporter);
+        ReflectionTestUtils.setField(service, "exportJobRepository", exportJobRepository);
+        ReflectionTestUtils.setField(service, "leaseService", leaseService);
+        ReflectionTestUtils.setField(service, "exportExecutor", executor);
+        ReflectionTestUtils.setField(service, "spoolDir", sharedSpool.toString());
+        ReflectionTestUtils.setField(service, "ttlMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "staleMs", 1_800_000L);
+        ReflectionTestUtils.setField(service, "progressIntervalMs", 2_000L);
+        service.init();
+        return service;
+    }
+
+    private ExportJob awaitFinished(ExportJobService node, String id) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ExportJob job = node.get(id);
+            if (job.getState() == ExportJob.State.DONE || job.getState() == ExportJob.State.FAILED) {
+                return job;
+            }
+            Thread.sleep(25);
+        }
+        throw new AssertionError("Export " + id + " did not finish");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> localJobs(ExportJobService node) {
+        return (Set<String>) ReflectionTestUtils.getField(node, "local");
+    }
+
+    private void insertJob(String id, String owner, LocalDateTime updatedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO export_jobs (id, job_key, format, sort, owner, state, total_rows, rows_written, size, created_at, updated_at)
+                VALUES (?, ?, 'CSV', 'latest', ?, 'RUNNING', -1, 0, 0, ?, ?)
+                """, id, id, owner, Timestamp.valueOf(updatedAt), Timestamp.valueOf(updatedAt));
+    }
+}
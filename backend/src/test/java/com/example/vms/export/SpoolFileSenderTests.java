@@ -0,0 +1,26 @@
+package com.example.vms.export;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpoolFileSenderTests {
+
+    @Test
+    void parsesSingleByteRanges() {
+        assertThat(SpoolFileSender.parseRange("bytes=0-99", 1000)).containsExactly(0, 99);
+        assertThat(SpoolFileSender.parseRange("bytes=900-", 1000)).containsExactly(900, 999);
+        assertThat(SpoolFileSender.parseRange("bytes=-100", 1000)).containsExactly(900, 999);
+        assertThat(SpoolFileSender.parseRange("bytes=500-5000", 1000)).containsExactly(500, 999);
+    }
+
+    @Test
+    void rejectsUnsatisfiableAndIgnoresUnsupportedRanges() {
+        assertThat(SpoolFileSender.parseRange("bytes=1000-", 1000)).isNull();
+        assertThat(SpoolFileSender.parseRange("bytes=-0", 1000)).isNull();
+
+        assertThat(SpoolFileSender.parseRange("bytes=0-1,5-6", 1000)).isEmpty();
+        assertThat(SpoolFileSender.parseRange("items=0-1", 1000)).isEmpty();
+        assertThat(SpoolFileSender.parseRange("bytes=abc", 1000)).isEmpty();
+    }
+}
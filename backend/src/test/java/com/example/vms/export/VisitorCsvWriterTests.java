@@ -0,0 +1,50 @@
+package com.example.vms.export;
+
+import com.example.vms.model.Staff;
+import com.example.vms.model.User;
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VisitorCsvWriterTests {
+
+    private final VisitorCsvWriter writer = new VisitorCsvWriter();
+
+    @Test
+    void quotesOnlyFieldsThatNeedIt() throws Exception {
+        Visitor visitor = Visitor.builder()
+                .name("Rao, \"Ravi\"")
+                .phone("9876")
+                .email("ravi@example.com")
+                .staff(Staff.builder().user(User.builder().username("line\nbreak").build()).build())
+                .entryTime(LocalDateTime.of(2025, 3, 1, 9, 30))
+                .status(VisitorStatus.ACTIVE)
+                .build();
+
+        StringWriter out = new StringWriter();
+        long rows = writer.write(Stream.of(visitor), out);
+
+        assertThat(rows).isEqualTo(1);
+        assertThat(out.toString()).isEqualTo(
+                VisitorCsvWriter.HEADER + "\r\n"
+                        + "\"Rao, \"\"Ravi\"\"\",9876,ravi@example.com,\"line\nbreak\",2025-03-01T09:30,,ACTIVE\r\n");
+    }
+
+    @Test
+    void writesInChunksAcrossTheBufferLimit() throws Exception {
+        Stream<Visitor> visitors = Stream.iterate(1, i -> i + 1).limit(5_000)
+                .map(i -> Visitor.builder().name("v" + i).email("e").status(VisitorStatus.EXITED).build());
+
+        StringWriter out = new StringWriter();
+        long rows = writer.write(visitors, out);
+
+        assertThat(rows).isEqualTo(5_000);
+        assertThat(out.toString().split("\r\n")).hasSize(5_001);
+    }
+}
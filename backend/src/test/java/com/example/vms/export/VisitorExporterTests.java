@@ -0,0 +1,151 @@
+package com.example.vms.export;
+
+import com.example.vms.model.Role;
+import com.example.vms.model.Staff;
+import com.example.vms.model.User;
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.*;
+
+/**
+ * VisitorExporter over the real export query: bounds, DB ordering, and how
+ * often the persistence context is cleared while rows stream through.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.vms.export.VisitorExporterTests$CapturingInspector")
+class VisitorExporterTests {
+
+    private static final int CLEAR_EVERY = 4;
+
+    private static final List<String> captured = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private EntityManager entityManager;
+    private VisitorExporter exporter;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 6, 1, 9, 0);
+    private final List<Visitor> visitors = new ArrayList<>();
+
+    public static class CapturingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            captured.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        User user = em.persist(User.builder()
+                .username("host").email("host@example.com").password("x").role(Role.ROLE_STAFF).build());
+        Staff staff = em.persist(Staff.builder().user(user).staffCode("S1").build());
+
+        // 11 visits over two days, pairs sharing an entry time so the id tie-breaker matters
+        String[] names = {"kim", "ali", "zoe", "bea", "ali", "max", "eve", "dan", "cy", "ann", "joe"};
+        for (int i = 0; i < names.length; i++) {
+            visitors.add(em.persist(Visitor.builder()
+                    .name(names[i]).email(names[i] + i + "@x.io").staff(staff)
+                    .entryTime(base.plusHours(5L * (i / 2)))
+                    .status(VisitorStatus.EXITED)
+                    .build()));
+        }
+        em.flush();
+        em.clear();
+
+        entityManager = mock(EntityManager.class, delegatesTo(em.getEntityManager()));
+        exporter = new VisitorExporter();
+        ReflectionTestUtils.setField(exporter, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(exporter, "visitorCsvWriter", new VisitorCsvWriter());
+        ReflectionTestUtils.setField(exporter, "visitorExcelWriter", new VisitorExcelWriter());
+        ReflectionTestUtils.setField(exporter, "entityManager", entityManager);
+        ReflectionTestUtils.setField(exporter, "clearEvery", CLEAR_EVERY);
+        captured.clear();
+    }
+
+    @Test
+    void exportsEveryoneLatestFirstWithIdBreakingTies() throws Exception {
+        List<Long> progress = new ArrayList<>();
+
+        List<String[]> rows = exportCsv(null, null, "latest", progress);
+
+        List<Visitor> expected = new ArrayList<>(visitors);
+        expected.sort(Comparator.comparing(Visitor::getEntryTime).thenComparing(Visitor::getId).reversed());
+        assertThat(rows).extracting(r -> r[2]).containsExactlyElementsOf(expected.stream().map(Visitor::getEmail).toList());
+        assertThat(rows).allSatisfy(r -> assertThat(r[3]).isEqualTo("host"));
+
+        // cleared after every CLEAR_EVERY rows, with a progress report each time and at the end
+        verify(entityManager, times(visitors.size() / CLEAR_EVERY)).clear();
+        assertThat(progress).containsExactly(4L, 8L, 11L);
+
+        // no catch-all "(? IS NULL OR ...)" filter: an open range has no WHERE at all
+        assertThat(exportSql()).doesNotContainIgnoringCase("is null").doesNotContainIgnoringCase(" where ");
+    }
+
+    @Test
+    void sortsByNameInTheDatabase() throws Exception {
+        List<String[]> rows = exportCsv(null, null, "name", new ArrayList<>());
+
+        List<Visitor> expected = new ArrayList<>(visitors);
+        expected.sort(Comparator.comparing(Visitor::getName).thenComparing(Visitor::getId));
+        assertThat(rows).extracting(r -> r[2]).containsExactlyElementsOf(expected.stream().map(Visitor::getEmail).toList());
+    }
+
+    @Test
+    void appliesOnlyTheBoundsGiven() throws Exception {
+        LocalDateTime from = base.plusHours(10);
+        LocalDateTime to = base.plusHours(20);
+
+        assertThat(exportCsv(from, to, "latest", new ArrayList<>())).hasSize(6);
+        assertThat(exportSql()).containsIgnoringCase("between").doesNotContainIgnoringCase("is null");
+        assertThat(exporter.count(from, to)).isEqualTo(6);
+
+        assertThat(exportCsv(from, null, "latest", new ArrayList<>())).hasSize(7);
+        assertThat(exporter.count(from, null)).isEqualTo(7);
+
+        assertThat(exportCsv(null, to, "latest", new ArrayList<>())).hasSize(10);
+        assertThat(exporter.count(null, to)).isEqualTo(10);
+
+        assertThat(exporter.count(null, null)).isEqualTo(visitors.size());
+    }
+
+    private List<String[]> exportCsv(LocalDateTime from, LocalDateTime to, String sort, List<Long> progress) throws Exception {
+        captured.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exporter.export(ExportFormat.CSV, from, to, sort, out, progress::add);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines[0]).isEqualTo(VisitorCsvWriter.HEADER);
+        assertThat(written).isEqualTo(lines.length - 1);
+        return Arrays.stream(lines).skip(1).map(line -> line.split(",")).toList();
+    }
+
+    private String exportSql() {
+        return captured.stream().filter(sql -> sql.contains("visitors")).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.vms.repository;
+
+import com.example.vms.dto.VisitorResponseDTO;
+import com.example.vms.mapper.VisitorMapper;
+import com.example.vms.model.Role;
+import com.example.vms.model.Staff;
+import com.example.vms.model.User;
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mapping a page of visitors to DTOs must cost the same number of statements
+ * whatever the page size: the host and its login come with the page query,
+ * never one lazy select per row.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class VisitorFetchPlanTests {
+
+    private final VisitorMapper mapper = Mappers.getMapper(VisitorMapper.class);
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private Statistics statistics;
+    private final LocalDateTime base = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        for (int s = 0; s < 4; s++) {
+            User user = em.persist(User.builder()
+                    .username("host" + s).email("host" + s + "@example.com").password("x").role(Role.ROLE_STAFF).build());
+            Staff staff = em.persist(Staff.builder().user(user).staffCode("S" + s).build());
+            for (int i = 0; i < 20; i++) {
+                em.persist(Visitor.builder()
+                        .name("v" + s + "-" + i).email("v" + s + "-" + i + "@example.com")
+                        .staff(staff).entryTime(base.plusMinutes(s * 20 + i)).status(VisitorStatus.ACTIVE)
+                        .build());
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics = em.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // page query + count query, nothing per row
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20, 50})
+    void pagedListingsCostTwoStatementsForAnyPageSize(int size) {
+        PageRequest page = PageRequest.of(0, size, Sort.by("entryTime").descending());
+
+        assertThat(statements(() -> mapped(visitorRepository.findAll(page).getContent()))).isEqualTo(2);
+        assertThat(statements(() -> mapped(visitorRepository.findByStatus(VisitorStatus.ACTIVE, page).getContent())))
+                .isEqualTo(2);
+        assertThat(statements(() -> mapped(visitorRepository.findTodayVisitors(base, base.plusDays(1), page).getContent())))
+                .isEqualTo(2);
+        assertThat(statements(() -> mapped(visitorRepository.findBy(
+                VisitorSpecs.advancedSearch(null, null, null, "host", null, null, null),
+                q -> q.project("staff", "staff.user").page(page)).getContent())))
+                .isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20, 50})
+    void keysetSlicesCostOneStatementForAnySliceSize(int size) {
+        assertThat(statements(() -> mapped(visitorRepository.findBy(
+                VisitorSpecs.hasStatus(VisitorStatus.ACTIVE),
+                q -> q.sortBy(Sort.by(Sort.Order.desc("entryTime"), Sort.Order.desc("id")))
+                        .project("staff", "staff.user")
+                        .limit(size)
+                        .all()))))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void listsAndSingleLookupsFetchTheHostWithTheVisitor() {
+        assertThat(statements(() -> mapped(visitorRepository.findByDateRange(base, base.plusDays(1))))).isEqualTo(1);
+        assertThat(statements(() -> mapped(visitorRepository.findActiveVisitorsBefore(base.plusDays(1))))).isEqualTo(1);
+
+        Long id = visitorRepository.findAll().get(0).getId();
+        em.clear();
+        assertThat(statements(() -> mapped(List.of(visitorRepository.findById(id).orElseThrow())))).isEqualTo(1);
+    }
+
+    private long statements(Supplier<List<VisitorResponseDTO>> work) {
+        em.clear();
+        statistics.clear();
+        List<VisitorResponseDTO> rows = work.get();
+        assertThat(rows).isNotEmpty().allSatisfy(dto -> assertThat(dto.getStaffUsername()).startsWith("host"));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<VisitorResponseDTO> mapped(List<Visitor> visitors) {
+        return mapper.toResponseList(visitors);
+    }
+}
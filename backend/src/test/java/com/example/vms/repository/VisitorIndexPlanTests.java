@@ -0,0 +1,234 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the SQL Hibernate generates for the hot repository queries through
+ * EXPLAIN on the Flyway-migrated schema and fails when any of them reads the
+ * visitors, visit_logs or checkin_outbox table without an index.
+ * Keyword searches (LIKE '%x%') cannot use a b-tree and are left out on purpose.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.vms.repository.VisitorIndexPlanTests$CapturingInspector")
+class VisitorIndexPlanTests {
+
+    private static final Pattern FULL_SCAN =
+            Pattern.compile("(visitors|visit_logs|checkin_outbox)\\.tableScan", Pattern.CASE_INSENSITIVE);
+
+    private static final List<String> captured = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private CheckinOutboxRepository outboxRepository;
+
+    @Autowired
+    private VisitLogRepository visitLogRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 6, 1, 12, 0);
+    private final LocalDateTime dayStart = now.toLocalDate().atStartOfDay();
+    private final LocalDateTime dayEnd = dayStart.plusDays(1).minusNanos(1);
+
+    public static class CapturingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            captured.add(sql);
+            return sql;
+        }
+    }
+
+    // enough rows that the planner's costs resemble a real table rather than an empty one
+    @BeforeEach
+    void seed() {
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> staff = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            users.add(new Object[]{i, "host" + i, "host" + i + "@example.com", "x", "ROLE_STAFF"});
+            staff.add(new Object[]{i, i, "S" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, email, password, role) VALUES (?, ?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO staff (id, user_id, staff_code) VALUES (?, ?, ?)", staff);
+
+        List<Object[]> visitors = new ArrayList<>();
+        List<Object[]> outbox = new ArrayList<>();
+        List<Object[]> logs = new ArrayList<>();
+        VisitorStatus[] statuses = VisitorStatus.values();
+        for (long i = 1; i <= 5_000; i++) {
+            Timestamp entry = Timestamp.valueOf(now.minusMinutes(i * 7));
+            visitors.add(new Object[]{i, 1 + i % 20, "v" + i, "v" + i + "@example.com", entry,
+                    statuses[(int) (i % statuses.length)].name()});
+            outbox.add(new Object[]{i, i, i % 10 == 0 ? "PENDING" : "DONE", entry});
+            logs.add(new Object[]{i, "host" + (1 + i % 20), "ENTERED", entry});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO visitors (id, staff_id, name, email, entry_time, status) VALUES (?, ?, ?, ?, ?, ?)", visitors);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO checkin_outbox (id, visitor_id, status, attempts, next_attempt_at) VALUES (?, ?, ?, 0, ?)", outbox);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO visit_logs (visitor_id, staff_username, action, timestamp) VALUES (?, ?, ?, ?)", logs);
+    }
+
+    @Test
+    void visitorStatusAndTimeQueriesUseAnIndex() {
+        assertIndexed(() -> visitorRepository.findActiveVisitorsBefore(now.minusHours(8)));
+        assertIndexed(() -> visitorRepository.findActiveDeadlineRows());
+        assertIndexed(() -> visitorRepository.findByStatus(VisitorStatus.ACTIVE, PageRequest.of(0, 20)));
+        assertIndexed(() -> visitorRepository.countByStatusAndDateRange(VisitorStatus.EXITED, dayStart, dayEnd));
+        assertIndexed(() -> visitorRepository.lockOverdueCandidates(now.minusHours(8), 0, 1, 100));
+        assertIndexed(() -> visitorRepository.lockOverdueCandidatesExcept(now.minusHours(8), List.of(3L, 4L), 0, 1, 100));
+        assertIndexed(() -> visitorRepository.lockOverdueCandidatesOf(now.minusHours(8), List.of(3L, 4L), 0, 1, 100));
+        assertIndexed(() -> visitorRepository.lockActiveByIds(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void visitorDateRangeQueriesUseAnIndex() {
+        PageRequest page = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "entryTime"));
+        assertIndexed(() -> visitorRepository.findTodayVisitors(dayStart, dayEnd, page));
+        assertIndexed(() -> visitorRepository.findByDateRange(dayStart.minusDays(7), dayEnd));
+        assertIndexed(() -> visitorRepository.countByDateRange(dayStart, dayEnd));
+        assertIndexed(() -> visitorRepository.summarize(dayStart, dayEnd));
+        assertIndexed(() -> visitorRepository.findBy(
+                VisitorSpecs.enteredBetween(dayStart, dayEnd).and(VisitorSpecs.before(now, Long.MAX_VALUE)),
+                q -> q.sortBy(Sort.by(Sort.Order.desc("entryTime"), Sort.Order.desc("id"))).limit(21).all()));
+    }
+
+    // the catch-all (:x IS NULL OR ...) query could not use any of these
+    @Test
+    void advancedSearchWithoutTextFiltersUsesAnIndex() {
+        Sort latest = Sort.by(Sort.Order.desc("entryTime"), Sort.Order.desc("id"));
+        assertIndexed(() -> visitorRepository.findBy(
+                VisitorSpecs.advancedSearch(null, null, null, null, VisitorStatus.EXITED, dayStart, dayEnd)
+                        .and(VisitorSpecs.withHost()).and(VisitorSpecs.orderedBy(latest)),
+                q -> q.page(PageRequest.of(0, 20))));
+        assertIndexed(() -> visitorRepository.findBy(
+                VisitorSpecs.advancedSearch(null, null, null, null, null, dayStart.minusDays(7), null)
+                        .and(VisitorSpecs.withHost()).and(VisitorSpecs.orderedBy(latest)),
+                q -> q.page(PageRequest.of(0, 20))));
+    }
+
+    // the staff filter, the host fetch and a staff sort share one staff/user join
+    @Test
+    void advancedSearchJoinsTheHostOnce() {
+        Sort byHost = Sort.by(Sort.Order.asc("staff.user.username"), Sort.Order.asc("id"));
+        captured.clear();
+
+        Page<Visitor> page = visitorRepository.findBy(
+                VisitorSpecs.advancedSearch(null, null, null, "host1", VisitorStatus.ACTIVE, null, null)
+                        .and(VisitorSpecs.withHost()).and(VisitorSpecs.orderedBy(byHost)),
+                q -> q.page(PageRequest.of(0, 20)));
+
+        // host1, host10..host19, ascending by username then id
+        assertThat(page.getTotalElements()).isGreaterThan(20);
+        assertThat(page.getContent()).extracting(v -> v.getStaff().getUser().getUsername())
+                .isSortedAccordingTo(String::compareTo)
+                .allSatisfy(username -> assertThat(username).startsWith("host1"));
+
+        List<String> selects = captured.stream()
+                .filter(sql -> sql.trim().regionMatches(true, 0, "select", 0, 6))
+                .toList();
+        assertThat(selects).hasSize(2);
+        for (String sql : selects) {
+            assertThat(joins(sql, "staff")).as(sql).isEqualTo(1);
+            assertThat(joins(sql, "users")).as(sql).isEqualTo(1);
+        }
+
+        // without a host filter the count query needs no join at all
+        captured.clear();
+        visitorRepository.findBy(
+                VisitorSpecs.advancedSearch(null, null, null, null, VisitorStatus.ACTIVE, null, null)
+                        .and(VisitorSpecs.withHost()).and(VisitorSpecs.orderedBy(byHost)),
+                q -> q.page(PageRequest.of(0, 20)));
+        String count = captured.stream().filter(sql -> sql.contains("count(")).findFirst().orElseThrow();
+        assertThat(joins(count, "staff")).as(count).isZero();
+    }
+
+    private static int joins(String sql, String table) {
+        return (int) Pattern.compile("join " + table + " ", Pattern.CASE_INSENSITIVE).matcher(sql).results().count();
+    }
+
+    @Test
+    void perStaffQueriesUseAnIndex() {
+        assertIndexed(() -> visitorRepository.countByStaff_IdAndStatus(3L, VisitorStatus.ACTIVE));
+        assertIndexed(() -> visitorRepository.countTodayVisitorsByStaff(3L, dayStart, dayEnd));
+        assertIndexed(() -> visitorRepository.findTodayByStaffAndStatus(
+                "host3", dayStart, dayEnd, VisitorStatus.ACTIVE, PageRequest.of(0, 20)));
+        assertIndexed(() -> visitorRepository.findActiveVisitorsByStaff("host3"));
+    }
+
+    @Test
+    void outboxRelayUsesAnIndex() {
+        assertIndexed(() -> outboxRepository.findDueIds(now, now.minusMinutes(5), PageRequest.of(0, 50)));
+    }
+
+    @Test
+    void visitLogHistoryUsesAnIndex() {
+        Sort newest = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+        assertIndexed(() -> visitLogRepository.findBy(
+                VisitLogSpecs.history(7L, null, null, null, null),
+                q -> q.sortBy(newest).limit(51).all()));
+        assertIndexed(() -> visitLogRepository.findBy(
+                VisitLogSpecs.history(null, "host3", null, dayStart.minusDays(7), dayEnd)
+                        .and(VisitLogSpecs.before(now, Long.MAX_VALUE)),
+                q -> q.sortBy(newest).limit(51).all()));
+        assertIndexed(() -> visitLogRepository.findBy(
+                VisitLogSpecs.history(null, null, "EXITED", dayStart, dayEnd),
+                q -> q.sortBy(newest).limit(51).all()));
+        assertIndexed(() -> visitLogRepository.findBy(
+                VisitLogSpecs.history(null, null, null, dayStart.minusDays(7), dayEnd),
+                q -> q.sortBy(newest).limit(51).all()));
+    }
+
+    private void assertIndexed(Runnable query) {
+        captured.clear();
+        query.run();
+        List<String> statements = captured.stream()
+                .filter(sql -> sql.trim().regionMatches(true, 0, "select", 0, 6))
+                .toList();
+        assertThat(statements).as("captured SQL").isNotEmpty();
+        for (String sql : statements) {
+            assertPlanIndexed(sql, (int) sql.chars().filter(c -> c == '?').count());
+        }
+    }
+
+    private void assertPlanIndexed(String sql, int parameterCount) {
+        String plan = jdbcTemplate.query("EXPLAIN " + sql,
+                ps -> {
+                    for (int i = 1; i <= parameterCount; i++) {
+                        ps.setObject(i, null);
+                    }
+                },
+                rs -> {
+                    StringBuilder out = new StringBuilder();
+                    while (rs.next()) {
+                        out.append(rs.getString(1)).append('\n');
+                    }
+                    return out.toString();
+                });
+        assertThat(FULL_SCAN.matcher(plan).find())
+                .as("full scan in plan for%n%s%n%s", sql, plan)
+                .isFalse();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.Role;
+import com.example.vms.model.Staff;
+import com.example.vms.model.User;
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.service.VisitorCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class VisitorKeysetTests {
+
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Order.desc("entryTime"), Sort.Order.desc("id"));
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private Staff staff;
+    private final LocalDateTime base = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        User user = em.persist(User.builder()
+                .username("host").email("host@example.com").password("x").role(Role.ROLE_STAFF).build());
+        staff = em.persist(Staff.builder().user(user).staffCode("S1").build());
+
+        // 25 visitors, several sharing an entry time so the id tie-breaker matters
+        for (int i = 0; i < 25; i++) {
+            visit("v" + i, base.plusMinutes(i / 3));
+        }
+        em.flush();
+    }
+
+    @Test
+    void slicesCoverEveryRowOnceEvenWithInsertsBetweenSlices() {
+        List<Long> seen = new ArrayList<>();
+        VisitorCursor cursor = null;
+
+        for (int slice = 0; slice < 10; slice++) {
+            Specification<Visitor> spec = VisitorSpecs.hasStatus(VisitorStatus.ACTIVE);
+            if (cursor != null) {
+                spec = spec.and(VisitorSpecs.before(cursor.entryTime(), cursor.id()));
+            }
+            List<Visitor> rows = visitorRepository.findBy(spec, q -> q.sortBy(KEYSET_ORDER).limit(7).all());
+            if (rows.isEmpty()) {
+                break;
+            }
+            rows.forEach(v -> seen.add(v.getId()));
+            Visitor last = rows.get(rows.size() - 1);
+            cursor = VisitorCursor.decode(new VisitorCursor(last.getEntryTime(), last.getId()).encode());
+
+            // a newer check-in must not shift anything into the following slices
+            visit("late" + slice, base.plusHours(1));
+            em.flush();
+        }
+
+        assertThat(seen).hasSize(25).doesNotHaveDuplicates();
+    }
+
+    private void visit(String name, LocalDateTime entryTime) {
+        em.persist(Visitor.builder()
+                .name(name).email(name + "@example.com")
+                .staff(staff).entryTime(entryTime).status(VisitorStatus.ACTIVE)
+                .build());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.vms.repository;
+
+import com.example.vms.model.Role;
+import com.example.vms.model.Staff;
+import com.example.vms.model.User;
+import com.example.vms.model.Visitor;
+import com.example.vms.model.VisitorStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class VisitorSummaryTests {
+
+    private static final VisitorStatus[] STATUSES = VisitorStatus.values();
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private Staff staff;
+    private final LocalDateTime day = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+    // one visitor every 7 minutes across three days, statuses in rotation
+    @BeforeEach
+    void setUp() {
+        User user = em.persist(User.builder()
+                .username("host").email("host@example.com").password("x").role(Role.ROLE_STAFF).build());
+        staff = em.persist(Staff.builder().user(user).staffCode("S1").build());
+
+        for (int i = 0; i < 3 * 24 * 60 / 7; i++) {
+            visit("v" + i, day.minusDays(1).plusMinutes(7L * i), STATUSES[i % STATUSES.length]);
+        }
+        em.flush();
+    }
+
+    @Test
+    void matchesThePerStatusCounts() {
+        // the old counts were BETWEEN (inclusive), so stop one microsecond short of the next window
+        for (LocalDateTime[] window : new LocalDateTime[][]{
+                {day, day.plusDays(1)},
+                {day.minusDays(1), day.plusDays(2)},
+                {day.plusHours(9).plusMinutes(13), day.plusHours(10)},
+                {day.plusDays(5), day.plusDays(6)}}) {
+
+            LocalDateTime from = window[0];
+            LocalDateTime to = window[1];
+            LocalDateTime last = to.minusNanos(1000);
+
+            VisitorSummary summary = visitorRepository.summarize(from, to);
+
+            assertThat(summary.total()).isEqualTo(visitorRepository.countByDateRange(from, last));
+            assertThat(summary.active())
+                    .isEqualTo(visitorRepository.countByStatusAndDateRange(VisitorStatus.ACTIVE, from, last));
+            assertThat(summary.exited())
+                    .isEqualTo(visitorRepository.countByStatusAndDateRange(VisitorStatus.EXITED, from, last));
+            assertThat(summary.overdue())
+                    .isEqualTo(visitorRepository.countByStatusAndDateRange(VisitorStatus.OVERDUE, from, last));
+            assertThat(summary.active() + summary.exited() + summary.overdue()).isEqualTo(summary.total());
+        }
+    }
+
+    @Test
+    void excludesTheEndOfTheWindowAndCountsNothingForAnEmptyOne() {
+        visit("at-midnight", day.plusDays(1), VisitorStatus.ACTIVE);
+        em.flush();
+
+        VisitorSummary today = visitorRepository.summarize(day, day.plusDays(1));
+        VisitorSummary tomorrow = visitorRepository.summarize(day.plusDays(1), day.plusDays(2));
+
+        assertThat(tomorrow.total()).isEqualTo(visitorRepository.countByDateRange(day.plusDays(1), day.plusDays(2).minusNanos(1000)));
+        assertThat(today.total() + tomorrow.total())
+                .isEqualTo(visitorRepository.countByDateRange(day, day.plusDays(2).minusNanos(1000)));
+        assertThat(visitorRepository.summarize(day.plusDays(5), day.plusDays(6)))
+                .isEqualTo(new VisitorSummary(0, 0, 0, 0));
+    }
+
+    private void visit(String name, LocalDateTime entryTime, VisitorStatus status) {
+        em.persist(Visitor.builder()
+                .name(name).email(name + "@example.com")
+                .staff(staff).entryTime(entryTime).status(status)
+                .build());
+    }
+}
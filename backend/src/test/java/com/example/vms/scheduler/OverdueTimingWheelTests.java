@@ -0,0 +1,188 @@
+package com.example.vms.scheduler;
+
+import com.example.vms.cache.ActiveVisitor;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.event.VisitorsOverdueEvent;
+import com.example.vms.model.DeliveryStatus;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorRepository;
+import com.example.vms.service.OverdueService;
+import com.example.vms.service.StayPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class OverdueTimingWheelTests {
+
+    private static final long START = 1_700_000_123L;
+    private static final int STAY_MINUTES = 60;
+
+    private final VisitorRepository visitorRepository = mock(VisitorRepository.class);
+    private final OverdueService overdueService = mock(OverdueService.class);
+    private final StayPolicy stayPolicy = mock(StayPolicy.class);
+
+    private OverdueTimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        when(stayPolicy.minutesForStaff(anyLong())).thenReturn(STAY_MINUTES);
+        when(stayPolicy.minutesForStaff(2L)).thenReturn(10);
+
+        wheel = new OverdueTimingWheel();
+        ReflectionTestUtils.setField(wheel, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(wheel, "overdueService", overdueService);
+        ReflectionTestUtils.setField(wheel, "stayPolicy", stayPolicy);
+        ReflectionTestUtils.setField(wheel, "enabled", true);
+        at(START);
+    }
+
+    @Test
+    void marksCheckedInVisitorsOverdueAtTheirHostsDeadline() {
+        rebuildWith();
+        wheel.onCheckedIn(checkedIn(visitor(1, 1, START), visitor(2, 2, START)));
+        assertThat(wheel.pending()).isEqualTo(2);
+
+        tickAt(START + 10 * 60 - 1);
+        verifyNoInteractions(overdueService);
+
+        tickAt(START + 10 * 60);
+        assertThat(fired()).containsExactly(2L);
+
+        tickAt(START + STAY_MINUTES * 60);
+        assertThat(fired()).containsExactly(1L);
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void exitsAndOverdueSweepsCancelPendingDeadlines() {
+        rebuildWith();
+        wheel.onCheckedIn(checkedIn(visitor(1, 1, START), visitor(2, 1, START), visitor(3, 1, START)));
+
+        wheel.onExited(new VisitorExitedEvent(1L, time(START), VisitorStatus.ACTIVE));
+        wheel.onOverdue(new VisitorsOverdueEvent(List.of(2L)));
+
+        tickAt(START + STAY_MINUTES * 60);
+        assertThat(fired()).containsExactly(3L);
+    }
+
+    @Test
+    void visitorsAlreadyPastTheirDeadlineFireOnTheNextTick() {
+        rebuildWith(row(4, 1, START - 2 * 3600));
+        wheel.onCheckedIn(checkedIn(visitor(5, 1, START - 3 * 3600)));
+        assertThat(wheel.pending()).isZero();
+
+        tickAt(START + 1);
+        assertThat(fired()).containsExactlyInAnyOrder(4L, 5L);
+    }
+
+    @Test
+    void rebuildKeepsCheckInsAndExitsThatLandDuringTheRead() {
+        rebuildWith(row(1, 1, START), row(2, 1, START));
+
+        // the DB read returns 1 and 2; meanwhile 3 checks in and 1 exits
+        when(visitorRepository.findActiveDeadlineRows()).thenAnswer(inv -> {
+            wheel.onCheckedIn(checkedIn(visitor(3, 1, START + 5)));
+            wheel.onExited(new VisitorExitedEvent(1L, time(START), VisitorStatus.ACTIVE));
+            return rows(row(1, 1, START), row(2, 1, START));
+        });
+        wheel.rebuild();
+        assertThat(wheel.pending()).isEqualTo(2);
+
+        tickAt(START + STAY_MINUTES * 60 + 5);
+        assertThat(fired()).containsExactly(2L, 3L);
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void rebuildAddsToVisitorsAlreadyWaitingToFire() {
+        rebuildWith();
+        wheel.onCheckedIn(checkedIn(visitor(4, 1, START - 2 * 3600)));
+
+        rebuildWith(row(5, 1, START - 2 * 3600));
+
+        tickAt(START + 1);
+        assertThat(fired()).containsExactlyInAnyOrder(4L, 5L);
+    }
+
+    @Test
+    void rebuildPicksUpChangedStayLimits() {
+        rebuildWith(row(1, 1, START));
+        when(stayPolicy.minutesForStaff(1L)).thenReturn(5);
+
+        rebuildWith(row(1, 1, START));
+
+        tickAt(START + 5 * 60);
+        assertThat(fired()).containsExactly(1L);
+    }
+
+    @Test
+    void aFailedMarkDoesNotStopTheWheel() {
+        rebuildWith();
+        wheel.onCheckedIn(checkedIn(visitor(1, 2, START), visitor(2, 1, START)));
+        when(overdueService.markOverdue(anyCollection())).thenThrow(new RuntimeException("db down"));
+
+        tickAt(START + 10 * 60);
+
+        reset(overdueService);
+        tickAt(START + STAY_MINUTES * 60);
+        assertThat(fired()).containsExactly(2L);
+    }
+
+    private void at(long second) {
+        ReflectionTestUtils.setField(wheel, "clock", Clock.fixed(Instant.ofEpochSecond(second), ZoneId.systemDefault()));
+    }
+
+    private void tickAt(long second) {
+        at(second);
+        wheel.tick();
+    }
+
+    private void rebuildWith(Object[]... rows) {
+        when(visitorRepository.findActiveDeadlineRows()).thenReturn(rows(rows));
+        wheel.rebuild();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> fired() {
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(overdueService).markOverdue(captor.capture());
+        clearInvocations(overdueService);
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static Object[] row(long id, long staffId, long entrySecond) {
+        return new Object[]{id, staffId, time(entrySecond)};
+    }
+
+    private static VisitorCheckedInEvent checkedIn(ActiveVisitor... visitors) {
+        return new VisitorCheckedInEvent(List.of(visitors));
+    }
+
+    private static ActiveVisitor visitor(long id, long staffId, long entrySecond) {
+        return new ActiveVisitor(id, "Visitor " + id, null, null, "Meeting", staffId, "host" + staffId,
+                time(entrySecond), VisitorStatus.ACTIVE, null, DeliveryStatus.PENDING);
+    }
+
+    private static LocalDateTime time(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+}
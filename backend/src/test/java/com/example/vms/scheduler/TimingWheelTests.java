@@ -0,0 +1,113 @@
+package com.example.vms.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTests {
+
+    // deliberately not aligned to any level boundary
+    private static final long START = 1_700_000_123L;
+
+    @Test
+    void firesEachDeadlineAtExactlyItsSecond() {
+        TimingWheel wheel = new TimingWheel(START);
+        // level 0, level 1, level 2, level 3 and parked beyond the top level
+        long[] offsets = {1, 63, 64, 65, 4_095, 4_096, 262_143, 262_144, 16_777_215, 16_777_216, 40_000_000};
+        for (int i = 0; i < offsets.length; i++) {
+            assertThat(wheel.schedule(i, START + offsets[i])).isFalse();
+        }
+        assertThat(wheel.size()).isEqualTo(offsets.length);
+
+        for (int i = 0; i < offsets.length; i++) {
+            assertThat(wheel.advanceTo(START + offsets[i] - 1)).as("before offset %d", offsets[i]).isEmpty();
+            assertThat(wheel.advanceTo(START + offsets[i])).as("at offset %d", offsets[i]).containsExactly((long) i);
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void matchesANaiveScheduleWhenTickedOneSecondAtATime() {
+        Random random = new Random(11);
+        TimingWheel wheel = new TimingWheel(START);
+        long[] deadlines = new long[2_000];
+        for (int id = 0; id < deadlines.length; id++) {
+            deadlines[id] = START + 1 + random.nextInt(20_000);
+            wheel.schedule(id, deadlines[id]);
+        }
+        // cancel and re-schedule a few along the way
+        for (int id = 0; id < deadlines.length; id += 7) {
+            wheel.cancel(id);
+            deadlines[id] = -1;
+        }
+        for (int id = 3; id < deadlines.length; id += 13) {
+            if (deadlines[id] > 0) {
+                deadlines[id] = START + 1 + random.nextInt(20_000);
+                wheel.schedule(id, deadlines[id]);
+            }
+        }
+
+        for (long second = START + 1; second <= START + 20_000; second++) {
+            List<Long> expected = new ArrayList<>();
+            for (int id = 0; id < deadlines.length; id++) {
+                if (deadlines[id] == second) {
+                    expected.add((long) id);
+                }
+            }
+            assertThat(wheel.advanceTo(second)).as("second %d", second).containsExactlyInAnyOrderElementsOf(expected);
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledTimersNeverFire() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.schedule(1, START + 10);
+        wheel.schedule(2, START + 5_000);
+
+        assertThat(wheel.cancel(1)).isTrue();
+        assertThat(wheel.cancel(2)).isTrue();
+        assertThat(wheel.cancel(2)).isFalse();
+
+        assertThat(wheel.advanceTo(START + 10_000)).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rescheduleReplacesThePreviousDeadline() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.schedule(1, START + 10);
+        wheel.schedule(1, START + 100);
+
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advanceTo(START + 99)).isEmpty();
+        assertThat(wheel.advanceTo(START + 100)).containsExactly(1L);
+    }
+
+    @Test
+    void alreadyDueDeadlinesAreReturnedNotStored() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.schedule(1, START + 10);
+
+        assertThat(wheel.schedule(1, START)).isTrue();
+        assertThat(wheel.schedule(2, START - 3_600)).isTrue();
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advanceTo(START + 10)).isEmpty();
+    }
+
+    @Test
+    void aLateAdvanceFiresEverythingThatPassed() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.schedule(1, START + 30);
+        wheel.schedule(2, START + 3_000);
+        wheel.schedule(3, START + 300_000);
+
+        assertThat(wheel.advanceTo(START + 3_000)).containsExactly(1L, 2L);
+        assertThat(wheel.currentSecond()).isEqualTo(START + 3_000);
+        assertThat(wheel.advanceTo(START + 400_000)).containsExactly(3L);
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.vms.search;
+
+import com.example.vms.model.VisitorStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTests {
+
+    private static final String[] SYLLABLES = {"an", "ja", "ne", "ro", "mi", "ka", "li", "so", "ta", "vé"};
+    private static final String[] DOMAINS = {"gmail.com", "example.org", "corp.io"};
+    private static final String[] HOSTS = {"alice", "bob", "carol", "dave"};
+
+    private final Random random = new Random(42);
+    private final List<Doc> docs = new ArrayList<>();
+    private TrigramIndex index;
+
+    private record Doc(long id, String name, String email, String phone, long staffId,
+                       LocalDateTime entryTime, VisitorStatus status) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex(16);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+        VisitorStatus[] statuses = VisitorStatus.values();
+        for (int i = 0; i < 3_000; i++) {
+            String name = word(2) + " " + word(3);
+            String email = word(2).replace("é", "e") + i + "@" + DOMAINS[i % DOMAINS.length];
+            String phone = String.format("+1 (%03d) %03d-%04d", random.nextInt(1000), random.nextInt(1000), i);
+            long staffId = 1 + i % HOSTS.length;
+            Doc doc = new Doc(10_000 + i * 7L, name, email, phone, staffId,
+                    base.plusMinutes(random.nextInt(60 * 24 * 30)), statuses[i % statuses.length]);
+            docs.add(doc);
+            index.upsert(doc.id(), doc.name(), doc.email(), doc.phone(), doc.staffId(),
+                    HOSTS[(int) staffId - 1], doc.entryTime(), doc.status());
+        }
+    }
+
+    @Test
+    void keywordSearchFindsExactlyWhatLikeFinds() {
+        for (int i = 0; i < 300; i++) {
+            String keyword = randomQuery();
+            Set<Long> expected = naive(d -> contains(d.name(), keyword) || contains(d.email(), keyword)
+                    || phoneContains(d.phone(), keyword));
+
+            TrigramIndex.Result result = index.find(VisitorSearchQuery.keyword(keyword), SearchOrder.RELEVANCE, 0, docs.size());
+
+            assertThat(result.total()).as("total for '%s'", keyword).isEqualTo(expected.size());
+            assertThat(ids(result.ids())).as("ids for '%s'", keyword).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void fieldFiltersAreCombinedWithAnd() {
+        LocalDateTime from = LocalDateTime.of(2025, 1, 10, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 1, 20, 23, 59, 59);
+        for (int i = 0; i < 200; i++) {
+            String name = randomPiece(docs.get(random.nextInt(docs.size())).name());
+            String email = i % 2 == 0 ? "gmail" : null;
+            VisitorStatus status = i % 3 == 0 ? VisitorStatus.EXITED : null;
+            String staff = i % 4 == 0 ? "AR" : null;
+
+            Set<Long> expected = naive(d -> contains(d.name(), name)
+                    && (email == null || contains(d.email(), email))
+                    && (status == null || d.status() == status)
+                    && (staff == null || HOSTS[(int) d.staffId() - 1].contains("ar"))
+                    && !d.entryTime().isBefore(from) && !d.entryTime().isAfter(to));
+
+            TrigramIndex.Result result = index.find(
+                    VisitorSearchQuery.fields(name, email, null, staff, status, from, to),
+                    SearchOrder.NEWEST, 0, docs.size());
+
+            assertThat(ids(result.ids())).as("name '%s'", name).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void phoneMatchesOnDigitsWhateverTheFormatting() {
+        Doc doc = docs.get(123);
+        String digits = doc.phone().replaceAll("\\D", "");
+        String formatted = digits.substring(1, 4) + "-" + digits.substring(4, 7);
+
+        TrigramIndex.Result result = index.find(
+                VisitorSearchQuery.fields(null, null, formatted, null, null, null, null), SearchOrder.NEWEST, 0, 50);
+
+        assertThat(ids(result.ids())).contains(doc.id());
+    }
+
+    @Test
+    void exactAndPrefixMatchesRankBeforeInfixMatches() {
+        index.upsert(1, "Mira", "m@x.io", null, 1, "alice", LocalDateTime.now(), VisitorStatus.ACTIVE);
+        index.upsert(2, "Miranda Lee", "ml@x.io", null, 1, "alice", LocalDateTime.now(), VisitorStatus.ACTIVE);
+        index.upsert(3, "Kasimira", "k@x.io", null, 1, "alice", LocalDateTime.now(), VisitorStatus.ACTIVE);
+
+        TrigramIndex.Result result = index.find(VisitorSearchQuery.keyword("mira"), SearchOrder.RELEVANCE, 0, 3);
+
+        assertThat(result.ids()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void statusOnlyMovesForwardAndRemovedVisitorsDisappear() {
+        index.upsert(1, "Zed Quux", "zq@x.io", null, 1, "alice", LocalDateTime.now(), VisitorStatus.ACTIVE);
+        index.advanceStatus(1, VisitorStatus.EXITED);
+        // a late, stale copy of the row must not bring it back to ACTIVE
+        index.upsert(1, "Zed Quux", "zq@x.io", null, 1, "alice", LocalDateTime.now(), VisitorStatus.ACTIVE);
+
+        assertThat(index.find(VisitorSearchQuery.fields("quux", null, null, null, VisitorStatus.EXITED, null, null),
+                SearchOrder.NEWEST, 0, 10).ids()).containsExactly(1);
+
+        index.remove(1);
+        assertThat(index.find(VisitorSearchQuery.keyword("quux"), SearchOrder.NEWEST, 0, 10).total()).isZero();
+    }
+
+    @Test
+    void scrollingWalksAllMatchesNewestFirst() {
+        VisitorSearchQuery query = VisitorSearchQuery.keyword("gmail");
+        long expected = naive(d -> contains(d.email(), "gmail")).size();
+
+        List<Long> seen = new ArrayList<>();
+        LocalDateTime cursorTime = null;
+        long cursorId = 0;
+        while (true) {
+            long[] slice = index.scroll(query, cursorTime, cursorId, 97);
+            if (slice.length == 0) {
+                break;
+            }
+            for (long id : slice) {
+                seen.add(id);
+            }
+            Doc last = docs.stream().filter(d -> d.id() == slice[slice.length - 1]).findFirst().orElseThrow();
+            cursorTime = last.entryTime();
+            cursorId = last.id();
+        }
+
+        assertThat(seen).hasSize((int) expected).doesNotHaveDuplicates();
+        List<LocalDateTime> times = seen.stream()
+                .map(id -> docs.stream().filter(d -> d.id() == id).findFirst().orElseThrow().entryTime())
+                .toList();
+        assertThat(times).isSortedAccordingTo((a, b) -> b.compareTo(a));
+    }
+
+    private String word(int syllables) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            out.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return Character.toUpperCase(out.charAt(0)) + out.substring(1);
+    }
+
+    private String randomQuery() {
+        Doc doc = docs.get(random.nextInt(docs.size()));
+        return switch (random.nextInt(4)) {
+            case 0 -> randomPiece(doc.name()).toUpperCase(Locale.ROOT);
+            case 1 -> randomPiece(doc.email());
+            case 2 -> randomPiece(doc.phone().replaceAll("\\D", ""));
+            default -> word(1 + random.nextInt(2));
+        };
+    }
+
+    private String randomPiece(String s) {
+        int length = 1 + random.nextInt(Math.min(6, s.length()));
+        int start = random.nextInt(s.length() - length + 1);
+        return s.substring(start, start + length).trim().isEmpty() ? s.substring(0, 1) : s.substring(start, start + length);
+    }
+
+    private Set<Long> naive(Predicate<Doc> predicate) {
+        Set<Long> out = new HashSet<>();
+        for (Doc d : docs) {
+            if (predicate.test(d)) {
+                out.add(d.id());
+            }
+        }
+        return out;
+    }
+
+    private static boolean contains(String field, String keyword) {
+        return field.toLowerCase(Locale.ROOT).contains(keyword.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean phoneContains(String phone, String keyword) {
+        String query = TrigramIndex.phoneQuery(keyword);
+        return query != null && phone.replaceAll("\\D", "").contains(query);
+    }
+
+    private static Set<Long> ids(long[] ids) {
+        Set<Long> out = new HashSet<>();
+        for (long id : ids) {
+            out.add(id);
+        }
+        return out;
+    }
+}
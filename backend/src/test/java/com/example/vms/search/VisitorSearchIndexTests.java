@@ -0,0 +1,121 @@
+package com.example.vms.search;
+
+import com.example.vms.dto.VisitorResponseDTO;
+import com.example.vms.mapper.VisitorMapperImpl;
+import com.example.vms.model.VisitLog;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorRepository;
+import com.example.vms.service.VisitorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * search and advancedSearch answered by the index built from the real
+ * tables, hydrated from the DB, and kept in step with another node's writes
+ * (made straight to the tables here) by syncRecent.
+ */
+@DataJpaTest
+class VisitorSearchIndexTests {
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime base = LocalDateTime.now().minusHours(6);
+
+    private VisitorSearchIndex index;
+    private VisitorService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (1, 'host1', 'h1@x.io', 'x', 'ROLE_STAFF')");
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (2, 'host2', 'h2@x.io', 'x', 'ROLE_STAFF')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (1, 1, 'S1')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (2, 2, 'S2')");
+        insert(1, "Alice Martin", 1, 0, VisitorStatus.EXITED);
+        insert(2, "Alina Brown", 2, 30, VisitorStatus.ACTIVE);
+        insert(3, "Bob Stone", 1, 60, VisitorStatus.ACTIVE);
+        insert(4, "Malik Ali", 1, 90, VisitorStatus.ACTIVE);
+
+        index = new VisitorSearchIndex();
+        ReflectionTestUtils.setField(index, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(index, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "syncOverlapMs", 120_000L);
+        index.rebuild();
+        assertThat(index.isReady()).isTrue();
+
+        service = new VisitorService();
+        ReflectionTestUtils.setField(service, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(service, "visitorSearchIndex", index);
+        ReflectionTestUtils.setField(service, "visitorMapper", new VisitorMapperImpl());
+    }
+
+    @Test
+    void keywordSearchRanksPrefixMatchesFirstThenNewest() {
+        Page<VisitorResponseDTO> page = service.search("ali", 0, 10);
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(VisitorResponseDTO::getName)
+                .containsExactly("Alina Brown", "Alice Martin", "Malik Ali");
+        assertThat(page.getContent()).allSatisfy(v -> assertThat(v.getStaffUsername()).isNotNull());
+    }
+
+    @Test
+    void advancedSearchFiltersByTextHostAndStatus() {
+        Page<VisitorResponseDTO> page = service.advancedSearch(
+                "ali", null, null, "host1", VisitorStatus.ACTIVE, null, null, 0, 10, "entryTime");
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(VisitorResponseDTO::getId).containsExactly(4L);
+
+        assertThat(service.advancedSearch("ali", null, null, null, null, null, null, 0, 2, "name,asc").getContent())
+                .extracting(VisitorResponseDTO::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void syncPicksUpAnotherNodesCheckInsExitsAndOverdueMarks() {
+        LocalDateTime now = LocalDateTime.now();
+        insert(5, "Alison Gray", 2, 6 * 60, VisitorStatus.ACTIVE);
+        jdbcTemplate.update("UPDATE visitors SET status = 'EXITED', exit_time = ? WHERE id = 2", Timestamp.valueOf(now));
+        jdbcTemplate.update("UPDATE visitors SET status = 'OVERDUE' WHERE id = 4");
+        jdbcTemplate.update("INSERT INTO visit_logs (visitor_id, staff_username, action, timestamp) VALUES (4, 'host1', ?, ?)",
+                VisitLog.OVERDUE, Timestamp.valueOf(now));
+
+        assertThat(index.syncRecent()).isEqualTo(3);
+
+        assertThat(ids(VisitorStatus.ACTIVE)).containsExactly(5L);
+        assertThat(ids(VisitorStatus.OVERDUE)).containsExactly(4L);
+        assertThat(ids(VisitorStatus.EXITED)).containsExactly(2L, 1L);
+    }
+
+    private List<Long> ids(VisitorStatus status) {
+        Page<VisitorResponseDTO> page = service.advancedSearch(
+                "ali", null, null, null, status, null, null, 0, 10, "entryTime");
+        assertThat(page.getContent()).allSatisfy(v -> assertThat(v.getStatus()).isEqualTo(status.name()));
+        return page.getContent().stream().map(VisitorResponseDTO::getId).toList();
+    }
+
+    private void insert(long id, String name, long staffId, int entryMinute, VisitorStatus status) {
+        jdbcTemplate.update("INSERT INTO visitors (id, staff_id, name, email, phone, entry_time, status) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, staffId, name, "v" + id + "@x.io", "555000" + id,
+                Timestamp.valueOf(base.plusMinutes(entryMinute)), status.name());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.vms.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTests {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test-secret-test-secret-0123";
+
+    @Test
+    void verifiesOnceAndServesRepeatsFromTheCache() {
+        JwtUtil jwt = jwtUtil(SECRET, 60_000, 100);
+        String token = jwt.generateToken("guard1", "ROLE_SECURITY");
+
+        JwtUtil.VerifiedToken first = jwt.verify(token);
+        assertThat(first.username()).isEqualTo("guard1");
+        assertThat(first.authorities()).containsExactly("ROLE_SECURITY");
+
+        assertThat(jwt.verify(token)).isSameAs(first);
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKeyOrTampered() {
+        JwtUtil jwt = jwtUtil(SECRET, 60_000, 100);
+        String foreign = jwtUtil(SECRET.replace('0', '9'), 60_000, 100).generateToken("admin", "ROLE_ADMIN");
+        String token = jwt.generateToken("guard1", "ROLE_SECURITY");
+        jwt.verify(token);
+
+        assertThat(jwt.verify(foreign)).isNull();
+        assertThat(jwt.verify(token.substring(0, token.length() - 2) + "AA")).isNull();
+        assertThat(jwt.verify("not-a-jwt")).isNull();
+    }
+
+    @Test
+    void cachedTokensStillExpire() throws InterruptedException {
+        JwtUtil jwt = jwtUtil(SECRET, 1_000, 100);
+        String token = jwt.generateToken("guard1", "ROLE_SECURITY");
+        assertThat(jwt.verify(token)).isNotNull();
+
+        Thread.sleep(1_100);
+
+        assertThat(jwt.verify(token)).isNull();
+    }
+
+    @Test
+    void aFullCacheKeepsAcceptingValidTokens() {
+        JwtUtil jwt = jwtUtil(SECRET, 60_000, 2);
+        for (int i = 0; i < 5; i++) {
+            String token = jwt.generateToken("user" + i, "ROLE_STAFF");
+            assertThat(jwt.verify(token).username()).isEqualTo("user" + i);
+        }
+    }
+
+    private static JwtUtil jwtUtil(String secret, long expirationMs, int cacheSize) {
+        JwtUtil jwt = new JwtUtil();
+        ReflectionTestUtils.setField(jwt, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwt, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(jwt, "cacheSize", cacheSize);
+        jwt.init();
+        return jwt;
+    }
+}
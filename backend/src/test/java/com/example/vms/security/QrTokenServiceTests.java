@@ -0,0 +1,165 @@
+package com.example.vms.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QrTokenServiceTests {
+
+    private static final long HOUR = 3600;
+
+    @Test
+    void roundTripsIdsAndWindow() throws Exception {
+        QrTokenService qr = qrTokenService("qr-secret", false);
+        long now = now();
+        String token = qr.issue(300_000_000_000L, 42L, now - HOUR, now + HOUR);
+
+        assertThat(token).startsWith(QrTokenService.PREFIX);
+        assertThat(qr.verify(token))
+                .isEqualTo(new QrTokenService.QrToken(300_000_000_000L, 42L, now - HOUR, now + HOUR));
+        assertThat(qr.resolveVisitorId(token)).isEqualTo(300_000_000_000L);
+    }
+
+    @Test
+    void rejectsTamperedOrForeignSignatures() throws Exception {
+        QrTokenService qr = qrTokenService("qr-secret", false);
+        long now = now();
+        byte[] raw = decode(qr.issue(7L, 1L, now - HOUR, now + HOUR));
+
+        byte[] flippedMac = raw.clone();
+        flippedMac[raw.length - 1] ^= 1;
+        assertThatThrownBy(() -> qr.verify(encode(flippedMac))).hasMessage("Invalid QR signature");
+
+        // bump the visitor id, keep the old MAC
+        byte[] otherVisitor = raw.clone();
+        otherVisitor[1]++;
+        assertThatThrownBy(() -> qr.verify(encode(otherVisitor))).hasMessage("Invalid QR signature");
+
+        String foreign = qrTokenService("other-secret", false).issue(7L, 1L, now - HOUR, now + HOUR);
+        assertThatThrownBy(() -> qr.verify(foreign)).hasMessage("Invalid QR signature");
+    }
+
+    @Test
+    void rejectsTruncatedAndGarbledPayloads() throws Exception {
+        QrTokenService qr = qrTokenService("qr-secret", false);
+        long now = now();
+        String token = qr.issue(7L, 1L, now - HOUR, now + HOUR);
+        byte[] raw = decode(token);
+
+        assertThatThrownBy(() -> qr.verify(QrTokenService.PREFIX)).hasMessage("Invalid QR data");
+        assertThatThrownBy(() -> qr.verify(QrTokenService.PREFIX + "not base64!")).hasMessage("Invalid QR data");
+        assertThatThrownBy(() -> qr.verify(encode(Arrays.copyOf(raw, 10)))).hasMessage("Invalid QR data");
+        assertThatThrownBy(() -> qr.verify(token.substring(0, token.length() - 3)))
+                .isInstanceOf(RuntimeException.class);
+
+        byte[] wrongVersion = raw.clone();
+        wrongVersion[0] = 2;
+        assertThatThrownBy(() -> qr.verify(encode(wrongVersion))).hasMessage("Invalid QR data");
+
+        assertThatThrownBy(() -> qr.resolveVisitorId("hello")).hasMessage("Invalid QR format");
+        assertThatThrownBy(() -> qr.resolveVisitorId(null)).hasMessage("Invalid QR format");
+    }
+
+    @Test
+    void expiredPassesOnlyResolveForVisitorsStillOnSite() throws Exception {
+        QrTokenService qr = qrTokenService("qr-secret", false);
+        long now = now();
+        String expired = qr.issue(7L, 1L, now - 30 * HOUR, now - 6 * HOUR);
+
+        assertThatThrownBy(() -> qr.verify(expired)).hasMessage("QR pass expired");
+        assertThatThrownBy(() -> qr.resolveVisitorId(expired)).hasMessage("QR pass expired");
+        assertThatThrownBy(() -> qr.resolveVisitorId(expired, id -> false)).hasMessage("QR pass expired");
+
+        // an OVERDUE visitor who stayed past the window can still be scanned out
+        assertThat(qr.resolveVisitorId(expired, id -> id == 7L)).isEqualTo(7L);
+    }
+
+    @Test
+    void onSiteCheckIsNeverAskedForForgedPasses() throws Exception {
+        QrTokenService qr = qrTokenService("qr-secret", false);
+        long now = now();
+        String foreign = qrTokenService("other-secret", false).issue(7L, 1L, now - 30 * HOUR, now - 6 * HOUR);
+
+        assertThatThrownBy(() -> qr.resolveVisitorId(foreign, id -> {
+            throw new AssertionError("looked up visitor " + id);
+        })).hasMessage("Invalid QR signature");
+    }
+
+    @Test
+    void toleratesClockSkewOnValidFrom() throws Exception {
+        QrTokenService qr = qrTokenService("qr-secret", false);
+        long now = now();
+
+        String slightlyAhead = qr.issue(7L, 1L, now + 60, now + HOUR);
+        assertThat(qr.verify(slightlyAhead).visitorId()).isEqualTo(7L);
+        assertThat(qr.resolveVisitorId(slightlyAhead)).isEqualTo(7L);
+
+        String farAhead = qr.issue(7L, 1L, now + HOUR, now + 2 * HOUR);
+        assertThatThrownBy(() -> qr.verify(farAhead)).hasMessage("QR pass expired");
+        assertThatThrownBy(() -> qr.resolveVisitorId(farAhead, id -> true)).hasMessage("QR pass not yet valid");
+    }
+
+    @Test
+    void legacyCodesAreAcceptedByDefault() throws Exception {
+        Value acceptLegacy = QrTokenService.class.getDeclaredField("acceptLegacy").getAnnotation(Value.class);
+        assertThat(acceptLegacy.value()).isEqualTo("${app.qr.accept-legacy:true}");
+    }
+
+    @Test
+    void legacyCodesAreRejectedOnceSwitchedOff() throws Exception {
+        QrTokenService qr = qrTokenService("qr-secret", false);
+
+        assertThatThrownBy(() -> qr.resolveVisitorId("VMS_VISITOR:7")).hasMessage("Invalid QR format");
+    }
+
+    @Test
+    void legacyCodesOnlyResolveUpToTheCutover() throws Exception {
+        QrTokenService qr = qrTokenService("qr-secret", true);
+        assertThat(qr.resolveVisitorId("VMS_VISITOR:7")).isEqualTo(7L);
+        assertThatThrownBy(() -> qr.resolveVisitorId("VMS_VISITOR:seven")).hasMessage("Invalid QR data");
+
+        ReflectionTestUtils.setField(qr, "legacyMaxVisitorId", 100L);
+        assertThat(qr.resolveVisitorId("VMS_VISITOR:100")).isEqualTo(100L);
+        assertThatThrownBy(() -> qr.resolveVisitorId("VMS_VISITOR:101")).hasMessage("Invalid QR format");
+    }
+
+    @Test
+    void derivesAKeyFromTheJwtSecretWhenNoQrSecretIsSet() throws Exception {
+        QrTokenService derived = qrTokenService("", false);
+        long now = now();
+        String token = derived.issue(7L, 1L, now - HOUR, now + HOUR);
+
+        assertThat(derived.verify(token).visitorId()).isEqualTo(7L);
+        assertThatThrownBy(() -> qrTokenService("qr-secret", false).verify(token))
+                .hasMessage("Invalid QR signature");
+    }
+
+    private static QrTokenService qrTokenService(String qrSecret, boolean acceptLegacy) throws Exception {
+        QrTokenService qr = new QrTokenService();
+        ReflectionTestUtils.setField(qr, "qrSecret", qrSecret);
+        ReflectionTestUtils.setField(qr, "jwtSecret", "test-secret");
+        ReflectionTestUtils.setField(qr, "validityHours", 24L);
+        ReflectionTestUtils.setField(qr, "acceptLegacy", acceptLegacy);
+        qr.init();
+        return qr;
+    }
+
+    private static long now() {
+        return Instant.now().getEpochSecond();
+    }
+
+    private static byte[] decode(String token) {
+        return Base64.getUrlDecoder().decode(token.substring(QrTokenService.PREFIX.length()));
+    }
+
+    private static String encode(byte[] raw) {
+        return QrTokenService.PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.vms.service;
+
+import com.example.vms.cache.ActiveVisitorRegistry;
+import com.example.vms.dto.ActiveVisitorDTO;
+import com.example.vms.dto.VisitorResponseDTO;
+import com.example.vms.mapper.VisitorMapperImpl;
+import com.example.vms.repository.VisitorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * "Who is inside" lists with a warm registry: check-ins and exits written by
+ * another node (straight to the table here) show up without a reconcile.
+ */
+@DataJpaTest
+class ActiveListingTests {
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime base = LocalDateTime.now().minusHours(3);
+
+    private VisitorService visitorService;
+    private StaffService staffService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (1, 'host1', 'h@x.io', 'x', 'ROLE_STAFF')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (1, 1, 'S1')");
+        insert(1, 0, "ACTIVE");
+        insert(2, 10, "ACTIVE");
+
+        ActiveVisitorRegistry registry = new ActiveVisitorRegistry();
+        ReflectionTestUtils.setField(registry, "visitorRepository", visitorRepository);
+        registry.reconcile();
+        assertThat(registry.isReady()).isTrue();
+
+        visitorService = new VisitorService();
+        ReflectionTestUtils.setField(visitorService, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(visitorService, "activeVisitorRegistry", registry);
+        ReflectionTestUtils.setField(visitorService, "visitorMapper", new VisitorMapperImpl());
+
+        staffService = new StaffService();
+        ReflectionTestUtils.setField(staffService, "visitorRepository", visitorRepository);
+
+        // the other node lets visitor 1 out and checks visitor 3 in
+        jdbcTemplate.update("UPDATE visitors SET status = 'EXITED', exit_time = ? WHERE id = 1",
+                Timestamp.valueOf(LocalDateTime.now()));
+        insert(3, 20, "ACTIVE");
+    }
+
+    @Test
+    void pagedListingSeesTheOtherNodesWrites() {
+        assertThat(visitorService.listActive(0, 10).getContent())
+                .extracting(VisitorResponseDTO::getId).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void keysetListingSeesTheOtherNodesWrites() {
+        assertThat(visitorService.scrollActive(null, 10).getContent())
+                .extracting(VisitorResponseDTO::getId).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void hostListingSeesTheOtherNodesWrites() {
+        assertThat(staffService.getNotExitedVisitors("host1"))
+                .extracting(ActiveVisitorDTO::getId).containsExactly(2L, 3L);
+    }
+
+    private void insert(long id, int entryMinute, String status) {
+        jdbcTemplate.update("INSERT INTO visitors (id, staff_id, name, email, entry_time, status) VALUES (?, 1, ?, ?, ?, ?)",
+                id, "v" + id, "v" + id + "@x.io", Timestamp.valueOf(base.plusMinutes(entryMinute)), status);
+    }
+}
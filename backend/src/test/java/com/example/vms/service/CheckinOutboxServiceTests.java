@@ -0,0 +1,116 @@
+package com.example.vms.service;
+
+import com.example.vms.cache.ActiveVisitorRegistry;
+import com.example.vms.cache.QrImageCache;
+import com.example.vms.model.CheckinOutbox;
+import com.example.vms.model.DeliveryStatus;
+import com.example.vms.model.OutboxStatus;
+import com.example.vms.model.Staff;
+import com.example.vms.model.Visitor;
+import com.example.vms.repository.CheckinOutboxRepository;
+import com.example.vms.repository.VisitorRepository;
+import com.example.vms.security.QrTokenService;
+import com.example.vms.support.FakeJavaMailSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CheckinOutboxServiceTests {
+
+    @TempDir
+    Path qrFolder;
+
+    private final CheckinOutboxRepository outboxRepository = mock(CheckinOutboxRepository.class);
+    private final VisitorRepository visitorRepository = mock(VisitorRepository.class);
+    private final FakeJavaMailSender mailSender = new FakeJavaMailSender();
+
+    private CheckinOutboxService service;
+    private CheckinOutbox row;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        QrTokenService qrTokenService = new QrTokenService();
+        ReflectionTestUtils.setField(qrTokenService, "jwtSecret", "test-secret");
+        ReflectionTestUtils.setField(qrTokenService, "validityHours", 24L);
+        qrTokenService.init();
+
+        QrImageCache qrImageCache = new QrImageCache();
+        ReflectionTestUtils.setField(qrImageCache, "maxBytes", 1_000_000L);
+
+        QrService qrService = new QrService();
+        ReflectionTestUtils.setField(qrService, "qrFolder", qrFolder.toString());
+        ReflectionTestUtils.setField(qrService, "qrTokenService", qrTokenService);
+        ReflectionTestUtils.setField(qrService, "qrImageCache", qrImageCache);
+
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+
+        service = new CheckinOutboxService();
+        ReflectionTestUtils.setField(service, "outboxRepository", outboxRepository);
+        ReflectionTestUtils.setField(service, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(service, "qrService", qrService);
+        ReflectionTestUtils.setField(service, "emailService", emailService);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "activeVisitorRegistry", new ActiveVisitorRegistry());
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+        ReflectionTestUtils.setField(service, "retryBackoffMs", 1000L);
+        ReflectionTestUtils.setField(service, "staleAfterMs", 60000L);
+
+        Visitor visitor = Visitor.builder()
+                .id(7L).name("Asha").email("asha@example.com")
+                .staff(Staff.builder().id(3L).build())
+                .entryTime(LocalDateTime.now())
+                .build();
+        row = CheckinOutbox.builder().id(1L).visitorId(7L).status(OutboxStatus.PROCESSING).attempts(1).build();
+
+        when(outboxRepository.claim(eq(1L), any(), any())).thenReturn(1);
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(row));
+        when(visitorRepository.findById(7L)).thenReturn(Optional.of(visitor));
+    }
+
+    @Test
+    void deliversQrAndMarksVisitorSent() {
+        service.process(1L);
+
+        assertThat(mailSender.getSent()).hasSize(1);
+        verify(outboxRepository).complete(eq(1L), eq(OutboxStatus.DONE), isNull(), isNull());
+        verify(visitorRepository).updateDelivery(eq(7L), eq("/visitors/7/qr"), eq(DeliveryStatus.SENT));
+        // attached from memory, nothing written to the QR folder
+        assertThat(qrFolder.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void smtpFailureIsRescheduledUntilAttemptsRunOut() {
+        mailSender.failNext(2);
+
+        service.process(1L);
+        verify(outboxRepository).complete(eq(1L), eq(OutboxStatus.PENDING), notNull(), contains("Simulated"));
+        verify(visitorRepository).updateDelivery(eq(7L), anyString(), eq(DeliveryStatus.PENDING));
+
+        row.setAttempts(2);
+        service.process(1L);
+        verify(outboxRepository).complete(eq(1L), eq(OutboxStatus.FAILED), isNull(), contains("Simulated"));
+        verify(visitorRepository).updateDelivery(eq(7L), anyString(), eq(DeliveryStatus.FAILED));
+        assertThat(mailSender.getSent()).isEmpty();
+    }
+
+    @Test
+    void skipsRowClaimedByAnotherWorker() {
+        when(outboxRepository.claim(eq(1L), any(), any())).thenReturn(0);
+
+        service.process(1L);
+
+        assertThat(mailSender.getSent()).isEmpty();
+        verify(outboxRepository, never()).complete(anyLong(), any(), any(), any());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.vms.service;
+
+import com.example.vms.repository.SchedulerLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two "nodes" (two LeaseService instances with different owner ids) competing
+ * for the same lease rows in an embedded database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LeaseServiceTests {
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LeaseService nodeA;
+    private LeaseService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        leaseRepository.deleteAll();
+        nodeA = node("node-a", 60_000);
+        nodeB = node("node-b", 60_000);
+    }
+
+    @Test
+    void onlyOneNodeHoldsALease() {
+        Optional<LeaseService.Lease> a = nodeA.tryAcquire("job");
+        Optional<LeaseService.Lease> b = nodeB.tryAcquire("job");
+
+        assertThat(a).isPresent();
+        assertThat(b).isEmpty();
+
+        // renewal keeps the same token
+        assertThat(nodeA.tryAcquire("job")).contains(a.get());
+    }
+
+    @Test
+    void expiredLeaseFailsOverWithNewTokenAndFencesOldOwner() {
+        LeaseService shortA = node("node-a", -1);
+        LeaseService.Lease stale = shortA.tryAcquire("job").orElseThrow();
+
+        LeaseService.Lease fresh = nodeB.tryAcquire("job").orElseThrow();
+        assertThat(fresh.token()).isGreaterThan(stale.token());
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        assertThatThrownBy(() -> tx.executeWithoutResult(s -> shortA.fence(stale)))
+                .hasMessageContaining("Lease lost");
+        tx.executeWithoutResult(s -> nodeB.fence(fresh));
+    }
+
+    @Test
+    void releaseWithHoldBlocksEveryoneUntilItPasses() {
+        LeaseService.Lease lease = nodeA.tryAcquire("job").orElseThrow();
+        nodeA.release(lease, Duration.ofMinutes(5));
+
+        assertThat(nodeA.tryAcquire("job")).isEmpty();
+        assertThat(nodeB.tryAcquire("job")).isEmpty();
+
+        LeaseService.Lease other = nodeB.tryAcquire("other").orElseThrow();
+        nodeB.release(other, Duration.ZERO);
+        assertThat(nodeA.tryAcquire("other")).isPresent();
+    }
+
+    private LeaseService node(String id, long ttlMs) {
+        LeaseService service = new LeaseService();
+        ReflectionTestUtils.setField(service, "leaseRepository", leaseRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "nodeId", id);
+        ReflectionTestUtils.setField(service, "ttlMs", ttlMs);
+        return service;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.vms.service;
+
+import com.example.vms.event.VisitorsOverdueEvent;
+import com.example.vms.repository.StaffRepository;
+import com.example.vms.repository.VisitLogRepository;
+import com.example.vms.repository.VisitorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OverdueServiceTests {
+
+    private static final int CHUNK = 3;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private VisitLogRepository visitLogRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<VisitorsOverdueEvent> events = new ArrayList<>();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private OverdueService service;
+    private long nextId = 1;
+
+    // staff 1: default stay (180 min); 2: own limit of 30; 3: 'Labs' department, 480;
+    // 4: own limit equal to the default, so it sweeps with everyone else
+    @BeforeEach
+    void setUp() {
+        clear();
+        for (long i = 1; i <= 4; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (?, ?, ?, 'x', 'ROLE_STAFF')",
+                    i, "host" + i, "host" + i + "@x.io");
+        }
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (1, 1, 'S1')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code, allowed_stay_minutes) VALUES (2, 2, 'S2', 30)");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code, department) VALUES (3, 3, 'S3', 'labs')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code, allowed_stay_minutes) VALUES (4, 4, 'S4', 180)");
+
+        StayPolicy stayPolicy = new StayPolicy();
+        ReflectionTestUtils.setField(stayPolicy, "staffRepository", staffRepository);
+        ReflectionTestUtils.setField(stayPolicy, "defaultStayMinutes", 180);
+        ReflectionTestUtils.setField(stayPolicy, "departmentStayMinutes", Map.of("Labs", 480));
+        stayPolicy.init();
+
+        service = new OverdueService();
+        ReflectionTestUtils.setField(service, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(service, "visitLogRepository", visitLogRepository);
+        ReflectionTestUtils.setField(service, "stayPolicy", stayPolicy);
+        ReflectionTestUtils.setField(service, "eventPublisher", (ApplicationEventPublisher) e -> events.add((VisitorsOverdueEvent) e));
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "chunkSize", CHUNK);
+    }
+
+    @Test
+    void appliesEachHostsOwnStayInChunks() {
+        List<Long> expected = new ArrayList<>();
+        // default stay: more than two chunks past it, two still inside it
+        expected.addAll(visitors(1, 7, 200));
+        visitors(1, 2, 100);
+        expected.addAll(visitors(4, 1, 181));
+        visitors(4, 1, 170);
+        // own 30-minute limit: exactly one chunk past it
+        expected.addAll(visitors(2, CHUNK, 40));
+        visitors(2, 1, 20);
+        // department limit of 480: the default would have caught the 200-minute ones
+        expected.addAll(visitors(3, 2, 500));
+        visitors(3, 3, 200);
+        // already left long ago
+        jdbcTemplate.update("UPDATE visitors SET status = 'EXITED' WHERE id = ?", visitors(1, 1, 600).get(0));
+
+        int marked = service.markOverdue();
+
+        assertThat(marked).isEqualTo(expected.size());
+        assertThat(idsWithStatus("OVERDUE")).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT visitor_id FROM visit_logs WHERE action = ?", Long.class, OverdueService.OVERDUE_ACTION))
+                .containsExactlyInAnyOrderElementsOf(expected);
+
+        assertThat(events).allSatisfy(e -> assertThat(e.visitorIds()).isNotEmpty().hasSizeLessThanOrEqualTo(CHUNK));
+        assertThat(events.stream().flatMap(e -> e.visitorIds().stream()).toList())
+                .containsExactlyInAnyOrderElementsOf(expected);
+
+        // nothing left to do, and nothing marked twice
+        events.clear();
+        assertThat(service.markOverdue()).isZero();
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void aShardOnlySweepsItsOwnHosts() {
+        List<Long> odd = new ArrayList<>(visitors(1, 4, 200));
+        odd.addAll(visitors(3, 1, 500));
+        visitors(2, 4, 40);
+        visitors(4, 1, 200);
+
+        int marked = service.markOverdue(1, 2, () -> { });
+
+        assertThat(marked).isEqualTo(odd.size());
+        assertThat(idsWithStatus("OVERDUE")).containsExactlyInAnyOrderElementsOf(odd);
+    }
+
+    @Test
+    void aFailingFenceLeavesTheChunkUntouched() {
+        visitors(1, 2, 200);
+
+        assertThatThrownBy(() -> service.markOverdue(0, 1, () -> {
+            throw new RuntimeException("lease lost");
+        })).hasMessage("lease lost");
+
+        assertThat(idsWithStatus("OVERDUE")).isEmpty();
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void firedDeadlinesSkipVisitorsWhoAlreadyLeft() {
+        List<Long> ids = visitors(2, 5, 40);
+        jdbcTemplate.update("UPDATE visitors SET status = 'EXITED' WHERE id = ?", ids.get(1));
+
+        assertThat(service.markOverdue(ids)).isEqualTo(4);
+        assertThat(idsWithStatus("EXITED")).containsExactly(ids.get(1));
+        assertThat(events).hasSize(2);
+    }
+
+    // the rows here are committed; other tests in the shared context expect empty tables
+    @AfterEach
+    void clear() {
+        for (String table : List.of("visit_logs", "visitors", "staff", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    private List<Long> visitors(long staffId, int count, int minutesAgo) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long id = nextId++;
+            jdbcTemplate.update("INSERT INTO visitors (id, staff_id, name, email, entry_time, status) VALUES (?, ?, ?, ?, ?, 'ACTIVE')",
+                    id, staffId, "v" + id, "v" + id + "@x.io", Timestamp.valueOf(now.minusMinutes(minutesAgo)));
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private List<Long> idsWithStatus(String status) {
+        return jdbcTemplate.queryForList("SELECT id FROM visitors WHERE status = ?", Long.class, status);
+    }
+}
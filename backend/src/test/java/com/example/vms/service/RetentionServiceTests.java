@@ -0,0 +1,150 @@
+package com.example.vms.service;
+
+import com.example.vms.event.VisitorsArchivedEvent;
+import com.example.vms.repository.CheckinOutboxRepository;
+import com.example.vms.repository.VisitorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RetentionServiceTests {
+
+    @TempDir
+    Path qrFolder;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private CheckinOutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Object> events = new ArrayList<>();
+    private final LocalDateTime cutoff = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private RetentionService service;
+    private QrService qrService;
+
+    // visitors 1-50 entered before the cutoff (odd ones EXITED), 51-60 after it, all EXITED
+    @BeforeEach
+    void setUp() throws Exception {
+        clear();
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (1, 'host1', 'h@x.io', 'x', 'ROLE_STAFF')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (1, 1, 'S1')");
+
+        List<Object[]> visitors = new ArrayList<>();
+        List<Object[]> outbox = new ArrayList<>();
+        for (long i = 1; i <= 60; i++) {
+            LocalDateTime entry = i <= 50 ? cutoff.minusDays(100 - i) : cutoff.plusDays(i);
+            String status = i <= 50 && i % 2 == 0 ? "OVERDUE" : "EXITED";
+            visitors.add(new Object[]{i, "v" + i, "v" + i + "@x.io", Timestamp.valueOf(entry), status});
+            outbox.add(new Object[]{i, i});
+            Files.write(qrFolder.resolve("visitor-" + i + ".png"), new byte[100]);
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO visitors (id, staff_id, name, email, entry_time, status) VALUES (?, 1, ?, ?, ?, ?)", visitors);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO checkin_outbox (id, visitor_id, status, attempts) VALUES (?, ?, 'DONE', 1)", outbox);
+        jdbcTemplate.update("INSERT INTO visitor_daily_rollups VALUES ('2024-10-01', 60, 0, 35, 25)");
+
+        qrService = new QrService();
+        ReflectionTestUtils.setField(qrService, "qrFolder", qrFolder.toString());
+
+        service = new RetentionService();
+        ReflectionTestUtils.setField(service, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(service, "outboxRepository", outboxRepository);
+        ReflectionTestUtils.setField(service, "qrService", qrService);
+        ReflectionTestUtils.setField(service, "eventPublisher", (ApplicationEventPublisher) events::add);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "chunkSize", 7);
+        ReflectionTestUtils.setField(service, "maxRunMs", 60_000L);
+        ReflectionTestUtils.setField(service, "qrOrphanMinAgeMs", 60_000L);
+    }
+
+    @Test
+    void movesOldExitedVisitorsInChunksAndLeavesEverythingElse() {
+        RetentionService.RunReport report = service.archive(cutoff, () -> { });
+
+        assertThat(report.archived()).isEqualTo(25);
+        assertThat(report.chunks()).isEqualTo(4);
+        assertThat(report.finished()).isTrue();
+        assertThat(report.maxLockMillis()).isGreaterThan(0);
+        assertThat(report.qrFilesDeleted()).isEqualTo(25);
+        assertThat(report.qrBytesFreed()).isEqualTo(2_500);
+
+        assertThat(count("visitors_archive")).isEqualTo(25);
+        assertThat(count("visitors")).isEqualTo(35);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM visitors WHERE status = 'EXITED' AND entry_time < ?", Long.class, cutoff)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM visitors_archive WHERE staff_username = 'host1' AND MOD(id, 2) = 1", Long.class)).isEqualTo(25);
+        assertThat(count("checkin_outbox")).isEqualTo(35);
+        assertThat(Files.exists(qrFolder.resolve("visitor-1.png"))).isFalse();
+        assertThat(Files.exists(qrFolder.resolve("visitor-2.png"))).isTrue();
+        assertThat(Files.exists(qrFolder.resolve("visitor-51.png"))).isTrue();
+
+        // counters are keyed by entry time and left as they were
+        assertThat(jdbcTemplate.queryForObject("SELECT total FROM visitor_daily_rollups", Long.class)).isEqualTo(60);
+        assertThat(events).hasSize(4).allMatch(e -> e instanceof VisitorsArchivedEvent);
+        assertThat(visitorRepository.findLastArchivedEntryTime()).isEqualTo(cutoff.minusDays(51));
+    }
+
+    @Test
+    void orphanSweepDeletesOnlyOldImagesWithoutAVisitor() throws Exception {
+        jdbcTemplate.update("DELETE FROM checkin_outbox WHERE visitor_id IN (3, 5)");
+        jdbcTemplate.update("DELETE FROM visitors WHERE id IN (3, 5)");
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(2)));
+        for (long i = 1; i <= 60; i++) {
+            if (i != 5) {
+                Files.setLastModifiedTime(qrFolder.resolve("visitor-" + i + ".png"), old);
+            }
+        }
+
+        QrService.Deleted deleted = service.sweepQrOrphans();
+
+        assertThat(deleted.files()).isEqualTo(1);
+        assertThat(Files.exists(qrFolder.resolve("visitor-3.png"))).isFalse();
+        assertThat(Files.exists(qrFolder.resolve("visitor-5.png"))).isTrue(); // too new to judge
+        assertThat(Files.exists(qrFolder.resolve("visitor-4.png"))).isTrue();
+    }
+
+    // the rows here are committed; other tests in the shared context expect empty tables
+    @AfterEach
+    void clear() {
+        for (String table : List.of("visitors_archive", "checkin_outbox", "visitor_daily_rollups", "visitors", "staff", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.vms.service;
+
+import com.example.vms.dto.CursorPage;
+import com.example.vms.dto.VisitLogDTO;
+import com.example.vms.mapper.VisitLogMapperImpl;
+import com.example.vms.model.VisitLog;
+import com.example.vms.repository.VisitLogRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class VisitLogServiceTests {
+
+    @Autowired
+    private VisitLogRepository visitLogRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private VisitLogService service;
+    private final LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    // 300 rows, many sharing a timestamp so paging has to rely on the id tie-breaker
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM visit_logs"); // rows committed by other tests in the shared context
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = 0; i < 300; i++) {
+            String action = i % 3 == 0 ? VisitLog.EXITED : VisitLog.ENTERED;
+            rows.add(new Object[]{1 + i % 10, "host" + (i % 4), action, Timestamp.valueOf(base.plusHours(i / 5))});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO visit_logs (visitor_id, staff_username, action, timestamp) VALUES (?, ?, ?, ?)", rows);
+
+        service = new VisitLogService();
+        ReflectionTestUtils.setField(service, "visitLogRepository", visitLogRepository);
+        ReflectionTestUtils.setField(service, "visitLogMapper", new VisitLogMapperImpl());
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "streamChunk", 7);
+        ReflectionTestUtils.setField(service, "streamMax", 1_000_000);
+    }
+
+    @Test
+    void cursorPagesWalkTheFilteredHistoryNewestFirstWithoutGapsOrRepeats() {
+        LocalDateTime from = base.plusHours(5);
+        LocalDateTime to = base.plusHours(40);
+        long expected = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM visit_logs
+                WHERE staff_username = 'host1' AND action = 'ENTERED' AND timestamp BETWEEN ? AND ?
+                """, Long.class, from, to);
+
+        List<VisitLogDTO> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<VisitLogDTO> page = service.history(null, "host1", VisitLog.ENTERED, from, to, cursor, 4);
+            seen.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize((int) expected);
+        assertThat(seen).extracting(VisitLogDTO::getId).doesNotHaveDuplicates();
+        assertThat(seen).allSatisfy(log -> {
+            assertThat(log.getStaffUsername()).isEqualTo("host1");
+            assertThat(log.getAction()).isEqualTo(VisitLog.ENTERED);
+            assertThat(log.getTimestamp()).isBetween(from, to);
+        });
+        for (int i = 1; i < seen.size(); i++) {
+            VisitLogDTO prev = seen.get(i - 1);
+            VisitLogDTO cur = seen.get(i);
+            int c = cur.getTimestamp().compareTo(prev.getTimestamp());
+            assertThat(c < 0 || (c == 0 && cur.getId() < prev.getId())).as("row %d in order", i).isTrue();
+        }
+    }
+
+    @Test
+    void streamWritesOneJsonLinePerRowAndATrailerCursorWhenCutShort() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        service.streamHistory(3L, null, null, null, null, null, 20, first);
+
+        List<JsonNode> lines = lines(first);
+        assertThat(first.getContentType()).startsWith(VisitLogService.NDJSON);
+        assertThat(lines).hasSize(21);
+        assertThat(lines.subList(0, 20)).allSatisfy(n -> assertThat(n.get("visitorId").asLong()).isEqualTo(3));
+        String cursor = lines.get(20).get("nextCursor").asText();
+
+        MockHttpServletResponse rest = new MockHttpServletResponse();
+        service.streamHistory(3L, null, null, null, null, cursor, 1_000, rest);
+
+        List<JsonNode> tail = lines(rest);
+        assertThat(tail).hasSize(10); // 30 rows for visitor 3, no trailer once exhausted
+        assertThat(tail).noneMatch(n -> n.has("nextCursor"));
+        assertThat(tail.get(0).get("id").asLong()).isLessThan(lines.get(19).get("id").asLong());
+    }
+
+    @Test
+    void unknownActionIsRejected() {
+        assertThatThrownBy(() -> service.history(null, null, "DELETED", null, null, null, 10))
+                .hasMessageContaining("Unknown action");
+    }
+
+    private List<JsonNode> lines(MockHttpServletResponse response) throws Exception {
+        List<JsonNode> out = new ArrayList<>();
+        for (String line : response.getContentAsString().split("\n")) {
+            if (!line.isBlank()) {
+                out.add(objectMapper.readTree(line));
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.vms.service;
+
+import com.example.vms.model.VisitLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VisitLogWriterTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private VisitLogWriter writer;
+    private final LocalDateTime now = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM visit_logs");
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Test
+    void durableRowsAreInsertedOnceAtCommitAndRolledBackWithTheTransaction() {
+        writer = writer(true);
+
+        tx.executeWithoutResult(status -> {
+            writer.record(1, "host1", VisitLog.ENTERED, now);
+            writer.recordAll(List.of(log(2, VisitLog.ENTERED), log(3, VisitLog.EXITED)));
+            assertThat(count()).isZero(); // still collected, not yet written
+        });
+        assertThat(count()).isEqualTo(3);
+
+        tx.executeWithoutResult(status -> {
+            writer.record(4, "host1", VisitLog.EXITED, now);
+            status.setRollbackOnly();
+        });
+        assertThat(count()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList("SELECT staff_username FROM visit_logs", String.class))
+                .containsOnly("host1");
+    }
+
+    @Test
+    void bufferedRowsAreFlushedInTheBackgroundOnlyAfterCommit() throws InterruptedException {
+        writer = writer(false);
+
+        tx.executeWithoutResult(status -> {
+            writer.record(1, "host1", VisitLog.ENTERED, now);
+            status.setRollbackOnly();
+        });
+        tx.executeWithoutResult(status -> writer.recordAll(List.of(log(2, VisitLog.ENTERED), log(3, VisitLog.ENTERED))));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (count() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(jdbcTemplate.queryForList("SELECT visitor_id FROM visit_logs", Long.class))
+                .containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    private VisitLogWriter writer(boolean durable) {
+        VisitLogWriter w = new VisitLogWriter();
+        ReflectionTestUtils.setField(w, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(w, "durable", durable);
+        ReflectionTestUtils.setField(w, "batchSize", 100);
+        ReflectionTestUtils.setField(w, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(w, "maxPending", 1_000);
+        w.start();
+        return w;
+    }
+
+    private VisitLog log(long visitorId, String action) {
+        return VisitLog.builder().visitorId(visitorId).staffUsername("host1").action(action).timestamp(now).build();
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visit_logs", Long.class);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.vms.service;
+
+import com.example.vms.cache.ActiveVisitor;
+import com.example.vms.cache.ActiveVisitorRegistry;
+import com.example.vms.dto.VisitorResponseDTO;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.mapper.VisitorMapperImpl;
+import com.example.vms.model.VisitLog;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Exits through both paths (registry hit and DB fallback): overdue visitors
+ * may leave, and the event says which status the row left.
+ */
+@DataJpaTest
+class VisitorExitTests {
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private final VisitLogWriter visitLogWriter = mock(VisitLogWriter.class);
+    private final List<VisitorExitedEvent> events = new ArrayList<>();
+
+    private ActiveVisitorRegistry registry;
+    private VisitorService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (1, 'host1', 'h@x.io', 'x', 'ROLE_STAFF')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (1, 1, 'S1')");
+
+        registry = new ActiveVisitorRegistry();
+        ReflectionTestUtils.setField(registry, "visitorRepository", visitorRepository);
+
+        service = new VisitorService();
+        ReflectionTestUtils.setField(service, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(service, "activeVisitorRegistry", registry);
+        ReflectionTestUtils.setField(service, "visitorMapper", new VisitorMapperImpl());
+        ReflectionTestUtils.setField(service, "visitLogWriter", visitLogWriter);
+        ReflectionTestUtils.setField(service, "eventPublisher", (ApplicationEventPublisher) e -> events.add((VisitorExitedEvent) e));
+    }
+
+    @Test
+    void anOverdueVisitorExitsFromTheDatabase() {
+        insert(1, VisitorStatus.OVERDUE);
+
+        VisitorResponseDTO exited = service.exitVisitor(1L);
+
+        assertThat(exited.getStatus()).isEqualTo("EXITED");
+        assertThat(statusOf(1)).isEqualTo("EXITED");
+        assertThat(events).singleElement()
+                .satisfies(e -> assertThat(e.previousStatus()).isEqualTo(VisitorStatus.OVERDUE));
+        verify(visitLogWriter).record(eq(1L), eq("host1"), eq(VisitLog.EXITED), any());
+    }
+
+    @Test
+    void anOverdueVisitorExitsThroughTheRegistry() {
+        insert(1, VisitorStatus.OVERDUE);
+        onSite(1);
+
+        service.exitVisitor(1L);
+
+        assertThat(statusOf(1)).isEqualTo("EXITED");
+        assertThat(events).singleElement()
+                .satisfies(e -> assertThat(e.previousStatus()).isEqualTo(VisitorStatus.OVERDUE));
+    }
+
+    @Test
+    void theRowDecidesWhenTheRegistryMissedAnOverdueMark() {
+        // checked in here as ACTIVE, marked OVERDUE by the sweep on the other node
+        insert(1, VisitorStatus.ACTIVE);
+        onSite(1);
+        jdbcTemplate.update("UPDATE visitors SET status = 'OVERDUE' WHERE id = 1");
+        insert(2, VisitorStatus.ACTIVE);
+        onSite(2);
+
+        service.exitVisitor(1L);
+        service.exitVisitor(2L);
+
+        assertThat(events).extracting(VisitorExitedEvent::previousStatus)
+                .containsExactly(VisitorStatus.OVERDUE, VisitorStatus.ACTIVE);
+        assertThat(statusOf(1)).isEqualTo("EXITED");
+        assertThat(statusOf(2)).isEqualTo("EXITED");
+    }
+
+    @Test
+    void aVisitorCannotExitTwice() {
+        insert(1, VisitorStatus.EXITED);
+        assertThatThrownBy(() -> service.exitVisitor(1L)).hasMessage("Visitor already exited");
+
+        // the registry still lists a visitor another node has let out
+        insert(2, VisitorStatus.ACTIVE);
+        onSite(2);
+        jdbcTemplate.update("UPDATE visitors SET status = 'EXITED' WHERE id = 2");
+        assertThatThrownBy(() -> service.exitVisitor(2L)).hasMessage("Visitor already exited");
+
+        assertThat(events).isEmpty();
+        verifyNoInteractions(visitLogWriter);
+    }
+
+    private void insert(long id, VisitorStatus status) {
+        jdbcTemplate.update("INSERT INTO visitors (id, staff_id, name, email, entry_time, status) VALUES (?, 1, ?, ?, ?, ?)",
+                id, "v" + id, "v" + id + "@x.io", Timestamp.valueOf(LocalDateTime.now().minusHours(5)), status.name());
+    }
+
+    private void onSite(long id) {
+        registry.onCheckedIn(new VisitorCheckedInEvent(List.of(ActiveVisitor.of(visitorRepository.findById(id).orElseThrow()))));
+    }
+
+    private String statusOf(long id) {
+        em.flush();
+        return jdbcTemplate.queryForObject("SELECT status FROM visitors WHERE id = ?", String.class, id);
+    }
+}
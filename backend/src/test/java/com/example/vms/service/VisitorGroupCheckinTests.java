@@ -0,0 +1,162 @@
+package com.example.vms.service;
+
+import com.example.vms.JpaBatchConfig;
+import com.example.vms.dto.VisitorRequestDTO;
+import com.example.vms.dto.VisitorResponseDTO;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.mapper.VisitorMapperImpl;
+import com.example.vms.model.Visitor;
+import com.example.vms.repository.StaffRepository;
+import com.example.vms.repository.VisitorRepository;
+import jakarta.persistence.SequenceGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Group check-in against ids seeded above rows written before the pooled sequence.
+ * Runs in its own context so no Hibernate optimizer has already cached an id block.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=50")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VisitorGroupCheckinTests {
+
+    private static final long LEGACY_MAX_ID = 1234;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CheckinOutboxService checkinOutboxService = mock(CheckinOutboxService.class);
+    private final VisitLogWriter visitLogWriter = mock(VisitLogWriter.class);
+    private final List<Object> events = new ArrayList<>();
+
+    private VisitorService service;
+
+    @BeforeEach
+    void setUp() {
+        clear();
+        for (long i = 1; i <= 2; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (?, ?, ?, 'x', 'ROLE_STAFF')",
+                    i, "host" + i, "host" + i + "@x.io");
+            jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (?, ?, ?)", i, i, "S" + i);
+        }
+        // written through AUTO_INCREMENT before the sequence existed
+        for (long id : List.of(7L, LEGACY_MAX_ID - 1, LEGACY_MAX_ID)) {
+            jdbcTemplate.update("INSERT INTO visitors (id, staff_id, name, email, entry_time, status) VALUES (?, 1, ?, ?, ?, 'EXITED')",
+                    id, "old" + id, "old" + id + "@x.io", Timestamp.valueOf(LocalDateTime.now().minusDays(3)));
+        }
+
+        service = new VisitorService();
+        ReflectionTestUtils.setField(service, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(service, "staffRepository", staffRepository);
+        ReflectionTestUtils.setField(service, "visitorMapper", new VisitorMapperImpl());
+        ReflectionTestUtils.setField(service, "checkinOutboxService", checkinOutboxService);
+        ReflectionTestUtils.setField(service, "visitLogWriter", visitLogWriter);
+        ReflectionTestUtils.setField(service, "eventPublisher", (ApplicationEventPublisher) events::add);
+        ReflectionTestUtils.setField(service, "maxGroupSize", 1000);
+    }
+
+    @Test
+    void seedingStartsTheFirstPooledBlockAboveTheLegacyIds() throws Exception {
+        long before = nextVal();
+
+        seed();
+
+        long seeded = nextVal();
+        assertThat(seeded).isEqualTo(Math.max(before, LEGACY_MAX_ID + allocationSize() + 1));
+        assertThat(seeded - allocationSize() + 1).isGreaterThan(LEGACY_MAX_ID);
+
+        // never moves the sequence backwards
+        jdbcTemplate.update("UPDATE visitors_seq SET next_val = ?", seeded + 500);
+        seed();
+        assertThat(nextVal()).isEqualTo(seeded + 500);
+    }
+
+    @Test
+    void checksInAGroupWithOneBatchOfFreshIds() throws Exception {
+        seed();
+        List<VisitorRequestDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            dtos.add(request("v" + i, 1 + i % 2L));
+        }
+
+        List<VisitorResponseDTO> saved = new TransactionTemplate(transactionManager)
+                .execute(status -> service.addVisitors(dtos));
+
+        assertThat(saved).hasSize(dtos.size());
+        assertThat(saved).extracting(VisitorResponseDTO::getId)
+                .doesNotHaveDuplicates()
+                .allSatisfy(id -> assertThat(id).isGreaterThan(LEGACY_MAX_ID));
+        assertThat(saved).extracting(VisitorResponseDTO::getEntryTime).containsOnly(saved.get(0).getEntryTime());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visitors WHERE status = 'ACTIVE'", Long.class))
+                .isEqualTo(dtos.size());
+
+        verify(checkinOutboxService).enqueue(anyList());
+        verify(visitLogWriter).recordAll(argThat(logs -> logs.size() == dtos.size()));
+        assertThat(events).singleElement()
+                .satisfies(e -> assertThat(((VisitorCheckedInEvent) e).visitors()).hasSize(dtos.size()));
+    }
+
+    @Test
+    void anUnknownHostRejectsTheWholeGroup() {
+        List<VisitorRequestDTO> dtos = List.of(request("a", 1L), request("b", 99L));
+
+        assertThatThrownBy(() -> service.addVisitors(dtos)).hasMessage("Staff not found: 99");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visitors WHERE status = 'ACTIVE'", Long.class)).isZero();
+        verifyNoInteractions(checkinOutboxService, visitLogWriter);
+        assertThat(events).isEmpty();
+    }
+
+    // the rows here are committed; other tests in the shared context expect empty tables
+    @AfterEach
+    void clear() {
+        for (String table : List.of("visitors", "staff", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    private void seed() throws Exception {
+        new JpaBatchConfig().seedIdSequences(jdbcTemplate).run(null);
+    }
+
+    private long nextVal() {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM visitors_seq", Long.class);
+    }
+
+    private static int allocationSize() throws Exception {
+        return Visitor.class.getDeclaredField("id").getAnnotation(SequenceGenerator.class).allocationSize();
+    }
+
+    private static VisitorRequestDTO request(String name, long staffId) {
+        return VisitorRequestDTO.builder().name(name).email(name + "@x.io").staffId(staffId).build();
+    }
+}
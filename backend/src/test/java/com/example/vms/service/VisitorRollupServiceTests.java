@@ -0,0 +1,258 @@
+package com.example.vms.service;
+
+import com.example.vms.cache.ActiveVisitor;
+import com.example.vms.event.VisitorCheckedInEvent;
+import com.example.vms.event.VisitorExitedEvent;
+import com.example.vms.event.VisitorsOverdueEvent;
+import com.example.vms.model.DeliveryStatus;
+import com.example.vms.model.VisitorStatus;
+import com.example.vms.repository.VisitorDailyRollupRepository;
+import com.example.vms.repository.VisitorHourlyRollupRepository;
+import com.example.vms.repository.VisitorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VisitorRollupServiceTests {
+
+    @Autowired
+    private VisitorHourlyRollupRepository hourlyRepository;
+
+    @Autowired
+    private VisitorDailyRollupRepository dailyRepository;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private VisitorRollupService service;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final LocalDateTime midnight = now.truncatedTo(ChronoUnit.DAYS);
+    private final LocalDateTime thisHour = now.truncatedTo(ChronoUnit.HOURS);
+    // not on an hour boundary, so the leading partial hour is read from visitors
+    private final LocalDateTime from = midnight.minusDays(2).plusMinutes(30);
+
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        clear();
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, role) VALUES (1, 'host1', 'h@x.io', 'x', 'ROLE_STAFF')");
+        jdbcTemplate.update("INSERT INTO staff (id, user_id, staff_code) VALUES (1, 1, 'S1')");
+
+        service = new VisitorRollupService();
+        ReflectionTestUtils.setField(service, "hourlyRepository", hourlyRepository);
+        ReflectionTestUtils.setField(service, "dailyRepository", dailyRepository);
+        ReflectionTestUtils.setField(service, "visitorRepository", visitorRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+    }
+
+    @Test
+    void incrementalCountersMatchTheVisitorsTable() {
+        checkInExitAndMarkOverdueAcrossBoundaries();
+
+        assertRollupsMatchVisitors();
+    }
+
+    @Test
+    void readSinceMatchesTheVisitorsTable() {
+        checkInExitAndMarkOverdueAcrossBoundaries();
+
+        VisitorRollupService.Window window = service.readSince(from);
+
+        assertThat(window.total()).isEqualTo(countRaw(from, null));
+        assertThat(window.active()).isEqualTo(countRaw(from, VisitorStatus.ACTIVE));
+        assertThat(window.exited()).isEqualTo(countRaw(from, VisitorStatus.EXITED));
+        assertThat(window.overdue()).isEqualTo(countRaw(from, VisitorStatus.OVERDUE));
+
+        Map<LocalDate, Long> perDay = new TreeMap<>();
+        jdbcTemplate.query("SELECT DATE(entry_time), COUNT(*) FROM visitors WHERE entry_time >= ? GROUP BY DATE(entry_time)",
+                rs -> {
+                    perDay.put(rs.getDate(1).toLocalDate(), rs.getLong(2));
+                }, Timestamp.valueOf(from));
+        assertThat(window.perDay()).isEqualTo(perDay);
+        assertThat(window.perHour().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(window.total());
+    }
+
+    @Test
+    void backfillRebuildsWhatTheIncrementalUpdatesProduced() {
+        checkInExitAndMarkOverdueAcrossBoundaries();
+        List<String> hourly = hourlyRows();
+        List<String> daily = dailyRows();
+
+        jdbcTemplate.update("DELETE FROM visitor_hourly_rollups");
+        jdbcTemplate.update("DELETE FROM visitor_daily_rollups");
+        int days = service.backfill(midnight.minusDays(3).toLocalDate(), midnight.toLocalDate());
+
+        assertThat(days).isEqualTo(4);
+        assertThat(hourlyRows()).isEqualTo(hourly);
+        assertThat(dailyRows()).isEqualTo(daily);
+    }
+
+    @Test
+    void backfillReplacesDriftedCounters() {
+        checkInExitAndMarkOverdueAcrossBoundaries();
+        jdbcTemplate.update("UPDATE visitor_hourly_rollups SET total = total + 5, active = 0");
+        jdbcTemplate.update("UPDATE visitor_daily_rollups SET exited = 99");
+
+        service.backfill(midnight.minusDays(3).toLocalDate(), midnight.toLocalDate());
+
+        assertThat(hourlyRepository.count()).isPositive();
+        assertRollupsMatchVisitors();
+    }
+
+    // the rows here are committed; other tests in the shared context expect empty tables
+    @AfterEach
+    void clear() {
+        for (String table : List.of("visitor_hourly_rollups", "visitor_daily_rollups", "visitors", "staff", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    // -------------------------------
+    // SCENARIO
+    // -------------------------------
+    private void checkInExitAndMarkOverdueAcrossBoundaries() {
+        List<LocalDateTime> entries = new ArrayList<>(List.of(
+                from.minusMinutes(1),                           // before the window
+                from, from.plusMinutes(29),                      // leading partial hour
+                midnight.minusDays(1).minusSeconds(1),           // last instant of a day
+                midnight.minusDays(1),                           // first instant of the next
+                midnight.minusDays(1).plusHours(13).plusMinutes(59),
+                midnight.minusNanos(1000),
+                midnight,
+                thisHour.minusSeconds(1),                        // hour boundary in the live day
+                thisHour,
+                now));
+        // a group check-in of several visitors in the same and in different buckets
+        List<Long> group = new ArrayList<>();
+        for (LocalDateTime entry : entries) {
+            group.add(insert(entry));
+            group.add(insert(entry));
+        }
+        service.onCheckedIn(checkedIn(group));
+        long single = insert(midnight.minusDays(1).plusHours(8));
+        service.onCheckedIn(checkedIn(List.of(single)));
+
+        // exits, one by one
+        for (int i = 0; i < group.size(); i += 3) {
+            exit(group.get(i), VisitorStatus.ACTIVE);
+        }
+        // an overdue sweep marks a batch spanning several buckets
+        List<Long> overdue = new ArrayList<>();
+        for (int i = 1; i < group.size(); i += 3) {
+            overdue.add(group.get(i));
+        }
+        overdue.add(single);
+        jdbcTemplate.update("UPDATE visitors SET status = 'OVERDUE' WHERE id IN (" + join(overdue) + ")");
+        service.onOverdue(new VisitorsOverdueEvent(overdue));
+
+        // some overdue visitors leave afterwards
+        for (int i = 0; i < overdue.size(); i += 4) {
+            exit(overdue.get(i), VisitorStatus.OVERDUE);
+        }
+    }
+
+    private long insert(LocalDateTime entry) {
+        long id = nextId++;
+        jdbcTemplate.update("INSERT INTO visitors (id, staff_id, name, email, entry_time, status) VALUES (?, 1, ?, ?, ?, 'ACTIVE')",
+                id, "v" + id, "v" + id + "@x.io", Timestamp.valueOf(entry));
+        return id;
+    }
+
+    private void exit(long id, VisitorStatus from) {
+        jdbcTemplate.update("UPDATE visitors SET status = 'EXITED', exit_time = ? WHERE id = ?", Timestamp.valueOf(now), id);
+        service.onExited(new VisitorExitedEvent(id, now, from));
+    }
+
+    // -------------------------------
+    // CHECKS
+    // -------------------------------
+    private void assertRollupsMatchVisitors() {
+        List<Map<String, Object>> hours = jdbcTemplate.queryForList("SELECT * FROM visitor_hourly_rollups");
+        assertThat(hours).isNotEmpty();
+        long hourlyTotal = 0;
+        for (Map<String, Object> h : hours) {
+            LocalDateTime start = ((Timestamp) h.get("bucket_start")).toLocalDateTime();
+            assertBucket(h, start, start.plusHours(1));
+            hourlyTotal += (Long) h.get("total");
+        }
+        assertThat(hourlyTotal).isEqualTo(countRaw(LocalDateTime.MIN, null));
+
+        List<Map<String, Object>> days = jdbcTemplate.queryForList("SELECT * FROM visitor_daily_rollups");
+        assertThat(days).hasSize(3);
+        for (Map<String, Object> d : days) {
+            LocalDateTime start = ((java.sql.Date) d.get("bucket_date")).toLocalDate().atStartOfDay();
+            assertBucket(d, start, start.plusDays(1));
+        }
+    }
+
+    private void assertBucket(Map<String, Object> row, LocalDateTime start, LocalDateTime end) {
+        assertThat(row.get("total")).as("total %s", start).isEqualTo(countRaw(start, end, null));
+        assertThat(row.get("active")).as("active %s", start).isEqualTo(countRaw(start, end, VisitorStatus.ACTIVE));
+        assertThat(row.get("exited")).as("exited %s", start).isEqualTo(countRaw(start, end, VisitorStatus.EXITED));
+        assertThat(row.get("overdue")).as("overdue %s", start).isEqualTo(countRaw(start, end, VisitorStatus.OVERDUE));
+    }
+
+    private long countRaw(LocalDateTime start, VisitorStatus status) {
+        return countRaw(start.equals(LocalDateTime.MIN) ? LocalDateTime.of(2000, 1, 1, 0, 0) : start,
+                now.plusDays(1), status);
+    }
+
+    private long countRaw(LocalDateTime start, LocalDateTime end, VisitorStatus status) {
+        return status == null
+                ? jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visitors WHERE entry_time >= ? AND entry_time < ?",
+                Long.class, Timestamp.valueOf(start), Timestamp.valueOf(end))
+                : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visitors WHERE entry_time >= ? AND entry_time < ? AND status = ?",
+                Long.class, Timestamp.valueOf(start), Timestamp.valueOf(end), status.name());
+    }
+
+    private List<String> hourlyRows() {
+        return jdbcTemplate.queryForList(
+                "SELECT CONCAT(bucket_start, ' ', total, ' ', active, ' ', exited, ' ', overdue) FROM visitor_hourly_rollups ORDER BY bucket_start",
+                String.class);
+    }
+
+    private List<String> dailyRows() {
+        return jdbcTemplate.queryForList(
+                "SELECT CONCAT(bucket_date, ' ', total, ' ', active, ' ', exited, ' ', overdue) FROM visitor_daily_rollups ORDER BY bucket_date",
+                String.class);
+    }
+
+    private static VisitorCheckedInEvent checkedIn(List<Long> ids) {
+        return new VisitorCheckedInEvent(ids.stream()
+                .map(id -> new ActiveVisitor(id, "v" + id, "v" + id + "@x.io", null, null, 1L, "host1",
+                        null, VisitorStatus.ACTIVE, null, DeliveryStatus.PENDING))
+                .toList());
+    }
+
+    private static String join(List<Long> ids) {
+        return String.join(",", ids.stream().map(String::valueOf).toList());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.vms.support;
+
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory JavaMailSender for tests: builds real MimeMessages but never
+ * opens an SMTP connection. Plain-text messages are recorded separately.
+ * Can be told to fail the next N sends.
+ */
+public class FakeJavaMailSender extends JavaMailSenderImpl {
+
+    private final List<MimeMessage> sent = new CopyOnWriteArrayList<>();
+    private final List<SimpleMailMessage> sentSimple = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    public void failNext(int count) {
+        failuresLeft.set(count);
+    }
+
+    public List<MimeMessage> getSent() {
+        return sent;
+    }
+
+    public List<SimpleMailMessage> getSentSimple() {
+        return sentSimple;
+    }
+
+    @Override
+    public void send(MimeMessage... mimeMessages) {
+        if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new MailSendException("Simulated SMTP failure");
+        }
+        sent.addAll(List.of(mimeMessages));
+    }
+
+    @Override
+    public void send(SimpleMailMessage... simpleMessages) {
+        if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new MailSendException("Simulated SMTP failure");
+        }
+        sentSimple.addAll(List.of(simpleMessages));
+    }
+}
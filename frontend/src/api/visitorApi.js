@@ -9,6 +9,11 @@ export const addVisitor = (data) => {
   return api.post("/visitors", data);
 };
 
+// ⭐ GROUP CHECK-IN (list of visitors in one request)
+export const addVisitorGroup = (visitors) => {
+  return api.post("/visitors/group", visitors);
+};
+
 // ⭐ BASIC SEARCH (name, email, phone)
 export const searchVisitors = (keyword, page = 0, size = 10) => {
   return api.get("/visitors/search", {
@@ -78,3 +83,18 @@ export const exportVisitorsExcel = (params) => {
 
 
 
+
+// ⭐ BACKGROUND EXPORT JOBS (large ranges)
+export const submitExportJob = (params) => {
+  return api.post("/visitors/export/jobs", null, { params });
+};
+
+export const getExportJob = (jobId) => {
+  return api.get(`/visitors/export/jobs/${jobId}`);
+};
+
+export const downloadExportJob = (jobId) => {
+  return api.get(`/visitors/export/jobs/${jobId}/file`, {
+    responseType: "blob",
+  });
+};
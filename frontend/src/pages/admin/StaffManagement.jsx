@@ -70,6 +70,9 @@ export default function StaffManagement() {
         department: editStaff.department,
         designation: editStaff.designation,
         phone: editStaff.phone,
+        allowedStayMinutes: editStaff.allowedStayMinutes
+          ? Number(editStaff.allowedStayMinutes)
+          : null,
       });
 
       closeEditModal();
@@ -249,7 +252,7 @@ export default function StaffManagement() {
               Edit Staff
             </h3>
 
-            {["fullName", "department", "designation", "phone"].map((field) => (
+            {["fullName", "department", "designation", "phone", "allowedStayMinutes"].map((field) => (
               <input
                 key={field}
                 name={field}